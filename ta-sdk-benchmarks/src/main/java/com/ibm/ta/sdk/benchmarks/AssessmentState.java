@@ -0,0 +1,169 @@
+/*
+ * (C) Copyright IBM Corp. 2019,2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.ta.sdk.benchmarks;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.reflect.TypeToken;
+import com.ibm.ta.sdk.core.assessment.GenericRecommendation;
+import com.ibm.ta.sdk.core.assessment.IssueRule;
+import com.ibm.ta.sdk.core.collect.GenericAssessmentUnit;
+import com.ibm.ta.sdk.core.detector.IssueRuleTypeProvider;
+import com.ibm.ta.sdk.core.util.GenericUtil;
+import com.ibm.ta.sdk.spi.collect.AssessmentUnit;
+import com.ibm.ta.sdk.spi.collect.ContentMask;
+import com.ibm.ta.sdk.spi.plugin.TAException;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.stream.Stream;
+
+/**
+ * Synthetic rules and assessment unit shared by the benchmarks. The files are generated in a temporary directory
+ * for each combination of parameters, and deleted at the end of the trial.
+ *
+ * The parameters can be changed on the JMH command line, e.g. {@code -p issues=1000 -p configElements=100000}.
+ */
+@State(Scope.Benchmark)
+public class AssessmentState {
+  private static final String ASSESSMENT_NAME = "benchmark";
+  private static final String AU_NAME = "au";
+
+  @Param({"30", "300"})
+  public int issues;
+
+  @Param({"10", "100"})
+  public int occurrences;
+
+  @Param({"100", "10000"})
+  public int configElements;
+
+  private Path dir;
+  private GenericRecommendation recommendation;
+  private GenericAssessmentUnit assessmentUnit;
+  private List<JsonObject> issueRulesJson;
+
+  @Setup
+  public void setup() throws IOException, TAException {
+    dir = Files.createTempDirectory("ta-sdk-benchmarks");
+    new SyntheticAssessmentData(issues, occurrences, configElements).write(dir);
+
+    recommendation = new GenericRecommendation(ASSESSMENT_NAME,
+            dir.resolve(SyntheticAssessmentData.ISSUES_JSON),
+            dir.resolve(SyntheticAssessmentData.ISSUE_CATEGORIES_JSON),
+            dir.resolve(SyntheticAssessmentData.COMPLEXITIES_JSON),
+            dir.resolve(SyntheticAssessmentData.TARGETS_JSON));
+    assessmentUnit = new GenericAssessmentUnit(AU_NAME, dir.resolve(SyntheticAssessmentData.DATA_JSON),
+            Arrays.asList(dir.resolve(SyntheticAssessmentData.CONFIG_JSON), dir.resolve(SyntheticAssessmentData.CONFIG_XML)));
+
+    issueRulesJson = new ArrayList<>();
+    JsonObject issuesJson = GenericUtil.getJson(dir.resolve(SyntheticAssessmentData.ISSUES_JSON)).getAsJsonObject();
+    for (JsonElement issueRuleJson : issuesJson.getAsJsonArray("issues")) {
+      issueRulesJson.add(issueRuleJson.getAsJsonObject());
+    }
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    try (Stream<Path> paths = Files.walk(dir)) {
+      for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+        Files.delete(path);
+      }
+    }
+  }
+
+  public Path getDir() {
+    return dir;
+  }
+
+  public GenericRecommendation getRecommendation() {
+    return recommendation;
+  }
+
+  public GenericAssessmentUnit getAssessmentUnit() {
+    return assessmentUnit;
+  }
+
+  /**
+   * Get an assessment unit with the same data and config files as {@link #getAssessmentUnit()}, that is a different
+   * object. The issue rule processor keeps the occurrences of target independent rules for each assessment unit
+   * object, so the rules are evaluated again for a new assessment unit. Parsed JSON documents are still shared, as
+   * they are for all the rules of an assessment unit.
+   */
+  public AssessmentUnit newAssessmentUnit() {
+    return new DelegatingAssessmentUnit(assessmentUnit);
+  }
+
+  /**
+   * Get the issue rules of a kind, with the match criteria of the rule type provider
+   *
+   * @param kind Kind of rules
+   * @param ruleProvider Provider of the rule type
+   * @return Issue rules
+   */
+  public List<IssueRule> getIssueRules(SyntheticAssessmentData.RuleKind kind, IssueRuleTypeProvider ruleProvider) {
+    List<IssueRule> issueRules = new ArrayList<>();
+    for (int rule = 0; rule < issueRulesJson.size(); rule++) {
+      if (SyntheticAssessmentData.getRuleKind(rule) == kind) {
+        IssueRule issueRule = GenericUtil.getJsonObj(new TypeToken<IssueRule>(){}, issueRulesJson.get(rule));
+        issueRule.setMatchCriteria(ruleProvider.getIssueMatchCriteria(issueRule.getMatchCriteriaJson()));
+        issueRules.add(issueRule);
+      }
+    }
+    return issueRules;
+  }
+
+  private static class DelegatingAssessmentUnit implements AssessmentUnit {
+    private final AssessmentUnit assessmentUnit;
+
+    private DelegatingAssessmentUnit(AssessmentUnit assessmentUnit) {
+      this.assessmentUnit = assessmentUnit;
+    }
+
+    @Override
+    public String getName() {
+      return assessmentUnit.getName();
+    }
+
+    @Override
+    public JsonObject getAssessmentData() {
+      return assessmentUnit.getAssessmentData();
+    }
+
+    @Override
+    public List<Path> getConfigFiles() {
+      return assessmentUnit.getConfigFiles();
+    }
+
+    @Override
+    public List<ContentMask> getContentMasks() {
+      return assessmentUnit.getContentMasks();
+    }
+
+    @Override
+    public Properties getIdentifier() {
+      return assessmentUnit.getIdentifier();
+    }
+
+    @Override
+    public Map<String, Object> getAdditionalInfo() {
+      return assessmentUnit.getAdditionalInfo();
+    }
+  }
+}
@@ -0,0 +1,106 @@
+/*
+ * (C) Copyright IBM Corp. 2019,2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.ta.sdk.benchmarks;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonWriter;
+import com.ibm.ta.sdk.core.assessment.GenericRecommendation;
+import com.ibm.ta.sdk.core.assessment.RuleCatalog;
+import com.ibm.ta.sdk.spi.assess.RecommendationJson;
+import com.ibm.ta.sdk.spi.collect.StagedDataCollection;
+import com.ibm.ta.sdk.spi.plugin.TAException;
+import org.apache.commons.io.output.NullWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Assessing every collection unit of an estate generated by {@link EstateGenerator}, as assess --skipcollect does:
+ * the collection is loaded from its output directory, the rules are loaded for the collection, and the
+ * recommendations.json is written. The recommendations.json is discarded.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class EstateBenchmark {
+  @Param({"4"})
+  public int collectionUnits;
+
+  @Param({"5"})
+  public int assessmentUnits;
+
+  @Param({"100"})
+  public int rules;
+
+  @Param({"200"})
+  public int configElements;
+
+  private final Gson gson = new GsonBuilder().excludeFieldsWithoutExposeAnnotation().setPrettyPrinting().create();
+
+  private Path dir;
+  private Path rulesDir;
+  private List<Path> collectionDirs;
+
+  @Setup
+  public void setup() throws IOException {
+    dir = Files.createTempDirectory("ta-sdk-estate");
+    EstateGenerator generator = new EstateGenerator();
+    generator.setCollectionUnits(collectionUnits);
+    generator.setAssessmentUnits(assessmentUnits);
+    generator.setRules(rules);
+    generator.setConfigElements(configElements);
+    collectionDirs = generator.generate(dir);
+    rulesDir = dir.resolve(EstateGenerator.RULES_DIR);
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    try (Stream<Path> paths = Files.walk(dir)) {
+      for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+        Files.delete(path);
+      }
+    }
+  }
+
+  @Benchmark
+  public void assessEstate() throws IOException, TAException {
+    // The rules are loaded once and shared by all collection units, as in an assess command
+    RuleCatalog ruleCatalog = RuleCatalog.load(rulesDir.resolve(SyntheticAssessmentData.ISSUES_JSON),
+            rulesDir.resolve(SyntheticAssessmentData.ISSUE_CATEGORIES_JSON),
+            rulesDir.resolve(SyntheticAssessmentData.COMPLEXITIES_JSON),
+            rulesDir.resolve(SyntheticAssessmentData.TARGETS_JSON));
+    for (Path collectionDir : collectionDirs) {
+      StagedDataCollection dataCollection = StagedDataCollection.load(collectionDir.toFile());
+      GenericRecommendation recommendation = new GenericRecommendation(dataCollection.getAssessmentName(), ruleCatalog);
+      try (JsonWriter writer = gson.newJsonWriter(NullWriter.INSTANCE)) {
+        RecommendationJson.write(writer, gson, recommendation, dataCollection.getEnvironment(),
+                dataCollection.getAssessmentUnits(), null);
+      }
+    }
+  }
+}
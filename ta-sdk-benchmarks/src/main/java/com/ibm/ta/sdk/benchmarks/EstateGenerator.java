@@ -0,0 +1,509 @@
+/*
+ * (C) Copyright IBM Corp. 2019,2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.ta.sdk.benchmarks;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonWriter;
+import com.ibm.ta.sdk.core.detector.json.JsonIssueRuleTypeProvider;
+import com.ibm.ta.sdk.spi.collect.AssessmentUnitMetadataJson;
+import com.ibm.ta.sdk.spi.collect.EnvironmentJson;
+import com.ibm.ta.sdk.spi.plugin.TADataCollector;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.CommandLineParser;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Generates a synthetic estate for load and soak testing: the rules of a plug-in, and the output directories of
+ * collection units as they are written by the collect command.
+ *
+ * <pre>
+ * outputDir/rules/issues.json, issue-categories.json, complexities.json, targets.json
+ * outputDir/collections/cuNNNN/environment.json
+ * outputDir/collections/cuNNNN/auNNNN/data.json, metadata.assessmentUnit.json, config-N.json, server-N.xml
+ * </pre>
+ *
+ * Each collection unit directory can be assessed again with assess --skipcollect, or loaded with
+ * {@link com.ibm.ta.sdk.spi.collect.StagedDataCollection}.
+ *
+ * The data.json and config files of an assessment unit have {@code configElements} top level elements, each with
+ * {@code nesting} levels of child elements. The type of each element is picked from a fixed list of types, and each
+ * rule matches the elements of one type. The rules use the different match criteria of the JSON and XML rule
+ * providers: equality and comparison filters, deep scans, in lists, several query paths, query input files, and XML
+ * element and attribute detection. All content is generated from the seed, so an estate is the same every time it is
+ * generated with the same parameters.
+ */
+public class EstateGenerator {
+  public static final String RULES_DIR = "rules";
+  public static final String COLLECTIONS_DIR = "collections";
+  public static final String CONFIG_JSON_PREFIX = "config-";
+  public static final String CONFIG_XML_PREFIX = "server-";
+
+  private static final int ELEMENT_TYPES = 50;
+  private static final int CATEGORIES = 5;
+  private static final String MIDDLEWARE = "synthetic";
+  private static final String PLUGIN_VERSION = "1.0.0";
+  private static final String[] SEVERITIES = {"potential", "suggested", "critical"};
+
+  private int collectionUnits = 10;
+  private int assessmentUnits = 20;
+  private int rules = 200;
+  private int configElements = 1000;
+  private int nesting = 2;
+  private int jsonConfigFiles = 1;
+  private int xmlConfigFiles = 1;
+  private int targets = 3;
+  private long seed = 20200101L;
+
+  private final Gson gson = new GsonBuilder().excludeFieldsWithoutExposeAnnotation().setPrettyPrinting().create();
+
+  /**
+   * Match criteria of the generated rules. Rule N uses the criteria at index N modulo the number of criteria.
+   */
+  public enum RuleCriteria {
+    JSON_EQUALS, JSON_DEEP_SCAN, JSON_COMPARISON, JSON_IN, JSON_MULTIPLE_PATHS, JSON_QUERY_INPUT_FILE,
+    XML_ELEMENT, XML_ATTRIBUTE
+  }
+
+  public void setCollectionUnits(int collectionUnits) {
+    this.collectionUnits = collectionUnits;
+  }
+
+  public void setAssessmentUnits(int assessmentUnits) {
+    this.assessmentUnits = assessmentUnits;
+  }
+
+  public void setRules(int rules) {
+    this.rules = rules;
+  }
+
+  public void setConfigElements(int configElements) {
+    this.configElements = configElements;
+  }
+
+  public void setNesting(int nesting) {
+    this.nesting = nesting;
+  }
+
+  public void setJsonConfigFiles(int jsonConfigFiles) {
+    this.jsonConfigFiles = jsonConfigFiles;
+  }
+
+  public void setXmlConfigFiles(int xmlConfigFiles) {
+    this.xmlConfigFiles = xmlConfigFiles;
+  }
+
+  public void setTargets(int targets) {
+    this.targets = Math.max(1, targets);
+  }
+
+  public void setSeed(long seed) {
+    this.seed = seed;
+  }
+
+  /**
+   * Generate the estate
+   *
+   * @param outputDir Directory to generate the estate in, created if it does not exist
+   * @return Output directories of the collection units
+   * @throws IOException If a file cannot be written
+   */
+  public List<Path> generate(Path outputDir) throws IOException {
+    Path rulesDir = Files.createDirectories(outputDir.resolve(RULES_DIR));
+    writeIssues(rulesDir.resolve(SyntheticAssessmentData.ISSUES_JSON));
+    writeIssueCategories(rulesDir.resolve(SyntheticAssessmentData.ISSUE_CATEGORIES_JSON));
+    writeComplexities(rulesDir.resolve(SyntheticAssessmentData.COMPLEXITIES_JSON));
+    writeTargets(rulesDir.resolve(SyntheticAssessmentData.TARGETS_JSON));
+
+    List<Path> collectionDirs = new ArrayList<>();
+    for (int cu = 0; cu < collectionUnits; cu++) {
+      collectionDirs.add(writeCollectionUnit(outputDir.resolve(COLLECTIONS_DIR), cu));
+    }
+    return collectionDirs;
+  }
+
+  public static RuleCriteria getRuleCriteria(int rule) {
+    return RuleCriteria.values()[rule % RuleCriteria.values().length];
+  }
+
+  public static String getRuleId(int rule) {
+    return SyntheticAssessmentData.getRuleId(rule);
+  }
+
+  private static String getCategoryId(int category) {
+    return "category" + category;
+  }
+
+  private static String getElementType(int type) {
+    return "type" + (type % ELEMENT_TYPES);
+  }
+
+  private static String getTargetId(int target) {
+    return "target" + target;
+  }
+
+  private void writeIssues(Path file) throws IOException {
+    try (JsonWriter writer = newJsonWriter(file)) {
+      writer.beginObject().name("issues").beginArray();
+      for (int rule = 0; rule < rules; rule++) {
+        writer.beginObject();
+        writer.name("id").value(getRuleId(rule));
+        writer.name("title").value("Synthetic issue " + rule + " (" + getRuleCriteria(rule) + ")");
+        writer.name("category").value(getCategoryId(rule % CATEGORIES));
+        writer.name("issueOverhead").value(0.5);
+        writer.name("occurrencesCost").value(0.1);
+        writer.name("solutionText").beginArray().value("Solution for synthetic issue " + rule).endArray();
+        writer.name("severity").value(SEVERITIES[rule % SEVERITIES.length]);
+        writer.name("matchCriteria");
+        writeMatchCriteria(writer, rule);
+        writer.endObject();
+      }
+      writer.endArray().endObject();
+    }
+  }
+
+  private void writeMatchCriteria(JsonWriter writer, int rule) throws IOException {
+    String type = getElementType(rule);
+    RuleCriteria criteria = getRuleCriteria(rule);
+    writer.beginObject();
+    switch (criteria) {
+      case XML_ELEMENT:
+      case XML_ATTRIBUTE:
+        writer.name("ruleType").value("xml");
+        writer.name("criteria").beginObject();
+        if (criteria == RuleCriteria.XML_ELEMENT) {
+          writer.name("detectElement");
+          writeXmlCriteria(writer, type, null, null);
+        } else {
+          writer.name("detectAttribute");
+          writeXmlCriteria(writer, type, "enabled", "true");
+        }
+        writer.endObject();
+        writer.name("occurrenceAttr").beginObject().name("element").beginObject();
+        writer.name("title").value("Element");
+        writer.name("criteria").beginObject().name("detectAttribute");
+        writeXmlCriteria(writer, type, "name", null);
+        writer.endObject();
+        writer.endObject().endObject();
+        break;
+      default:
+        writer.name("ruleType").value("json");
+        if (criteria == RuleCriteria.JSON_QUERY_INPUT_FILE) {
+          writer.name("queryInputFile").beginObject()
+                  .name("config").value(CONFIG_JSON_PREFIX + "[0-9]+\\.json")
+                  .endObject();
+        }
+        writer.name("jsonQueryPath").beginObject();
+        writeJsonQueryPaths(writer, criteria, type, getElementType(rule + 1));
+        writer.endObject();
+        writer.name("occurrenceAttr").beginObject();
+        writeOccurrenceAttr(writer, "element", "Element", "name");
+        if (criteria == RuleCriteria.JSON_MULTIPLE_PATHS) {
+          writeOccurrenceAttr(writer, "state", "State", JsonIssueRuleTypeProvider.PATHVAR_FILTER_KEY);
+        } else if (criteria == RuleCriteria.JSON_COMPARISON) {
+          writeOccurrenceAttr(writer, "port", "Port", "port");
+        }
+        writer.endObject();
+        break;
+    }
+    writer.endObject();
+  }
+
+  private static void writeJsonQueryPaths(JsonWriter writer, RuleCriteria criteria, String type, String otherType)
+          throws IOException {
+    switch (criteria) {
+      case JSON_DEEP_SCAN:
+        writer.name("element").value("$..children[?(@.type == '" + type + "')]");
+        break;
+      case JSON_COMPARISON:
+        writer.name("element").value("$.elements[?(@.type == '" + type + "' && @.port > 5000)]");
+        break;
+      case JSON_IN:
+        writer.name("element").value("$.elements[?(@.type in ['" + type + "', '" + otherType + "'])]");
+        break;
+      case JSON_MULTIPLE_PATHS:
+        writer.name("enabled").value("$.elements[?(@.type == '" + type + "' && @.enabled == true)]");
+        writer.name("disabled").value("$.elements[?(@.type == '" + type + "' && @.enabled == false)]");
+        break;
+      case JSON_QUERY_INPUT_FILE:
+        writer.name("element").value("$.elements[?(@.type == '" + type + "' && @.properties.value empty false)]");
+        break;
+      default:
+        writer.name("element").value("$.elements[?(@.type == '" + type + "')]");
+        break;
+    }
+  }
+
+  private static void writeOccurrenceAttr(JsonWriter writer, String key, String title, String path) throws IOException {
+    writer.name(key).beginObject().name("title").value(title).name("path").value(path).endObject();
+  }
+
+  private static void writeXmlCriteria(JsonWriter writer, String tag, String attributeName, String attributeValue)
+          throws IOException {
+    writer.beginObject();
+    writer.name("tags").beginArray().value(tag).endArray();
+    writer.name("xmlFile").beginArray().value(CONFIG_XML_PREFIX + "[0-9]+\\.xml").endArray();
+    if (attributeName != null) {
+      writer.name("attributeName").value(attributeName);
+    }
+    if (attributeValue != null) {
+      writer.name("attributeValue").value(attributeValue);
+    }
+    writer.endObject();
+  }
+
+  private void writeIssueCategories(Path file) throws IOException {
+    try (JsonWriter writer = newJsonWriter(file)) {
+      writer.beginObject();
+      for (int category = 0; category < CATEGORIES; category++) {
+        writer.name(getCategoryId(category)).beginObject().name("title").value("Category " + category).endObject();
+      }
+      writer.endObject();
+    }
+  }
+
+  private void writeComplexities(Path file) throws IOException {
+    String[] contributions = {"simple", "moderate", "complex"};
+    try (JsonWriter writer = newJsonWriter(file)) {
+      writer.beginObject().name("complexities").beginArray();
+      for (int category = 0; category < CATEGORIES; category++) {
+        writer.beginObject();
+        writer.name("id").value("complexity" + category);
+        writer.name("name").value("Complexity " + category);
+        writer.name("description").value("Issues in category " + category);
+        writer.name("complexityContribution").value(contributions[category % contributions.length]);
+        writer.name("issuesCategory").beginArray().value(getCategoryId(category)).endArray();
+        writer.endObject();
+      }
+      writer.endArray().endObject();
+    }
+  }
+
+  // The first target has all the categories, the others a different subset of the issues each
+  private void writeTargets(Path file) throws IOException {
+    try (JsonWriter writer = newJsonWriter(file)) {
+      writer.beginObject().name("targets").beginArray();
+      for (int target = 0; target < targets; target++) {
+        writer.beginObject().name("target").value(getTargetId(target));
+        writer.name("dimensions").beginArray().beginObject();
+        writer.name("name").value("buildType");
+        writer.name("values").beginArray().value("source").value("binary").endArray();
+        writer.name("defaultValue").value("binary");
+        writer.endObject().endArray();
+        if (target == 0) {
+          writer.name("issueCategories").beginArray();
+          for (int category = 0; category < CATEGORIES; category++) {
+            writer.value(getCategoryId(category));
+          }
+          writer.endArray();
+        } else {
+          writer.name("issues").beginArray();
+          for (int rule = target % 2; rule < rules; rule += 1 + target % 3) {
+            writer.value(getRuleId(rule));
+          }
+          writer.endArray();
+        }
+        writer.endObject();
+      }
+      writer.endArray().endObject();
+    }
+  }
+
+  private Path writeCollectionUnit(Path collectionsDir, int cu) throws IOException {
+    String cuName = String.format(Locale.ROOT, "cu%04d", cu);
+    Path cuDir = Files.createDirectories(collectionsDir.resolve(cuName));
+
+    List<String> auNames = new ArrayList<>();
+    for (int au = 0; au < assessmentUnits; au++) {
+      auNames.add(String.format(Locale.ROOT, "au%04d", au));
+    }
+
+    EnvironmentJson envJson = new EnvironmentJson();
+    envJson.setDomain(MIDDLEWARE);
+    envJson.setMiddlewareName(MIDDLEWARE);
+    envJson.setMiddlewareVersion(PLUGIN_VERSION);
+    envJson.setOperatingSystem("Linux");
+    envJson.setHostName(cuName + ".example.com");
+    envJson.setMiddlewareInstallPath("/opt/" + MIDDLEWARE);
+    envJson.setMiddlewareDataPath("/var/" + MIDDLEWARE);
+    envJson.setCollectionUnitName(cuName);
+    envJson.setCollectionUnitType("Installation");
+    envJson.setPluginVersion(PLUGIN_VERSION);
+    envJson.setAssessmentUnits(auNames);
+    writeString(cuDir.resolve(TADataCollector.ENVIRONMENT_JSON_FILE), gson.toJson(envJson));
+
+    for (int au = 0; au < assessmentUnits; au++) {
+      String auName = auNames.get(au);
+      Path auDir = Files.createDirectories(cuDir.resolve(auName));
+      Random random = new Random(seed * 31 + cu * 100003L + au);
+
+      AssessmentUnitMetadataJson auMeta = new AssessmentUnitMetadataJson(envJson.getEnvironment(), auName);
+      writeString(auDir.resolve(TADataCollector.ASSESSMENTUNIT_META_JSON_FILE), gson.toJson(auMeta.toJsonObject()));
+
+      writeJsonConfig(auDir.resolve(TADataCollector.ASSESSMENTUNIT_DATA_JSON_FILE), random);
+      for (int file = 0; file < jsonConfigFiles; file++) {
+        writeJsonConfig(auDir.resolve(CONFIG_JSON_PREFIX + file + ".json"), random);
+      }
+      for (int file = 0; file < xmlConfigFiles; file++) {
+        writeXmlConfig(auDir.resolve(CONFIG_XML_PREFIX + file + ".xml"), random);
+      }
+    }
+    return cuDir;
+  }
+
+  private void writeJsonConfig(Path file, Random random) throws IOException {
+    try (JsonWriter writer = newJsonWriter(file)) {
+      writer.beginObject().name("elements").beginArray();
+      for (int element = 0; element < configElements; element++) {
+        writeJsonElement(writer, random, "element" + element, 0);
+      }
+      writer.endArray().endObject();
+    }
+  }
+
+  private void writeJsonElement(JsonWriter writer, Random random, String name, int depth) throws IOException {
+    writer.beginObject();
+    writer.name("name").value(name);
+    writer.name("type").value(getElementType(random.nextInt(ELEMENT_TYPES)));
+    writer.name("enabled").value(random.nextBoolean());
+    writer.name("port").value(1 + random.nextInt(10000));
+    writer.name("properties").beginObject();
+    writer.name("value").value(randomValue(random));
+    writer.endObject();
+    if (depth < nesting) {
+      writer.name("children").beginArray();
+      writeJsonElement(writer, random, name + "." + depth, depth + 1);
+      writer.endArray();
+    }
+    writer.endObject();
+  }
+
+  private void writeXmlConfig(Path file, Random random) throws IOException {
+    try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+      writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<server>\n");
+      for (int element = 0; element < configElements; element++) {
+        writeXmlElement(writer, random, "element" + element, 0);
+      }
+      writer.write("</server>\n");
+    }
+  }
+
+  private void writeXmlElement(Writer writer, Random random, String name, int depth) throws IOException {
+    String tag = getElementType(random.nextInt(ELEMENT_TYPES));
+    writer.write("<" + tag + " name=\"" + name + "\" enabled=\"" + random.nextBoolean() +
+            "\" port=\"" + (1 + random.nextInt(10000)) + "\">\n");
+    writer.write("<property name=\"value\" value=\"" + randomValue(random) + "\"/>\n");
+    if (depth < nesting) {
+      writeXmlElement(writer, random, name + "." + depth, depth + 1);
+    }
+    writer.write("</" + tag + ">\n");
+  }
+
+  // One value in five is empty
+  private static String randomValue(Random random) {
+    if (random.nextInt(5) == 0) {
+      return "";
+    }
+    StringBuilder value = new StringBuilder(16);
+    for (int i = 0; i < 16; i++) {
+      value.append((char) ('a' + random.nextInt(26)));
+    }
+    return value.toString();
+  }
+
+  private static void writeString(Path file, String content) throws IOException {
+    Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static JsonWriter newJsonWriter(Path file) throws IOException {
+    return new JsonWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8));
+  }
+
+  private static Options getOptions() {
+    Options options = new Options();
+    options.addOption(Option.builder("o").longOpt("output").hasArg().required().desc("Directory to generate the estate in").build());
+    options.addOption(Option.builder("c").longOpt("collectionUnits").hasArg().desc("Number of collection units (default 10)").build());
+    options.addOption(Option.builder("a").longOpt("assessmentUnits").hasArg().desc("Number of assessment units in each collection unit (default 20)").build());
+    options.addOption(Option.builder("r").longOpt("rules").hasArg().desc("Number of issue rules (default 200)").build());
+    options.addOption(Option.builder("e").longOpt("configElements").hasArg().desc("Number of top level elements in each config file (default 1000)").build());
+    options.addOption(Option.builder("n").longOpt("nesting").hasArg().desc("Levels of child elements under each element (default 2)").build());
+    options.addOption(Option.builder("j").longOpt("jsonFiles").hasArg().desc("Number of JSON config files in each assessment unit (default 1)").build());
+    options.addOption(Option.builder("x").longOpt("xmlFiles").hasArg().desc("Number of XML config files in each assessment unit (default 1)").build());
+    options.addOption(Option.builder("t").longOpt("targets").hasArg().desc("Number of targets (default 3)").build());
+    options.addOption(Option.builder("s").longOpt("seed").hasArg().desc("Seed of the generated content").build());
+    options.addOption(Option.builder("h").longOpt("help").desc("Print this message").build());
+    return options;
+  }
+
+  private static int getIntOption(CommandLine commandLine, String option, int defaultValue) {
+    return (int) getLongOption(commandLine, option, defaultValue);
+  }
+
+  private static long getLongOption(CommandLine commandLine, String option, long defaultValue) {
+    String value = commandLine.getOptionValue(option);
+    if (value == null) {
+      return defaultValue;
+    }
+    try {
+      return Long.parseLong(value.trim());
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Invalid value '" + value + "' for option " + option + ". The value must be a number.");
+    }
+  }
+
+  public static void main(String[] args) throws IOException {
+    Options options = getOptions();
+    HelpFormatter formatter = new HelpFormatter();
+    for (String arg : args) {
+      if ("-h".equals(arg) || "--help".equals(arg)) {
+        formatter.printHelp(EstateGenerator.class.getName() + " [OPTION] [ARGUMENT]", options);
+        return;
+      }
+    }
+
+    CommandLine commandLine;
+    try {
+      commandLine = new DefaultParser().parse(options, args);
+    } catch (ParseException e) {
+      System.out.println(e.getMessage());
+      formatter.printHelp(EstateGenerator.class.getName() + " [OPTION] [ARGUMENT]", options);
+      return;
+    }
+
+    EstateGenerator generator = new EstateGenerator();
+    generator.setCollectionUnits(getIntOption(commandLine, "c", generator.collectionUnits));
+    generator.setAssessmentUnits(getIntOption(commandLine, "a", generator.assessmentUnits));
+    generator.setRules(getIntOption(commandLine, "r", generator.rules));
+    generator.setConfigElements(getIntOption(commandLine, "e", generator.configElements));
+    generator.setNesting(getIntOption(commandLine, "n", generator.nesting));
+    generator.setJsonConfigFiles(getIntOption(commandLine, "j", generator.jsonConfigFiles));
+    generator.setXmlConfigFiles(getIntOption(commandLine, "x", generator.xmlConfigFiles));
+    generator.setTargets(getIntOption(commandLine, "t", generator.targets));
+    generator.setSeed(getLongOption(commandLine, "s", generator.seed));
+
+    long start = System.nanoTime();
+    Path outputDir = Paths.get(commandLine.getOptionValue("o"));
+    List<Path> collectionDirs = generator.generate(outputDir);
+    System.out.println("Generated " + collectionDirs.size() + " collection units in " + outputDir.toAbsolutePath() +
+            " in " + (System.nanoTime() - start) / 1000000 + " ms");
+  }
+}
@@ -0,0 +1,64 @@
+/*
+ * (C) Copyright IBM Corp. 2019,2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.ta.sdk.benchmarks;
+
+import com.ibm.ta.sdk.core.assessment.IssueRule;
+import com.ibm.ta.sdk.core.detector.json.JsonIssueRuleTypeProvider;
+import com.ibm.ta.sdk.spi.recommendation.Target;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSONPath queries of the JSON rules, on the assessment data and on a config file. The parsed documents are cached
+ * by the provider, so the benchmarks measure evaluating the queries and building the occurrences.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Benchmark)
+public class JsonPathBenchmark {
+  private JsonIssueRuleTypeProvider ruleProvider;
+  private Target target;
+  private List<IssueRule> dataRules;
+  private List<IssueRule> configFileRules;
+
+  @Setup
+  public void setup(AssessmentState state) {
+    ruleProvider = new JsonIssueRuleTypeProvider();
+    target = state.getRecommendation().getTargets().get(0);
+    dataRules = state.getIssueRules(SyntheticAssessmentData.RuleKind.DATA_JSON, ruleProvider);
+    configFileRules = state.getIssueRules(SyntheticAssessmentData.RuleKind.CONFIG_JSON, ruleProvider);
+  }
+
+  @Benchmark
+  public void assessmentData(AssessmentState state, Blackhole blackhole) {
+    for (IssueRule issueRule : dataRules) {
+      blackhole.consume(ruleProvider.getIssue(target, state.getAssessmentUnit(), issueRule));
+    }
+  }
+
+  @Benchmark
+  public void configFile(AssessmentState state, Blackhole blackhole) {
+    for (IssueRule issueRule : configFileRules) {
+      blackhole.consume(ruleProvider.getIssue(target, state.getAssessmentUnit(), issueRule));
+    }
+  }
+}
@@ -0,0 +1,75 @@
+/*
+ * (C) Copyright IBM Corp. 2019,2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.ta.sdk.benchmarks;
+
+import com.ibm.ta.sdk.core.assessment.GenericIssue;
+import com.ibm.ta.sdk.core.assessment.IssueRule;
+import com.ibm.ta.sdk.core.detector.json.JsonIssueRuleTypeProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adding the occurrences of a rule to an issue. The JSON provider adds the occurrences of each matching path as they
+ * are found, and the issue rule processor adds all the occurrences of a rule at once when they are reused.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Benchmark)
+public class OccurrenceMergeBenchmark {
+  private IssueRule issueRule;
+  private List<Map<String, String>> occurrences;
+
+  @Setup
+  public void setup(AssessmentState state) {
+    issueRule = state.getIssueRules(SyntheticAssessmentData.RuleKind.DATA_JSON, new JsonIssueRuleTypeProvider()).get(0);
+
+    // Occurrences in random order, so they are sorted when added
+    occurrences = new ArrayList<>();
+    for (int occurrence = 0; occurrence < state.occurrences; occurrence++) {
+      Map<String, String> occurrenceMap = new LinkedHashMap<>();
+      occurrenceMap.put("element", "element-" + occurrence);
+      occurrenceMap.put("type", "type-" + (occurrence % 10));
+      occurrences.add(occurrenceMap);
+    }
+    Collections.shuffle(occurrences, new Random(occurrences.size()));
+  }
+
+  @Benchmark
+  public GenericIssue addEachPath() {
+    GenericIssue issue = new GenericIssue(issueRule, SyntheticAssessmentData.TARGET_ALL_CATEGORIES);
+    for (Map<String, String> occurrence : occurrences) {
+      issue.addOccurences(Collections.singletonList(occurrence));
+    }
+    return issue;
+  }
+
+  @Benchmark
+  public GenericIssue addAll() {
+    GenericIssue issue = new GenericIssue(issueRule, SyntheticAssessmentData.TARGET_ALL_CATEGORIES);
+    issue.addOccurences(occurrences);
+    return issue;
+  }
+}
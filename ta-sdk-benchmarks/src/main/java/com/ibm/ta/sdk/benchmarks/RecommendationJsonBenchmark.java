@@ -0,0 +1,40 @@
+/*
+ * (C) Copyright IBM Corp. 2019,2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.ta.sdk.benchmarks;
+
+import com.google.gson.stream.JsonWriter;
+import com.ibm.ta.sdk.spi.plugin.TAException;
+import org.apache.commons.io.output.NullWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building and serializing the recommendations.json for the issues of all the targets. The output is discarded, so
+ * the benchmark does not include writing the file.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class RecommendationJsonBenchmark {
+
+  @Benchmark
+  public void write(RecommendationState state) throws IOException, TAException {
+    try (JsonWriter writer = state.getGson().newJsonWriter(NullWriter.INSTANCE)) {
+      state.write(writer);
+    }
+  }
+}
@@ -0,0 +1,127 @@
+/*
+ * (C) Copyright IBM Corp. 2019,2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.ta.sdk.benchmarks;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonWriter;
+import com.ibm.ta.sdk.core.assessment.GenericRecommendation;
+import com.ibm.ta.sdk.spi.assess.RecommendationJson;
+import com.ibm.ta.sdk.spi.collect.AssessmentUnit;
+import com.ibm.ta.sdk.spi.collect.Environment;
+import com.ibm.ta.sdk.spi.collect.EnvironmentJson;
+import com.ibm.ta.sdk.spi.plugin.TAException;
+import com.ibm.ta.sdk.spi.recommendation.ComplexityContribution;
+import com.ibm.ta.sdk.spi.recommendation.Issue;
+import com.ibm.ta.sdk.spi.recommendation.IssueCategory;
+import com.ibm.ta.sdk.spi.recommendation.Recommendation;
+import com.ibm.ta.sdk.spi.recommendation.Target;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Issues of the synthetic assessment unit, found once for each target, and the recommendations.json written from
+ * them. Benchmarks of writing the recommendations.json and the reports use these issues, so they do not include
+ * evaluating the rules.
+ */
+@State(Scope.Benchmark)
+public class RecommendationState {
+  public static final String RECOMMENDATIONS_JSON = "recommendations.json";
+
+  // Same settings as the recommendations.json written by the assess command
+  private final Gson gson = new GsonBuilder().excludeFieldsWithoutExposeAnnotation().setPrettyPrinting().create();
+
+  private Recommendation recommendation;
+  private Environment environment;
+  private List<AssessmentUnit> assessmentUnits;
+  private Path recommendationsJsonFile;
+
+  @Setup
+  public void setup(AssessmentState state) throws IOException, TAException {
+    GenericRecommendation genericRecommendation = state.getRecommendation();
+    AssessmentUnit assessmentUnit = state.getAssessmentUnit();
+    Map<String, List<Issue>> targetIssues = new HashMap<>();
+    for (Target target : genericRecommendation.getTargets()) {
+      targetIssues.put(target.getTargetId(), genericRecommendation.getIssues(target, assessmentUnit));
+    }
+    genericRecommendation.assessmentUnitCompleted(assessmentUnit);
+    recommendation = new PrecomputedRecommendation(genericRecommendation, targetIssues);
+
+    EnvironmentJson environmentJson = new EnvironmentJson("benchmark", "benchmark", "1.0");
+    environmentJson.setCollectionUnitName(state.getRecommendation().getCollectionUnitName());
+    environmentJson.setCollectionUnitType("Installation");
+    environment = environmentJson.getEnvironment();
+    assessmentUnits = Collections.singletonList(assessmentUnit);
+
+    recommendationsJsonFile = state.getDir().resolve(RECOMMENDATIONS_JSON);
+    try (JsonWriter writer = gson.newJsonWriter(Files.newBufferedWriter(recommendationsJsonFile, StandardCharsets.UTF_8))) {
+      write(writer);
+    }
+  }
+
+  /**
+   * Write the recommendations.json for the issues
+   *
+   * @param writer Writer for the recommendations.json
+   */
+  public void write(JsonWriter writer) throws IOException, TAException {
+    RecommendationJson.write(writer, gson, recommendation, environment, assessmentUnits, null);
+  }
+
+  public Gson getGson() {
+    return gson;
+  }
+
+  public Path getRecommendationsJsonFile() {
+    return recommendationsJsonFile;
+  }
+
+  private static class PrecomputedRecommendation implements Recommendation {
+    private final Recommendation recommendation;
+    private final Map<String, List<Issue>> targetIssues;
+
+    private PrecomputedRecommendation(Recommendation recommendation, Map<String, List<Issue>> targetIssues) {
+      this.recommendation = recommendation;
+      this.targetIssues = targetIssues;
+    }
+
+    @Override
+    public String getCollectionUnitName() {
+      return recommendation.getCollectionUnitName();
+    }
+
+    @Override
+    public List<ComplexityContribution> getComplexityContributions() {
+      return recommendation.getComplexityContributions();
+    }
+
+    @Override
+    public List<IssueCategory> getIssueCategories() {
+      return recommendation.getIssueCategories();
+    }
+
+    @Override
+    public List<Target> getTargets() {
+      return recommendation.getTargets();
+    }
+
+    @Override
+    public List<Issue> getIssues(Target target, AssessmentUnit assessmentUnit) {
+      return targetIssues.get(target.getTargetId());
+    }
+  }
+}
@@ -0,0 +1,38 @@
+/*
+ * (C) Copyright IBM Corp. 2019,2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.ta.sdk.benchmarks;
+
+import com.ibm.ta.sdk.core.report.RecommendationReporter;
+import com.ibm.ta.sdk.spi.plugin.TAException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rendering the HTML report of each target from the recommendations.json, as in the report command. The reports are
+ * generated one at a time, and are not written to files.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ReportRenderingBenchmark {
+
+  @Benchmark
+  public void generateHTMLReports(RecommendationState state, Blackhole blackhole) throws TAException {
+    RecommendationReporter reporter = new RecommendationReporter("benchmark", state.getRecommendationsJsonFile());
+    reporter.generateHTMLReports(blackhole::consume);
+  }
+}
@@ -0,0 +1,59 @@
+/*
+ * (C) Copyright IBM Corp. 2019,2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.ta.sdk.benchmarks;
+
+import com.ibm.ta.sdk.core.assessment.GenericRecommendation;
+import com.ibm.ta.sdk.spi.collect.AssessmentUnit;
+import com.ibm.ta.sdk.spi.plugin.TAException;
+import com.ibm.ta.sdk.spi.recommendation.Target;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Issues found by all the rules of a target in an assessment unit, as in the assess command. Each invocation uses a
+ * new assessment unit object, so the rules are evaluated and not reused from a previous invocation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class RuleProcessingBenchmark {
+
+  /**
+   * Rules of the first target, all the rules are evaluated
+   */
+  @Benchmark
+  public void firstTarget(AssessmentState state, Blackhole blackhole) throws TAException {
+    GenericRecommendation recommendation = state.getRecommendation();
+    AssessmentUnit assessmentUnit = state.newAssessmentUnit();
+    blackhole.consume(recommendation.getIssues(recommendation.getTargets().get(0), assessmentUnit));
+    recommendation.assessmentUnitCompleted(assessmentUnit);
+  }
+
+  /**
+   * Rules of all the targets. Target independent rules are evaluated for the first target and their occurrences are
+   * reused for the other targets.
+   */
+  @Benchmark
+  public void allTargets(AssessmentState state, Blackhole blackhole) throws TAException {
+    GenericRecommendation recommendation = state.getRecommendation();
+    AssessmentUnit assessmentUnit = state.newAssessmentUnit();
+    for (Target target : recommendation.getTargets()) {
+      blackhole.consume(recommendation.getIssues(target, assessmentUnit));
+    }
+    recommendation.assessmentUnitCompleted(assessmentUnit);
+  }
+}
@@ -0,0 +1,305 @@
+/*
+ * (C) Copyright IBM Corp. 2019,2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.ta.sdk.benchmarks;
+
+import com.google.gson.stream.JsonWriter;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Generates the rules and the config files of one assessment unit, sized by the number of issue rules, the number of
+ * occurrences each rule finds and the number of other elements in each config file.
+ *
+ * Rules are split evenly between the three kinds of rules the core providers evaluate: JSON rules that query the
+ * assessment data, JSON rules that query a config file with queryInputFile, and XML rules. Each rule matches
+ * {@code occurrences} elements, and every file also has {@code configElements} elements that no rule matches. The
+ * content is generated from a fixed seed, so the same parameters always produce the same files.
+ */
+public class SyntheticAssessmentData {
+  public static final String ISSUES_JSON = "issues.json";
+  public static final String ISSUE_CATEGORIES_JSON = "issue-categories.json";
+  public static final String COMPLEXITIES_JSON = "complexities.json";
+  public static final String TARGETS_JSON = "targets.json";
+  public static final String DATA_JSON = "data.json";
+  public static final String CONFIG_JSON = "config.json";
+  public static final String CONFIG_XML = "server.xml";
+
+  public static final String TARGET_ALL_CATEGORIES = "targetAll";
+  public static final String TARGET_SOME_ISSUES = "targetSome";
+
+  private static final int CATEGORIES = 3;
+  private static final long SEED = 20200101L;
+
+  private final int issues;
+  private final int occurrences;
+  private final int configElements;
+  private final Random random = new Random(SEED);
+
+  /**
+   * @param issues Number of issue rules
+   * @param occurrences Number of occurrences found by each rule
+   * @param configElements Number of elements in each config file that no rule matches
+   */
+  public SyntheticAssessmentData(int issues, int occurrences, int configElements) {
+    this.issues = issues;
+    this.occurrences = occurrences;
+    this.configElements = configElements;
+  }
+
+  /**
+   * Write the rule files and the config files of the assessment unit to a directory
+   *
+   * @param dir Directory to write the files to, it must exist
+   * @throws IOException If a file cannot be written
+   */
+  public void write(Path dir) throws IOException {
+    writeIssues(dir.resolve(ISSUES_JSON));
+    writeIssueCategories(dir.resolve(ISSUE_CATEGORIES_JSON));
+    writeComplexities(dir.resolve(COMPLEXITIES_JSON));
+    writeTargets(dir.resolve(TARGETS_JSON));
+    writeJsonConfig(dir.resolve(DATA_JSON), RuleKind.DATA_JSON);
+    writeJsonConfig(dir.resolve(CONFIG_JSON), RuleKind.CONFIG_JSON);
+    writeXmlConfig(dir.resolve(CONFIG_XML));
+  }
+
+  public int getIssues() {
+    return issues;
+  }
+
+  public int getOccurrences() {
+    return occurrences;
+  }
+
+  public int getConfigElements() {
+    return configElements;
+  }
+
+  /**
+   * Kind of a rule, by the index of the rule
+   */
+  public static RuleKind getRuleKind(int rule) {
+    return RuleKind.values()[rule % RuleKind.values().length];
+  }
+
+  public static String getRuleId(int rule) {
+    return "RULE" + rule;
+  }
+
+  public enum RuleKind {
+    DATA_JSON, CONFIG_JSON, XML
+  }
+
+  private static String getCategoryId(int category) {
+    return "category" + category;
+  }
+
+  // Element type, or XML tag, that a rule matches
+  private static String getElementType(int rule) {
+    return "type" + rule;
+  }
+
+  private void writeIssues(Path file) throws IOException {
+    try (JsonWriter writer = newJsonWriter(file)) {
+      writer.beginObject().name("issues").beginArray();
+      for (int rule = 0; rule < issues; rule++) {
+        writer.beginObject();
+        writer.name("id").value(getRuleId(rule));
+        writer.name("title").value("Synthetic issue " + rule);
+        writer.name("category").value(getCategoryId(rule % CATEGORIES));
+        writer.name("issueOverhead").value(0.5);
+        writer.name("occurrencesCost").value(0.1);
+        writer.name("solutionText").beginArray().value("Solution for synthetic issue " + rule).endArray();
+        writer.name("severity").value("potential");
+        writer.name("matchCriteria");
+        writeMatchCriteria(writer, rule);
+        writer.endObject();
+      }
+      writer.endArray().endObject();
+    }
+  }
+
+  private void writeMatchCriteria(JsonWriter writer, int rule) throws IOException {
+    String type = getElementType(rule);
+    writer.beginObject();
+    switch (getRuleKind(rule)) {
+      case CONFIG_JSON:
+        writer.name("ruleType").value("json");
+        writer.name("queryInputFile").beginObject().name("config").value(CONFIG_JSON).endObject();
+        writeJsonQuery(writer, type);
+        break;
+      case XML:
+        writer.name("ruleType").value("xml");
+        writer.name("criteria").beginObject().name("detectElement");
+        writeXmlCriteria(writer, type, null);
+        writer.endObject();
+        writer.name("occurrenceAttr").beginObject().name("element").beginObject();
+        writer.name("title").value("Element");
+        writer.name("criteria").beginObject().name("detectAttribute");
+        writeXmlCriteria(writer, type, "name");
+        writer.endObject();
+        writer.endObject().endObject();
+        break;
+      default:
+        writer.name("ruleType").value("json");
+        writeJsonQuery(writer, type);
+        break;
+    }
+    writer.endObject();
+  }
+
+  private static void writeJsonQuery(JsonWriter writer, String type) throws IOException {
+    writer.name("jsonQueryPath").beginObject().name("element").value("$.elements[?(@.type == '" + type + "')]").endObject();
+    writer.name("occurrenceAttr").beginObject();
+    writer.name("element").beginObject().name("title").value("Element").name("path").value("name").endObject();
+    writer.name("type").beginObject().name("title").value("Type").name("path").value("type").endObject();
+    writer.endObject();
+  }
+
+  private static void writeXmlCriteria(JsonWriter writer, String tag, String attributeName) throws IOException {
+    writer.beginObject();
+    writer.name("tags").beginArray().value(tag).endArray();
+    writer.name("xmlFile").beginArray().value(CONFIG_XML).endArray();
+    if (attributeName != null) {
+      writer.name("attributeName").value(attributeName);
+    }
+    writer.endObject();
+  }
+
+  private void writeIssueCategories(Path file) throws IOException {
+    try (JsonWriter writer = newJsonWriter(file)) {
+      writer.beginObject();
+      for (int category = 0; category < CATEGORIES; category++) {
+        writer.name(getCategoryId(category)).beginObject().name("title").value("Category " + category).endObject();
+      }
+      writer.endObject();
+    }
+  }
+
+  private void writeComplexities(Path file) throws IOException {
+    String[] contributions = {"simple", "moderate", "complex"};
+    try (JsonWriter writer = newJsonWriter(file)) {
+      writer.beginObject().name("complexities").beginArray();
+      for (int category = 0; category < CATEGORIES; category++) {
+        writer.beginObject();
+        writer.name("id").value("complexity" + category);
+        writer.name("name").value("Complexity " + category);
+        writer.name("description").value("Issues in category " + category);
+        writer.name("complexityContribution").value(contributions[category % contributions.length]);
+        writer.name("issuesCategory").beginArray().value(getCategoryId(category)).endArray();
+        writer.endObject();
+      }
+      writer.endArray().endObject();
+    }
+  }
+
+  // One target has all the categories, the other every second issue
+  private void writeTargets(Path file) throws IOException {
+    try (JsonWriter writer = newJsonWriter(file)) {
+      writer.beginObject().name("targets").beginArray();
+
+      writer.beginObject().name("target").value(TARGET_ALL_CATEGORIES);
+      writeDimensions(writer);
+      writer.name("issueCategories").beginArray();
+      for (int category = 0; category < CATEGORIES; category++) {
+        writer.value(getCategoryId(category));
+      }
+      writer.endArray().endObject();
+
+      writer.beginObject().name("target").value(TARGET_SOME_ISSUES);
+      writeDimensions(writer);
+      writer.name("issues").beginArray();
+      for (int rule = 0; rule < issues; rule += 2) {
+        writer.value(getRuleId(rule));
+      }
+      writer.endArray().endObject();
+
+      writer.endArray().endObject();
+    }
+  }
+
+  private static void writeDimensions(JsonWriter writer) throws IOException {
+    writer.name("dimensions").beginArray().beginObject();
+    writer.name("name").value("buildType");
+    writer.name("values").beginArray().value("source").value("binary").endArray();
+    writer.name("defaultValue").value("binary");
+    writer.endObject().endArray();
+  }
+
+  // Elements matched by the rules of the kind, followed by the elements no rule matches
+  private void writeJsonConfig(Path file, RuleKind kind) throws IOException {
+    try (JsonWriter writer = newJsonWriter(file)) {
+      writer.beginObject().name("elements").beginArray();
+      for (int rule = 0; rule < issues; rule++) {
+        if (getRuleKind(rule) != kind) {
+          continue;
+        }
+        for (int occurrence = 0; occurrence < occurrences; occurrence++) {
+          writeJsonElement(writer, getElementType(rule), "element" + rule + "-" + occurrence);
+        }
+      }
+      for (int element = 0; element < configElements; element++) {
+        writeJsonElement(writer, "other", "other" + element);
+      }
+      writer.endArray().endObject();
+    }
+  }
+
+  private void writeJsonElement(JsonWriter writer, String type, String name) throws IOException {
+    writer.beginObject();
+    writer.name("name").value(name);
+    writer.name("type").value(type);
+    writer.name("enabled").value(random.nextBoolean());
+    writer.name("properties").beginObject();
+    writer.name("value").value(randomValue());
+    writer.name("size").value(random.nextInt(10000));
+    writer.endObject();
+    writer.endObject();
+  }
+
+  private void writeXmlConfig(Path file) throws IOException {
+    try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+      writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<server>\n");
+      for (int rule = 0; rule < issues; rule++) {
+        if (getRuleKind(rule) != RuleKind.XML) {
+          continue;
+        }
+        for (int occurrence = 0; occurrence < occurrences; occurrence++) {
+          writeXmlElement(writer, getElementType(rule), "element" + rule + "-" + occurrence);
+        }
+      }
+      for (int element = 0; element < configElements; element++) {
+        writeXmlElement(writer, "other", "other" + element);
+      }
+      writer.write("</server>\n");
+    }
+  }
+
+  private void writeXmlElement(Writer writer, String tag, String name) throws IOException {
+    writer.write("  <" + tag + " name=\"" + name + "\" enabled=\"" + random.nextBoolean() + "\">\n");
+    writer.write("    <property name=\"value\" value=\"" + randomValue() + "\"/>\n");
+    writer.write("  </" + tag + ">\n");
+  }
+
+  private String randomValue() {
+    StringBuilder value = new StringBuilder(16);
+    for (int i = 0; i < 16; i++) {
+      value.append((char) ('a' + random.nextInt(26)));
+    }
+    return value.toString();
+  }
+
+  private static JsonWriter newJsonWriter(Path file) throws IOException {
+    BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+    return new JsonWriter(writer);
+  }
+}
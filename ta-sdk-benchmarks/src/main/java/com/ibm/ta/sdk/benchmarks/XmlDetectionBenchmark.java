@@ -0,0 +1,57 @@
+/*
+ * (C) Copyright IBM Corp. 2019,2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.ta.sdk.benchmarks;
+
+import com.ibm.ta.sdk.core.assessment.IssueRule;
+import com.ibm.ta.sdk.core.detector.xml.XmlIssueRuleTypeProvider;
+import com.ibm.ta.sdk.spi.recommendation.Target;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Element detection and occurrence attributes of the XML rules on an XML config file, including parsing the file.
+ * The provider reads the file once for all the rules and keeps the results, so each invocation uses a new provider.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Benchmark)
+public class XmlDetectionBenchmark {
+  private Target target;
+  private List<IssueRule> xmlRules;
+
+  @Setup
+  public void setup(AssessmentState state) {
+    target = state.getRecommendation().getTargets().get(0);
+    xmlRules = state.getIssueRules(SyntheticAssessmentData.RuleKind.XML, new XmlIssueRuleTypeProvider());
+  }
+
+  @Benchmark
+  public void xmlRules(AssessmentState state, Blackhole blackhole) {
+    XmlIssueRuleTypeProvider ruleProvider = new XmlIssueRuleTypeProvider();
+    for (IssueRule issueRule : xmlRules) {
+      ruleProvider.addIssueRule(issueRule);
+    }
+    for (IssueRule issueRule : xmlRules) {
+      blackhole.consume(ruleProvider.getIssue(target, state.getAssessmentUnit(), issueRule));
+    }
+  }
+}
@@ -0,0 +1,323 @@
+/*
+ * (C) Copyright IBM Corp. 2019,2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.ta.sdk.core.assessment;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.ibm.ta.sdk.spi.collect.AssessmentUnit;
+import com.ibm.ta.sdk.spi.util.Util;
+import org.tinylog.Logger;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * Results of the issue rules of a collection unit, kept in the output directory of the collection unit so the next
+ * assessment only evaluates the rules whose input changed.
+ *
+ * The manifest records the version of the plug-in and of the SDK, and for each assessment unit the hashes of its
+ * staged config files and assessment data. The occurrences found by each target independent rule are saved with the
+ * hash of the rule definition and the hash of the input of the rule. A rule is evaluated again if its definition or
+ * any of its input files changed. All rules are evaluated again if the version of the plug-in or of the SDK changed,
+ * since the SDK evaluates the rules.
+ *
+ * The manifest is written as JSON lines: the first line has the versions, and each other line has the results of an
+ * assessment unit. The results of an assessment unit are appended to a temporary file and released from memory when
+ * the assessment unit is completed, and the temporary file replaces the manifest when the assessment is completed.
+ *
+ * Incremental assessment is disabled by default. Set the system property ta.sdk.assess.incremental to true to reuse
+ * the results of the previous assessment.
+ */
+public class AssessmentManifest {
+  public static final String INCREMENTAL_PROPERTY = "ta.sdk.assess.incremental";
+
+  private final Path manifestFile;
+  private final Path tmpFile;
+  private final ManifestJson header;
+  private final Map<String, AssessmentUnitJson> previous;
+  private final Map<String, AssessmentUnitJson> current = new TreeMap<>();
+  private boolean tmpFileCreated = false;
+
+  // Hashes of the files of the assessment units read in this assessment, by absolute path
+  private final Map<Path, String> fileHashes = new TreeMap<>();
+
+  private int rulesReused = 0;
+  private int rulesEvaluated = 0;
+
+  private AssessmentManifest(Path manifestFile, ManifestJson header, Map<String, AssessmentUnitJson> previous) {
+    this.manifestFile = manifestFile;
+    this.tmpFile = manifestFile.resolveSibling(manifestFile.getFileName() + ".tmp");
+    this.header = header;
+    this.previous = previous;
+  }
+
+  public static boolean isEnabled() {
+    return "true".equalsIgnoreCase(System.getProperty(INCREMENTAL_PROPERTY, "false").trim());
+  }
+
+  /**
+   * Load the manifest of the previous assessment of a collection unit
+   *
+   * @param manifestFile Manifest file in the output directory of the collection unit. The file does not need to exist.
+   * @param pluginVersion Version of the plug-in doing the assessment
+   * @return Manifest. Results of the previous assessment are not reused if the file cannot be read or was written by
+   *         another version of the plug-in or of the SDK.
+   */
+  public static AssessmentManifest load(Path manifestFile, String pluginVersion) {
+    ManifestJson header = new ManifestJson();
+    header.pluginVersion = pluginVersion;
+    header.sdkVersion = Util.getSDKVersion();
+
+    Map<String, AssessmentUnitJson> previous = new TreeMap<>();
+    if (Files.isRegularFile(manifestFile)) {
+      Gson gson = new Gson();
+      try (BufferedReader reader = Files.newBufferedReader(manifestFile, StandardCharsets.UTF_8)) {
+        ManifestJson previousHeader = gson.fromJson(reader.readLine(), ManifestJson.class);
+        if (previousHeader == null || !Objects.equals(previousHeader.pluginVersion, header.pluginVersion) ||
+                !Objects.equals(previousHeader.sdkVersion, header.sdkVersion)) {
+          Logger.info("Plug-in or SDK version changed since the previous assessment, evaluating all rules");
+        } else {
+          // An assessment unit processed again after it was completed is written again, the last results are used
+          for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+            AssessmentUnitJson auJson = gson.fromJson(line, AssessmentUnitJson.class);
+            if (auJson != null && auJson.name != null) {
+              previous.put(auJson.name, auJson);
+            }
+          }
+        }
+      } catch (IOException | JsonParseException e) {
+        Logger.warn("Cannot read assessment manifest " + manifestFile + ", evaluating all rules:" + e);
+        previous.clear();
+      }
+    }
+    return new AssessmentManifest(manifestFile, header, previous);
+  }
+
+  /**
+   * Get the hash of the input of a rule for an assessment unit. The input is the assessment data and the input files
+   * of the rule. The hashes of all the config files of the assessment unit are added to the manifest.
+   *
+   * @param assessmentUnit Assessment unit
+   * @param inputFiles Files of the assessment unit that the rule reads
+   * @return Hash of the input
+   * @throws IOException If an input file cannot be read
+   */
+  public synchronized String getInputHash(AssessmentUnit assessmentUnit, List<Path> inputFiles) throws IOException {
+    AssessmentUnitJson auJson = getAssessmentUnitJson(assessmentUnit);
+
+    MessageDigest digest = newDigest();
+    digest.update(auJson.dataHash.getBytes(StandardCharsets.UTF_8));
+    for (Path inputFile : inputFiles) {
+      if (!Files.isRegularFile(inputFile)) {
+        continue;
+      }
+      String name = getFileName(inputFile);
+      String fileHash = auJson.files.get(name);
+      if (fileHash == null) {
+        fileHash = getFileHash(inputFile);
+        auJson.files.put(name, fileHash);
+      }
+      digest.update(("\n" + name + "=" + fileHash).getBytes(StandardCharsets.UTF_8));
+    }
+    return toHex(digest.digest());
+  }
+
+  /**
+   * Get the occurrences found by a rule in the previous assessment
+   *
+   * @param assessmentUnitName Name of the assessment unit
+   * @param ruleId ID of the rule
+   * @param ruleHash Hash of the definition of the rule
+   * @param inputHash Hash of the input of the rule, from {@link #getInputHash(AssessmentUnit, List)}
+   * @return Occurrences, or null if the rule must be evaluated
+   */
+  public synchronized List<Map<String, String>> getOccurrences(String assessmentUnitName, String ruleId,
+                                                               String ruleHash, String inputHash) {
+    AssessmentUnitJson previousAu = previous.get(assessmentUnitName);
+    RuleResultJson result = previousAu == null ? null : previousAu.rules.get(ruleId);
+    if (result == null || result.occurrences == null
+            || !ruleHash.equals(result.ruleHash) || !inputHash.equals(result.inputHash)) {
+      return null;
+    }
+
+    current.get(assessmentUnitName).rules.put(ruleId, result);
+    rulesReused++;
+    return result.occurrences;
+  }
+
+  /**
+   * Add the occurrences found by a rule to the manifest
+   *
+   * @param assessmentUnitName Name of the assessment unit
+   * @param ruleId ID of the rule
+   * @param ruleHash Hash of the definition of the rule
+   * @param inputHash Hash of the input of the rule, from {@link #getInputHash(AssessmentUnit, List)}
+   * @param occurrences Occurrences found by the rule
+   */
+  public synchronized void putOccurrences(String assessmentUnitName, String ruleId, String ruleHash, String inputHash,
+                                          List<Map<String, String>> occurrences) {
+    RuleResultJson result = new RuleResultJson();
+    result.ruleHash = ruleHash;
+    result.inputHash = inputHash;
+    result.occurrences = new ArrayList<>(occurrences);
+    current.get(assessmentUnitName).rules.put(ruleId, result);
+    rulesEvaluated++;
+  }
+
+  /**
+   * Write the results of an assessment unit whose issues were processed for all the targets, and release them
+   *
+   * @param assessmentUnitName Name of the assessment unit
+   * @throws IOException If the results cannot be written
+   */
+  public synchronized void assessmentUnitCompleted(String assessmentUnitName) throws IOException {
+    previous.remove(assessmentUnitName);
+    AssessmentUnitJson auJson = current.remove(assessmentUnitName);
+    if (auJson != null) {
+      append(Collections.singletonList(auJson));
+    }
+  }
+
+  /**
+   * Write the manifest, replacing the manifest of the previous assessment
+   *
+   * @throws IOException If the manifest cannot be written
+   */
+  public synchronized void save() throws IOException {
+    Logger.info("Rules reused from the previous assessment:" + rulesReused + ", rules evaluated:" + rulesEvaluated);
+    append(current.values());
+    current.clear();
+    previous.clear();
+    Files.move(tmpFile, manifestFile, StandardCopyOption.REPLACE_EXISTING);
+    tmpFileCreated = false;
+  }
+
+  // Append the results of assessment units to the temporary file, which is created with the versions on the first line
+  private void append(Collection<AssessmentUnitJson> auJsons) throws IOException {
+    Gson gson = new Gson();
+    OpenOption[] options = tmpFileCreated ?
+            new OpenOption[]{StandardOpenOption.APPEND} :
+            new OpenOption[]{StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE};
+    try (Writer writer = Files.newBufferedWriter(tmpFile, StandardCharsets.UTF_8, options)) {
+      if (!tmpFileCreated) {
+        writer.write(gson.toJson(header));
+        writer.write('\n');
+        tmpFileCreated = true;
+      }
+      for (AssessmentUnitJson auJson : auJsons) {
+        writer.write(gson.toJson(auJson));
+        writer.write('\n');
+      }
+    }
+  }
+
+  /**
+   * Get the SHA-256 hash of a text, as a hex string
+   */
+  public static String hash(String text) {
+    return toHex(newDigest().digest(text.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  private AssessmentUnitJson getAssessmentUnitJson(AssessmentUnit assessmentUnit) throws IOException {
+    AssessmentUnitJson auJson = current.get(assessmentUnit.getName());
+    if (auJson != null) {
+      return auJson;
+    }
+
+    auJson = new AssessmentUnitJson();
+    auJson.name = assessmentUnit.getName();
+    auJson.dataHash = assessmentUnit.getAssessmentData() == null ? "" : hash(assessmentUnit.getAssessmentData().toString());
+    if (assessmentUnit.getConfigFiles() != null) {
+      for (Path configFile : assessmentUnit.getConfigFiles()) {
+        if (Files.isRegularFile(configFile)) {
+          auJson.files.put(getFileName(configFile), getFileHash(configFile));
+        }
+      }
+    }
+    current.put(assessmentUnit.getName(), auJson);
+    return auJson;
+  }
+
+  // Name of a staged file relative to the output directory of the collection unit
+  private String getFileName(Path file) {
+    Path absFile = file.toAbsolutePath().normalize();
+    Path collectionDir = manifestFile.toAbsolutePath().normalize().getParent();
+    if (collectionDir != null && absFile.startsWith(collectionDir)) {
+      return collectionDir.relativize(absFile).toString().replace('\\', '/');
+    }
+    return absFile.toString();
+  }
+
+  private String getFileHash(Path file) throws IOException {
+    Path key = file.toAbsolutePath().normalize();
+    String fileHash = fileHashes.get(key);
+    if (fileHash == null) {
+      MessageDigest digest = newDigest();
+      byte[] buffer = new byte[8192];
+      try (InputStream is = Files.newInputStream(file)) {
+        for (int read = is.read(buffer); read != -1; read = is.read(buffer)) {
+          digest.update(buffer, 0, read);
+        }
+      }
+      fileHash = toHex(digest.digest());
+      fileHashes.put(key, fileHash);
+    }
+    return fileHash;
+  }
+
+  private static MessageDigest newDigest() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      // Every Java platform supports SHA-256
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static String toHex(byte[] bytes) {
+    StringBuilder hex = new StringBuilder(bytes.length * 2);
+    for (byte b : bytes) {
+      hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+    }
+    return hex.toString();
+  }
+
+  private static class ManifestJson {
+    private String pluginVersion;
+    private String sdkVersion;
+  }
+
+  private static class AssessmentUnitJson {
+    private String name;
+    private String dataHash;
+    private Map<String, String> files = new TreeMap<>();
+    private Map<String, RuleResultJson> rules = new TreeMap<>();
+  }
+
+  private static class RuleResultJson {
+    private String ruleHash;
+    private String inputHash;
+    private List<Map<String, String>> occurrences;
+  }
+}
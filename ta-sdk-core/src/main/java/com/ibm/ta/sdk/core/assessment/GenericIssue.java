@@ -58,6 +58,9 @@ public class GenericIssue implements Issue {
 
     private String targetName;
 
+    // Paths or elements matched by the rule, the occurrences are found from them
+    private transient int matchedPaths;
+
     public GenericIssue(IssueRule issueRule, String targetName) {
         this.issueRule = issueRule;
         this.targetName = targetName;
@@ -146,6 +149,14 @@ public class GenericIssue implements Issue {
         occurrencesCount = occurrence.getOccurrencesCount();
     }
 
+    public int getMatchedPaths() {
+        return matchedPaths;
+    }
+
+    public void addMatchedPaths(int matchedPaths) {
+        this.matchedPaths += matchedPaths;
+    }
+
     public void init() {
         id = getId();
         title = getTitle();
@@ -21,7 +21,7 @@ public class GenericOccurrence implements Occurrence {
 
   private String uniqueCountKey;
 
-  private List<String> uniqueKeyValues = new ArrayList<String>();
+  private Set<String> uniqueKeyValues = new LinkedHashSet<String>();
 
   private int occurrencesCount;
 
@@ -75,9 +75,32 @@ public class GenericOccurrence implements Occurrence {
   }
 
   public void addOccurence(Map<String, String> occurence) {
-    occurrenceValues.add(occurence);
+    addOccurences(Collections.singletonList(occurence));
+  }
+
+  public void addOccurences(List<Map<String, String>> occurences) {
+    if (occurences.isEmpty()) {
+      return;
+    }
+
+    String uniqueKey = getUniqueCountKey();
+    for (Map<String, String> occurence : occurences) {
+      occurrenceValues.add(occurence);
+
+      // Increment occurrencesCount
+      if (uniqueKey != null) {
+        String ocUniqueKeyValue = occurence.get(uniqueKey);
+        if (ocUniqueKeyValue != null && !"".equals(ocUniqueKeyValue)) {
+          if (uniqueKeyValues.add(ocUniqueKeyValue)) {
+            occurrencesCount++;
+          }
+        }
+      } else {
+        occurrencesCount++;
+      }
+    }
 
-    // Sort
+    // Sort once all occurrences are added
     Collections.sort(occurrenceValues, new Comparator<Map<String, String>>() {
       public int compare(Map<String, String> o1, Map<String, String> o2) {
         JsonObject occurrenceAttr = issueRule.getMatchCriteria().getOccurrenceAttr();
@@ -101,26 +124,6 @@ public class GenericOccurrence implements Occurrence {
         return 0;
       }
     });
-
-    // Increment occurrencesCount
-    String uniqueKey = getUniqueCountKey();
-    if (uniqueKey != null) {
-      String ocUniqueKeyValue = occurence.get(uniqueKey);
-      if (ocUniqueKeyValue != null && !"".equals(ocUniqueKeyValue)) {
-        if (!uniqueKeyValues.contains(ocUniqueKeyValue)) {
-          uniqueKeyValues.add(ocUniqueKeyValue);
-          occurrencesCount++;
-        }
-      }
-    } else {
-      occurrencesCount++;
-    }
-  }
-
-  public void addOccurences(List<Map<String, String>> occurences) {
-    for (Map<String, String> occurence : occurences) {
-      addOccurence(occurence);
-    }
   }
 
   @Override
@@ -6,79 +6,66 @@
 
 package com.ibm.ta.sdk.core.assessment;
 
-import com.google.gson.reflect.TypeToken;
-import com.ibm.ta.sdk.core.assessment.json.ComplexitiesJson;
-import com.ibm.ta.sdk.core.assessment.json.TargetsJson;
-import com.ibm.ta.sdk.core.util.GenericUtil;
 import com.ibm.ta.sdk.spi.plugin.TAException;
 import com.ibm.ta.sdk.spi.collect.AssessmentUnit;
-import com.ibm.ta.sdk.spi.assess.ComplexityContributionJson;
-import com.ibm.ta.sdk.spi.assess.IssueCategoryJson;
+import com.ibm.ta.sdk.spi.metrics.Metrics;
 import com.ibm.ta.sdk.spi.recommendation.*;
-import com.ibm.ta.sdk.spi.validation.TaJsonFileValidator;
-import org.tinylog.Logger;
 
-import java.io.File;
 import java.io.IOException;
-import java.net.URISyntaxException;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-
-import static com.ibm.ta.sdk.core.util.Constants.*;
-import static com.ibm.ta.sdk.core.util.Constants.FILE_TARGETS_JSON;
 
 public class GenericRecommendation implements Recommendation {
   private IssueRuleProcessor rcm;
+  private RuleCatalog ruleCatalog;
+  private AssessmentManifest assessmentManifest;
+  private RuleProfile ruleProfile;
 
   private String assessmentName;
-  private List<ComplexityContribution> complexityRules = new ArrayList<ComplexityContribution>();
-  private List<IssueCategory> issueCategories = new ArrayList<IssueCategory>();
-  private List<Target> targets = new ArrayList<Target>();
 
   public GenericRecommendation(String assessmentName, Path issuesFile, Path issuesCatFile, Path complexityFile,
                                Path targetsFile) throws IOException, TAException {
-    this.assessmentName = assessmentName;
+    this(assessmentName, RuleCatalog.load(issuesFile, issuesCatFile, complexityFile, targetsFile));
+  }
 
-    // Complexity
-    ComplexitiesJson ccList = GenericUtil.getJsonObj(new TypeToken<ComplexitiesJson>(){}, complexityFile);
-    complexityRules.addAll(ComplexityContributionJson.getComplexityContributionList(ccList.getComplexities()));
-
-    // Targets
-    TaJsonFileValidator.validateTarget(Files.newInputStream(targetsFile));
-    TargetsJson _targets = GenericUtil.getJsonObj(new TypeToken<TargetsJson>(){}, targetsFile);
-    targets.addAll(_targets.getTargets());
-
-    // Issue Categories
-    Map<String, IssueCategoryJson> icMap = GenericUtil.getJsonObj(new TypeToken<Map<String, IssueCategoryJson>>(){}, issuesCatFile);
-    List<IssueCategory> ics = IssueCategoryJson.getIssueCategoryList(icMap);
-    issueCategories.addAll(ics);
-    Map<String, IssueCategory> issueCategoryMap = new HashMap<String, IssueCategory>();
-    for (IssueCategory ic : ics) {
-      issueCategoryMap.put(ic.getId(), ic);
-    }
+  /**
+   * Recommendation for a collection unit using the rules of a catalog. The catalog is not changed, so it can be shared
+   * with the recommendations of other collection units.
+   *
+   * @param assessmentName Name of the collection unit
+   * @param ruleCatalog Issue rules, issue categories, complexities and targets
+   */
+  public GenericRecommendation(String assessmentName, RuleCatalog ruleCatalog) {
+    this.assessmentName = assessmentName;
+    this.ruleCatalog = ruleCatalog;
+    rcm = new IssueRuleProcessor(ruleCatalog);
+  }
 
-    // Issues
-    String issueRulesJson = GenericUtil.readFileToString(issuesFile);
-    rcm = new IssueRuleProcessor(issueRulesJson, issueCategoryMap);
+  public static GenericRecommendation createGenericRecommemndation(String assessmentName, String middlewareName) throws TAException, IOException {
+    return new GenericRecommendation(assessmentName, RuleCatalog.forMiddleware(middlewareName));
+  }
 
+  /**
+   * Reuse the results of the rules from the previous assessment of the collection unit, for the rules whose input did
+   * not change. The manifest is updated when the assessment is completed.
+   *
+   * @param manifestFile Manifest file in the output directory of the collection unit
+   * @param pluginVersion Version of the plug-in doing the assessment
+   */
+  public void useAssessmentManifest(Path manifestFile, String pluginVersion) {
+    assessmentManifest = AssessmentManifest.load(manifestFile, pluginVersion);
+    rcm.setAssessmentManifest(assessmentManifest);
   }
 
-  public static GenericRecommendation createGenericRecommemndation(String assessmentName, String middlewareName) throws TAException, IOException {
-    String middlewareDir = "/" + middlewareName + "/";
-    try {
-        return new GenericRecommendation(assessmentName,
-                Paths.get(GenericRecommendation.class.getResource(middlewareDir + FILE_ISSUES_JSON).toURI()),
-                Paths.get(GenericRecommendation.class.getResource(middlewareDir + FILE_ISSUECATS_JSON).toURI()),
-                Paths.get(GenericRecommendation.class.getResource(middlewareDir + FILE_COMPLEXITIES_JSON).toURI()),
-                Paths.get(GenericRecommendation.class.getResource(middlewareDir + FILE_TARGETS_JSON).toURI()));
-      } catch (URISyntaxException e) {
-        throw new TAException(e);
-      }
+  /**
+   * Profile the rules evaluated for the collection unit. The profile is written when the assessment is completed.
+   *
+   * @param profileFile Profile file in the output directory of the collection unit
+   * @param topRules Number of slowest rules to write
+   */
+  public void useRuleProfile(Path profileFile, int topRules) {
+    ruleProfile = new RuleProfile(assessmentName, profileFile, topRules);
+    rcm.setRuleProfile(ruleProfile);
   }
 
   @Override
@@ -88,22 +75,64 @@ public class GenericRecommendation implements Recommendation {
 
   @Override
   public List<ComplexityContribution> getComplexityContributions() {
-    return complexityRules;
+    return ruleCatalog.getComplexityContributions();
   }
 
   @Override
   public List<IssueCategory> getIssueCategories() {
-    return issueCategories;
+    return ruleCatalog.getIssueCategories();
   }
 
   @Override
   public List<Target> getTargets() {
-    return targets;
+    return ruleCatalog.getTargets();
   }
 
   @Override
   public List<Issue> getIssues(Target target, AssessmentUnit assessmentUnit) throws TAException {
+    List<Issue> issues;
+    try (Metrics.Timer timer = Metrics.get().startPhase(Metrics.PHASE_EVALUATE, assessmentName, assessmentUnit.getName())) {
+      issues = rcm.processIssues((GenericTarget) target, assessmentUnit);
+    }
 
-    return rcm.processIssues((GenericTarget) target, assessmentUnit);
+    if (Metrics.get().isEnabled()) {
+      long occurrences = 0;
+      for (Issue issue : issues) {
+        Integer count = issue.getOccurrencesCount();
+        occurrences += count == null ? 0 : count;
+      }
+      Metrics.get().addOccurrences(assessmentName, assessmentUnit.getName(), target.getTargetId(), occurrences);
+    }
+    return issues;
+  }
+
+  @Override
+  public void assessmentUnitCompleted(AssessmentUnit assessmentUnit) throws TAException {
+    rcm.assessmentUnitCompleted(assessmentUnit);
+    if (assessmentManifest != null) {
+      try {
+        assessmentManifest.assessmentUnitCompleted(assessmentUnit.getName());
+      } catch (IOException e) {
+        throw new TAException("Error writing assessment manifest for assessment unit:" + assessmentUnit.getName(), e);
+      }
+    }
+  }
+
+  @Override
+  public void assessmentCompleted() throws TAException {
+    if (assessmentManifest != null) {
+      try {
+        assessmentManifest.save();
+      } catch (IOException e) {
+        throw new TAException("Error writing assessment manifest for collection unit:" + assessmentName, e);
+      }
+    }
+    if (ruleProfile != null) {
+      try {
+        ruleProfile.save();
+      } catch (IOException e) {
+        throw new TAException("Error writing rule profile for collection unit:" + assessmentName, e);
+      }
+    }
   }
 }
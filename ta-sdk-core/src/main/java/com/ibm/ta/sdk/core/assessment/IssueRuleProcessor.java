@@ -7,103 +7,94 @@
 package com.ibm.ta.sdk.core.assessment;
 
 import com.google.gson.*;
-import com.google.gson.reflect.TypeToken;
 import com.ibm.ta.sdk.spi.plugin.TAException;
 import com.ibm.ta.sdk.spi.collect.AssessmentUnit;
+import com.ibm.ta.sdk.spi.metrics.Metrics;
 import com.ibm.ta.sdk.spi.recommendation.Issue;
 import com.ibm.ta.sdk.spi.recommendation.IssueCategory;
-import com.ibm.ta.sdk.core.util.GenericUtil;
+import com.ibm.ta.sdk.spi.recommendation.Target;
+import com.ibm.ta.sdk.core.assessment.RuleCatalog.CompiledIssueRule;
 import com.ibm.ta.sdk.core.detector.IssueRuleTypeProvider;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.tinylog.Logger;
 
 public class IssueRuleProcessor {
 
-  private static final String ISSUERULE_MATCH_CRITERIA = "matchCriteria";
-  private static final String ISSUERULE_PROVIDER = "ruleType";
+  // Issue rules compiled once, shared with the other processors using the catalog
+  private final RuleCatalog ruleCatalog;
+  private final Map<String, IssueCategory> issueCategories;
 
-  private Map<String, JsonObject> issueRulesMap;
-  private Map<String, List<String>> issueCatIssueRulesMap;
-  private Map<String, IssueCategory> issueCategories;
+  // Occurrences found by target independent rules for the assessment units being assessed, by rule ID. They are
+  // removed when all the targets of the assessment unit are written, weak keys only release the assessment units of
+  // callers that never complete them.
+  private Map<AssessmentUnit, Map<String, List<Map<String, String>>>> auRuleOccurrencesMap =
+          Collections.synchronizedMap(new WeakHashMap<>());
 
-  private ServiceLoader<IssueRuleTypeProvider> serviceLoader = ServiceLoader.load(IssueRuleTypeProvider.class);
-  private Map<String, IssueRuleTypeProvider> ruleProviderMap = new HashMap<String, IssueRuleTypeProvider>();
+  // Results of the previous assessment, null if all rules are evaluated
+  private AssessmentManifest assessmentManifest;
 
-  public IssueRuleProcessor(String issuesJson, Map<String, IssueCategory> issueCategories) {
-    this.issueCategories = issueCategories;
-
-    // Build map with issue rules
-    // Build a map of the list of issues in each issue category
-    issueRulesMap = new HashMap<>();
-    issueCatIssueRulesMap = new HashMap<>();
-    JsonObject issueRulesJson = new JsonParser().parse(issuesJson).getAsJsonObject();
-    for (Iterator it = issueRulesJson.get("issues").getAsJsonArray().iterator(); it.hasNext(); ) {
-      JsonObject issueRule = (JsonObject) it.next();
-      String issueRuleId = issueRule.get("id").getAsString();
-      String issueRuleCat = issueRule.get("category").getAsString();
-      issueRulesMap.put(issueRuleId, issueRule);
-
-      List<String> issueRulesInCat = issueCatIssueRulesMap.get(issueRuleCat);
-      if (issueRulesInCat == null) {
-        issueRulesInCat = new ArrayList<>();
-        issueCatIssueRulesMap.put(issueRuleCat, issueRulesInCat);
-      }
-      issueRulesInCat.add(issueRuleId);
-    }
+  // Time spent evaluating each rule, null if rules are not profiled
+  private RuleProfile ruleProfile;
 
-    // Build map of issue rule providers
-    Iterator<IssueRuleTypeProvider> itIRprovider = serviceLoader.iterator();
-    while (itIRprovider.hasNext()) {
-      IssueRuleTypeProvider irProvider = itIRprovider.next();
-      Logger.debug("Adding issue rule provider:" + irProvider.getName());
-      ruleProviderMap.put(irProvider.getName(), irProvider);
-    }
+  public IssueRuleProcessor(String issuesJson, Map<String, IssueCategory> issueCategories) {
+    this(issuesJson, issueCategories, Collections.emptyList());
   }
 
-  public List<Issue> processIssues(GenericTarget target, AssessmentUnit assessmentUnit) throws TAException {
-    List<Issue> issueList = new ArrayList<Issue>();
+  /**
+   * Compiles the issue rules and the list of rules for each target, so processing issues for a target and an
+   * assessment unit only needs to evaluate the rules.
+   *
+   * @param issuesJson Contents of the issues json file
+   * @param issueCategories Issue categories by ID
+   * @param targets Targets to pre-compute the list of rules for. The list of rules for any other target is computed
+   *                the first time issues are processed for it.
+   */
+  public IssueRuleProcessor(String issuesJson, Map<String, IssueCategory> issueCategories, List<? extends Target> targets) {
+    this(new RuleCatalog(issuesJson, new ArrayList<>(issueCategories.values()), Collections.emptyList(), targets));
+  }
 
-    // Get list of issues applicable to this target,
-    // Add issues from issue categories
-    Set<String> issueRulesSet = new TreeSet<>();
-    issueRulesSet.addAll(target.getIssues());
-    for (String issueCats : target.getIssueCategories()) {
-      List<String> issuesInCat = issueCatIssueRulesMap.get(issueCats);
-      if (issuesInCat != null) {
-        issueRulesSet.addAll(issuesInCat);
-      }
-    }
+  /**
+   * Processes issues with the issue rules of a catalog. The rules are not compiled again.
+   *
+   * @param ruleCatalog Catalog of the issue rules
+   */
+  public IssueRuleProcessor(RuleCatalog ruleCatalog) {
+    this.ruleCatalog = ruleCatalog;
+    this.issueCategories = ruleCatalog.getIssueCategoryMap();
+  }
 
-    // If no issues or issue categories in target, add all issues to target
-    if (target.getIssues().isEmpty() && target.getIssueCategories().isEmpty()) {
-      issueRulesSet.addAll(issueRulesMap.keySet());
-    }
+  /**
+   * Reuse the occurrences of target independent rules found in a previous assessment, and add the occurrences found
+   * in this assessment to the manifest
+   *
+   * @param assessmentManifest Manifest of the collection unit
+   */
+  public void setAssessmentManifest(AssessmentManifest assessmentManifest) {
+    this.assessmentManifest = assessmentManifest;
+  }
 
-    // Create issue rule array with only issues listed in the target
-    JsonArray issueRulesJson = new JsonArray();
-    for (String targetIssue : issueRulesSet.toArray(new String[]{})) {
-      JsonObject issueRuleJson = issueRulesMap.get(targetIssue);
-      if (issueRuleJson != null) {
-        issueRulesJson.add(issueRuleJson);
-      } else {
-        Logger.warn("Issue " + issueRuleJson + " in target " + target.getTargetId() + " not found.");
-      }
-    }
+  /**
+   * Record the time, input files, matched paths and occurrences of each rule evaluated
+   *
+   * @param ruleProfile Profile of the collection unit
+   */
+  public void setRuleProfile(RuleProfile ruleProfile) {
+    this.ruleProfile = ruleProfile;
+  }
 
-    for (int i = 0; i < issueRulesJson.size(); i++) {
-      JsonObject issueRuleJson = issueRulesJson.get(i).getAsJsonObject();
-      Logger.debug("Process recommendation rule:" + issueRuleJson.toString());
+  public List<Issue> processIssues(GenericTarget target, AssessmentUnit assessmentUnit) throws TAException {
+    List<Issue> issueList = new ArrayList<Issue>();
 
-      IssueRuleTypeProvider ruleProvider = getIssueRuleProvider(issueRuleJson);
-      if (ruleProvider == null) {
-        Logger.error("Rule cannot be processed, no provider found for rule:" + issueRuleJson);
-        continue;
-      }
+    for (CompiledIssueRule compiledRule : getTargetIssueRules(target)) {
+      IssueRule issueRule = compiledRule.issueRule;
+      Logger.debug("Process recommendation rule:" + issueRule.getId());
 
-      IssueRule issueRule = getIssueRule(ruleProvider, issueRuleJson);
-      GenericIssue issue = ruleProvider.getIssue(target, assessmentUnit, issueRule);
+      GenericIssue issue = evaluateRule(compiledRule, target, assessmentUnit);
       issue.setCategory(issueCategories.get(issueRule.getCategory()));
       issue.setCostCappingThreshold(issueRule.getIssueCostCappingThreshold());
 
@@ -123,21 +114,105 @@ public class IssueRuleProcessor {
     return issueList;
   }
 
-  public IssueRule getIssueRule(IssueRuleTypeProvider ruleProvider, JsonObject issueRuleJson) {
-    IssueRule issueRule = GenericUtil.getJsonObj(new TypeToken<IssueRule>(){}, issueRuleJson);
-    issueRule.setMatchCriteria(ruleProvider.getIssueMatchCriteria(issueRule.getMatchCriteriaJson()));
-    return issueRule;
+  /**
+   * Release the occurrences kept for the assessment unit, and the state kept by the rule providers. The target
+   * independent rules are evaluated again if issues are processed for the assessment unit after it is completed.
+   *
+   * @param assessmentUnit Assessment unit whose issues were processed for all the targets
+   */
+  public void assessmentUnitCompleted(AssessmentUnit assessmentUnit) {
+    auRuleOccurrencesMap.remove(assessmentUnit);
+    for (IssueRuleTypeProvider ruleProvider : ruleCatalog.getRuleProviders()) {
+      ruleProvider.assessmentUnitCompleted(assessmentUnit);
+    }
   }
 
-  private IssueRuleTypeProvider getIssueRuleProvider(JsonObject issueRuleJson) {
-    JsonElement mcJsonE = issueRuleJson.get(ISSUERULE_MATCH_CRITERIA);
-    if (mcJsonE != null && !mcJsonE.isJsonNull()) {
-      JsonElement providerJsonE = mcJsonE.getAsJsonObject().get(ISSUERULE_PROVIDER);
-      if (providerJsonE != null && !providerJsonE.isJsonNull()) {
-        return ruleProviderMap.get(providerJsonE.getAsString());
+  /*
+   * Rules from target independent providers are evaluated once for each assessment unit. The issue for each target
+   * is a new GenericIssue with the same occurrences, so only the targeted solution text differs. With an assessment
+   * manifest, the occurrences of the previous assessment are used if the rule and its input did not change.
+   */
+  private GenericIssue evaluateRule(CompiledIssueRule compiledRule, GenericTarget target, AssessmentUnit assessmentUnit) {
+    IssueRule issueRule = compiledRule.issueRule;
+    if (!compiledRule.ruleProvider.isTargetIndependent()) {
+      return getIssue(compiledRule, target, assessmentUnit);
+    }
+
+    Map<String, List<Map<String, String>>> ruleOccurrencesMap;
+    synchronized (auRuleOccurrencesMap) {
+      ruleOccurrencesMap = auRuleOccurrencesMap.computeIfAbsent(assessmentUnit, au -> new ConcurrentHashMap<>());
+    }
+
+    List<Map<String, String>> occurrences = ruleOccurrencesMap.get(issueRule.getId());
+    if (occurrences == null) {
+      String inputHash = getInputHash(compiledRule, assessmentUnit);
+      if (inputHash != null) {
+        occurrences = assessmentManifest.getOccurrences(assessmentUnit.getName(), issueRule.getId(),
+                compiledRule.ruleHash, inputHash);
+      }
+
+      if (occurrences == null) {
+        GenericIssue issue = getIssue(compiledRule, target, assessmentUnit);
+        occurrences = Collections.unmodifiableList(new ArrayList<>(issue.getOccurrence().getOccurrencesInstances()));
+        ruleOccurrencesMap.put(issueRule.getId(), occurrences);
+        if (inputHash != null) {
+          assessmentManifest.putOccurrences(assessmentUnit.getName(), issueRule.getId(), compiledRule.ruleHash,
+                  inputHash, occurrences);
+        }
+        return issue;
       }
+
+      Logger.debug("Reusing occurrences of rule " + issueRule.getId() + " from the previous assessment");
+      occurrences = Collections.unmodifiableList(new ArrayList<>(occurrences));
+      ruleOccurrencesMap.put(issueRule.getId(), occurrences);
     }
-    return null;
+
+    Logger.debug("Reusing occurrences of rule " + issueRule.getId() + " for target " + target.getTargetId());
+    GenericIssue issue = new GenericIssue(issueRule, target.getTargetId());
+    issue.addOccurences(occurrences);
+    return issue;
+  }
+
+  // Evaluates the rule with its provider, and records the time and the occurrences found
+  private GenericIssue getIssue(CompiledIssueRule compiledRule, GenericTarget target, AssessmentUnit assessmentUnit) {
+    IssueRule issueRule = compiledRule.issueRule;
+    long start = System.nanoTime();
+    GenericIssue issue;
+    try (Metrics.Timer timer = Metrics.get().startRule(issueRule.getId())) {
+      issue = compiledRule.ruleProvider.getIssue(target, assessmentUnit, issueRule);
+    }
+    long nanos = System.nanoTime() - start;
+
+    int occurrences = issue.getOccurrence().getOccurrencesInstances().size();
+    Metrics.get().addRuleOccurrences(issueRule.getId(), occurrences);
+    if (ruleProfile != null) {
+      int inputFiles = compiledRule.ruleProvider.getInputFiles(assessmentUnit, issueRule).size();
+      ruleProfile.record(issueRule, compiledRule.ruleProvider.getName(), nanos, inputFiles, issue.getMatchedPaths(),
+              occurrences);
+    }
+    return issue;
+  }
+
+  // Returns null if there is no manifest, or the input of the rule cannot be read
+  private String getInputHash(CompiledIssueRule compiledRule, AssessmentUnit assessmentUnit) {
+    if (assessmentManifest == null) {
+      return null;
+    }
+    try {
+      List<Path> inputFiles = compiledRule.ruleProvider.getInputFiles(assessmentUnit, compiledRule.issueRule);
+      return assessmentManifest.getInputHash(assessmentUnit, inputFiles);
+    } catch (IOException e) {
+      Logger.warn("Cannot read input of rule " + compiledRule.issueRule.getId() + ", evaluating it:" + e);
+      return null;
+    }
+  }
+
+  private List<CompiledIssueRule> getTargetIssueRules(GenericTarget target) {
+    return ruleCatalog.getTargetIssueRules(target);
+  }
+
+  public IssueRule getIssueRule(IssueRuleTypeProvider ruleProvider, JsonObject issueRuleJson) {
+    return RuleCatalog.compileIssueRule(ruleProvider, issueRuleJson);
   }
 
   private Issue getIssueById(List<Issue> issueList, Issue targetIssue) {
@@ -0,0 +1,301 @@
+/*
+ * (C) Copyright IBM Corp. 2019,2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.ta.sdk.core.assessment;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.reflect.TypeToken;
+import com.ibm.ta.sdk.core.assessment.json.ComplexitiesJson;
+import com.ibm.ta.sdk.core.assessment.json.TargetsJson;
+import com.ibm.ta.sdk.core.detector.IssueRuleTypeProvider;
+import com.ibm.ta.sdk.core.util.GenericUtil;
+import com.ibm.ta.sdk.spi.assess.ComplexityContributionJson;
+import com.ibm.ta.sdk.spi.assess.IssueCategoryJson;
+import com.ibm.ta.sdk.spi.plugin.TAException;
+import com.ibm.ta.sdk.spi.recommendation.ComplexityContribution;
+import com.ibm.ta.sdk.spi.recommendation.IssueCategory;
+import com.ibm.ta.sdk.spi.recommendation.Target;
+import com.ibm.ta.sdk.spi.validation.TaJsonFileValidator;
+import org.tinylog.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.ibm.ta.sdk.core.util.Constants.*;
+
+/**
+ * Issue rules, issue categories, complexities and targets of a plug-in, read and validated once. The issue rules are
+ * compiled with their rule type provider, and the list of rules for each target is computed the first time it is
+ * needed. The catalog does not change once it is loaded, so it is shared by the recommendations of all the collection
+ * units.
+ *
+ * The catalog of the files of a middleware in the classpath is loaded the first time it is used, and kept for the
+ * life of the process.
+ */
+public class RuleCatalog {
+  private static final String ISSUERULE_MATCH_CRITERIA = "matchCriteria";
+  private static final String ISSUERULE_PROVIDER = "ruleType";
+
+  // Catalogs of the files in the classpath, by middleware
+  private static final Map<String, RuleCatalog> middlewareCatalogs = new ConcurrentHashMap<>();
+
+  private final String issueRulesJson;
+  private final List<ComplexityContribution> complexityContributions;
+  private final List<IssueCategory> issueCategories;
+  private final Map<String, IssueCategory> issueCategoryMap;
+  private final List<Target> targets;
+
+  // Issue rules compiled once, by rule ID
+  private final Map<String, CompiledIssueRule> issueRulesMap = new HashMap<>();
+  private final Map<String, List<String>> issueCatIssueRulesMap = new HashMap<>();
+
+  // Providers of the issue rules
+  private final Set<IssueRuleTypeProvider> ruleProviders = new LinkedHashSet<>();
+
+  // Rules applicable to each target
+  private final Map<GenericTarget, List<CompiledIssueRule>> targetIssueRulesMap = new ConcurrentHashMap<>();
+
+  /**
+   * Compiles the issue rules, and the list of rules for each target
+   *
+   * @param issueRulesJson Contents of the issues json file
+   * @param issueCategories Issue categories
+   * @param complexityContributions Complexity contributions
+   * @param targets Targets to pre-compute the list of rules for. The list of rules for any other target is computed
+   *                the first time it is needed.
+   */
+  public RuleCatalog(String issueRulesJson, List<IssueCategory> issueCategories,
+                     List<ComplexityContribution> complexityContributions, List<? extends Target> targets) {
+    this.issueRulesJson = issueRulesJson;
+    this.issueCategories = Collections.unmodifiableList(new ArrayList<>(issueCategories));
+    this.complexityContributions = Collections.unmodifiableList(new ArrayList<>(complexityContributions));
+    this.targets = Collections.unmodifiableList(new ArrayList<Target>(targets));
+    Map<String, IssueCategory> categoryMap = new HashMap<>();
+    for (IssueCategory ic : issueCategories) {
+      categoryMap.put(ic.getId(), ic);
+    }
+    this.issueCategoryMap = Collections.unmodifiableMap(categoryMap);
+
+    // Build map of issue rule providers
+    Map<String, IssueRuleTypeProvider> ruleProviderMap = new HashMap<>();
+    for (IssueRuleTypeProvider irProvider : ServiceLoader.load(IssueRuleTypeProvider.class)) {
+      Logger.debug("Adding issue rule provider:" + irProvider.getName());
+      ruleProviderMap.put(irProvider.getName(), irProvider);
+    }
+
+    // Build map with issue rules
+    // Build a map of the list of issues in each issue category
+    JsonObject issueRulesJsonObj = new JsonParser().parse(issueRulesJson).getAsJsonObject();
+    for (JsonElement issueRuleJsonE : issueRulesJsonObj.get("issues").getAsJsonArray()) {
+      JsonObject issueRuleJson = issueRuleJsonE.getAsJsonObject();
+      String issueRuleId = issueRuleJson.get("id").getAsString();
+      String issueRuleCat = issueRuleJson.get("category").getAsString();
+
+      IssueRuleTypeProvider ruleProvider = getIssueRuleProvider(ruleProviderMap, issueRuleJson);
+      if (ruleProvider == null) {
+        Logger.error("Rule cannot be processed, no provider found for rule:" + issueRuleJson);
+        continue;
+      }
+      IssueRule issueRule = compileIssueRule(ruleProvider, issueRuleJson);
+      ruleProvider.addIssueRule(issueRule);
+      ruleProviders.add(ruleProvider);
+      issueRulesMap.put(issueRuleId, new CompiledIssueRule(issueRule, ruleProvider,
+              AssessmentManifest.hash(issueRuleJson.toString())));
+      issueCatIssueRulesMap.computeIfAbsent(issueRuleCat, cat -> new ArrayList<>()).add(issueRuleId);
+    }
+
+    for (Target target : targets) {
+      if (target instanceof GenericTarget) {
+        getTargetIssueRules((GenericTarget) target);
+      }
+    }
+  }
+
+  /**
+   * Load the catalog from files. The targets json file is validated.
+   *
+   * @param issuesFile Issues json file
+   * @param issuesCatFile Issue categories json file
+   * @param complexityFile Complexities json file
+   * @param targetsFile Targets json file
+   * @return Catalog of the files
+   */
+  public static RuleCatalog load(Path issuesFile, Path issuesCatFile, Path complexityFile, Path targetsFile)
+          throws IOException, TAException {
+    // Complexity
+    ComplexitiesJson ccList = GenericUtil.getJsonObj(new TypeToken<ComplexitiesJson>(){}, complexityFile);
+    List<ComplexityContribution> complexityContributions =
+            ComplexityContributionJson.getComplexityContributionList(ccList.getComplexities());
+
+    // Targets
+    try (InputStream targetsIs = Files.newInputStream(targetsFile)) {
+      TaJsonFileValidator.validateTarget(targetsIs);
+    }
+    TargetsJson targetsJson = GenericUtil.getJsonObj(new TypeToken<TargetsJson>(){}, targetsFile);
+
+    // Issue Categories
+    Map<String, IssueCategoryJson> icMap = GenericUtil.getJsonObj(new TypeToken<Map<String, IssueCategoryJson>>(){}, issuesCatFile);
+    List<IssueCategory> issueCategories = IssueCategoryJson.getIssueCategoryList(icMap);
+
+    // Issues
+    String issueRulesJson = GenericUtil.readFileToString(issuesFile);
+    return new RuleCatalog(issueRulesJson, issueCategories, complexityContributions, targetsJson.getTargets());
+  }
+
+  /**
+   * Get the catalog of the files of a middleware in the classpath. The catalog is loaded the first time, and the
+   * same catalog is returned for the middleware after that.
+   *
+   * @param middlewareName Middleware, the name of the directory of the files in the classpath
+   * @return Catalog of the middleware
+   */
+  public static RuleCatalog forMiddleware(String middlewareName) throws IOException, TAException {
+    RuleCatalog catalog = middlewareCatalogs.get(middlewareName);
+    if (catalog == null) {
+      synchronized (middlewareCatalogs) {
+        catalog = middlewareCatalogs.get(middlewareName);
+        if (catalog == null) {
+          Logger.debug("Loading rule catalog for middleware:" + middlewareName);
+          String middlewareDir = "/" + middlewareName + "/";
+          catalog = load(getResourcePath(middlewareDir + FILE_ISSUES_JSON),
+                  getResourcePath(middlewareDir + FILE_ISSUECATS_JSON),
+                  getResourcePath(middlewareDir + FILE_COMPLEXITIES_JSON),
+                  getResourcePath(middlewareDir + FILE_TARGETS_JSON));
+          middlewareCatalogs.put(middlewareName, catalog);
+        }
+      }
+    }
+    return catalog;
+  }
+
+  private static Path getResourcePath(String resource) throws TAException {
+    URL url = RuleCatalog.class.getResource(resource);
+    if (url == null) {
+      throw new TAException("File not found in classpath:" + resource);
+    }
+    try {
+      return Paths.get(url.toURI());
+    } catch (URISyntaxException e) {
+      throw new TAException(e);
+    }
+  }
+
+  /**
+   * Compile an issue rule, with the match criteria of its rule type provider
+   *
+   * @param ruleProvider Provider of the rule type
+   * @param issueRuleJson Issue rule
+   * @return Issue rule
+   */
+  public static IssueRule compileIssueRule(IssueRuleTypeProvider ruleProvider, JsonObject issueRuleJson) {
+    IssueRule issueRule = GenericUtil.getJsonObj(new TypeToken<IssueRule>(){}, issueRuleJson);
+    issueRule.setMatchCriteria(ruleProvider.getIssueMatchCriteria(issueRule.getMatchCriteriaJson()));
+    return issueRule;
+  }
+
+  private static IssueRuleTypeProvider getIssueRuleProvider(Map<String, IssueRuleTypeProvider> ruleProviderMap,
+                                                            JsonObject issueRuleJson) {
+    JsonElement mcJsonE = issueRuleJson.get(ISSUERULE_MATCH_CRITERIA);
+    if (mcJsonE != null && !mcJsonE.isJsonNull()) {
+      JsonElement providerJsonE = mcJsonE.getAsJsonObject().get(ISSUERULE_PROVIDER);
+      if (providerJsonE != null && !providerJsonE.isJsonNull()) {
+        return ruleProviderMap.get(providerJsonE.getAsString());
+      }
+    }
+    return null;
+  }
+
+  public String getIssueRulesJson() {
+    return issueRulesJson;
+  }
+
+  public List<ComplexityContribution> getComplexityContributions() {
+    return complexityContributions;
+  }
+
+  public List<IssueCategory> getIssueCategories() {
+    return issueCategories;
+  }
+
+  public Map<String, IssueCategory> getIssueCategoryMap() {
+    return issueCategoryMap;
+  }
+
+  public List<Target> getTargets() {
+    return targets;
+  }
+
+  Collection<IssueRuleTypeProvider> getRuleProviders() {
+    return ruleProviders;
+  }
+
+  List<CompiledIssueRule> getTargetIssueRules(GenericTarget target) {
+    return targetIssueRulesMap.computeIfAbsent(target, this::buildTargetIssueRules);
+  }
+
+  private List<CompiledIssueRule> buildTargetIssueRules(GenericTarget target) {
+    // Get list of issues applicable to this target,
+    // Add issues from issue categories
+    Set<String> issueRulesSet = new TreeSet<>();
+    issueRulesSet.addAll(target.getIssues());
+    for (String issueCats : target.getIssueCategories()) {
+      List<String> issuesInCat = issueCatIssueRulesMap.get(issueCats);
+      if (issuesInCat != null) {
+        issueRulesSet.addAll(issuesInCat);
+      }
+    }
+
+    // If no issues or issue categories in target, add all issues to target
+    if (target.getIssues().isEmpty() && target.getIssueCategories().isEmpty()) {
+      issueRulesSet.addAll(issueRulesMap.keySet());
+    }
+
+    // Create issue rule list with only issues listed in the target
+    List<CompiledIssueRule> targetIssueRules = new ArrayList<>();
+    for (String targetIssue : issueRulesSet) {
+      CompiledIssueRule compiledRule = issueRulesMap.get(targetIssue);
+      if (compiledRule != null) {
+        targetIssueRules.add(compiledRule);
+      } else {
+        Logger.warn("Issue " + targetIssue + " in target " + target.getTargetId() + " not found.");
+      }
+    }
+    return Collections.unmodifiableList(targetIssueRules);
+  }
+
+  /*
+   * Issue rule with its rule type provider resolved, and the hash of its definition
+   */
+  static class CompiledIssueRule {
+    final IssueRule issueRule;
+    final IssueRuleTypeProvider ruleProvider;
+    final String ruleHash;
+
+    private CompiledIssueRule(IssueRule issueRule, IssueRuleTypeProvider ruleProvider, String ruleHash) {
+      this.issueRule = issueRule;
+      this.ruleProvider = ruleProvider;
+      this.ruleHash = ruleHash;
+    }
+  }
+}
@@ -0,0 +1,170 @@
+/*
+ * (C) Copyright IBM Corp. 2019,2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.ta.sdk.core.assessment;
+
+import com.google.gson.GsonBuilder;
+import org.tinylog.Logger;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time spent evaluating each issue rule of a collection unit, so rule authors can find the rules that are expensive to
+ * evaluate. For each rule the profile records the number of evaluations, the wall time, the number of input files,
+ * the number of paths matched by the rule and the number of occurrences found. Rules whose occurrences are reused
+ * from a previous assessment or from another target are not evaluated, and are not in the profile.
+ *
+ * The profile is written to the output directory of the collection unit, next to the recommendations.json, with the
+ * slowest rules first. Profiling is disabled by default. Set the system property ta.sdk.assess.ruleProfile to the
+ * number of slowest rules to write to enable it.
+ */
+public class RuleProfile {
+  public static final String TOP_RULES_PROPERTY = "ta.sdk.assess.ruleProfile";
+
+  private final String collectionUnitName;
+  private final Path profileFile;
+  private final int topRules;
+  private final Map<String, RuleJson> rules = new HashMap<>();
+
+  /**
+   * @param collectionUnitName Name of the collection unit
+   * @param profileFile Profile file in the output directory of the collection unit
+   * @param topRules Number of slowest rules to write
+   */
+  public RuleProfile(String collectionUnitName, Path profileFile, int topRules) {
+    this.collectionUnitName = collectionUnitName;
+    this.profileFile = profileFile;
+    this.topRules = topRules;
+  }
+
+  /**
+   * Get the number of slowest rules to write from the system property ta.sdk.assess.ruleProfile
+   *
+   * @return Number of rules, 0 if the property is not set or is not valid
+   */
+  public static int topRulesFromSystemProperty() {
+    String value = System.getProperty(TOP_RULES_PROPERTY);
+    if (value == null || value.trim().isEmpty()) {
+      return 0;
+    }
+    try {
+      return Math.max(0, Integer.parseInt(value.trim()));
+    } catch (NumberFormatException e) {
+      Logger.warn("Invalid value '" + value + "' for system property " + TOP_RULES_PROPERTY + ", rules are not profiled.");
+      return 0;
+    }
+  }
+
+  /**
+   * Add an evaluation of a rule to the profile
+   *
+   * @param issueRule Rule evaluated
+   * @param ruleType Name of the provider of the rule type
+   * @param nanos Wall time of the evaluation
+   * @param inputFiles Number of config files read by the rule
+   * @param matchedPaths Number of paths or elements matched by the rule
+   * @param occurrences Number of occurrences found
+   */
+  public synchronized void record(IssueRule issueRule, String ruleType, long nanos, int inputFiles, int matchedPaths,
+                                  int occurrences) {
+    RuleJson rule = rules.get(issueRule.getId());
+    if (rule == null) {
+      rule = new RuleJson();
+      rule.id = issueRule.getId();
+      rule.ruleType = ruleType;
+      rules.put(rule.id, rule);
+    }
+    rule.evaluations++;
+    rule.totalNanos += nanos;
+    rule.maxNanos = Math.max(rule.maxNanos, nanos);
+    rule.inputFiles += inputFiles;
+    rule.matchedPaths += matchedPaths;
+    rule.occurrences += occurrences;
+  }
+
+  /**
+   * Get the slowest rules, the rule with the highest total time first
+   *
+   * @return IDs of the slowest rules, at most the number of rules to write
+   */
+  public synchronized List<String> getSlowestRules() {
+    List<String> ruleIds = new ArrayList<>();
+    for (RuleJson rule : getSortedRules()) {
+      ruleIds.add(rule.id);
+    }
+    return ruleIds;
+  }
+
+  /**
+   * Write the profile, replacing the profile of the previous assessment
+   *
+   * @throws IOException If the profile cannot be written
+   */
+  public synchronized void save() throws IOException {
+    ProfileJson profile = new ProfileJson();
+    profile.collectionUnit = collectionUnitName;
+    profile.rulesEvaluated = rules.size();
+    long totalNanos = 0;
+    for (RuleJson rule : rules.values()) {
+      totalNanos += rule.totalNanos;
+    }
+    profile.totalSeconds = toSeconds(totalNanos);
+
+    for (RuleJson rule : getSortedRules()) {
+      rule.totalSeconds = toSeconds(rule.totalNanos);
+      rule.maxSeconds = toSeconds(rule.maxNanos);
+      rule.percentOfTotal = totalNanos == 0 ? 0 : Math.round(rule.totalNanos * 1000.0 / totalNanos) / 10.0;
+      profile.slowestRules.add(rule);
+    }
+
+    Logger.info("Writing profile of the " + profile.slowestRules.size() + " slowest rules:" + profileFile);
+    try (Writer writer = Files.newBufferedWriter(profileFile, StandardCharsets.UTF_8)) {
+      new GsonBuilder().setPrettyPrinting().create().toJson(profile, writer);
+    }
+  }
+
+  private List<RuleJson> getSortedRules() {
+    List<RuleJson> sortedRules = new ArrayList<>(rules.values());
+    sortedRules.sort(Comparator.comparingLong((RuleJson rule) -> rule.totalNanos).reversed()
+            .thenComparing(rule -> rule.id));
+    return sortedRules.subList(0, Math.min(topRules, sortedRules.size()));
+  }
+
+  private static double toSeconds(long nanos) {
+    return nanos / (double) TimeUnit.SECONDS.toNanos(1);
+  }
+
+  private static class ProfileJson {
+    private String collectionUnit;
+    private int rulesEvaluated;
+    private double totalSeconds;
+    private List<RuleJson> slowestRules = new ArrayList<>();
+  }
+
+  private static class RuleJson {
+    private String id;
+    private String ruleType;
+    private int evaluations;
+    private double totalSeconds;
+    private double maxSeconds;
+    private double percentOfTotal;
+    private long inputFiles;
+    private long matchedPaths;
+    private long occurrences;
+    private transient long totalNanos;
+    private transient long maxNanos;
+  }
+}
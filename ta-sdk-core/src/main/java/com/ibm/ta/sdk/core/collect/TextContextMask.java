@@ -12,10 +12,12 @@ import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.regex.Pattern;
 
 public class TextContextMask implements ContentMask {
   private List<String> files;
   private List<AbstractMap.SimpleEntry<String, String>> regexs;
+  private List<Pattern> patterns = new ArrayList<>();
 
   public TextContextMask(List<String> files, List<AbstractMap.SimpleEntry<String, String>> regexs) {
     if (files == null) {
@@ -29,6 +31,11 @@ public class TextContextMask implements ContentMask {
     } else {
       this.regexs = regexs;
     }
+
+    // Compile the regexs once, instead of for each line that is masked
+    for (AbstractMap.SimpleEntry<String, String> regex : this.regexs) {
+      patterns.add(Pattern.compile(regex.getKey()));
+    }
   }
 
   @Override
@@ -41,12 +48,22 @@ public class TextContextMask implements ContentMask {
     List<String> outContent = new LinkedList<>();
 
     for (String line : content) {
-      for (AbstractMap.SimpleEntry<String, String> regex : regexs) {
-        line = line.replaceAll(regex.getKey(), regex.getValue());
-      }
-      outContent.add(line);
+      outContent.add(maskLine(line));
     }
 
     return outContent;
   }
+
+  @Override
+  public boolean isLineMask() {
+    return true;
+  }
+
+  @Override
+  public String maskLine(String line) {
+    for (int i = 0; i < patterns.size(); i++) {
+      line = patterns.get(i).matcher(line).replaceAll(regexs.get(i).getValue());
+    }
+    return line;
+  }
 }
@@ -13,6 +13,10 @@ import com.ibm.ta.sdk.core.assessment.GenericIssue;
 import com.ibm.ta.sdk.core.assessment.IssueMatchCriteria;
 import com.ibm.ta.sdk.core.assessment.IssueRule;
 
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+
 
 public interface IssueRuleTypeProvider {
 
@@ -22,4 +26,38 @@ public interface IssueRuleTypeProvider {
 
   public GenericIssue getIssue(Target target, AssessmentUnit assessmentUnit, IssueRule issueRule);
 
+  /**
+   * Called for each rule of the provider when the rules of a plug-in are compiled, before any rule is evaluated.
+   * Providers that evaluate all their rules in a single read of a config file use it to know the rules. Rules can
+   * also be evaluated without being added, for example when they are compiled on their own.
+   */
+  default void addIssueRule(IssueRule issueRule) {
+  }
+
+  /**
+   * Called when the issues of all the targets of an assessment unit are processed. Providers that keep state for an
+   * assessment unit, such as parsed config files, release it.
+   */
+  default void assessmentUnitCompleted(AssessmentUnit assessmentUnit) {
+  }
+
+  /**
+   * Returns true if the occurrences found by getIssue() do not depend on the target. Rules for these providers are
+   * evaluated once for each assessment unit, and the occurrences are shared by the issues for all targets.
+   * Providers that use the target to find occurrences must return false.
+   */
+  default boolean isTargetIndependent() {
+    return false;
+  }
+
+  /**
+   * Returns the config files of the assessment unit that getIssue() reads for the rule, in addition to the assessment
+   * data. Occurrences found in a previous assessment are reused if none of these files changed. The default is all the
+   * config files of the assessment unit.
+   */
+  default List<Path> getInputFiles(AssessmentUnit assessmentUnit, IssueRule issueRule) {
+    List<Path> configFiles = assessmentUnit.getConfigFiles();
+    return configFiles == null ? Collections.emptyList() : configFiles;
+  }
+
 }
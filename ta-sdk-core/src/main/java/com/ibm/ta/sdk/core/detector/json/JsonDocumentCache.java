@@ -0,0 +1,174 @@
+/*
+ * (C) Copyright IBM Corp. 2019,2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.ta.sdk.core.detector.json;
+
+import com.google.gson.JsonObject;
+import com.ibm.ta.sdk.spi.metrics.Metrics;
+import com.jayway.jsonpath.Configuration;
+import org.tinylog.Logger;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Parsed JSON documents shared by all JSON issue rules that query the same assessment unit. The config files of an
+ * assessment unit are parsed once and the parsed document is reused until the file changes on disk.
+ *
+ * Documents read from config files are keyed by file path and checked against the last modified time and size of the
+ * file. The assessment data of an assessment unit is keyed by the identity of its JsonObject. The cache is bounded by
+ * the heap used by the parsed documents, estimated from the length of their JSON text, and the least recently used
+ * documents are evicted first. Set the system property ta.sdk.json.cache.maxBytes to change the budget, 0 disables
+ * the cache.
+ */
+public class JsonDocumentCache {
+  public static final String MAX_BYTES_PROPERTY = "ta.sdk.json.cache.maxBytes";
+  public static final long DEFAULT_MAX_BYTES = 128L * 1024 * 1024;
+
+  // Heap used by a parsed document for each character of its JSON text. The maps, lists and boxed values of the
+  // json-smart tree of a config file take about 9 bytes per character.
+  static final int HEAP_BYTES_PER_CHAR = 10;
+
+  private final long maxBytes;
+  private long cachedBytes = 0;
+  private final LinkedHashMap<Object, CachedDocument> documents = new LinkedHashMap<>(16, 0.75f, true);
+
+  public JsonDocumentCache() {
+    this(Long.getLong(MAX_BYTES_PROPERTY, DEFAULT_MAX_BYTES));
+  }
+
+  /**
+   * @param maxBytes Estimated heap used by the cached documents, in bytes
+   */
+  public JsonDocumentCache(long maxBytes) {
+    this.maxBytes = maxBytes;
+  }
+
+  /**
+   * Get the parsed document for a JSON config file
+   * @param file JSON file
+   * @return Parsed document, to be wrapped in a DocumentContext with JsonPath.parse(Object) or using(conf).parse(Object)
+   * @throws IOException if the file cannot be read
+   */
+  public Object getDocument(Path file) throws IOException {
+    Path key = file.toAbsolutePath().normalize();
+    String stamp = Files.getLastModifiedTime(file).toMillis() + ":" + Files.size(file);
+    Object document = get(key, stamp);
+    if (document == null) {
+      Logger.debug("Reading config file:" + file);
+      byte[] bytes = Files.readAllBytes(file);
+      Metrics.get().addBytesRead(Metrics.PHASE_EVALUATE, null, bytes.length);
+      String json = new String(bytes);
+      document = parse(json);
+      put(key, stamp, document, getHeapBytes(json));
+    }
+    return document;
+  }
+
+  /**
+   * Get the parsed document for the assessment data of an assessment unit
+   * @param assessmentData Assessment data
+   * @return Parsed document, to be wrapped in a DocumentContext with JsonPath.parse(Object) or using(conf).parse(Object)
+   */
+  public Object getDocument(JsonObject assessmentData) {
+    IdentityKey key = new IdentityKey(assessmentData);
+    Object document = get(key, null);
+    if (document == null) {
+      String json = assessmentData.toString();
+      document = parse(json);
+      put(key, null, document, getHeapBytes(json));
+    }
+    return document;
+  }
+
+  public synchronized void clear() {
+    documents.clear();
+    cachedBytes = 0;
+  }
+
+  public synchronized int size() {
+    return documents.size();
+  }
+
+  private static long getHeapBytes(String json) {
+    return (long) json.length() * HEAP_BYTES_PER_CHAR;
+  }
+
+  // Single quotes are escaped before parsing so they can be matched by the JsonPath filters in the issue rules
+  private static Object parse(String json) {
+    String queryInputJson = json.replaceAll("\'", "\\\\u0022");
+    return Configuration.defaultConfiguration().jsonProvider().parse(queryInputJson);
+  }
+
+  private synchronized Object get(Object key, String stamp) {
+    CachedDocument cached = documents.get(key);
+    if (cached == null) {
+      return null;
+    }
+    if (stamp != null && !stamp.equals(cached.stamp)) {
+      // File changed since it was parsed
+      documents.remove(key);
+      cachedBytes -= cached.bytes;
+      return null;
+    }
+    return cached.document;
+  }
+
+  private synchronized void put(Object key, String stamp, Object document, long bytes) {
+    if (bytes > maxBytes) {
+      Logger.debug("Document is larger than the JSON document cache, not caching it");
+      return;
+    }
+
+    CachedDocument previous = documents.put(key, new CachedDocument(stamp, document, bytes));
+    if (previous != null) {
+      cachedBytes -= previous.bytes;
+    }
+    cachedBytes += bytes;
+
+    // Evict least recently used documents
+    Iterator<Map.Entry<Object, CachedDocument>> it = documents.entrySet().iterator();
+    while (cachedBytes > maxBytes && it.hasNext()) {
+      Map.Entry<Object, CachedDocument> eldest = it.next();
+      cachedBytes -= eldest.getValue().bytes;
+      it.remove();
+    }
+  }
+
+  private static class CachedDocument {
+    private final String stamp;
+    private final Object document;
+    private final long bytes;
+
+    private CachedDocument(String stamp, Object document, long bytes) {
+      this.stamp = stamp;
+      this.document = document;
+      this.bytes = bytes;
+    }
+  }
+
+  private static class IdentityKey {
+    private final Object obj;
+
+    private IdentityKey(Object obj) {
+      this.obj = obj;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof IdentityKey && ((IdentityKey) o).obj == obj;
+    }
+
+    @Override
+    public int hashCode() {
+      return System.identityHashCode(obj);
+    }
+  }
+}
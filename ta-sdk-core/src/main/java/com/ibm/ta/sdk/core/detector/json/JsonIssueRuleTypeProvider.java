@@ -21,7 +21,6 @@ import com.jayway.jsonpath.*;
 import org.tinylog.Logger;
 
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
 import java.util.regex.Matcher;
@@ -40,6 +39,13 @@ public class JsonIssueRuleTypeProvider implements IssueRuleTypeProvider {
   public static final String PATHVAR_FILTER_KEY_VALUE = "@filterPathKeyValue";
   public static final String OCCURRENCE_PATH_ATTR = "path";
 
+  private static final Configuration PATH_LIST_CONF = Configuration.builder()
+          .options(Option.AS_PATH_LIST).build();
+
+  // Parsed config files of the assessment units being assessed, released when the assessment unit is completed. Weak
+  // keys only release the assessment units of callers that never complete them.
+  private final Map<AssessmentUnit, JsonDocumentCache> documentCaches = Collections.synchronizedMap(new WeakHashMap<>());
+
 
   @Override
   public String getName() {
@@ -51,61 +57,74 @@ public class JsonIssueRuleTypeProvider implements IssueRuleTypeProvider {
     return new IssueMatchCriteria(matchCriteriaJson, QUERYPATHS_KEYNAME);
   }
 
+  @Override
+  public boolean isTargetIndependent() {
+    return true;
+  }
+
+  @Override
+  public List<Path> getInputFiles(AssessmentUnit assessmentUnit, IssueRule issueRule) {
+    // Rules without query input files query the assessment data
+    return GenericUtil.getMatchingAssessmentUnitConfigFiles(assessmentUnit, issueRule.getMatchCriteria().getQueryInputFiles());
+  }
+
+  @Override
+  public void assessmentUnitCompleted(AssessmentUnit assessmentUnit) {
+    documentCaches.remove(assessmentUnit);
+  }
+
   @Override
   public GenericIssue getIssue(Target target, AssessmentUnit assessmentUnit, IssueRule issueRule) {
     GenericIssue issue = new GenericIssue(issueRule, target.getTargetId());
-    List<String> queryInputJsonList = new ArrayList<>();
+    List<Object> queryInputDocList = new ArrayList<>();
+    JsonDocumentCache documentCache;
+    synchronized (documentCaches) {
+      documentCache = documentCaches.computeIfAbsent(assessmentUnit, au -> new JsonDocumentCache());
+    }
 
-    // Get query input files and convert to json
+    // Get query input files and convert to json, parsed documents are shared by all rules for the assessment unit
     Map<String, String> queryInputFilesMap = issueRule.getMatchCriteria().getQueryInputFiles();
     if (!queryInputFilesMap.isEmpty()) {
       List<Path> matchingConfigFiles = GenericUtil.getMatchingAssessmentUnitConfigFiles(assessmentUnit, queryInputFilesMap);
       for (Path configFile : matchingConfigFiles) {
         try {
-          Logger.debug("Reading config file:" + configFile);
-          String configFileJsonStr = new String(Files.readAllBytes(configFile));
-          queryInputJsonList.add(configFileJsonStr);
+          queryInputDocList.add(documentCache.getDocument(configFile));
         } catch (IOException e) {
           throw new TARuntimeException(e);
         }
       }
     } else {
       JsonObject assessUnitDataJson = assessmentUnit.getAssessmentData();
-      queryInputJsonList.add(assessUnitDataJson.toString());
+      queryInputDocList.add(documentCache.getDocument(assessUnitDataJson));
     }
 
-    for (String querytInputJsonStr : queryInputJsonList) {
-      querytInputJsonStr = querytInputJsonStr.replaceAll("\'", "\\\\u0022");
+    for (Object queryInputDoc : queryInputDocList) {
+      DocumentContext pathListDoc = using(PATH_LIST_CONF).parse(queryInputDoc);
       Map<String, List<String>> pathListMap = new LinkedHashMap<>();
       Map<String, JsonElement> issueQueryPaths = issueRule.getMatchCriteria().getQueryPaths();
       for (String pathKey : issueQueryPaths.keySet()) {
         String pathValue = issueQueryPaths.get(pathKey).getAsString();
 
         List<String> pathList = null;
-
-        //Logger.info("queryInput:" + querytInputJsonStr);
-        //Logger.info("path:" + pathValue);
-
-        Configuration conf = Configuration.builder()
-                .options(Option.AS_PATH_LIST).build();
         try {
-          pathList = using(conf).parse(querytInputJsonStr).read(pathValue);
+          pathList = pathListDoc.read(pathValue);
         } catch (PathNotFoundException e) {
           Logger.error("No issues found in path:" + pathValue);
         }
 
         if (pathList != null && !pathList.isEmpty()) {
           pathListMap.put(pathKey, pathList);
+          issue.addMatchedPaths(pathList.size());
         }
       }
 
+      DocumentContext doc = JsonPath.parse(queryInputDoc);
       for (String pathKey : pathListMap.keySet()) {
         List<String> pathList = pathListMap.get(pathKey);
 
         for (String path : pathList) {
           Logger.trace("recommendation pathKey:" + pathKey);
           Logger.trace("recommendation path:" + path);
-          DocumentContext doc = JsonPath.parse(querytInputJsonStr);
           if (!issueRule.customFilter(doc, path)) {
             continue;
           }
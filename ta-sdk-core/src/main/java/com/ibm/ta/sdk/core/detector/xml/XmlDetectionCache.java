@@ -0,0 +1,133 @@
+/*
+ * (C) Copyright IBM Corp. 2019,2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.ta.sdk.core.detector.xml;
+
+import com.ibm.ta.sdk.core.detector.xml.XmlStreamDetector.RuleMatch;
+import com.ibm.ta.sdk.spi.metrics.Metrics;
+import org.tinylog.Logger;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Results of the XML issue rules for each XML config file. A config file is read once for all the XML rules, and the
+ * results are reused by the other rules until the file changes on disk.
+ *
+ * Results are keyed by file path and checked against the last modified time and size of the file. The number of files
+ * is bounded, and the results of the least recently used files are evicted first. Set the system property
+ * ta.sdk.xml.cache.maxFiles to change the number of files, 0 disables the cache.
+ */
+class XmlDetectionCache {
+    static final String MAX_FILES_PROPERTY = "ta.sdk.xml.cache.maxFiles";
+    static final int DEFAULT_MAX_FILES = 1024;
+
+    private final int maxFiles;
+    private final LinkedHashMap<Path, CachedDetection> detections = new LinkedHashMap<>(16, 0.75f, true);
+
+    XmlDetectionCache() {
+        this(Integer.getInteger(MAX_FILES_PROPERTY, DEFAULT_MAX_FILES));
+    }
+
+    XmlDetectionCache(int maxFiles) {
+        this.maxFiles = maxFiles;
+    }
+
+    /**
+     * Get the result of a rule for an XML config file. If the file has not been read for the rule, it is read once to
+     * evaluate all the rules.
+     *
+     * @param xmlFile XML config file
+     * @param rule Rule to get the result of
+     * @param rules All the XML rules
+     * @return Result of the rule
+     * @throws IOException If the file cannot be read
+     */
+    RuleMatch getRuleMatch(Path xmlFile, XmlRuleCriteria rule, Collection<XmlRuleCriteria> rules) throws IOException {
+        Path key = xmlFile.toAbsolutePath().normalize();
+        String stamp = Files.getLastModifiedTime(xmlFile).toMillis() + ":" + Files.size(xmlFile);
+        RuleMatch ruleMatch = get(key, stamp, rule.getRuleId());
+        if (ruleMatch == null) {
+            Map<String, RuleMatch> ruleMatches = detect(xmlFile, rules);
+            ruleMatch = ruleMatches.get(rule.getRuleId());
+            if (ruleMatch == null) {
+                // Rule added while the file was read
+                ruleMatches = detect(xmlFile, Collections.singletonList(rule));
+                ruleMatch = ruleMatches.get(rule.getRuleId());
+            } else {
+                put(key, stamp, ruleMatches);
+            }
+        }
+        return ruleMatch;
+    }
+
+    synchronized void clear() {
+        detections.clear();
+    }
+
+    synchronized int size() {
+        return detections.size();
+    }
+
+    private static Map<String, RuleMatch> detect(Path xmlFile, Collection<XmlRuleCriteria> rules) throws IOException {
+        Logger.debug("Reading XML config file:" + xmlFile + " for " + rules.size() + " rules");
+        if (Metrics.get().isEnabled()) {
+            Metrics.get().addBytesRead(Metrics.PHASE_EVALUATE, null, Files.size(xmlFile));
+        }
+        try {
+            return XmlStreamDetector.detect(xmlFile, rules);
+        } catch (XMLStreamException e) {
+            // No rule matches a file that cannot be parsed
+            Logger.error("Cannot parse XML config file:" + xmlFile, e);
+            Map<String, RuleMatch> noMatches = new HashMap<>();
+            for (XmlRuleCriteria rule : rules) {
+                noMatches.put(rule.getRuleId(), new RuleMatch());
+            }
+            return noMatches;
+        }
+    }
+
+    private synchronized RuleMatch get(Path key, String stamp, String ruleId) {
+        CachedDetection cached = detections.get(key);
+        if (cached == null) {
+            return null;
+        }
+        if (!stamp.equals(cached.stamp)) {
+            // File changed since it was read
+            detections.remove(key);
+            return null;
+        }
+        return cached.ruleMatches.get(ruleId);
+    }
+
+    private synchronized void put(Path key, String stamp, Map<String, RuleMatch> ruleMatches) {
+        if (maxFiles <= 0) {
+            return;
+        }
+        detections.put(key, new CachedDetection(stamp, ruleMatches));
+        if (detections.size() > maxFiles) {
+            // Evict least recently used file
+            detections.remove(detections.keySet().iterator().next());
+        }
+    }
+
+    private static class CachedDetection {
+        private final String stamp;
+        private final Map<String, RuleMatch> ruleMatches;
+
+        private CachedDetection(String stamp, Map<String, RuleMatch> ruleMatches) {
+            this.stamp = stamp;
+            this.ruleMatches = ruleMatches;
+        }
+    }
+}
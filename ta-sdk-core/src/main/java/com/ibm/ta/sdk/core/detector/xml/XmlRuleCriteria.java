@@ -0,0 +1,155 @@
+/*
+ * (C) Copyright IBM Corp. 2019,2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.ta.sdk.core.detector.xml;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.ibm.ta.sdk.core.assessment.IssueRule;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Match criteria and occurrence attributes of an XML issue rule, read once from the rule so they can be evaluated for
+ * many config files.
+ */
+class XmlRuleCriteria {
+    static final String CRETERIA_KEYNAME = "criteria";
+    static final String DETECT_DTD = "detectDTD";
+    static final String DETECT_ATTR = "detectAttribute";
+    static final String DETECT_ELEMENT = "detectElement";
+    private static final String DTD_NAME = "dtdName";
+    private static final String XML_FILE = "xmlFile";
+    private static final String TAGS = "tags";
+    private static final String ATTRIBUTE_NAME = "attributeName";
+    private static final String ATTRIBUTE_VALUE = "attributeValue";
+
+    private final String ruleId;
+    // Criteria that find the issue, in the order they are tried
+    private final List<Criterion> detectCriteria = new ArrayList<>();
+    // Criteria that find the value of each occurrence attribute
+    private final List<OccurrenceCriterion> occurrenceCriteria = new ArrayList<>();
+
+    XmlRuleCriteria(IssueRule issueRule, Map<String, JsonElement> queryPaths) {
+        this.ruleId = issueRule.getId();
+        for (String detectMethod : queryPaths.keySet()) {
+            Criterion criterion = newCriterion(detectMethod, queryPaths.get(detectMethod).getAsJsonObject(), false);
+            if (criterion != null) {
+                detectCriteria.add(criterion);
+            }
+        }
+
+        JsonObject occurrenceAttr = issueRule.getMatchCriteria().getOccurrenceAttr();
+        if (occurrenceAttr != null) {
+            for (String attrKey : occurrenceAttr.keySet()) {
+                JsonObject creteriaJO = occurrenceAttr.get(attrKey).getAsJsonObject().get(CRETERIA_KEYNAME).getAsJsonObject();
+                for (String detectMethod : creteriaJO.keySet()) {
+                    if (detectMethod.equals(DETECT_DTD)) {
+                        // A DTD has no value for an occurrence
+                        continue;
+                    }
+                    Criterion criterion = newCriterion(detectMethod, creteriaJO.get(detectMethod).getAsJsonObject(), true);
+                    if (criterion != null) {
+                        occurrenceCriteria.add(new OccurrenceCriterion(attrKey, criterion));
+                    }
+                }
+            }
+        }
+    }
+
+    private static Criterion newCriterion(String detectMethod, JsonObject criterionJson, boolean collectValues) {
+        switch (detectMethod) {
+            case DETECT_DTD:
+                return new Criterion(detectMethod, getMemberAsStrList(criterionJson, XML_FILE), Collections.emptyList(),
+                        null, null, getMemberAsStrList(criterionJson, DTD_NAME), false);
+            case DETECT_ATTR:
+                String attributeValue = criterionJson.get(ATTRIBUTE_VALUE) != null ?
+                        criterionJson.get(ATTRIBUTE_VALUE).getAsString() : null;
+                return new Criterion(detectMethod, getMemberAsStrList(criterionJson, XML_FILE),
+                        getMemberAsStrList(criterionJson, TAGS), criterionJson.get(ATTRIBUTE_NAME).getAsString(),
+                        attributeValue, Collections.emptyList(), collectValues);
+            case DETECT_ELEMENT:
+                return new Criterion(detectMethod, getMemberAsStrList(criterionJson, XML_FILE),
+                        getMemberAsStrList(criterionJson, TAGS), null, null, Collections.emptyList(), collectValues);
+            default:
+                return null;
+        }
+    }
+
+    private static List<String> getMemberAsStrList(JsonObject json, String memberName) {
+        List<String> values = new ArrayList<>();
+        JsonArray memberArray = json.get(memberName).getAsJsonArray();
+        for (JsonElement member : memberArray) {
+            values.add(member.getAsString());
+        }
+        return values;
+    }
+
+    String getRuleId() {
+        return ruleId;
+    }
+
+    List<Criterion> getDetectCriteria() {
+        return detectCriteria;
+    }
+
+    List<OccurrenceCriterion> getOccurrenceCriteria() {
+        return occurrenceCriteria;
+    }
+
+    /**
+     * A detectDTD, detectAttribute or detectElement criterion
+     */
+    static class Criterion {
+        final String detectMethod;
+        final String[] xmlFiles;
+        final List<String> tags;
+        final String attributeName;
+        // Attribute names that are not just letters are regular expressions matched against the local name
+        final boolean exactAttributeName;
+        final Pattern attributeNamePattern;
+        final Pattern attributeValuePattern;
+        final List<Pattern> dtdNamePatterns = new ArrayList<>();
+        // True if the values of the matching attributes or the text of the matching elements are needed
+        final boolean collectValues;
+
+        private Criterion(String detectMethod, List<String> xmlFiles, List<String> tags, String attributeName,
+                          String attributeValue, List<String> dtdNames, boolean collectValues) {
+            this.detectMethod = detectMethod;
+            this.xmlFiles = xmlFiles.toArray(new String[0]);
+            this.tags = new ArrayList<>();
+            for (String tag : tags) {
+                this.tags.add(tag.trim());
+            }
+            this.attributeName = attributeName;
+            this.exactAttributeName = attributeName != null && attributeName.matches("[a-zA-Z]*");
+            this.attributeNamePattern = attributeName != null && !exactAttributeName ? Pattern.compile(attributeName) : null;
+            this.attributeValuePattern = attributeValue != null ? Pattern.compile(attributeValue) : null;
+            for (String dtdName : dtdNames) {
+                dtdNamePatterns.add(Pattern.compile(dtdName));
+            }
+            this.collectValues = collectValues;
+        }
+    }
+
+    /**
+     * A criterion for the values of an occurrence attribute
+     */
+    static class OccurrenceCriterion {
+        final String attrKey;
+        final Criterion criterion;
+
+        private OccurrenceCriterion(String attrKey, Criterion criterion) {
+            this.attrKey = attrKey;
+            this.criterion = criterion;
+        }
+    }
+}
@@ -0,0 +1,334 @@
+/*
+ * (C) Copyright IBM Corp. 2019,2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.ta.sdk.core.detector.xml;
+
+import com.ibm.ta.sdk.core.detector.xml.XmlRuleCriteria.Criterion;
+import com.ibm.ta.sdk.core.detector.xml.XmlRuleCriteria.OccurrenceCriterion;
+import com.ibm.ta.sdk.core.util.XmlUtils;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Evaluates XML issue rules against a config file in a single pass with a StAX reader, without building a DOM.
+ *
+ * Elements and attributes are matched the way the DOM methods of XmlUtils match them for a document parsed without
+ * namespaces: tags are compared to the qualified element name, '*' matches every element, and the text of an element
+ * is the text of all its descendants. The matches of a criterion are ordered by tag, then by position in the file.
+ * External DTDs and entities are not read.
+ */
+class XmlStreamDetector {
+    private static final Pattern DOCTYPE_SYSTEM_ID = Pattern.compile(
+            "<!DOCTYPE\\s+[^\\s\\[>]+\\s+(?:SYSTEM\\s+(['\"])(.*?)\\1|PUBLIC\\s+(['\"]).*?\\3\\s+(['\"])(.*?)\\4)",
+            Pattern.DOTALL);
+    private static final String ALL_TAGS = "*";
+
+    // Factories are not guaranteed to be thread safe, each thread configures its own
+    private static final ThreadLocal<XMLInputFactory> inputFactory = ThreadLocal.withInitial(() -> {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, false);
+        factory.setXMLResolver((publicId, systemId, baseUri, namespace) -> new ByteArrayInputStream(new byte[0]));
+        return factory;
+    });
+
+    /**
+     * Result of an XML issue rule for a config file
+     */
+    static class RuleMatch {
+        private int matchedPaths;
+        private boolean matches;
+        private final List<Map<String, String>> occurrences = new ArrayList<>();
+
+        boolean matches() {
+            return matches;
+        }
+
+        int getMatchedPaths() {
+            return matchedPaths;
+        }
+
+        List<Map<String, String>> getOccurrences() {
+            return occurrences;
+        }
+    }
+
+    /**
+     * Evaluate the rules against an XML config file
+     *
+     * @param xmlFile XML config file
+     * @param rules Rules to evaluate
+     * @return Result of each rule, by rule ID
+     * @throws IOException If the file cannot be read
+     * @throws XMLStreamException If the file is not well-formed XML
+     */
+    static Map<String, RuleMatch> detect(Path xmlFile, Collection<XmlRuleCriteria> rules) throws IOException, XMLStreamException {
+        String fileName = xmlFile.toFile().getName();
+
+        // Only the criteria for this file are evaluated
+        Map<Criterion, CriterionMatches> criterionMatches = new IdentityHashMap<>();
+        for (XmlRuleCriteria rule : rules) {
+            for (Criterion criterion : rule.getDetectCriteria()) {
+                addCriterion(criterionMatches, criterion, fileName);
+            }
+            for (OccurrenceCriterion occurrenceCriterion : rule.getOccurrenceCriteria()) {
+                addCriterion(criterionMatches, occurrenceCriterion.criterion, fileName);
+            }
+        }
+        if (!criterionMatches.isEmpty()) {
+            scan(xmlFile, criterionMatches.values());
+        }
+
+        Map<String, RuleMatch> ruleMatches = new HashMap<>();
+        for (XmlRuleCriteria rule : rules) {
+            ruleMatches.put(rule.getRuleId(), getRuleMatch(rule, criterionMatches));
+        }
+        return ruleMatches;
+    }
+
+    private static void addCriterion(Map<Criterion, CriterionMatches> criterionMatches, Criterion criterion, String fileName) {
+        if (XmlUtils.isMatchingFile(fileName, criterion.xmlFiles)) {
+            criterionMatches.computeIfAbsent(criterion, CriterionMatches::new);
+        }
+    }
+
+    private static RuleMatch getRuleMatch(XmlRuleCriteria rule, Map<Criterion, CriterionMatches> criterionMatches) {
+        RuleMatch ruleMatch = new RuleMatch();
+        for (Criterion criterion : rule.getDetectCriteria()) {
+            CriterionMatches matches = criterionMatches.get(criterion);
+            int count = matches == null ? 0 : matches.getCount();
+            if (count > 0) {
+                ruleMatch.matches = true;
+                ruleMatch.matchedPaths += count;
+                break;
+            }
+        }
+
+        if (ruleMatch.matches) {
+            for (OccurrenceCriterion occurrenceCriterion : rule.getOccurrenceCriteria()) {
+                CriterionMatches matches = criterionMatches.get(occurrenceCriterion.criterion);
+                if (matches != null) {
+                    for (String value : matches.getValues()) {
+                        Map<String, String> newOccurence = new HashMap<>();
+                        newOccurence.put(occurrenceCriterion.attrKey, value);
+                        ruleMatch.occurrences.add(newOccurence);
+                    }
+                }
+            }
+        }
+        return ruleMatch;
+    }
+
+    private static void scan(Path xmlFile, Collection<CriterionMatches> criterionMatches) throws IOException, XMLStreamException {
+        // Index the element and attribute criteria by tag
+        Map<String, List<TagMatches>> tagMatchesMap = new HashMap<>();
+        List<TagMatches> allTagMatches = new ArrayList<>();
+        List<CriterionMatches> dtdMatches = new ArrayList<>();
+        for (CriterionMatches matches : criterionMatches) {
+            if (XmlRuleCriteria.DETECT_DTD.equals(matches.criterion.detectMethod)) {
+                dtdMatches.add(matches);
+            }
+            for (TagMatches tagMatches : matches.tagMatches) {
+                if (ALL_TAGS.equals(tagMatches.tag)) {
+                    allTagMatches.add(tagMatches);
+                } else {
+                    tagMatchesMap.computeIfAbsent(tagMatches.tag, tag -> new ArrayList<>()).add(tagMatches);
+                }
+            }
+        }
+
+        // Text of the open elements that are occurrences, and the number added by each open element
+        List<StringBuilder> openTexts = new ArrayList<>();
+        int[] openTextCounts = new int[16];
+        int depth = 0;
+
+        try (InputStream is = Files.newInputStream(xmlFile)) {
+            XMLStreamReader reader = inputFactory.get().createXMLStreamReader(is);
+            try {
+                while (reader.hasNext()) {
+                    switch (reader.next()) {
+                        case XMLStreamConstants.DTD:
+                            String systemId = getSystemId(reader.getText());
+                            for (CriterionMatches matches : dtdMatches) {
+                                matches.matchDtd(systemId);
+                            }
+                            break;
+                        case XMLStreamConstants.START_ELEMENT:
+                            int openTextsSize = openTexts.size();
+                            String elementName = getQualifiedName(reader.getPrefix(), reader.getLocalName());
+                            List<TagMatches> elementTagMatches = tagMatchesMap.get(elementName);
+                            if (elementTagMatches != null) {
+                                for (TagMatches tagMatches : elementTagMatches) {
+                                    tagMatches.matchElement(reader, openTexts);
+                                }
+                            }
+                            for (TagMatches tagMatches : allTagMatches) {
+                                tagMatches.matchElement(reader, openTexts);
+                            }
+                            if (depth == openTextCounts.length) {
+                                int[] counts = new int[depth * 2];
+                                System.arraycopy(openTextCounts, 0, counts, 0, depth);
+                                openTextCounts = counts;
+                            }
+                            openTextCounts[depth++] = openTexts.size() - openTextsSize;
+                            break;
+                        case XMLStreamConstants.END_ELEMENT:
+                            int count = openTextCounts[--depth];
+                            for (int i = 0; i < count; i++) {
+                                openTexts.remove(openTexts.size() - 1);
+                            }
+                            break;
+                        case XMLStreamConstants.CHARACTERS:
+                        case XMLStreamConstants.CDATA:
+                        case XMLStreamConstants.SPACE:
+                            if (!openTexts.isEmpty()) {
+                                for (StringBuilder text : openTexts) {
+                                    text.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                                }
+                            }
+                            break;
+                        default:
+                            break;
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        }
+    }
+
+    private static String getQualifiedName(String prefix, String localName) {
+        return prefix == null || prefix.isEmpty() ? localName : prefix + ":" + localName;
+    }
+
+    private static String getSystemId(String docTypeDeclaration) {
+        Matcher matcher = DOCTYPE_SYSTEM_ID.matcher(docTypeDeclaration);
+        if (!matcher.find()) {
+            return null;
+        }
+        return matcher.group(2) != null ? matcher.group(2) : matcher.group(5);
+    }
+
+    /**
+     * Matches of a criterion in the file
+     */
+    private static class CriterionMatches {
+        private final Criterion criterion;
+        private final List<TagMatches> tagMatches = new ArrayList<>();
+        private boolean dtdMatched;
+
+        private CriterionMatches(Criterion criterion) {
+            this.criterion = criterion;
+            for (String tag : criterion.tags) {
+                tagMatches.add(new TagMatches(criterion, tag));
+            }
+        }
+
+        private void matchDtd(String systemId) {
+            if (systemId == null) {
+                return;
+            }
+            for (Pattern dtdNamePattern : criterion.dtdNamePatterns) {
+                if (dtdNamePattern.matcher(systemId).matches()) {
+                    dtdMatched = true;
+                    return;
+                }
+            }
+        }
+
+        private int getCount() {
+            if (XmlRuleCriteria.DETECT_DTD.equals(criterion.detectMethod)) {
+                return dtdMatched ? 1 : 0;
+            }
+            int count = 0;
+            for (TagMatches matches : tagMatches) {
+                count += matches.count;
+            }
+            return count;
+        }
+
+        private List<String> getValues() {
+            List<String> values = new ArrayList<>();
+            for (TagMatches matches : tagMatches) {
+                for (Object value : matches.values) {
+                    values.add(value.toString());
+                }
+            }
+            return values;
+        }
+    }
+
+    /**
+     * Matches of a tag of a criterion, in the order they are found in the file
+     */
+    private static class TagMatches {
+        private final Criterion criterion;
+        private final String tag;
+        private int count;
+        // Attribute values, or the text of the elements as StringBuilders while the elements are read
+        private final List<Object> values = new ArrayList<>();
+
+        private TagMatches(Criterion criterion, String tag) {
+            this.criterion = criterion;
+            this.tag = tag;
+        }
+
+        private void matchElement(XMLStreamReader reader, List<StringBuilder> openTexts) {
+            if (XmlRuleCriteria.DETECT_ELEMENT.equals(criterion.detectMethod)) {
+                count++;
+                if (criterion.collectValues) {
+                    StringBuilder text = new StringBuilder();
+                    values.add(text);
+                    openTexts.add(text);
+                }
+            } else if (XmlRuleCriteria.DETECT_ATTR.equals(criterion.detectMethod)) {
+                for (int i = 0; i < reader.getAttributeCount(); i++) {
+                    if (isMatchingAttribute(reader, i)) {
+                        count++;
+                        if (criterion.collectValues) {
+                            values.add(reader.getAttributeValue(i));
+                        }
+                        if (criterion.exactAttributeName) {
+                            // An element has only one attribute with a name
+                            break;
+                        }
+                    }
+                }
+            }
+        }
+
+        private boolean isMatchingAttribute(XMLStreamReader reader, int index) {
+            if (criterion.exactAttributeName) {
+                String name = getQualifiedName(reader.getAttributePrefix(index), reader.getAttributeLocalName(index));
+                if (!criterion.attributeName.equals(name)) {
+                    return false;
+                }
+            } else if (!criterion.attributeNamePattern.matcher(reader.getAttributeLocalName(index)).matches()) {
+                return false;
+            }
+            String value = reader.getAttributeValue(index);
+            return criterion.attributeValuePattern == null ||
+                    (value != null && criterion.attributeValuePattern.matcher(value).matches());
+        }
+    }
+}
@@ -10,7 +10,9 @@ import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.reflect.TypeToken;
+import com.ibm.ta.sdk.core.assessment.AssessmentManifest;
 import com.ibm.ta.sdk.core.assessment.GenericRecommendation;
+import com.ibm.ta.sdk.core.assessment.RuleProfile;
 import com.ibm.ta.sdk.core.collect.GenericAssessmentUnit;
 import com.ibm.ta.sdk.core.collect.TextContextMask;
 import com.ibm.ta.sdk.core.report.RecommendationReporter;
@@ -23,6 +25,7 @@ import com.ibm.ta.sdk.spi.plugin.PluginProvider;
 import com.ibm.ta.sdk.spi.plugin.TAException;
 import com.ibm.ta.sdk.spi.recommendation.Recommendation;
 import com.ibm.ta.sdk.spi.report.Report;
+import com.ibm.ta.sdk.spi.report.ReportHandler;
 import com.ibm.ta.sdk.spi.util.Util;
 import com.ibm.ta.sdk.spi.validation.TaJsonFileValidator;
 import org.tinylog.Logger;
@@ -63,11 +66,18 @@ public abstract class GenericPluginProvider implements PluginProvider {
       File outDir = Util.getOutputDir();
       List<Recommendation> recs = new ArrayList<>();
 
+      int profileTopRules = RuleProfile.topRulesFromSystemProperty();
       File[] fileList = outDir.listFiles();
       for (File file: fileList) {
         if (file.isDirectory()) {
           String dirName = file.getName();
           GenericRecommendation rec = GenericRecommendation.createGenericRecommemndation(dirName, getMiddleware());
+          if (AssessmentManifest.isEnabled()) {
+            rec.useAssessmentManifest(new File(file, ASSESSMENT_MANIFEST_JSON).toPath(), getVersion());
+          }
+          if (profileTopRules > 0) {
+            rec.useRuleProfile(new File(file, RULE_PROFILE_JSON).toPath(), profileTopRules);
+          }
           recs.add(rec);
         }
       }
@@ -87,10 +97,29 @@ public abstract class GenericPluginProvider implements PluginProvider {
     return reports;
   }
 
+  /**
+   * Generates the HTML reports concurrently and passes each one to the handler as it completes. Plug-ins that override
+   * {@link #getReport(String, CliInputCommand)} or {@link #getHtmlReport(String)} get their reports from those methods,
+   * as with the default implementation of {@link PluginProvider}.
+   */
+  @Override
+  public void getReport(String assessmentName, CliInputCommand reportCommand, ReportHandler handler) throws TAException {
+    if (isOverridden("getReport", String.class, CliInputCommand.class) || isOverridden("getHtmlReport", String.class)) {
+      PluginProvider.super.getReport(assessmentName, reportCommand, handler);
+      return;
+    }
+
+    Logger.info("CliInputCommandOptions:" + reportCommand.getOptions());
+    Logger.info("CliInputCommandArguments:" + reportCommand.getArguments());
+
+    // Use html report generator from base class
+    getHtmlReport(assessmentName, CliInputOption.getParallelism(reportCommand.getOptions()), handler);
+  }
+
   @Override
   public CliInputCommand getAssessCommand() {
     // Assess command
-    CliInputOption assessCmdSkipCollectOpt = new CliInputOption("s", "skipcollect", "Skip collection, perform assessment only");
+    CliInputOption assessCmdSkipCollectOpt = CliInputOption.buildSkipCollectOption();
     List<CliInputOption> assessCmdOpts = new ArrayList<>();
     assessCmdOpts.add(assessCmdSkipCollectOpt);
     assessCmdOpts.add(CliInputOption.buildTargetOption());
@@ -122,6 +151,19 @@ public abstract class GenericPluginProvider implements PluginProvider {
     return reportCmd;
   }
 
+  // Returns true if a subclass declares the method
+  private boolean isOverridden(String methodName, Class<?>... parameterTypes) {
+    for (Class<?> cls = getClass(); cls != GenericPluginProvider.class; cls = cls.getSuperclass()) {
+      try {
+        cls.getDeclaredMethod(methodName, parameterTypes);
+        return true;
+      } catch (NoSuchMethodException e) {
+        // Check the superclass
+      }
+    }
+    return false;
+  }
+
   protected Path getFileFromUri(URI uri) throws IOException {
     if (!uri.toString().startsWith("file")){
       Map<String, String> env = new HashMap<>();
@@ -136,6 +178,19 @@ public abstract class GenericPluginProvider implements PluginProvider {
   }
 
   protected List<Report> getHtmlReport(String assessmentName) throws TAException {
+    List<Report> reports = new ArrayList<>();
+    getHtmlReport(assessmentName, 1, reports::add);
+    return reports;
+  }
+
+  /**
+   * Generate the HTML reports for an assessment and pass each report to the handler as soon as it is generated
+   * @param assessmentName Name of the assessment
+   * @param parallelism Number of reports generated concurrently
+   * @param handler Handler for the generated reports
+   * @throws TAException If an error occurs generating or handling the reports
+   */
+  protected void getHtmlReport(String assessmentName, int parallelism, ReportHandler handler) throws TAException {
     Logger.info("Get HTML report for assessment:" + assessmentName);
 
     File assessOutputDir = Util.getAssessmentOutputDir(assessmentName);
@@ -143,19 +198,17 @@ public abstract class GenericPluginProvider implements PluginProvider {
       throw new TAException("Output directory not found for assessment:" + assessOutputDir.getAbsolutePath());
     }
 
-    JsonObject recJson;
-    RecommendationReporter reportGenerator = null;
-    try {
-      recJson = Util.getRecommendationsJson(assessmentName);
-      Logger.info("recommendations.json:" + recJson);
-      reportGenerator = new RecommendationReporter(assessmentName, recJson);
-    } catch (FileNotFoundException e) {
+    // recommendations.json is read one target at a time while the reports are generated
+    File recFile = new File(assessOutputDir, RECOMMENDATIONS_JSON);
+    if (!recFile.exists()) {
       Logger.error("Recommendation.json not found for assessment:" + assessmentName);
-      throw new TAException(e);
+      throw new TAException(new FileNotFoundException("No recommendations.json found in output for assessment '" + assessmentName + "'"));
     }
+    RecommendationReporter reportGenerator = new RecommendationReporter(assessmentName, recFile.toPath());
+    reportGenerator.setParallelism(parallelism);
 
     try {
-        return reportGenerator.generateHTMLReports();
+        reportGenerator.generateHTMLReports(handler);
     } catch (Exception e) {
         Logger.error("Failed to generate HTML files for assessment: " + assessmentName, e);
         throw new TAException(e);
@@ -0,0 +1,95 @@
+/*
+ * (C) Copyright IBM Corp. 2019,2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.ta.sdk.core.report;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Template split once into literal text and placeholders. Rendering writes the literals and the value of each
+ * placeholder directly to a Writer, so the template is not copied for every placeholder that is replaced.
+ * Instances are immutable and can be shared by threads rendering different reports.
+ */
+public class HtmlTemplate {
+
+    public interface PlaceholderWriter {
+        /**
+         * Write the value of a placeholder
+         * @param placeholder Placeholder found in the template, e.g. {ISSUE_ID}
+         * @param out Writer of the rendered template
+         * @throws IOException Error writing the value
+         */
+        void write(String placeholder, Writer out) throws IOException;
+    }
+
+    private final List<Segment> segments;
+
+    private HtmlTemplate(List<Segment> segments) {
+        this.segments = Collections.unmodifiableList(segments);
+    }
+
+    /**
+     * Split template text into literals and placeholders
+     * @param text Template text
+     * @param placeholders Placeholders that may be in the template. Other text is kept as is.
+     * @return Compiled template
+     */
+    public static HtmlTemplate compile(String text, String... placeholders) {
+        List<Segment> segments = new ArrayList<>();
+        int literalStart = 0;
+        int pos = 0;
+        while (pos < text.length()) {
+            String placeholder = placeholderAt(text, pos, placeholders);
+            if (placeholder == null) {
+                pos++;
+                continue;
+            }
+            if (pos > literalStart) {
+                segments.add(new Segment(text.substring(literalStart, pos), false));
+            }
+            segments.add(new Segment(placeholder, true));
+            pos += placeholder.length();
+            literalStart = pos;
+        }
+        if (literalStart < text.length()) {
+            segments.add(new Segment(text.substring(literalStart), false));
+        }
+        return new HtmlTemplate(segments);
+    }
+
+    private static String placeholderAt(String text, int pos, String[] placeholders) {
+        for (String placeholder : placeholders) {
+            if (text.startsWith(placeholder, pos)) {
+                return placeholder;
+            }
+        }
+        return null;
+    }
+
+    public void render(Writer out, PlaceholderWriter placeholderWriter) throws IOException {
+        for (Segment segment : segments) {
+            if (segment.placeholder) {
+                placeholderWriter.write(segment.text, out);
+            } else {
+                out.write(segment.text);
+            }
+        }
+    }
+
+    private static class Segment {
+        private final String text;
+        private final boolean placeholder;
+
+        private Segment(String text, boolean placeholder) {
+            this.text = text;
+            this.placeholder = placeholder;
+        }
+    }
+}
@@ -14,11 +14,19 @@ import com.ibm.ta.sdk.spi.report.ReportGenerator;
 import com.google.gson.JsonObject;
 import com.ibm.ta.sdk.spi.plugin.TAException;
 import com.ibm.ta.sdk.spi.report.Report;
+import com.ibm.ta.sdk.spi.report.ReportHandler;
 import com.ibm.ta.sdk.spi.report.ReportType;
 import org.tinylog.Logger;
 
 import java.io.*;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 
 public class RecommendationReporter implements ReportGenerator {
@@ -76,87 +84,157 @@ public class RecommendationReporter implements ReportGenerator {
     private static final String TEMPLATE_OCCURANCES = "<table>" + ISSUE_OCCURANCES_TABLE_HEADER_VAR + ISSUE_OCCURANCES_TABLE_BODY_VAR + "</table>";
 
 
+    private static final String[] TEMPLATE_VARS = {ASSESSMENT_UNIT_NAME_VAR, PRODUCT_NAME_VAR, PRODUCT_VERSION_VAR,
+            TARGET_COLUMN_VAR, OVERALL_COMPLEXITY_SCORE_VAR, NUM_OF_RED_ISSUES_VAR, NUM_OF_YELLOW_ISSUES_VAR,
+            NUM_OF_GREEN_ISSUES_VAR, ISSUE_TABLES_VAR};
+    private static final String[] TEMPLATE_ISSUES_TABLE_VARS = {ISSUE_CATEGORY_TITLE_VAR, ISSUES_TABLE_BODY_VAR};
+    private static final String[] TEMPLATE_ISSUES_TABLE_ROW_VARS = {ISSUE_OCCURANCE_COUNT_VAR, ISSUE_ID_VAR, ISSUE_TITLE_VAR,
+            ISSUE_COST_VAR, ISSUE_OVERHEAD_VAR, ISSUE_OCCURANCES_COST_VAR, ISSUE_SEVERITY_VAR,
+            TEMPLATE_ISSUES_SOLUTION_TEXT_VAR, ISSUE_OCCURANCES_VAR, HIDDEN_ROW_COUNT_VAR};
+
     private JsonObject recommendationJson = null;
+    private Path recommendationsJsonFile = null;
     private String assessmentName = null;
+    private int parallelism = 1;
+
+    // Templates are compiled once and shared by all the reports generated
+    private HtmlTemplate template = null;
+    private HtmlTemplate issuesTableTemplate = null;
+    private HtmlTemplate issuesTableRowTemplate = null;
 
     public RecommendationReporter(String assessmentName, JsonObject recommendationJson){
         this.recommendationJson = recommendationJson;
         this.assessmentName = assessmentName;
     }
 
+    /**
+     * Reporter that reads the recommendations.json one target at a time, instead of loading the whole file
+     * @param assessmentName Name of the assessment
+     * @param recommendationsJsonFile recommendations.json file of the assessment
+     */
+    public RecommendationReporter(String assessmentName, Path recommendationsJsonFile){
+        this.recommendationsJsonFile = recommendationsJsonFile;
+        this.assessmentName = assessmentName;
+    }
+
+    /**
+     * Set the number of reports generated concurrently
+     * @param parallelism Number of reports generated concurrently, 1 generates the reports one at a time
+     */
+    public void setParallelism(int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+    }
+
     @Override
     public List<Report> generateHTMLReports() throws TAException {
 
-        List generatedHTMLFiles = new ArrayList();
+        List<Report> generatedHTMLFiles = new ArrayList<>();
 
-        String templateStr = loadTemplate(TEMPLATE);
+        generateHTMLReports(generatedHTMLFiles::add);
 
-        RecommendationReport recommendation = null;
-        try {
-            recommendation = parseJSON();
-        } catch (Exception e) {
-            Logger.error("Failed to generate objects from JSON", e);
-            throw new TAException(e);
-        }
+        return generatedHTMLFiles;
+    }
 
-        List<Map<String, String>> issueCategories = recommendation.getIssueCategories();
-        String middleware = recommendation.getMiddleware();
-        String version = recommendation.getVersion();
+    /**
+     * Generate the HTML reports and pass each report to the handler as soon as it is generated. With a parallelism
+     * of more than 1 the reports are generated on a pool of threads and passed to the handler in the order they
+     * complete, from the calling thread.
+     * @param handler Handler for the generated reports
+     * @throws TAException If an error occurs generating or handling the reports
+     */
+    @Override
+    public void generateHTMLReports(ReportHandler handler) throws TAException {
+        compileTemplates();
 
-        List<AssessmentUnitReport> assessmentUnits = recommendation.getAssessmentUnits();
-        for (AssessmentUnitReport assessmentUnit: assessmentUnits){
-            List<Report> htmlFiles = null;
+        ReportRenderer renderer = new ReportRenderer(handler);
+        try {
+            if (recommendationsJsonFile != null) {
+                try {
+                    new RecommendationsJsonReader(recommendationsJsonFile).readTargets((recommendation, assessmentUnitName, target) ->
+                            renderer.submit(() -> generateHTMLForOneTarget(recommendation.getMiddleware(), recommendation.getVersion(),
+                                    assessmentUnitName, target, recommendation.getIssueCategories())));
+                } catch (IOException | RuntimeException e) {
+                    Logger.error("Failed to generate objects from JSON", e);
+                    throw new TAException(e);
+                }
+            } else {
+                RecommendationReport recommendation = null;
+                try {
+                    recommendation = parseJSON();
+                } catch (Exception e) {
+                    Logger.error("Failed to generate objects from JSON", e);
+                    throw new TAException(e);
+                }
 
-            htmlFiles = generateHTMLForOneAssessmentUnit(middleware, version, assessmentUnit, templateStr, issueCategories);
+                List<Map<String, String>> issueCategories = recommendation.getIssueCategories();
+                String middleware = recommendation.getMiddleware();
+                String version = recommendation.getVersion();
 
-            generatedHTMLFiles.addAll(htmlFiles);
+                for (AssessmentUnitReport assessmentUnit : recommendation.getAssessmentUnits()) {
+                    String assessmentUnitName = assessmentUnit.getName();
+                    for (TargetReport target : assessmentUnit.getTargets()) {
+                        renderer.submit(() -> generateHTMLForOneTarget(middleware, version, assessmentUnitName, target, issueCategories));
+                    }
+                }
+            }
+            renderer.finish();
+        } finally {
+            renderer.shutdown();
         }
-
-        return generatedHTMLFiles;
     }
 
-    private List<Report> generateHTMLForOneAssessmentUnit(String middleware, String version,
-                AssessmentUnitReport assessmentUnit, String templateStr, List<Map<String, String>> issueCategories) throws TAException {
-        List<Report> generatedHTMLs = new ArrayList<Report>();
-        List<TargetReport> targets = assessmentUnit.getTargets();
-        String assessmentUnitName = assessmentUnit.getName();
-        for (TargetReport target : targets){
-            Report reportHTML = generateHTMLForOneTarget(middleware, version, assessmentUnitName, target, templateStr, issueCategories);
-            generatedHTMLs.add(reportHTML);
+    private synchronized void compileTemplates() throws TAException {
+        if (template == null) {
+            template = HtmlTemplate.compile(loadTemplate(TEMPLATE), TEMPLATE_VARS);
+            issuesTableTemplate = HtmlTemplate.compile(loadTemplate(TEMPLATE_ISSUES_TABLE), TEMPLATE_ISSUES_TABLE_VARS);
+            issuesTableRowTemplate = HtmlTemplate.compile(loadTemplate(TEMPLATE_ISSUES_TABLE_ROW), TEMPLATE_ISSUES_TABLE_ROW_VARS);
         }
-        return generatedHTMLs;
     }
 
     private Report generateHTMLForOneTarget(String middleware, String version, String assessmentUnitName,
-                TargetReport target, String templateStr, List<Map<String, String>> issueCategories) throws TAException {
+                TargetReport target, List<Map<String, String>> issueCategories) throws TAException {
         String id = target.getTargetId();
         String targetId = assessmentUnitName + "-" + id;
 
-        String resultStr = templateStr.replace(ASSESSMENT_UNIT_NAME_VAR, assessmentUnitName);
-        resultStr = resultStr.replace(PRODUCT_NAME_VAR, middleware);
-        resultStr = resultStr.replace(PRODUCT_VERSION_VAR, version);
-        resultStr = resultStr.replace(TARGET_COLUMN_VAR, target.getTargetId());
-        resultStr = resultStr.replace(OVERALL_COMPLEXITY_SCORE_VAR, target.getOverallComplexityScore());
-        resultStr = resultStr.replace(NUM_OF_RED_ISSUES_VAR, new Integer(target.getNumberOfRedIssues()).toString());
-        resultStr = resultStr.replace(NUM_OF_YELLOW_ISSUES_VAR, new Integer(target.getNumberOfYellowIssues()).toString());
-        resultStr = resultStr.replace(NUM_OF_GREEN_ISSUES_VAR, new Integer(target.getNumberOfGreenIssues()).toString());
-
         Logger.debug("\n**************Gen HTML for " + targetId + "******************\n");
-        String issueTablesStr = "";
-        List<IssuesSameCategory> issues = target.getIssuesSameCategory();
-        Logger.debug("issues is " + issues);
-        int nextTableRowIndex = 1;
-        for (IssuesSameCategory issuesSameCategory : issues){
-            GenerationResult oneIssueCategoryTableGenResult = genIssueTableForOneCategory(issuesSameCategory, nextTableRowIndex);
-            if (oneIssueCategoryTableGenResult != null) {
-                String oneIssueCategoryTableStr = oneIssueCategoryTableGenResult.getStringResult();
-                issueTablesStr += oneIssueCategoryTableStr;
-                nextTableRowIndex += oneIssueCategoryTableGenResult.getNumberOfIssuesGenerated();
-            }
+        StringWriter resultWriter = new StringWriter();
+        try {
+            template.render(resultWriter, (var, out) -> {
+                switch (var) {
+                    case ASSESSMENT_UNIT_NAME_VAR:
+                        out.write(assessmentUnitName);
+                        break;
+                    case PRODUCT_NAME_VAR:
+                        out.write(middleware);
+                        break;
+                    case PRODUCT_VERSION_VAR:
+                        out.write(version);
+                        break;
+                    case TARGET_COLUMN_VAR:
+                        out.write(target.getTargetId());
+                        break;
+                    case OVERALL_COMPLEXITY_SCORE_VAR:
+                        out.write(target.getOverallComplexityScore());
+                        break;
+                    case NUM_OF_RED_ISSUES_VAR:
+                        out.write(Integer.toString(target.getNumberOfRedIssues()));
+                        break;
+                    case NUM_OF_YELLOW_ISSUES_VAR:
+                        out.write(Integer.toString(target.getNumberOfYellowIssues()));
+                        break;
+                    case NUM_OF_GREEN_ISSUES_VAR:
+                        out.write(Integer.toString(target.getNumberOfGreenIssues()));
+                        break;
+                    case ISSUE_TABLES_VAR:
+                        writeIssueTables(out, target);
+                        break;
+                }
+            });
+        } catch (IOException e) {
+            Logger.error("Not able to generate report for " + targetId, e);
+            throw new TAException(e);
         }
 
-        resultStr = resultStr.replace(ISSUE_TABLES_VAR, issueTablesStr);
-
         com.ibm.ta.sdk.spi.recommendation.Target targetResult = new com.ibm.ta.sdk.spi.recommendation.Target(){
             @Override
             public String getTargetId() {
@@ -180,7 +258,7 @@ public class RecommendationReporter implements ReportGenerator {
             }
         };
 
-        String finalResultStr = resultStr;
+        String finalResultStr = resultWriter.toString();
         Report result = new Report() {
             @Override
             public String getAssessmentName() {
@@ -211,99 +289,106 @@ public class RecommendationReporter implements ReportGenerator {
     }
 
 
-    private GenerationResult genIssueTableForOneCategory(IssuesSameCategory issuesSameCategory, int nextTableRowIndex) throws TAException {
-        String issueCategoryTitle = issuesSameCategory.getIssueCategoryTitle();
-        String templateStr = loadTemplate(TEMPLATE_ISSUES_TABLE);
-
-        String resultStr = templateStr.replace(ISSUE_CATEGORY_TITLE_VAR, issueCategoryTitle);
+    private void writeIssueTables(Writer out, TargetReport target) throws IOException {
+        List<IssuesSameCategory> issues = target.getIssuesSameCategory();
+        Logger.debug("issues is " + issues);
+        int nextTableRowIndex = 1;
+        for (IssuesSameCategory issuesSameCategory : issues){
+            writeIssueTableForOneCategory(out, issuesSameCategory, nextTableRowIndex);
+            nextTableRowIndex += issuesSameCategory.getIssues().size();
+        }
+    }
 
-        String issueTableBodyStr = "";
-        List<IssueReport> issues = issuesSameCategory.getIssues();
-        int issueGenerated = 0;
-        for (IssueReport issue : issues) {
-            GenerationResult issueTableResult = genIssueTableRow(issue, nextTableRowIndex);
-            if (issueTableResult != null) {
-                String oneIssueTableRowStr = issueTableResult.getStringResult();
-                issueTableBodyStr += oneIssueTableRowStr;
-                nextTableRowIndex++;
+    private void writeIssueTableForOneCategory(Writer out, IssuesSameCategory issuesSameCategory, int nextTableRowIndex) throws IOException {
+        issuesTableTemplate.render(out, (var, tableOut) -> {
+            switch (var) {
+                case ISSUE_CATEGORY_TITLE_VAR:
+                    tableOut.write(issuesSameCategory.getIssueCategoryTitle());
+                    break;
+                case ISSUES_TABLE_BODY_VAR:
+                    int rowIndex = nextTableRowIndex;
+                    for (IssueReport issue : issuesSameCategory.getIssues()) {
+                        writeIssueTableRow(tableOut, issue, rowIndex);
+                        rowIndex++;
+                    }
+                    break;
             }
-        }
-        resultStr =  resultStr.replace(ISSUES_TABLE_BODY_VAR, issueTableBodyStr);
-        return new GenerationResult(resultStr, issues.size());
+        });
+    }
 
+    private void writeIssueTableRow(Writer out, IssueReport issue, int nextTableRowIndex) throws IOException {
+        issuesTableRowTemplate.render(out, (var, rowOut) -> {
+            switch (var) {
+                case ISSUE_OCCURANCE_COUNT_VAR:
+                    rowOut.write(issue.getOccurrencesCount());
+                    break;
+                case ISSUE_ID_VAR:
+                    rowOut.write(issue.getId());
+                    break;
+                case ISSUE_TITLE_VAR:
+                    rowOut.write(issue.getTitle());
+                    break;
+                case ISSUE_COST_VAR:
+                    rowOut.write(issue.getCost());
+                    break;
+                case ISSUE_OVERHEAD_VAR:
+                    rowOut.write(issue.getIssueOverhead());
+                    break;
+                case ISSUE_OCCURANCES_COST_VAR:
+                    rowOut.write(issue.getOccurancesCost());
+                    break;
+                case ISSUE_SEVERITY_VAR:
+                    rowOut.write(issue.getSeverity());
+                    break;
+                case TEMPLATE_ISSUES_SOLUTION_TEXT_VAR:
+                    // <ul><li>solution text</li>...</ul>
+                    rowOut.write("<ul>");
+                    for (String oneSolutionText : issue.getSolutionTextList()) {
+                        rowOut.write("<li>");
+                        rowOut.write(oneSolutionText);
+                        rowOut.write("</li>");
+                    }
+                    rowOut.write("</ul>");
+                    break;
+                case ISSUE_OCCURANCES_VAR:
+                    writeOccurrencesTable(rowOut, issue.getOccurances());
+                    break;
+                case HIDDEN_ROW_COUNT_VAR:
+                    rowOut.write(Integer.toString(nextTableRowIndex));
+                    break;
+            }
+        });
     }
 
-    private GenerationResult genIssueTableRow(IssueReport issue, int nextTableRowIndex) throws TAException {
-        String templateStr = loadTemplate(TEMPLATE_ISSUES_TABLE_ROW);
-
-        String issueOccuranceCount = issue.getOccurrencesCount();
-        String resultStr = templateStr.replace(ISSUE_OCCURANCE_COUNT_VAR, issueOccuranceCount);
-        resultStr = resultStr.replace(ISSUE_ID_VAR, issue.getId());
-        resultStr = resultStr.replace(ISSUE_TITLE_VAR, issue.getTitle());
-        resultStr = resultStr.replace(ISSUE_COST_VAR, issue.getCost());
-        resultStr = resultStr.replace(ISSUE_OVERHEAD_VAR, issue.getIssueOverhead());
-        resultStr = resultStr.replace(ISSUE_OCCURANCES_COST_VAR, issue.getOccurancesCost());
-        resultStr = resultStr.replace(ISSUE_SEVERITY_VAR, issue.getSeverity());
-
-        List<String> solutionTextList = issue.getSolutionTextList();
-        String solutionTextItems = "";
-        for (String oneSolutionText : solutionTextList) {
-            solutionTextItems += TEMPLATE_ISSUES_SOLUTION_TEXT_ITEM_TEMPLATE.replace(TEMPLATE_ISSUES_SOLUTION_TEXT_ITEM_VAR, oneSolutionText);
+    private void writeOccurrencesTable(Writer out, List<Map<String, String>> occurancesList) throws IOException {
+        if (occurancesList == null || occurancesList.isEmpty()) {
+            return;
         }
-        String solutionText = TEMPLATE_ISSUES_SOLUTION_TEXT_TEMPLATE.replace(TEMPLATE_ISSUES_SOLUTION_TEXT_VAR, solutionTextItems);
-        resultStr = resultStr.replace(TEMPLATE_ISSUES_SOLUTION_TEXT_VAR, solutionText);
-
-            // Nov 7, remove occurancesFields from HTML table
-//            Map<String, String> occurancesFields = issue.getOccurrencesFields();
-//            String occurancesFieldsStr = "";
-//            if (occurancesFields != null && occurancesFields.size() > 0) {
-//                occurancesFieldsStr += "<table>";
-//                Set<String> occurancesFieldKeys = occurancesFields.keySet();
-//                String tableRowStr = "";
-//                for (String occurancesFiledKey : occurancesFieldKeys) {
-//                    occurancesFieldsStr += "<tr><th>" + occurancesFiledKey + "</th></tr>";
-//                    String value = occurancesFields.get(occurancesFiledKey);
-//                    occurancesFieldsStr += "<tr><td>" + value + "</td></tr>";
-//                }
-//                occurancesFieldsStr += "</table>";
-//            }
-//            Logger.debug("occurancesFieldsStr is " + occurancesFieldsStr);
-//            resultStr = resultStr.replace(ISSUE_OCCURANCES_FIELDS_VAR, occurancesFieldsStr);
-
-        List<Map<String, String>> occurancesList = issue.getOccurances();
-        String occurancesStr = "";
-        if (occurancesList != null && occurancesList.size() > 0) {
-            // header
-            Map<String, String> firstOccuranceMap = occurancesList.get(0);
-            Set<String> headerSet = firstOccuranceMap.keySet();
-            String headerStr = "<tr><th>index</th>";
-            for (String header : headerSet) {
-                headerStr += "<th>" + header + "</th>";
-            }
-            headerStr += "</tr>";
-            occurancesStr = TEMPLATE_OCCURANCES.replace(ISSUE_OCCURANCES_TABLE_HEADER_VAR, headerStr);
-
-            // body: each occurance take one table row
-            String occuranceRowsStr = "";
-            int index = 0;
-            for (Map<String, String> oneOccuranceMap : occurancesList) {
-                index ++;
-                String oneRow = "<tr><td>" + new Integer(index).toString() + "</td>";
-                Set<String> oneOccuranceKeys = oneOccuranceMap.keySet();
-                for (String oneOccuranceKey : oneOccuranceKeys) {
-                    Object oneOccuranceValue = oneOccuranceMap.get(oneOccuranceKey);
-                    oneRow += "<td>" + oneOccuranceValue.toString() + "</td>";
-                }
-                oneRow += "</tr>";
-                occuranceRowsStr += oneRow;
+
+        // header
+        out.write("<table><tr><th>index</th>");
+        for (String header : occurancesList.get(0).keySet()) {
+            out.write("<th>");
+            out.write(header);
+            out.write("</th>");
+        }
+        out.write("</tr>");
+
+        // body: each occurance take one table row
+        int index = 0;
+        for (Map<String, String> oneOccuranceMap : occurancesList) {
+            index++;
+            out.write("<tr><td>");
+            out.write(Integer.toString(index));
+            out.write("</td>");
+            for (Object oneOccuranceValue : oneOccuranceMap.values()) {
+                out.write("<td>");
+                out.write(oneOccuranceValue.toString());
+                out.write("</td>");
             }
-            occurancesStr = occurancesStr.replace(ISSUE_OCCURANCES_TABLE_BODY_VAR, occuranceRowsStr);
+            out.write("</tr>");
         }
-
-        resultStr = resultStr.replace(ISSUE_OCCURANCES_VAR, occurancesStr);
-        resultStr = resultStr.replace(HIDDEN_ROW_COUNT_VAR, new Integer(nextTableRowIndex).toString());
-        return new GenerationResult(resultStr, nextTableRowIndex);
-
+        out.write("</table>");
     }
 
     private String loadTemplate(String templateFilePath) throws TAException{
@@ -347,87 +432,151 @@ public class RecommendationReporter implements ReportGenerator {
         recommendation.setCollectionUnitType(recommendationJson.get("collectionUnitType").getAsString());
 
         // issueCategories
-        JsonObject issueCategories = this.recommendationJson.getAsJsonObject("issueCategories");
-
-        Map<String, String> issueCategoryMap = new HashMap<String, String>();
-        Set<String> issueCatKeys = issueCategories.keySet();
-        for (String issueCatKey : issueCatKeys) {
-            JsonObject issueCatTitleJO = issueCategories.getAsJsonObject(issueCatKey);
-            String issueCatTitle = issueCatTitleJO.get("title").getAsString();
-            Logger.debug("issueCatKey is " + issueCatKey + "; issueCatTitle is " + issueCatTitle);
-            issueCategoryMap.put(issueCatKey, issueCatTitle);
-        }
+        Map<String, String> issueCategoryMap = parseIssueCategories(this.recommendationJson.getAsJsonObject("issueCategories"));
 
         //assessmentUnits
         JsonArray assessmentUnits = this.recommendationJson.getAsJsonArray("assessmentUnits");
-        Logger.debug("assessmentUnits is " + assessmentUnits);
 
         for (Object assessmentUnit : assessmentUnits) {
             JsonObject assessmentUnitsJO = (JsonObject) assessmentUnit;
-            Logger.debug("assessmentUnitsJO is " + assessmentUnitsJO);
             String name = assessmentUnitsJO.get("name").getAsString();
             AssessmentUnitReport aU = new AssessmentUnitReport(name);
 
             JsonArray targetsJA = (JsonArray) assessmentUnitsJO.get("targets");
             for (Object targetObj : targetsJA) {
-                JsonObject targetJO = (JsonObject) targetObj;
-                String id = targetJO.get("target")== null? "": targetJO.get("target").getAsString();
-                JsonObject summary = (JsonObject) targetJO.get("summary");
-                JsonObject issuesInSummary = (JsonObject) summary.get("issues");
-                int numOfRedIssues = issuesInSummary.get("severe") == null ? 0 : issuesInSummary.get("severe").getAsInt();
-                if (numOfRedIssues == 0){
-                    numOfRedIssues = issuesInSummary.get("critical") == null ? 0 : issuesInSummary.get("critical").getAsInt();
-                }
-                int numOfYellowIssues = issuesInSummary.get("warning") == null ? 0 : issuesInSummary.get("warning").getAsInt();
-                if (numOfYellowIssues == 0){
-                    numOfYellowIssues = issuesInSummary.get("potential") == null ? 0 : issuesInSummary.get("potential").getAsInt();
-                }
-                int numOfGreenIssues = issuesInSummary.get("info") == null ? 0 : issuesInSummary.get("simple").getAsInt();
-                if (numOfGreenIssues == 0){
-                    numOfGreenIssues = issuesInSummary.get("suggested") == null ? 0 : issuesInSummary.get("suggested").getAsInt();
-                }
-
-                JsonObject complexity = (JsonObject) summary.get("complexity");
-                String overallComplexityScore = complexity.get("score").getAsString();
-                TargetReport target = new TargetReport(id, new JsonArray(), overallComplexityScore, numOfRedIssues, numOfYellowIssues, numOfGreenIssues);
-
-                JsonObject issuesJO = (JsonObject) targetJO.get("issues");
-                Set<String> issuesKeySet = issuesJO.keySet();
-                for (String issuesKey : issuesKeySet) {
-                    Logger.debug("--issuesKey is " + issuesKey);
-                    IssuesSameCategory issuesSameCategory = new IssuesSameCategory(issuesKey, issueCategoryMap.get(issuesKey));
-                    JsonArray issuesJA = (JsonArray) issuesJO.get(issuesKey);
-
-                    for (Object issueOb : issuesJA) {
-                        JsonObject issueJO = (JsonObject) issueOb;
-                        Logger.debug("----issueJO is " + issueJO);
-                        IssueReport issue = new IssueReport(issueJO);
-                        issuesSameCategory.addIssue(issue);
-                    }
-                    target.addIssuesSameCategory(issuesSameCategory);
-                }
-                aU.addTarget(target);
+                aU.addTarget(parseTarget((JsonObject) targetObj, issueCategoryMap));
             }
             recommendation.addAssessmentUnit(aU);
         }
         return recommendation;
     }
 
-    class GenerationResult {
-        private String stringResult;
-        private int numberOfIssuesGenerated;
+    static Map<String, String> parseIssueCategories(JsonObject issueCategories) {
+        Map<String, String> issueCategoryMap = new HashMap<String, String>();
+        Set<String> issueCatKeys = issueCategories.keySet();
+        for (String issueCatKey : issueCatKeys) {
+            JsonObject issueCatTitleJO = issueCategories.getAsJsonObject(issueCatKey);
+            String issueCatTitle = issueCatTitleJO.get("title").getAsString();
+            Logger.debug("issueCatKey is " + issueCatKey + "; issueCatTitle is " + issueCatTitle);
+            issueCategoryMap.put(issueCatKey, issueCatTitle);
+        }
+        return issueCategoryMap;
+    }
+
+    static TargetReport parseTarget(JsonObject targetJO, Map<String, String> issueCategoryMap) {
+        String id = targetJO.get("target")== null? "": targetJO.get("target").getAsString();
+        JsonObject summary = (JsonObject) targetJO.get("summary");
+        JsonObject issuesInSummary = (JsonObject) summary.get("issues");
+        int numOfRedIssues = issuesInSummary.get("severe") == null ? 0 : issuesInSummary.get("severe").getAsInt();
+        if (numOfRedIssues == 0){
+            numOfRedIssues = issuesInSummary.get("critical") == null ? 0 : issuesInSummary.get("critical").getAsInt();
+        }
+        int numOfYellowIssues = issuesInSummary.get("warning") == null ? 0 : issuesInSummary.get("warning").getAsInt();
+        if (numOfYellowIssues == 0){
+            numOfYellowIssues = issuesInSummary.get("potential") == null ? 0 : issuesInSummary.get("potential").getAsInt();
+        }
+        int numOfGreenIssues = issuesInSummary.get("info") == null ? 0 : issuesInSummary.get("simple").getAsInt();
+        if (numOfGreenIssues == 0){
+            numOfGreenIssues = issuesInSummary.get("suggested") == null ? 0 : issuesInSummary.get("suggested").getAsInt();
+        }
 
-        public GenerationResult(String stringResult, int numberOfIssuesGenerated){
-            this.stringResult = stringResult;
-            this.numberOfIssuesGenerated = numberOfIssuesGenerated;
+        JsonObject complexity = (JsonObject) summary.get("complexity");
+        String overallComplexityScore = complexity.get("score").getAsString();
+        TargetReport target = new TargetReport(id, new JsonArray(), overallComplexityScore, numOfRedIssues, numOfYellowIssues, numOfGreenIssues);
+
+        JsonObject issuesJO = (JsonObject) targetJO.get("issues");
+        Set<String> issuesKeySet = issuesJO.keySet();
+        for (String issuesKey : issuesKeySet) {
+            Logger.debug("--issuesKey is " + issuesKey);
+            IssuesSameCategory issuesSameCategory = new IssuesSameCategory(issuesKey, issueCategoryMap.get(issuesKey));
+            JsonArray issuesJA = (JsonArray) issuesJO.get(issuesKey);
+
+            for (Object issueOb : issuesJA) {
+                JsonObject issueJO = (JsonObject) issueOb;
+                IssueReport issue = new IssueReport(issueJO);
+                issuesSameCategory.addIssue(issue);
+            }
+            target.addIssuesSameCategory(issuesSameCategory);
         }
+        return target;
+    }
 
-        public String getStringResult(){
-            return this.stringResult;
+    /**
+     * Renders reports on a pool of threads and passes them to the handler on the calling thread as they complete.
+     * The number of reports rendered or waiting to be handled is bounded, so the reader of recommendations.json
+     * does not get ahead of the rendering.
+     */
+    private class ReportRenderer {
+        private final ReportHandler handler;
+        private final ExecutorService executor;
+        private final CompletionService<Report> completionService;
+        private final int maxInFlight;
+        private int inFlight = 0;
+
+        ReportRenderer(ReportHandler handler) {
+            this.handler = handler;
+            if (parallelism > 1) {
+                Logger.info("Generating reports with parallelism " + parallelism);
+                executor = Executors.newFixedThreadPool(parallelism);
+                completionService = new ExecutorCompletionService<>(executor);
+            } else {
+                executor = null;
+                completionService = null;
+            }
+            maxInFlight = parallelism * 2;
         }
 
-        public int getNumberOfIssuesGenerated(){
-            return this.numberOfIssuesGenerated;
+        void submit(Callable<Report> task) throws TAException {
+            if (executor == null) {
+                handler.handle(call(task));
+                return;
+            }
+
+            while (inFlight >= maxInFlight) {
+                handleNext();
+            }
+            completionService.submit(task);
+            inFlight++;
+        }
+
+        void finish() throws TAException {
+            while (inFlight > 0) {
+                handleNext();
+            }
+        }
+
+        void shutdown() {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+
+        private void handleNext() throws TAException {
+            Report report;
+            try {
+                report = completionService.take().get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new TAException("Interrupted while generating reports", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof TAException) {
+                    throw (TAException) e.getCause();
+                }
+                throw new TAException(e.getCause());
+            } finally {
+                inFlight--;
+            }
+            handler.handle(report);
+        }
+
+        private Report call(Callable<Report> task) throws TAException {
+            try {
+                return task.call();
+            } catch (TAException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new TAException(e);
+            }
         }
     }
 
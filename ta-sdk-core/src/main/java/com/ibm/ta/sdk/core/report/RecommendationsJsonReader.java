@@ -0,0 +1,173 @@
+/*
+ * (C) Copyright IBM Corp. 2019,2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.ta.sdk.core.report;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.ibm.ta.sdk.spi.plugin.TAException;
+import org.tinylog.Logger;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads a recommendations.json file with a pull parser and passes the targets of each assessment unit to a handler one
+ * at a time. Only the target being handled is held in memory, so memory use does not grow with the size of the file.
+ */
+public class RecommendationsJsonReader {
+
+    private static final String ATTR_DOMAIN = "domain";
+    private static final String ATTR_MIDDLEWARE = "middleware";
+    private static final String ATTR_VERSION = "version";
+    private static final String ATTR_COLLECTION_UNIT_NAME = "collectionUnitName";
+    private static final String ATTR_COLLECTION_UNIT_TYPE = "collectionUnitType";
+    private static final String ATTR_ISSUE_CATEGORIES = "issueCategories";
+    private static final String ATTR_ASSESSMENT_UNITS = "assessmentUnits";
+    private static final String ATTR_AU_NAME = "name";
+    private static final String ATTR_AU_TARGETS = "targets";
+
+    public interface TargetReportHandler {
+        /**
+         * Handle one target of an assessment unit
+         * @param recommendation Attributes of the recommendations.json, without the assessment units
+         * @param assessmentUnitName Name of the assessment unit
+         * @param target Target of the assessment unit, with its issues
+         * @throws TAException Error handling the target
+         */
+        void handle(RecommendationReport recommendation, String assessmentUnitName, TargetReport target) throws TAException;
+    }
+
+    private Path recommendationsJsonFile;
+
+    public RecommendationsJsonReader(Path recommendationsJsonFile) {
+        this.recommendationsJsonFile = recommendationsJsonFile;
+    }
+
+    /**
+     * Reads the recommendations.json and calls the handler for each target of each assessment unit, in the order they
+     * are in the file.
+     * The attributes of the recommendation are written before the assessment units by TADataCollector. If the
+     * assessment units come first, they are skipped and read in a second pass over the file.
+     * @param handler Handler for the targets
+     * @throws IOException Error reading recommendations.json
+     * @throws TAException Error returned by the handler
+     */
+    public void readTargets(TargetReportHandler handler) throws IOException, TAException {
+        RecommendationReport recommendation = new RecommendationReport();
+        Map<String, String> issueCategoryMap = null;
+        boolean assessmentUnitsRead = false;
+
+        try (JsonReader reader = newJsonReader()) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if (ATTR_DOMAIN.equals(name)) {
+                    recommendation.setDomain(nextString(reader));
+                } else if (ATTR_MIDDLEWARE.equals(name)) {
+                    recommendation.setMiddleware(nextString(reader));
+                } else if (ATTR_VERSION.equals(name)) {
+                    recommendation.setVersion(nextString(reader));
+                } else if (ATTR_COLLECTION_UNIT_NAME.equals(name)) {
+                    recommendation.setCollectionUnitName(nextString(reader));
+                } else if (ATTR_COLLECTION_UNIT_TYPE.equals(name)) {
+                    recommendation.setCollectionUnitType(nextString(reader));
+                } else if (ATTR_ISSUE_CATEGORIES.equals(name)) {
+                    issueCategoryMap = RecommendationReporter.parseIssueCategories(
+                            JsonParser.parseReader(reader).getAsJsonObject());
+                } else if (ATTR_ASSESSMENT_UNITS.equals(name) && issueCategoryMap != null
+                        && recommendation.getMiddleware() != null && recommendation.getVersion() != null) {
+                    readAssessmentUnits(reader, recommendation, issueCategoryMap, handler);
+                    assessmentUnitsRead = true;
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+        }
+
+        if (issueCategoryMap == null) {
+            throw new TAException("No issue categories found in " + recommendationsJsonFile);
+        }
+
+        if (!assessmentUnitsRead) {
+            Logger.debug("Assessment units are before the recommendation attributes, reading " + recommendationsJsonFile + " again");
+            try (JsonReader reader = newJsonReader()) {
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    if (ATTR_ASSESSMENT_UNITS.equals(reader.nextName())) {
+                        readAssessmentUnits(reader, recommendation, issueCategoryMap, handler);
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+                reader.endObject();
+            }
+        }
+    }
+
+    private void readAssessmentUnits(JsonReader reader, RecommendationReport recommendation,
+                                     Map<String, String> issueCategoryMap, TargetReportHandler handler) throws IOException, TAException {
+        reader.beginArray();
+        while (reader.hasNext()) {
+            String auName = null;
+            // Targets are kept only if the name of the assessment unit is after its targets
+            List<JsonObject> pendingTargets = new ArrayList<>();
+
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if (ATTR_AU_NAME.equals(name)) {
+                    auName = nextString(reader);
+                    for (JsonObject targetJO : pendingTargets) {
+                        handler.handle(recommendation, auName, RecommendationReporter.parseTarget(targetJO, issueCategoryMap));
+                    }
+                    pendingTargets.clear();
+                } else if (ATTR_AU_TARGETS.equals(name) && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        JsonElement targetJE = JsonParser.parseReader(reader);
+                        if (auName == null) {
+                            pendingTargets.add(targetJE.getAsJsonObject());
+                        } else {
+                            handler.handle(recommendation, auName,
+                                    RecommendationReporter.parseTarget(targetJE.getAsJsonObject(), issueCategoryMap));
+                        }
+                    }
+                    reader.endArray();
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+
+            if (!pendingTargets.isEmpty()) {
+                throw new TAException("Assessment unit without a name found in " + recommendationsJsonFile);
+            }
+        }
+        reader.endArray();
+    }
+
+    private JsonReader newJsonReader() throws IOException {
+        return new JsonReader(Files.newBufferedReader(recommendationsJsonFile, StandardCharsets.UTF_8));
+    }
+
+    private static String nextString(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        return reader.nextString();
+    }
+}
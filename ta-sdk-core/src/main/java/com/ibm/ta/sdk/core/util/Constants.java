@@ -15,6 +15,8 @@ public final class Constants {
 
     public static final String ENVIRONMENT_JSON = "environment.json";
     public static final String RECOMMENDATIONS_JSON = "recommendations.json";
+    public static final String ASSESSMENT_MANIFEST_JSON = "assessment.manifest.json";
+    public static final String RULE_PROFILE_JSON = "rule.profile.json";
 
     public static final String FILE_COMPLEXITIES_JSON = "complexities.json";
     public static final String FILE_ISSUECATS_JSON = "issue-categories.json";
@@ -20,6 +20,8 @@ import java.util.List;
 
 public class XmlUtils {
     private final String CLASS_NAME = getClass().getName();
+    private static final DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
+    private static final ThreadLocal<DocumentBuilder> documentBuilder = new ThreadLocal<>();
 
     /**
      *
@@ -716,10 +718,31 @@ public class XmlUtils {
         return false;
     }
 
+    /**
+     * Parse an XML file. The document builders are created once for each thread and reused for the next files. The
+     * documents returned are not thread safe, a document must only be read by one thread at a time.
+     *
+     * @param xmlFile XML file
+     * @return Parsed document
+     */
     public static Document getXmlDoc(File xmlFile) throws ParserConfigurationException, SAXException, IOException {
-        DocumentBuilder dBuilder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
+        DocumentBuilder dBuilder = getDocumentBuilder();
         Document doc = dBuilder.parse(xmlFile);
         return doc;
     }
 
+    // Document builders are not thread safe, each thread keeps its own
+    private static DocumentBuilder getDocumentBuilder() throws ParserConfigurationException {
+        DocumentBuilder dBuilder = documentBuilder.get();
+        if (dBuilder == null) {
+            synchronized (documentBuilderFactory) {
+                dBuilder = documentBuilderFactory.newDocumentBuilder();
+            }
+            documentBuilder.set(dBuilder);
+        } else {
+            dBuilder.reset();
+        }
+        return dBuilder;
+    }
+
 }
@@ -5,23 +5,43 @@
  */
 package com.ibm.ta.sdk.core.detector;
 
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.ibm.ta.sdk.core.assessment.GenericIssue;
 import com.ibm.ta.sdk.core.assessment.GenericRecommendation;
+import com.ibm.ta.sdk.core.assessment.GenericTarget;
+import com.ibm.ta.sdk.core.assessment.IssueRule;
+import com.ibm.ta.sdk.core.assessment.RuleCatalog;
 import com.ibm.ta.sdk.core.collect.GenericAssessmentUnit;
+import com.ibm.ta.sdk.core.detector.json.JsonDocumentCache;
 import com.ibm.ta.sdk.spi.plugin.TAException;
 import com.ibm.ta.sdk.spi.recommendation.Issue;
 import com.ibm.ta.sdk.spi.recommendation.Occurrence;
 import com.ibm.ta.sdk.spi.recommendation.Severity;
 import com.ibm.ta.sdk.spi.recommendation.Target;
+import com.ibm.ta.sdk.spi.util.Util;
+import com.jayway.jsonpath.JsonPath;
 import org.junit.jupiter.api.Test;
 import org.opentest4j.AssertionFailedError;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.TreeSet;
 
 import static com.ibm.ta.sdk.core.util.Constants.*;
 import static org.junit.jupiter.api.Assertions.*;
@@ -181,6 +201,76 @@ public class JsonDetectorTest {
     }
 
 
+    /*
+     * Target independent rules are evaluated once for an assessment unit. The issue of each target has the same
+     * occurrences with its own solution text and cost, and the occurrences are released when the assessment unit is
+     * completed.
+     */
+    @Test
+    public void targetFanOutTest() {
+        try {
+            Path outputDir = Files.createTempDirectory("targetFanOut");
+            try {
+                Path assessmentUnitFile = new File(TEST_RESOURCES_DIR, "collect/AssessmentUnit.json").toPath();
+                GenericAssessmentUnit au = new GenericAssessmentUnit(assessmentUnitFile, null);
+
+                Path issueJsonFile = new File(TEST_RESOURCES_DIR, "issue/issue_targeted_solutions.json").toPath();
+                Path complexityJsonFile = new File(TEST_RESOURCES_DIR, "assess" + File.separator + FILE_COMPLEXITIES_JSON).toPath();
+                Path issueCatJsonFile = new File(TEST_RESOURCES_DIR, "assess" + File.separator + FILE_ISSUECATS_JSON).toPath();
+                Path targetJsonFile = new File(TEST_RESOURCES_DIR, "target" + File.separator + "targets_three.json").toPath();
+                GenericRecommendation rec = new GenericRecommendation("assessment1", issueJsonFile,
+                        issueCatJsonFile, complexityJsonFile, targetJsonFile);
+                Path profileFile = outputDir.resolve(RULE_PROFILE_JSON);
+                rec.useRuleProfile(profileFile, 10);
+
+                Map<String, Issue> targetIssues = new HashMap<>();
+                for (Target target : rec.getTargets()) {
+                    List<Issue> issues = rec.getIssues(target, au);
+                    assertEquals(1, issues.size());
+                    targetIssues.put(target.getTargetId(), issues.get(0));
+                }
+
+                Issue issueA = targetIssues.get("targetA");
+                Issue issueB = targetIssues.get("targetB");
+                Issue issueC = targetIssues.get("targetC");
+                assertNotSame(issueA, issueB);
+                assertEquals(Arrays.asList("targetA solution"), issueA.getSolutionText());
+                assertEquals(Arrays.asList("targetB solution"), issueB.getSolutionText());
+                assertEquals(Arrays.asList("Untargeted solution"), issueC.getSolutionText());
+                for (Issue issue : targetIssues.values()) {
+                    assertEquals(2, issue.getOccurrencesCount().intValue());
+                    assertEquals(1.5f, issue.getCost(), 0.001f);
+                    assertEquals(issueA.getOccurrence().getOccurrencesInstances(),
+                            issue.getOccurrence().getOccurrencesInstances());
+                }
+
+                // Occurrences added to the issue of a target do not change the issues of the other targets
+                ((GenericIssue) issueA).addOccurences(Arrays.asList(Collections.singletonMap("mainCluster", "Paris")));
+                assertEquals(3, issueA.getOccurrencesCount().intValue());
+                assertEquals(2.0f, issueA.getCost(), 0.001f);
+                assertEquals(2, issueB.getOccurrencesCount().intValue());
+                assertEquals(1.5f, issueB.getCost(), 0.001f);
+
+                // The rule is evaluated again only after the assessment unit is completed
+                rec.getIssues(rec.getTargets().get(0), au);
+                rec.assessmentUnitCompleted(au);
+                rec.getIssues(rec.getTargets().get(0), au);
+                rec.assessmentCompleted();
+                JsonObject profile = new JsonParser().parse(new String(Files.readAllBytes(profileFile),
+                        StandardCharsets.UTF_8)).getAsJsonObject();
+                JsonObject rule = profile.getAsJsonArray("slowestRules").get(0).getAsJsonObject();
+                assertEquals(2, rule.get("evaluations").getAsInt());
+            } finally {
+                for (File file : outputDir.toFile().listFiles()) {
+                    file.delete();
+                }
+                Files.delete(outputDir);
+            }
+        } catch (IOException | TAException e) {
+            throw new AssertionFailedError("Error generating recommendations", e);
+        }
+    }
+
     /*
      * Test no matching issue found
      */
@@ -464,6 +554,309 @@ public class JsonDetectorTest {
         }
     }
 
+    /*
+     * Parsed config files are reused until the file changes, and the cache stays within its budget.
+     */
+    @Test
+    public void jsonDocumentCacheTest() {
+        try {
+            Path configFile = Files.createTempFile("configFile", ".json");
+            try {
+                Files.copy(new File(TEST_RESOURCES_DIR, "configFiles/configFile.json").toPath(), configFile,
+                        StandardCopyOption.REPLACE_EXISTING);
+
+                JsonDocumentCache cache = new JsonDocumentCache();
+                Object doc = cache.getDocument(configFile);
+                assertSame(doc, cache.getDocument(configFile));
+                assertEquals(1, cache.size());
+
+                // Changed file is parsed again
+                Files.write(configFile, "{\"name\": \"changed\"}".getBytes());
+                Files.setLastModifiedTime(configFile, FileTime.fromMillis(System.currentTimeMillis() + 60000));
+                Object changedDoc = cache.getDocument(configFile);
+                assertNotSame(doc, changedDoc);
+                assertEquals("changed", JsonPath.parse(changedDoc).read("$.name"));
+                assertEquals(1, cache.size());
+
+                // Documents larger than the budget are not cached
+                JsonDocumentCache smallCache = new JsonDocumentCache(0);
+                assertNotSame(smallCache.getDocument(configFile), smallCache.getDocument(configFile));
+                assertEquals(0, smallCache.size());
+
+                // Budget is the estimated heap of the parsed documents, not the length of the JSON text
+                JsonDocumentCache textSizeCache = new JsonDocumentCache(Files.size(configFile));
+                textSizeCache.getDocument(configFile);
+                assertEquals(0, textSizeCache.size());
+            } finally {
+                Files.delete(configFile);
+            }
+        } catch (IOException e) {
+            throw new AssertionFailedError("Error reading JSON document", e);
+        }
+    }
+
+    /*
+     * Occurrences are reused from the assessment manifest until the input file of the rule or the plug-in version
+     * changes.
+     */
+    @Test
+    public void assessmentManifestTest() {
+        try {
+            Path outputDir = Files.createTempDirectory("assessmentManifest");
+            try {
+                Path assessmentUnitFile = new File(TEST_RESOURCES_DIR, "collect/AssessmentUnit.json").toPath();
+                Path configFile1 = outputDir.resolve("configFile.json");
+                Path configFile2 = outputDir.resolve("configFile2.json");
+                Files.copy(new File(TEST_RESOURCES_DIR, "configFiles/configFile.json").toPath(), configFile1);
+                Files.copy(new File(TEST_RESOURCES_DIR, "configFiles/configFile2.json").toPath(), configFile2);
+                GenericAssessmentUnit au = new GenericAssessmentUnit(assessmentUnitFile, Arrays.asList(configFile1, configFile2));
+                Path issueJsonFile = new File(TEST_RESOURCES_DIR, "issue/issue_querySingleInputFile.json").toPath();
+                Path manifestFile = outputDir.resolve(ASSESSMENT_MANIFEST_JSON);
+
+                // First assessment evaluates the rule
+                assertEquals("TORONTO", getClusterOccurrence(issueJsonFile, au, manifestFile, "1.0"));
+                assertTrue(Files.exists(manifestFile));
+
+                // Occurrences in the manifest are used while the input of the rule does not change
+                String manifest = new String(Files.readAllBytes(manifestFile), StandardCharsets.UTF_8);
+                Files.write(manifestFile, manifest.replace("TORONTO", "FROM_MANIFEST").getBytes(StandardCharsets.UTF_8));
+                Files.write(configFile2, "{\"name\": \"changed\"}".getBytes(StandardCharsets.UTF_8));
+                assertEquals("FROM_MANIFEST", getClusterOccurrence(issueJsonFile, au, manifestFile, "1.0"));
+
+                // Rule is evaluated again when the plug-in version changes
+                assertEquals("TORONTO", getClusterOccurrence(issueJsonFile, au, manifestFile, "2.0"));
+
+                // Rule is evaluated again when the SDK version changes
+                manifest = new String(Files.readAllBytes(manifestFile), StandardCharsets.UTF_8);
+                assertTrue(manifest.contains("\"sdkVersion\":\"" + Util.getSDKVersion() + "\""), manifest);
+                Files.write(manifestFile, manifest.replace("TORONTO", "FROM_MANIFEST")
+                        .replace("\"sdkVersion\":\"" + Util.getSDKVersion() + "\"", "\"sdkVersion\":\"0.0.1\"")
+                        .getBytes(StandardCharsets.UTF_8));
+                assertEquals("TORONTO", getClusterOccurrence(issueJsonFile, au, manifestFile, "2.0"));
+
+                // Rule is evaluated again when its input file changes
+                manifest = new String(Files.readAllBytes(manifestFile), StandardCharsets.UTF_8);
+                Files.write(manifestFile, manifest.replace("TORONTO", "FROM_MANIFEST").getBytes(StandardCharsets.UTF_8));
+                Files.write(configFile1, new String(Files.readAllBytes(configFile1), StandardCharsets.UTF_8)
+                        .replace("TORONTO", "OTTAWA").getBytes(StandardCharsets.UTF_8));
+                assertEquals("OTTAWA", getClusterOccurrence(issueJsonFile, au, manifestFile, "2.0"));
+
+                // Results of an assessment unit are written when the assessment unit is completed
+                GenericRecommendation rec = getRecommendation(issueJsonFile);
+                rec.useAssessmentManifest(manifestFile, "2.0");
+                rec.getIssues(rec.getTargets().get(0), au);
+                rec.assessmentUnitCompleted(au);
+                Path tmpFile = manifestFile.resolveSibling(manifestFile.getFileName() + ".tmp");
+                assertTrue(new String(Files.readAllBytes(tmpFile), StandardCharsets.UTF_8).contains("OTTAWA"));
+                rec.assessmentCompleted();
+                assertFalse(Files.exists(tmpFile));
+                assertEquals(2, Files.readAllLines(manifestFile, StandardCharsets.UTF_8).size());
+            } finally {
+                for (File file : outputDir.toFile().listFiles()) {
+                    file.delete();
+                }
+                Files.delete(outputDir);
+            }
+        } catch (IOException | TAException e) {
+            throw new AssertionFailedError("Error generating recommendations", e);
+        }
+    }
+
+    /*
+     * Rules evaluated are written to the rule profile with their input files, matched paths and occurrences
+     */
+    @Test
+    public void ruleProfileTest() {
+        try {
+            Path outputDir = Files.createTempDirectory("ruleProfile");
+            try {
+                Path assessmentUnitFile = new File(TEST_RESOURCES_DIR, "collect/AssessmentUnit.json").toPath();
+                Path configFile1 = new File(TEST_RESOURCES_DIR, "configFiles/configFile.json").toPath();
+                Path configFile2 = new File(TEST_RESOURCES_DIR, "configFiles/configFile2.json").toPath();
+                GenericAssessmentUnit au = new GenericAssessmentUnit(assessmentUnitFile, Arrays.asList(configFile1, configFile2));
+                Path issueJsonFile = new File(TEST_RESOURCES_DIR, "issue/issue_querySingleInputFile.json").toPath();
+                Path profileFile = outputDir.resolve(RULE_PROFILE_JSON);
+
+                GenericRecommendation rec = getRecommendation(issueJsonFile);
+                rec.useRuleProfile(profileFile, 10);
+                List<Issue> issues = rec.getIssues(rec.getTargets().get(0), au);
+                rec.assessmentCompleted();
+                assertEquals(1, issues.size());
+
+                JsonObject profile = new JsonParser().parse(new String(Files.readAllBytes(profileFile),
+                        StandardCharsets.UTF_8)).getAsJsonObject();
+                assertEquals("assessment1", profile.get("collectionUnit").getAsString());
+                assertEquals(1, profile.get("rulesEvaluated").getAsInt());
+                JsonArray slowestRules = profile.getAsJsonArray("slowestRules");
+                assertEquals(1, slowestRules.size());
+                JsonObject rule = slowestRules.get(0).getAsJsonObject();
+                assertEquals(issues.get(0).getId(), rule.get("id").getAsString());
+                assertEquals("json", rule.get("ruleType").getAsString());
+                assertEquals(1, rule.get("evaluations").getAsInt());
+                assertEquals(1, rule.get("inputFiles").getAsInt());
+                assertEquals(1, rule.get("matchedPaths").getAsInt());
+                assertEquals(1, rule.get("occurrences").getAsInt());
+                assertTrue(rule.get("totalSeconds").getAsDouble() > 0);
+            } finally {
+                for (File file : outputDir.toFile().listFiles()) {
+                    file.delete();
+                }
+                Files.delete(outputDir);
+            }
+        } catch (IOException | TAException e) {
+            throw new AssertionFailedError("Error generating recommendations", e);
+        }
+    }
+
+    /*
+     * Recommendations of different collection units share the rules of a catalog, but not their occurrences.
+     */
+    @Test
+    public void sharedRuleCatalogTest() {
+        try {
+            Path assessmentUnitFile = new File(TEST_RESOURCES_DIR, "collect/AssessmentUnit.json").toPath();
+            Path configFile = new File(TEST_RESOURCES_DIR, "configFiles/configFile.json").toPath();
+            GenericAssessmentUnit au = new GenericAssessmentUnit(assessmentUnitFile, Arrays.asList(configFile));
+            Path issueJsonFile = new File(TEST_RESOURCES_DIR, "issue/issue_querySingleInputFile.json").toPath();
+            Path complexityJsonFile = new File(TEST_RESOURCES_DIR, "assess" + File.separator + FILE_COMPLEXITIES_JSON).toPath();
+            Path issueCatJsonFile = new File(TEST_RESOURCES_DIR, "assess" + File.separator + FILE_ISSUECATS_JSON).toPath();
+            Path targetJsonFile = new File(TEST_RESOURCES_DIR, "target" + File.separator + "targets_one.json").toPath();
+
+            RuleCatalog ruleCatalog = RuleCatalog.load(issueJsonFile, issueCatJsonFile, complexityJsonFile, targetJsonFile);
+            GenericRecommendation rec1 = new GenericRecommendation("assessment1", ruleCatalog);
+            GenericRecommendation rec2 = new GenericRecommendation("assessment2", ruleCatalog);
+            assertSame(rec1.getTargets(), rec2.getTargets());
+            assertSame(rec1.getIssueCategories(), rec2.getIssueCategories());
+
+            List<Issue> issues1 = rec1.getIssues(rec1.getTargets().get(0), au);
+            List<Issue> issues2 = rec2.getIssues(rec2.getTargets().get(0), au);
+            assertEquals(1, issues1.size());
+            assertEquals(1, issues2.size());
+            assertNotSame(issues1.get(0), issues2.get(0));
+            assertEquals(issues1.get(0).getOccurrence().getOccurrencesInstances(),
+                    issues2.get(0).getOccurrence().getOccurrencesInstances());
+        } catch (IOException | TAException e) {
+            throw new AssertionFailedError("Error generating recommendations", e);
+        }
+    }
+
+    /*
+     * Rules compiled once by the catalog find the same issues as rules compiled and evaluated on each call, for
+     * targets with all the rules, with an issue category, and with issues and an overlapping category.
+     */
+    @Test
+    public void compiledRulesEquivalenceTest() {
+        try {
+            Path assessmentUnitFile = new File(TEST_RESOURCES_DIR, "collect/AssessmentUnit.json").toPath();
+            GenericAssessmentUnit au = new GenericAssessmentUnit(assessmentUnitFile, Arrays.asList(
+                    new File(TEST_RESOURCES_DIR, "configFiles/configFile.json").toPath(),
+                    new File(TEST_RESOURCES_DIR, "configFiles/configFile2.json").toPath(),
+                    new File(TEST_RESOURCES_DIR, "sample/ejb.xml").toPath()));
+            Path complexityJsonFile = new File(TEST_RESOURCES_DIR, "assess" + File.separator + FILE_COMPLEXITIES_JSON).toPath();
+            Path issueCatJsonFile = new File(TEST_RESOURCES_DIR, "assess" + File.separator + FILE_ISSUECATS_JSON).toPath();
+
+            // Rules of several issue files, renamed so the IDs are unique. The first file keeps its IDs.
+            List<String> issueFiles = Arrays.asList("issue_querySingleInputFile.json", "issue_queryMultipleInputFile.json",
+                    "issue_attr_filter.json", "issue_filterPathKey.json", "issue_parent_attr.json", "issue_nr_attr.json",
+                    "issue_resolvedFilterPath_attr.json", "issue_single_quote.json", "issue_keyname_with_slash.json",
+                    "issue_targeted_solutions.json", "issue_xml.json");
+            JsonArray issueRulesJson = new JsonArray();
+            for (int i = 0; i < issueFiles.size(); i++) {
+                Path issueFile = new File(TEST_RESOURCES_DIR, "issue" + File.separator + issueFiles.get(i)).toPath();
+                JsonObject issuesJson = new JsonParser().parse(new String(Files.readAllBytes(issueFile), StandardCharsets.UTF_8)).getAsJsonObject();
+                for (JsonElement issueRuleJsonE : issuesJson.get("issues").getAsJsonArray()) {
+                    JsonObject issueRuleJson = issueRuleJsonE.getAsJsonObject();
+                    if (i > 0) {
+                        issueRuleJson.addProperty("id", issueRuleJson.get("id").getAsString() + "_" + i);
+                    }
+                    issueRulesJson.add(issueRuleJson);
+                }
+            }
+            JsonObject issuesJson = new JsonObject();
+            issuesJson.add("issues", issueRulesJson);
+
+            for (String targetsFile : Arrays.asList("targets_no_issue_no_cat.json", "targets_cat_cluster.json",
+                    "targets_issue_cat_overlap.json")) {
+                Path targetJsonFile = new File(TEST_RESOURCES_DIR, "target" + File.separator + targetsFile).toPath();
+                RuleCatalog filesCatalog = RuleCatalog.load(new File(TEST_RESOURCES_DIR, "issue/" + issueFiles.get(0)).toPath(),
+                        issueCatJsonFile, complexityJsonFile, targetJsonFile);
+                RuleCatalog ruleCatalog = new RuleCatalog(issuesJson.toString(), filesCatalog.getIssueCategories(),
+                        filesCatalog.getComplexityContributions(), filesCatalog.getTargets());
+                GenericRecommendation rec = new GenericRecommendation("assessment1", ruleCatalog);
+                GenericTarget target = (GenericTarget) rec.getTargets().get(0);
+
+                // Issues are the same when the compiled rules are evaluated again
+                List<Issue> expectedIssues = getIssuesPerCall(issueRulesJson, target, au);
+                assertFalse(expectedIssues.isEmpty(), targetsFile);
+                for (int run = 0; run < 2; run++) {
+                    List<Issue> issues = rec.getIssues(target, au);
+                    assertEquals(expectedIssues.size(), issues.size(), targetsFile);
+                    for (int i = 0; i < issues.size(); i++) {
+                        Issue expected = expectedIssues.get(i);
+                        Issue issue = issues.get(i);
+                        assertEquals(expected.getId(), issue.getId(), targetsFile);
+                        assertEquals(expected.getSolutionText(), issue.getSolutionText(), expected.getId());
+                        assertEquals(expected.getOccurrence().getOccurrencesInstances(),
+                                issue.getOccurrence().getOccurrencesInstances(), expected.getId());
+                        assertEquals(expected.getOccurrencesCount(), issue.getOccurrencesCount(), expected.getId());
+                    }
+                }
+                rec.assessmentUnitCompleted(au);
+            }
+        } catch (IOException | TAException e) {
+            throw new AssertionFailedError("Error generating recommendations", e);
+        }
+    }
+
+    /*
+     * Issues found by compiling each rule applicable to the target and evaluating it with a new provider, in the
+     * order of the rule IDs
+     */
+    private List<Issue> getIssuesPerCall(JsonArray issueRulesJson, GenericTarget target, GenericAssessmentUnit au) {
+        Set<String> ruleIds = new TreeSet<>(target.getIssues());
+        Map<String, JsonObject> issueRulesMap = new HashMap<>();
+        for (JsonElement issueRuleJsonE : issueRulesJson) {
+            JsonObject issueRuleJson = issueRuleJsonE.getAsJsonObject();
+            issueRulesMap.put(issueRuleJson.get("id").getAsString(), issueRuleJson);
+            if (target.getIssueCategories().contains(issueRuleJson.get("category").getAsString()) ||
+                    (target.getIssues().isEmpty() && target.getIssueCategories().isEmpty())) {
+                ruleIds.add(issueRuleJson.get("id").getAsString());
+            }
+        }
+
+        List<Issue> issues = new ArrayList<>();
+        for (String ruleId : ruleIds) {
+            JsonObject issueRuleJson = issueRulesMap.get(ruleId);
+            if (issueRuleJson == null) {
+                // Issue in the target not found
+                continue;
+            }
+            String ruleType = issueRuleJson.get("matchCriteria").getAsJsonObject().get("ruleType").getAsString();
+            for (IssueRuleTypeProvider ruleProvider : ServiceLoader.load(IssueRuleTypeProvider.class)) {
+                if (ruleProvider.getName().equals(ruleType)) {
+                    IssueRule issueRule = RuleCatalog.compileIssueRule(ruleProvider, issueRuleJson);
+                    GenericIssue issue = ruleProvider.getIssue(target, au, issueRule);
+                    if (!issue.getOccurrence().getOccurrencesInstances().isEmpty()) {
+                        issues.add(issue);
+                    }
+                }
+            }
+        }
+        return issues;
+    }
+
+    private String getClusterOccurrence(Path issueJsonFile, GenericAssessmentUnit au, Path manifestFile,
+                                        String pluginVersion) throws IOException, TAException {
+        GenericRecommendation rec = getRecommendation(issueJsonFile);
+        rec.useAssessmentManifest(manifestFile, pluginVersion);
+        List<Issue> issues = rec.getIssues(rec.getTargets().get(0), au);
+        rec.assessmentCompleted();
+        assertEquals(1, issues.size());
+        List<Map<String, String>> occurrences = issues.get(0).getOccurrence().getOccurrencesInstances();
+        assertEquals(1, occurrences.size());
+        return occurrences.get(0).get("cluster");
+    }
+
     private GenericRecommendation getRecommendation(Path issueJsonFile) throws IOException, TAException {
         Path complexityJsonFile = new File(TEST_RESOURCES_DIR, "assess" + File.separator + FILE_COMPLEXITIES_JSON).toPath();
         Path issueCatJsonFile = new File(TEST_RESOURCES_DIR, "assess" + File.separator + FILE_ISSUECATS_JSON).toPath();
@@ -0,0 +1,137 @@
+/*
+ * (C) Copyright IBM Corp. 2019,2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.ibm.ta.sdk.core.detector;
+
+import com.ibm.ta.sdk.core.assessment.GenericIssue;
+import com.ibm.ta.sdk.core.assessment.GenericRecommendation;
+import com.ibm.ta.sdk.core.collect.GenericAssessmentUnit;
+import com.ibm.ta.sdk.core.util.XmlUtils;
+import com.ibm.ta.sdk.spi.plugin.TAException;
+import com.ibm.ta.sdk.spi.recommendation.Issue;
+import org.junit.jupiter.api.Test;
+import org.opentest4j.AssertionFailedError;
+import org.w3c.dom.Document;
+import org.xml.sax.SAXException;
+
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static com.ibm.ta.sdk.core.detector.JsonDetectorTest.TEST_RESOURCES_DIR;
+import static com.ibm.ta.sdk.core.util.Constants.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class XmlDetectorTest {
+
+    /*
+     * All the XML rules are evaluated against the config file, the DTD, attribute and element criteria find the
+     * issues and the occurrence attributes.
+     */
+    @Test
+    public void xmlRulesTest() {
+        try {
+            Path assessmentUnitFile = new File(TEST_RESOURCES_DIR, "collect/AssessmentUnit.json").toPath();
+            Path ejbXmlFile = new File(TEST_RESOURCES_DIR, "sample/ejb.xml").toPath();
+            GenericAssessmentUnit au = new GenericAssessmentUnit(assessmentUnitFile, Arrays.asList(ejbXmlFile));
+
+            GenericRecommendation rec = getRecommendation(new File(TEST_RESOURCES_DIR, "issue/issue_xml.json").toPath());
+            List<Issue> issues = rec.getIssues(rec.getTargets().get(0), au);
+            assertEquals(2, issues.size());
+
+            // DTD
+            Issue dtdIssue = getIssue(issues, "MQEXIT01");
+            assertEquals(1, ((GenericIssue) dtdIssue).getMatchedPaths());
+            assertEquals(Arrays.asList(Collections.singletonMap("ejbClass", "samples.mdb.ejb.MessageBean")),
+                    dtdIssue.getOccurrence().getOccurrencesInstances());
+
+            // Attribute
+            Issue attributeIssue = getIssue(issues, "MQCL03");
+            assertEquals(1, ((GenericIssue) attributeIssue).getMatchedPaths());
+            List<Map<String, String>> versions = attributeIssue.getOccurrence().getOccurrencesInstances();
+            assertEquals(Arrays.asList(Collections.singletonMap("version", "2.1")), versions);
+
+            // Element rule has no match
+            assertNull(getIssue(issues, "MQEXIT06"));
+        } catch (IOException | TAException e) {
+            throw new AssertionFailedError("Error generating recommendations", e);
+        }
+    }
+
+    /*
+     * XML config files whose name does not match the xmlFile of the rules are not matched
+     */
+    @Test
+    public void xmlFileNotMatchingTest() {
+        try {
+            Path assessmentUnitFile = new File(TEST_RESOURCES_DIR, "collect/AssessmentUnit.json").toPath();
+            Path otherXmlFile = Files.createTempFile("other", ".xml");
+            try {
+                Files.copy(new File(TEST_RESOURCES_DIR, "sample/ejb.xml").toPath(), otherXmlFile, StandardCopyOption.REPLACE_EXISTING);
+                GenericAssessmentUnit au = new GenericAssessmentUnit(assessmentUnitFile, Arrays.asList(otherXmlFile));
+
+                GenericRecommendation rec = getRecommendation(new File(TEST_RESOURCES_DIR, "issue/issue_xml.json").toPath());
+                assertTrue(rec.getIssues(rec.getTargets().get(0), au).isEmpty());
+            } finally {
+                Files.delete(otherXmlFile);
+            }
+        } catch (IOException | TAException e) {
+            throw new AssertionFailedError("Error generating recommendations", e);
+        }
+    }
+
+    /*
+     * Document builders reused by a thread parse each XML file on its own
+     */
+    @Test
+    public void xmlDocumentBuilderReuseTest() {
+        try {
+            Path xmlFile1 = Files.createTempFile("config", ".xml");
+            Path xmlFile2 = Files.createTempFile("config", ".xml");
+            try {
+                Files.write(xmlFile1, "<server><feature>jms-2.0</feature></server>".getBytes());
+                Files.write(xmlFile2, "<server><feature>mdb-3.2</feature><feature>jsp-2.3</feature></server>".getBytes());
+
+                Document doc1 = XmlUtils.getXmlDoc(xmlFile1.toFile());
+                Document doc2 = XmlUtils.getXmlDoc(xmlFile2.toFile());
+                assertNotSame(doc1, doc2);
+                assertEquals(1, doc1.getElementsByTagName("feature").getLength());
+                assertEquals("jms-2.0", doc1.getElementsByTagName("feature").item(0).getTextContent());
+                assertEquals(2, doc2.getElementsByTagName("feature").getLength());
+                assertEquals("mdb-3.2", doc2.getElementsByTagName("feature").item(0).getTextContent());
+
+                // Invalid file does not break the builder for the next file
+                Files.write(xmlFile1, "<server><feature>".getBytes());
+                assertThrows(SAXException.class, () -> XmlUtils.getXmlDoc(xmlFile1.toFile()));
+                assertEquals(2, XmlUtils.getXmlDoc(xmlFile2.toFile()).getElementsByTagName("feature").getLength());
+            } finally {
+                Files.delete(xmlFile1);
+                Files.delete(xmlFile2);
+            }
+        } catch (IOException | SAXException | ParserConfigurationException e) {
+            throw new AssertionFailedError("Error parsing XML document", e);
+        }
+    }
+
+    private Issue getIssue(List<Issue> issues, String id) {
+        return issues.stream().filter(issue -> issue.getId().equals(id)).findFirst().orElse(null);
+    }
+
+    private GenericRecommendation getRecommendation(Path issueJsonFile) throws IOException, TAException {
+        Path complexityJsonFile = new File(TEST_RESOURCES_DIR, "assess" + File.separator + FILE_COMPLEXITIES_JSON).toPath();
+        Path issueCatJsonFile = new File(TEST_RESOURCES_DIR, "assess" + File.separator + FILE_ISSUECATS_JSON).toPath();
+        Path targetJsonFile = new File(TEST_RESOURCES_DIR, "target" + File.separator + "targets_one.json").toPath();
+
+        return new GenericRecommendation("assessment1", issueJsonFile,
+                issueCatJsonFile, complexityJsonFile, targetJsonFile);
+    }
+}
@@ -10,22 +10,28 @@ import com.google.gson.reflect.TypeToken;
 import com.ibm.ta.sdk.core.assessment.GenericRecommendation;
 import com.ibm.ta.sdk.core.collect.GenericAssessmentUnit;
 import com.ibm.ta.sdk.core.detector.JsonDetectorTest;
+import com.ibm.ta.sdk.core.plugin.GenericPluginProvider;
 import com.ibm.ta.sdk.core.util.GenericUtil;
 import com.ibm.ta.sdk.spi.assess.ComplexityContributionJson;
 import com.ibm.ta.sdk.spi.assess.RecommendationJson;
+import com.ibm.ta.sdk.spi.collect.DataCollection;
+import com.ibm.ta.sdk.spi.plugin.CliInputCommand;
 import com.ibm.ta.sdk.spi.plugin.TAException;
 import com.ibm.ta.sdk.spi.recommendation.Issue;
 import com.ibm.ta.sdk.spi.recommendation.Occurrence;
 import com.ibm.ta.sdk.spi.recommendation.Severity;
 import com.ibm.ta.sdk.spi.recommendation.Target;
 import com.ibm.ta.sdk.spi.report.Report;
+import com.ibm.ta.sdk.spi.report.ReportType;
 import org.junit.jupiter.api.Test;
 import org.opentest4j.AssertionFailedError;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -49,4 +55,138 @@ public class RecommendationReportTest {
             throw new AssertionFailedError("Error generating report", e);
         }
     }
+
+    /*
+     * Test recommendations report read one target at a time from recommendations.json
+     */
+    @Test
+    public void streamingReportTest() {
+        try {
+            Path recommendationsJsonFile = new File(JsonDetectorTest.TEST_RESOURCES_DIR, "assess" + File.separator + "recommendations.json").toPath();
+            JsonElement recJson = GenericUtil.getJson(recommendationsJsonFile);
+            List<Report> reports = new RecommendationReporter("London", recJson.getAsJsonObject()).generateHTMLReports();
+
+            List<Report> streamedReports = new RecommendationReporter("London", recommendationsJsonFile).generateHTMLReports();
+            assertEquals(reports.size(), streamedReports.size());
+            for (int i = 0; i < reports.size(); i++) {
+                assertEquals(reports.get(i).getAssessmentUnitName(), streamedReports.get(i).getAssessmentUnitName());
+                assertEquals(new String(reports.get(i).getReport()), new String(streamedReports.get(i).getReport()));
+            }
+        } catch (IOException | TAException e) {
+            throw new AssertionFailedError("Error generating report", e);
+        }
+    }
+
+    /*
+     * Test recommendations report generated on a pool of threads
+     */
+    @Test
+    public void parallelReportTest() {
+        try {
+            Path recommendationsJsonFile = new File(JsonDetectorTest.TEST_RESOURCES_DIR, "assess" + File.separator + "recommendations.json").toPath();
+            Map<String, String> reports = new HashMap<>();
+            for (Report report : new RecommendationReporter("London", recommendationsJsonFile).generateHTMLReports()) {
+                reports.put(report.getAssessmentUnitName() + "-" + report.getTarget().getTargetId(), new String(report.getReport()));
+            }
+
+            RecommendationReporter recReporter = new RecommendationReporter("London", recommendationsJsonFile);
+            recReporter.setParallelism(4);
+            Map<String, String> parallelReports = new HashMap<>();
+            recReporter.generateHTMLReports(report ->
+                    parallelReports.put(report.getAssessmentUnitName() + "-" + report.getTarget().getTargetId(), new String(report.getReport())));
+            assertEquals(reports, parallelReports);
+        } catch (TAException e) {
+            throw new AssertionFailedError("Error generating report", e);
+        }
+    }
+
+    /*
+     * Plug-ins that override the reports of the older getReport or getHtmlReport methods get the same reports from the
+     * getReport method with a handler
+     */
+    @Test
+    public void overriddenReportTest() {
+        try {
+            Report report = new TestReport();
+            CliInputCommand reportCommand = new TestPluginProvider().getReportCommand();
+
+            List<Report> reports = new ArrayList<>();
+            new TestPluginProvider() {
+                @Override
+                public List<Report> getReport(String assessmentName, CliInputCommand reportCommand) {
+                    return Collections.singletonList(report);
+                }
+            }.getReport("London", reportCommand, reports::add);
+            assertEquals(Collections.singletonList(report), reports);
+
+            reports.clear();
+            new TestPluginProvider() {
+                @Override
+                protected List<Report> getHtmlReport(String assessmentName) {
+                    return Collections.singletonList(report);
+                }
+            }.getReport("London", reportCommand, reports::add);
+            assertEquals(Collections.singletonList(report), reports);
+        } catch (TAException e) {
+            throw new AssertionFailedError("Error generating report", e);
+        }
+    }
+
+    private static class TestPluginProvider extends GenericPluginProvider {
+        @Override
+        public String getDomain() {
+            return "test";
+        }
+
+        @Override
+        public String getMiddleware() {
+            return "test";
+        }
+
+        @Override
+        public CliInputCommand getCollectCommand() {
+            return null;
+        }
+
+        @Override
+        public List<DataCollection> getCollection(CliInputCommand collectCommand) {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public CliInputCommand getMigrateCommand() {
+            return null;
+        }
+
+        @Override
+        public void getMigrationBundle(CliInputCommand migrateCommand, List<String> targets) {
+        }
+    }
+
+    private static class TestReport implements Report {
+        @Override
+        public String getAssessmentName() {
+            return "London";
+        }
+
+        @Override
+        public String getAssessmentUnitName() {
+            return "QM1";
+        }
+
+        @Override
+        public Target getTarget() {
+            return null;
+        }
+
+        @Override
+        public ReportType getReportType() {
+            return ReportType.HTML;
+        }
+
+        @Override
+        public byte[] getReport() {
+            return new byte[0];
+        }
+    }
 }
@@ -0,0 +1,24 @@
+# Generated by IBM TransformationAdvisor
+
+Cell=AdminConfig.getid('/Cell:' + AdminControl.getCell() + '/')
+Node=AdminConfig.getid('/Cell:' + AdminControl.getCell() + '/Node:' + AdminControl.getNode() + '/')
+Server=AdminConfig.getid('/Cell:' + AdminControl.getCell() + '/Node:' + AdminControl.getNode() + '/Server:server1')
+NodeName=AdminControl.getNode()
+
+print 'Starting Creating JVM Properties'
+
+print 'Starting Creating Authentication Alias'
+
+print 'Starting Creating Queues'
+
+print 'Starting Creating Topics'
+
+print 'Starting Creating Activation Specifications'
+
+print 'Starting Creating Connection Factories'
+
+print 'Starting Creating JDBC Providers'
+
+print 'Starting Creating Variables'
+
+AdminConfig.save()
@@ -6,13 +6,17 @@
 
 package com.ibm.ta.sdk.spi.assess;
 
+import com.google.gson.Gson;
 import com.google.gson.annotations.Expose;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonWriter;
 import com.ibm.ta.sdk.spi.plugin.TAException;
 import com.ibm.ta.sdk.spi.collect.AssessmentUnit;
 import com.ibm.ta.sdk.spi.collect.Environment;
 import com.ibm.ta.sdk.spi.recommendation.*;
 import org.tinylog.Logger;
 
+import java.io.IOException;
 import java.util.*;
 
 public class RecommendationJson {
@@ -65,14 +69,7 @@ public class RecommendationJson {
    */
   public RecommendationJson(Recommendation recommendation, Environment environment, List<? extends AssessmentUnit> auList,
                             List<String> filterTargets) throws TAException {
-    this.recommendation = recommendation;
-    domain = environment.getDomain();
-    middleware = environment.getMiddlewareName();
-    collectionUnitType = environment.getCollectionUnitType();
-    collectionUnitName = environment.getCollectionUnitName();
-    version = environment.getMiddlewareVersion();
-    complexityRules = ComplexityContributionJson.getComplexityContributionJsonList(recommendation.getComplexityContributions());
-    issueCategories = IssueCategoryJson.getIssueCategoryJsonMap(recommendation.getIssueCategories());
+    this(recommendation, environment);
 
     for (AssessmentUnit au : auList) {
       Map<String, Object> auMap = null;
@@ -83,34 +80,16 @@ public class RecommendationJson {
           continue;
         }
 
-        List<Issue> auIssues = recommendation.getIssues(target, au);
-
-        // Build map of issues by category
-        Map<String, List<Issue>> issuesMap = new LinkedHashMap<String, List<Issue>>();
-        for (Issue issue : auIssues) {
-          IssueCategory iCat = issue.getCategory();
-          if (iCat == null) {
-            throw new TAException("No matching issue category found for issue with ID:" + issue.getId());
-          }
-          String issueCat = iCat.getId();
-
-          List<Issue> issuesList = issuesMap.get(issueCat);
-          if (issuesList == null) {
-            issuesList = new ArrayList<Issue>();
-            issuesMap.put(issueCat, issuesList);
-          }
-          issuesList.add(issue);
-        }
-
-        Map<String, Object> auTargetMap = getAssessmentUnit(target, au, issuesMap);
+        Map<String, Object> targetMap = getTarget(target, au);
         if (auMap == null) {
-          auMap = auTargetMap;
-        } else {
-          // Add target to existing assessment unit
-          List<Map<String, Object>> auTargetList = (List<Map<String, Object>>) auMap.get(ASS_ATTR_TARGET);
-          auTargetList.addAll((List<Map<String, Object>>) auTargetMap.get(ASS_ATTR_TARGET));
+          auMap = new LinkedHashMap<String, Object>();
+          auMap.put(REC_ATTR_QM_NAME, au.getName());
+          auMap.put(ASS_ATTR_TARGET, new LinkedList<Map<String, Object>>());
         }
+        // Add target to assessment unit
+        ((List<Map<String, Object>>) auMap.get(ASS_ATTR_TARGET)).add(targetMap);
       }
+      recommendation.assessmentUnitCompleted(au);
 
       // Put minimal info in the assessment unit
       if (auMap == null) {
@@ -129,29 +108,161 @@ public class RecommendationJson {
     }
   }
 
-  /*
-   * Returns true if the ID of the target is included in the targetIdList
+  private RecommendationJson(Recommendation recommendation, Environment environment) {
+    this.recommendation = recommendation;
+    domain = environment.getDomain();
+    middleware = environment.getMiddlewareName();
+    collectionUnitType = environment.getCollectionUnitType();
+    collectionUnitName = environment.getCollectionUnitName();
+    version = environment.getMiddlewareVersion();
+    complexityRules = ComplexityContributionJson.getComplexityContributionJsonList(recommendation.getComplexityContributions());
+    issueCategories = IssueCategoryJson.getIssueCategoryJsonMap(recommendation.getIssueCategories());
+  }
+
+  /**
+   * Writes recommendation.json for output without building the whole document in memory. The issues for each
+   * assessment unit and target are computed and written one at a time, so only the issues of one target for one
+   * assessment unit are held at any point. The output is the same as serializing a RecommendationJson built with the
+   * same arguments.
+   * @param writer JsonWriter to write to, created by gson
+   * @param gson Gson used to serialize the attributes of the recommendation.json
+   * @param recommendation Recommendation object to get issues, issue categories and complexity contributions
+   * @param environment Environment object for additional attributes to include in the recommendations.json
+   * @param auList List of assessment units to include in the recommendations.json
+   * @param filterTargets List of target IDs to include in the recommendations.json. If null or empty list, all targets are included.
+   * @throws TAException Error building recommendations.json
+   * @throws IOException Error writing recommendations.json
    */
-  private boolean isIncludeTarget(Target target, List<String> targetIdList) {
-    if (targetIdList == null || targetIdList.isEmpty()) {
-      return true;
+  public static void write(JsonWriter writer, Gson gson, Recommendation recommendation, Environment environment,
+                           List<? extends AssessmentUnit> auList, List<String> filterTargets) throws TAException, IOException {
+    RecommendationJson recJson = new RecommendationJson(recommendation, environment);
+
+    writer.beginObject();
+    writer.name("domain").value(recJson.domain);
+    writer.name("collectionUnitType").value(recJson.collectionUnitType);
+    writer.name("collectionUnitName").value(recJson.collectionUnitName);
+    writer.name("middleware").value(recJson.middleware);
+    writer.name("version").value(recJson.version);
+    writer.name("complexityRules");
+    gson.toJson(recJson.complexityRules, new TypeToken<List<ComplexityContributionJson>>(){}.getType(), writer);
+    writer.name("issueCategories");
+    gson.toJson(recJson.issueCategories, new TypeToken<Map<String, IssueCategoryJson>>(){}.getType(), writer);
+
+    writer.name("assessmentUnits");
+    writer.beginArray();
+    for (AssessmentUnit au : auList) {
+      List<Target> targets = new ArrayList<>();
+      for (Target target : recommendation.getTargets()) {
+        // Check if target is to be included
+        if (!recJson.isIncludeTarget(target, filterTargets)) {
+          Logger.debug("Skipping target ID:" + target.getTargetId());
+          continue;
+        }
+        targets.add(target);
+      }
+
+      Map<String, Object> additionalInfo = au.getAdditionalInfo();
+      if (additionalInfo == null) {
+        additionalInfo = Collections.emptyMap();
+      }
+
+      if (targets.isEmpty()) {
+        // Put minimal info in the assessment unit, with the additional info, in the order of the map built by the
+        // RecommendationJson constructor
+        recommendation.assessmentUnitCompleted(au);
+        Map<String, Object> auMap = new HashMap<>();
+        auMap.put(REC_ATTR_QM_NAME, au.getName());
+        auMap.putAll(additionalInfo);
+        writer.beginObject();
+        for (Map.Entry<String, Object> auEntry : auMap.entrySet()) {
+          writer.name(auEntry.getKey());
+          writeValue(writer, gson, auEntry.getValue());
+        }
+        writer.endObject();
+        continue;
+      }
+
+      // Additional info attributes named as the name and targets attributes replace their values
+      writer.beginObject();
+      writer.name(REC_ATTR_QM_NAME);
+      writeValue(writer, gson, additionalInfo.containsKey(REC_ATTR_QM_NAME) ? additionalInfo.get(REC_ATTR_QM_NAME) : au.getName());
+
+      writer.name(ASS_ATTR_TARGET);
+      if (additionalInfo.containsKey(ASS_ATTR_TARGET)) {
+        // The issues are still computed for the recommendation
+        for (Target target : targets) {
+          recJson.getTarget(target, au);
+        }
+        writeValue(writer, gson, additionalInfo.get(ASS_ATTR_TARGET));
+      } else {
+        writer.beginArray();
+        for (Target target : targets) {
+          gson.toJson(recJson.getTarget(target, au), new TypeToken<Map<String, Object>>(){}.getType(), writer);
+        }
+        writer.endArray();
+      }
+      recommendation.assessmentUnitCompleted(au);
+
+      // add additional info in recommendation
+      for (Map.Entry<String, Object> infoEntry : additionalInfo.entrySet()) {
+        if (!REC_ATTR_QM_NAME.equals(infoEntry.getKey()) && !ASS_ATTR_TARGET.equals(infoEntry.getKey())) {
+          writer.name(infoEntry.getKey());
+          writeValue(writer, gson, infoEntry.getValue());
+        }
+      }
+      writer.endObject();
     }
-    return targetIdList.contains(target.getTargetId());
+    writer.endArray();
+    writer.endObject();
+    writer.flush();
   }
 
-  private Map<String, Object> getAssessmentUnit(Target target, AssessmentUnit au, Map<String, List<Issue>>  issuesMap) {
-    Map<String, Object> auMap = new LinkedHashMap<String, Object>();
-    auMap.put(REC_ATTR_QM_NAME, au.getName());
-    List<Map<String, Object>> targetList = new LinkedList<Map<String, Object>>();
-    auMap.put(ASS_ATTR_TARGET, targetList);
-    Map<String, Object> targetMap = new LinkedHashMap<String, Object>();
-    targetList.add(targetMap);
+  private static void writeValue(JsonWriter writer, Gson gson, Object value) throws IOException {
+    if (value == null) {
+      writer.nullValue();
+    } else {
+      gson.toJson(value, value.getClass(), writer);
+    }
+  }
 
-    targetMap.put(ASS_ATTR_TARGET_ID, target.getTargetId());
+  /*
+   * Gets the issues for the target in an assessment unit, with the summary of the issues
+   */
+  private Map<String, Object> getTarget(Target target, AssessmentUnit au) throws TAException {
+    List<Issue> auIssues = recommendation.getIssues(target, au);
+
+    // Build map of issues by category
+    Map<String, List<Issue>> issuesMap = new LinkedHashMap<String, List<Issue>>();
+    for (Issue issue : auIssues) {
+      IssueCategory iCat = issue.getCategory();
+      if (iCat == null) {
+        throw new TAException("No matching issue category found for issue with ID:" + issue.getId());
+      }
+      String issueCat = iCat.getId();
 
+      List<Issue> issuesList = issuesMap.get(issueCat);
+      if (issuesList == null) {
+        issuesList = new ArrayList<Issue>();
+        issuesMap.put(issueCat, issuesList);
+      }
+      issuesList.add(issue);
+    }
+
+    Map<String, Object> targetMap = new LinkedHashMap<String, Object>();
+    targetMap.put(ASS_ATTR_TARGET_ID, target.getTargetId());
     targetMap.put(ASS_ATTR_ISSUES, issuesMap);
     targetMap.put(ASS_ATTR_SUMMARY, getAssessmentSummary(issuesMap));
-    return auMap;
+    return targetMap;
+  }
+
+  /*
+   * Returns true if the ID of the target is included in the targetIdList
+   */
+  private boolean isIncludeTarget(Target target, List<String> targetIdList) {
+    if (targetIdList == null || targetIdList.isEmpty()) {
+      return true;
+    }
+    return targetIdList.contains(target.getTargetId());
   }
 
   private Map<String, Object> getAssessmentSummary(Map<String, List<Issue>> issues) {
@@ -2,8 +2,10 @@ package com.ibm.ta.sdk.spi.collect;
 
 import com.google.gson.Gson;
 import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
 import com.google.gson.annotations.Expose;
 
+import java.util.Map;
 import java.util.Properties;
 
 /**
@@ -35,6 +37,10 @@ public class AssessmentUnitMetadataJson {
   @Expose
   private Properties identifier;
 
+  // Additional info of the assessment unit, read back when the collection is assessed again without collecting
+  @Expose
+  private JsonObject additionalInfo;
+
   public AssessmentUnitMetadataJson(String domain, String middleWare, String hostname, String assessmentUnitName,
                                     String collectionUnitType, String collectionUnitName) {
     this.domain = domain;
@@ -59,6 +65,10 @@ public class AssessmentUnitMetadataJson {
         addIdentifier(propName.toString(), auIdentifier.get(propName));
       }
     }
+    Map<String, Object> auAdditionalInfo = assessmentUnit.getAdditionalInfo();
+    if (auAdditionalInfo!=null && !auAdditionalInfo.isEmpty()) {
+      additionalInfo = new Gson().toJsonTree(auAdditionalInfo).getAsJsonObject();
+    }
   }
 
   public void addIdentifier(String key, Object value) {
@@ -68,6 +78,10 @@ public class AssessmentUnitMetadataJson {
     identifier.put(key, value);
   }
 
+  public JsonObject getAdditionalInfo() {
+    return additionalInfo;
+  }
+
   public JsonElement toJsonObject() {
     return new Gson().toJsonTree(this);
   }
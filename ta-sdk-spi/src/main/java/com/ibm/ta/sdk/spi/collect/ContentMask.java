@@ -6,6 +6,7 @@
 
 package com.ibm.ta.sdk.spi.collect;
 
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -41,4 +42,25 @@ public interface ContentMask {
    * @return updated lines from the file, as a {@code List}, containing the masked content
    */
   List<String> mask(List<String> content);
+
+  /**
+   * Whether the content mask masks each line without looking at the other lines of the file. Files are masked one
+   * line at a time with {@link #maskLine(String)} if all the content masks that apply to the file mask lines
+   * independently. Otherwise all the lines of the file are read, and passed to {@link #mask(List)}.
+   *
+   * @return true if {@link #maskLine(String)} can be used to mask the file one line at a time, default is false
+   */
+  default boolean isLineMask() {
+    return false;
+  }
+
+  /**
+   * Apply the {@link #MASK} to the matching text in one line of a file.
+   *
+   * @param line line from the matching file
+   * @return updated line containing the masked content
+   */
+  default String maskLine(String line) {
+    return mask(Collections.singletonList(line)).get(0);
+  }
 }
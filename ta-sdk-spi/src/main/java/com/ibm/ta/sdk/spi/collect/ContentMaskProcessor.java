@@ -0,0 +1,142 @@
+/*
+ * (C) Copyright IBM Corp. 2019,2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.ta.sdk.spi.collect;
+
+import org.tinylog.Logger;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Applies the {@link ContentMask}s of an assessment unit to its staged config files.
+ *
+ * The file names of the content masks are compiled once. A file is masked into a temporary file in the same
+ * directory, which then replaces the file with an atomic rename. A staged file that links to the original config
+ * file is replaced by the masked file, and the original file is not changed. If all the content masks for a file are
+ * line masks ({@link ContentMask#isLineMask()}), the file is masked one line at a time, so memory use does not depend
+ * on the size of the file.
+ */
+public class ContentMaskProcessor {
+  private static final String ALL_FILES = "*";
+
+  private final List<CompiledContentMask> contentMasks = new ArrayList<>();
+
+  public ContentMaskProcessor(List<ContentMask> contentMasks) {
+    if (contentMasks == null) {
+      return;
+    }
+    for (ContentMask contentMask : contentMasks) {
+      List<Pattern> filePatterns = new ArrayList<>();
+      for (String file : contentMask.getFiles()) {
+        filePatterns.add(ALL_FILES.equals(file) ? Pattern.compile(".*") : Pattern.compile(file));
+      }
+      this.contentMasks.add(new CompiledContentMask(contentMask, filePatterns));
+    }
+  }
+
+  /**
+   * Get the content masks that apply to a file, in the order they are applied
+   *
+   * @param maskFilePath Path of the file that is matched with the files of the content masks
+   * @return Content masks for the file, an empty list if the file is not masked
+   */
+  public List<ContentMask> getContentMasks(String maskFilePath) {
+    List<ContentMask> masks = new ArrayList<>();
+    for (CompiledContentMask contentMask : contentMasks) {
+      for (Pattern filePattern : contentMask.filePatterns) {
+        Logger.debug("Comparing file:" + maskFilePath + " to contentMaskFile:" + filePattern);
+        if (filePattern.matcher(maskFilePath).matches()) {
+          masks.add(contentMask.contentMask);
+          break;
+        }
+      }
+    }
+    return masks;
+  }
+
+  /**
+   * Apply content masks to a file, replacing the file with the masked content
+   *
+   * @param file File to mask
+   * @param masks Content masks to apply to the file, in order
+   * @throws IOException If the file cannot be read or replaced
+   */
+  public void mask(Path file, List<ContentMask> masks) throws IOException {
+    if (masks.isEmpty() || !Files.isRegularFile(file)) {
+      return;
+    }
+
+    boolean lineMasks = masks.stream().allMatch(ContentMask::isLineMask);
+    Path tmpFile = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+    try {
+      if (lineMasks) {
+        maskLines(file, tmpFile, masks);
+      } else {
+        maskContent(file, tmpFile, masks);
+      }
+      copyPermissions(file, tmpFile);
+
+      try {
+        Files.move(tmpFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } finally {
+      Files.deleteIfExists(tmpFile);
+    }
+  }
+
+  private static void maskLines(Path file, Path tmpFile, List<ContentMask> masks) throws IOException {
+    try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+         BufferedWriter writer = Files.newBufferedWriter(tmpFile, StandardCharsets.UTF_8)) {
+      for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+        for (ContentMask mask : masks) {
+          line = mask.maskLine(line);
+        }
+        writer.write(line);
+        writer.newLine();
+      }
+    }
+  }
+
+  private static void maskContent(Path file, Path tmpFile, List<ContentMask> masks) throws IOException {
+    List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+    for (ContentMask mask : masks) {
+      lines = mask.mask(lines);
+    }
+    Files.write(tmpFile, lines, StandardCharsets.UTF_8);
+  }
+
+  // Temporary files are created readable only by the owner
+  private static void copyPermissions(Path file, Path tmpFile) {
+    try {
+      Files.setPosixFilePermissions(tmpFile, Files.getPosixFilePermissions(file));
+    } catch (IOException | UnsupportedOperationException e) {
+      Logger.debug("Cannot copy permissions of " + file + ":" + e);
+    }
+  }
+
+  private static class CompiledContentMask {
+    private final ContentMask contentMask;
+    private final List<Pattern> filePatterns;
+
+    private CompiledContentMask(ContentMask contentMask, List<Pattern> filePatterns) {
+      this.contentMask = contentMask;
+      this.filePatterns = Collections.unmodifiableList(filePatterns);
+    }
+  }
+}
@@ -0,0 +1,217 @@
+/*
+ * (C) Copyright IBM Corp. 2019,2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.ta.sdk.spi.collect;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.ibm.ta.sdk.spi.plugin.TADataCollector;
+import com.ibm.ta.sdk.spi.plugin.TAException;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Data collection loaded from the output directory of a collection unit that was collected before. It is used to
+ * assess a collection again without running the collection.
+ *
+ * The environment is read from environment.json, and each assessment unit from its data.json and
+ * metadata.assessmentUnit.json, which holds the identifier and the additional info of the assessment unit. The config files of an assessment unit are the files staged in its output directory,
+ * without the files written by the assess, report and migrate commands. The staged files are already masked, so the
+ * assessment units have no content masks.
+ */
+public class StagedDataCollection implements DataCollection {
+  private static final String MIGRATION_BUNDLE_DIR = "migrationBundle";
+  private static final String REPORT_FILE_PREFIX = "recommendations_";
+  private static final String REPORT_FILE_SUFFIX = ".html";
+  private static final String AU_META_IDENTIFIER = "identifier";
+  private static final String AU_META_IDENTIFIER_NAME = "assessmentUnitName";
+  private static final String AU_META_ADDITIONAL_INFO = "additionalInfo";
+
+  private final String assessmentName;
+  private final Environment environment;
+  private final List<StagedAssessmentUnit> assessmentUnits;
+
+  private StagedDataCollection(String assessmentName, Environment environment, List<StagedAssessmentUnit> assessmentUnits) {
+    this.assessmentName = assessmentName;
+    this.environment = environment;
+    this.assessmentUnits = assessmentUnits;
+  }
+
+  /**
+   * Load a data collection from the output directory of a collection unit
+   *
+   * @param collectionDir Output directory of the collection unit
+   * @return Data collection
+   * @throws TAException If the directory does not contain a collection, or the files in it cannot be read
+   */
+  public static StagedDataCollection load(File collectionDir) throws TAException {
+    File envFile = new File(collectionDir, TADataCollector.ENVIRONMENT_JSON_FILE);
+    if (!envFile.isFile()) {
+      throw new TAException("No " + TADataCollector.ENVIRONMENT_JSON_FILE + " found in collection directory:" +
+              collectionDir.getAbsolutePath());
+    }
+
+    EnvironmentJson envJson;
+    try (Reader reader = Files.newBufferedReader(envFile.toPath(), StandardCharsets.UTF_8)) {
+      envJson = new Gson().fromJson(reader, EnvironmentJson.class);
+    } catch (IOException | JsonParseException e) {
+      throw new TAException("Error reading file:" + envFile.getAbsolutePath(), e);
+    }
+
+    List<StagedAssessmentUnit> assessmentUnits = new ArrayList<>();
+    if (envJson.getAssessmentUnits() != null) {
+      for (String auName : envJson.getAssessmentUnits()) {
+        assessmentUnits.add(loadAssessmentUnit(auName, new File(collectionDir, auName)));
+      }
+    }
+    return new StagedDataCollection(collectionDir.getName(), envJson.getEnvironment(), assessmentUnits);
+  }
+
+  private static StagedAssessmentUnit loadAssessmentUnit(String auName, File auDir) throws TAException {
+    if (!auDir.isDirectory()) {
+      throw new TAException("Assessment unit directory not found:" + auDir.getAbsolutePath());
+    }
+
+    JsonObject assessmentData = readJson(new File(auDir, TADataCollector.ASSESSMENTUNIT_DATA_JSON_FILE)).getAsJsonObject();
+
+    // Identifier of the assessment unit, without the name added when the metadata is written
+    Properties identifier = null;
+    Map<String, Object> additionalInfo = null;
+    File auMetaFile = new File(auDir, TADataCollector.ASSESSMENTUNIT_META_JSON_FILE);
+    if (auMetaFile.isFile()) {
+      JsonObject auMeta = readJson(auMetaFile).getAsJsonObject();
+      JsonElement identifierJE = auMeta.get(AU_META_IDENTIFIER);
+      if (identifierJE != null && identifierJE.isJsonObject()) {
+        for (Map.Entry<String, JsonElement> entry : identifierJE.getAsJsonObject().entrySet()) {
+          if (!AU_META_IDENTIFIER_NAME.equals(entry.getKey()) && entry.getValue().isJsonPrimitive()) {
+            if (identifier == null) {
+              identifier = new Properties();
+            }
+            identifier.put(entry.getKey(), entry.getValue().getAsString());
+          }
+        }
+      }
+
+      // The values are JSON elements, so they are written to recommendations.json as they were collected
+      JsonElement additionalInfoJE = auMeta.get(AU_META_ADDITIONAL_INFO);
+      if (additionalInfoJE != null && additionalInfoJE.isJsonObject()) {
+        additionalInfo = new LinkedHashMap<>();
+        for (Map.Entry<String, JsonElement> entry : additionalInfoJE.getAsJsonObject().entrySet()) {
+          additionalInfo.put(entry.getKey(), entry.getValue());
+        }
+      }
+    }
+
+    List<Path> configFiles;
+    Path auPath = auDir.toPath();
+    try (Stream<Path> paths = Files.walk(auPath)) {
+      configFiles = paths.filter(path -> Files.isRegularFile(path) && isStagedFile(auPath.relativize(path)))
+              .sorted()
+              .collect(Collectors.toCollection(ArrayList::new));
+    } catch (IOException e) {
+      throw new TAException("Error reading assessment unit directory:" + auDir.getAbsolutePath(), e);
+    }
+
+    return new StagedAssessmentUnit(auName, assessmentData, configFiles, identifier, additionalInfo);
+  }
+
+  // Returns false for the files written by the assess, report and migrate commands
+  private static boolean isStagedFile(Path relativePath) {
+    if (relativePath.getNameCount() > 1) {
+      return !relativePath.getName(0).toString().equals(MIGRATION_BUNDLE_DIR);
+    }
+    String name = relativePath.toString();
+    return !name.equals(TADataCollector.ASSESSMENTUNIT_DATA_JSON_FILE)
+            && !name.equals(TADataCollector.ASSESSMENTUNIT_META_JSON_FILE)
+            && !(name.startsWith(REPORT_FILE_PREFIX) && name.endsWith(REPORT_FILE_SUFFIX));
+  }
+
+  private static JsonElement readJson(File file) throws TAException {
+    try (Reader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+      return JsonParser.parseReader(reader);
+    } catch (IOException | JsonParseException e) {
+      throw new TAException("Error reading file:" + file.getAbsolutePath(), e);
+    }
+  }
+
+  @Override
+  public String getAssessmentName() {
+    return assessmentName;
+  }
+
+  @Override
+  public Environment getEnvironment() {
+    return environment;
+  }
+
+  @Override
+  public List<? extends AssessmentUnit> getAssessmentUnits() {
+    return assessmentUnits;
+  }
+
+  private static class StagedAssessmentUnit implements AssessmentUnit {
+    private final String name;
+    private final JsonObject assessmentData;
+    private final List<Path> configFiles;
+    private final Properties identifier;
+    private final Map<String, Object> additionalInfo;
+
+    private StagedAssessmentUnit(String name, JsonObject assessmentData, List<Path> configFiles, Properties identifier,
+                                 Map<String, Object> additionalInfo) {
+      this.name = name;
+      this.assessmentData = assessmentData;
+      this.configFiles = configFiles;
+      this.identifier = identifier;
+      this.additionalInfo = additionalInfo;
+    }
+
+    @Override
+    public String getName() {
+      return name;
+    }
+
+    @Override
+    public JsonObject getAssessmentData() {
+      return assessmentData;
+    }
+
+    @Override
+    public List<Path> getConfigFiles() {
+      return configFiles;
+    }
+
+    @Override
+    public List<ContentMask> getContentMasks() {
+      return Collections.emptyList();
+    }
+
+    @Override
+    public Properties getIdentifier() {
+      return identifier;
+    }
+
+    @Override
+    public Map<String, Object> getAdditionalInfo() {
+      return additionalInfo;
+    }
+  }
+}
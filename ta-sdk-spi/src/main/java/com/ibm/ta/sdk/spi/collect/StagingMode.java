@@ -0,0 +1,207 @@
+/*
+ * (C) Copyright IBM Corp. 2019,2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.ta.sdk.spi.collect;
+
+import org.tinylog.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.FileStore;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * How the config files of an assessment unit are staged in the output directory.
+ *
+ * <p>{@code COPY} Files are copied. This is the default.
+ * <p>{@code HARDLINK} Files are hard links to the config files. Falls back to a copy if the output directory is on
+ * another file system.
+ * <p>{@code REFLINK} Files are copy-on-write clones of the config files, made with GNU cp --reflink on file systems
+ * that support them (btrfs, xfs). Falls back to a copy if cloning is not supported. Support is probed with the first
+ * file cloned to each file system, and files are copied without starting cp once a probe fails. On Windows files are
+ * always copied. On systems whose cp has no --reflink option, such as macOS, only the probe starts cp.
+ * <p>{@code SYMLINK} Files are symbolic links to the config files.
+ *
+ * <p>Files that a {@link ContentMask} applies to are replaced with a new masked file by {@link ContentMaskProcessor},
+ * so the original files are never masked. The mode is set with the system property ta.sdk.staging.mode.
+ *
+ * <p>Files are staged and masked on a pool of threads. The number of threads is set with the system property
+ * ta.sdk.staging.threads (default is twice the number of processors, as staging mostly waits for I/O).
+ */
+public enum StagingMode {
+  COPY {
+    @Override
+    void stageFile(Path source, Path dest) throws IOException {
+      Files.copy(source, dest, StandardCopyOption.REPLACE_EXISTING);
+    }
+  },
+  HARDLINK {
+    @Override
+    void stageFile(Path source, Path dest) throws IOException {
+      Files.deleteIfExists(dest);
+      try {
+        Files.createLink(dest, source);
+      } catch (IOException | UnsupportedOperationException e) {
+        Logger.debug("Cannot create hard link to " + source + ", copying it:" + e);
+        COPY.stageFile(source, dest);
+      }
+    }
+  },
+  REFLINK {
+    @Override
+    void stageFile(Path source, Path dest) throws IOException {
+      Files.deleteIfExists(dest);
+      if (!cloneFile(source, dest)) {
+        COPY.stageFile(source, dest);
+      }
+    }
+  },
+  SYMLINK {
+    @Override
+    void stageFile(Path source, Path dest) throws IOException {
+      Files.deleteIfExists(dest);
+      try {
+        Files.createSymbolicLink(dest, source.toAbsolutePath());
+      } catch (IOException | UnsupportedOperationException e) {
+        Logger.debug("Cannot create symbolic link to " + source + ", copying it:" + e);
+        COPY.stageFile(source, dest);
+      }
+    }
+  };
+
+  public static final String STAGING_MODE_PROPERTY = "ta.sdk.staging.mode";
+  public static final String STAGING_THREADS_PROPERTY = "ta.sdk.staging.threads";
+
+  // Clones are made with cp, which is only worth starting for larger files
+  private static final long MIN_REFLINK_SIZE = 1024 * 1024;
+  private static final long REFLINK_TIMEOUT_SECONDS = 60;
+  private static final boolean IS_WINDOWS = System.getProperty("os.name", "").toLowerCase(Locale.ROOT).startsWith("windows");
+
+  // Whether files can be cloned on a file system, by file system of the output directory
+  private static final Map<FileStore, Boolean> reflinkSupport = new ConcurrentHashMap<>();
+
+  abstract void stageFile(Path source, Path dest) throws IOException;
+
+  /**
+   * Stage a config file in the output directory. Directories are created empty, as with {@link Files#copy}.
+   *
+   * @param source Config file
+   * @param dest Path of the file in the output directory
+   * @throws IOException If the file cannot be staged
+   */
+  public void stage(Path source, Path dest) throws IOException {
+    if (Files.isDirectory(source)) {
+      Files.copy(source, dest, StandardCopyOption.REPLACE_EXISTING);
+    } else {
+      stageFile(source, dest);
+    }
+  }
+
+  /**
+   * Get the staging mode from the system property ta.sdk.staging.mode
+   *
+   * @return Staging mode, {@link #COPY} if the property is not set or is not valid
+   */
+  public static StagingMode fromSystemProperty() {
+    String value = System.getProperty(STAGING_MODE_PROPERTY);
+    if (value == null || value.trim().isEmpty()) {
+      return COPY;
+    }
+    try {
+      return valueOf(value.trim().toUpperCase(Locale.ROOT));
+    } catch (IllegalArgumentException e) {
+      Logger.warn("Invalid value '" + value + "' for system property " + STAGING_MODE_PROPERTY + ", using " + COPY);
+      return COPY;
+    }
+  }
+
+  /**
+   * Get the number of threads that stage and mask files from the system property ta.sdk.staging.threads
+   *
+   * @return Number of threads, at least 1
+   */
+  public static int threadsFromSystemProperty() {
+    int defaultThreads = Runtime.getRuntime().availableProcessors() * 2;
+    String value = System.getProperty(STAGING_THREADS_PROPERTY);
+    if (value == null || value.trim().isEmpty()) {
+      return defaultThreads;
+    }
+    try {
+      return Math.max(1, Integer.parseInt(value.trim()));
+    } catch (NumberFormatException e) {
+      Logger.warn("Invalid value '" + value + "' for system property " + STAGING_THREADS_PROPERTY + ", using " + defaultThreads);
+      return defaultThreads;
+    }
+  }
+
+  private static boolean cloneFile(Path source, Path dest) throws IOException {
+    if (IS_WINDOWS || Files.size(source) < MIN_REFLINK_SIZE) {
+      return false;
+    }
+
+    // Clones can only be made on the file system of the config file
+    FileStore destStore = Files.getFileStore(dest.toAbsolutePath().getParent());
+    if (!destStore.equals(Files.getFileStore(source))) {
+      return false;
+    }
+
+    // The first file cloned to a file system probes it, the other threads wait for the result
+    boolean[] cloned = new boolean[1];
+    boolean supported;
+    try {
+      supported = reflinkSupport.computeIfAbsent(destStore, store -> {
+        try {
+          cloned[0] = runCp(source, dest);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+        if (!cloned[0]) {
+          Logger.info("Cannot clone files on " + store + ", copying them");
+        }
+        return cloned[0];
+      });
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+    if (!supported) {
+      return false;
+    }
+    return cloned[0] || runCp(source, dest);
+  }
+
+  private static boolean runCp(Path source, Path dest) throws IOException {
+    try {
+      Process process = new ProcessBuilder("cp", "--reflink=always", source.toAbsolutePath().toString(),
+              dest.toAbsolutePath().toString())
+              .redirectErrorStream(true)
+              .start();
+      try (InputStream output = process.getInputStream()) {
+        // Discard error messages of cp
+        byte[] buffer = new byte[1024];
+        while (output.read(buffer) != -1) {
+        }
+      }
+      if (process.waitFor(REFLINK_TIMEOUT_SECONDS, TimeUnit.SECONDS) && process.exitValue() == 0) {
+        return true;
+      }
+      process.destroyForcibly();
+    } catch (IOException e) {
+      Logger.debug("Cannot clone " + source + ", copying it:" + e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while cloning " + source, e);
+    }
+    Files.deleteIfExists(dest);
+    return false;
+  }
+}
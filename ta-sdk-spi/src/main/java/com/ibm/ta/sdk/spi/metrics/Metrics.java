@@ -0,0 +1,367 @@
+/*
+ * (C) Copyright IBM Corp. 2019,2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.ta.sdk.spi.metrics;
+
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Timers and counters recorded while a command runs: the time spent in each phase for each collection unit and
+ * assessment unit, the time spent evaluating each rule, the bytes read and written, and the occurrences found.
+ *
+ * Metrics are recorded in a single registry for the process, and only when they are enabled, so the SDK and the
+ * plug-ins can record them without passing the registry around. When metrics are not enabled, timers are not started
+ * and nothing is recorded. All methods are thread safe.
+ *
+ * The metrics are written as JSON, or in the Prometheus text format if the file name ends with {@value #PROMETHEUS_FILE_EXTENSION}.
+ */
+public class Metrics {
+  public static final String PROMETHEUS_FILE_EXTENSION = ".prom";
+
+  // Phases
+  public static final String PHASE_COMMAND = "command";
+  public static final String PHASE_COLLECT = "collect";
+  public static final String PHASE_STAGE = "stage";
+  public static final String PHASE_MASK = "mask";
+  public static final String PHASE_ASSESS = "assess";
+  public static final String PHASE_EVALUATE = "evaluate";
+  public static final String PHASE_WRITE_RECOMMENDATIONS = "write_recommendations";
+  public static final String PHASE_ZIP = "zip";
+  public static final String PHASE_REPORT = "report";
+  public static final String PHASE_MIGRATE = "migrate";
+
+  // Labels
+  public static final String LABEL_COMMAND = "command";
+  public static final String LABEL_PHASE = "phase";
+  public static final String LABEL_COLLECTION_UNIT = "collection_unit";
+  public static final String LABEL_ASSESSMENT_UNIT = "assessment_unit";
+  public static final String LABEL_TARGET = "target";
+  public static final String LABEL_RULE = "rule";
+
+  // Metric names
+  public static final String PHASE_SECONDS = "ta_sdk_phase_seconds";
+  public static final String RULE_EVALUATION_SECONDS = "ta_sdk_rule_evaluation_seconds";
+  public static final String BYTES_READ = "ta_sdk_bytes_read_total";
+  public static final String BYTES_WRITTEN = "ta_sdk_bytes_written_total";
+  public static final String OCCURRENCES = "ta_sdk_occurrences_total";
+  public static final String RULE_OCCURRENCES = "ta_sdk_rule_occurrences_total";
+
+  private static final Map<String, String> HELP = new LinkedHashMap<>();
+  static {
+    HELP.put(PHASE_SECONDS, "Time spent in each phase of a command");
+    HELP.put(RULE_EVALUATION_SECONDS, "Time spent evaluating each issue rule");
+    HELP.put(BYTES_READ, "Bytes read in each phase");
+    HELP.put(BYTES_WRITTEN, "Bytes written in each phase");
+    HELP.put(OCCURRENCES, "Occurrences found for each assessment unit and target");
+    HELP.put(RULE_OCCURRENCES, "Occurrences found by each issue rule");
+  }
+
+  private static final Metrics INSTANCE = new Metrics();
+
+  private volatile boolean enabled;
+  private volatile long startMillis = System.currentTimeMillis();
+  private final Map<Key, TimerValue> timers = new ConcurrentHashMap<>();
+  private final Map<Key, LongAdder> counters = new ConcurrentHashMap<>();
+
+  public static Metrics get() {
+    return INSTANCE;
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  /**
+   * Remove all the recorded metrics
+   */
+  public void reset() {
+    timers.clear();
+    counters.clear();
+    startMillis = System.currentTimeMillis();
+  }
+
+  /**
+   * Start timing a phase. The time is recorded when the timer is closed.
+   *
+   * @param phase Phase, one of the PHASE_ constants
+   * @param collectionUnit Name of the collection unit, or null if the phase is not for a collection unit
+   * @param assessmentUnit Name of the assessment unit, or null if the phase is not for an assessment unit
+   * @return Timer to close at the end of the phase
+   */
+  public Timer startPhase(String phase, String collectionUnit, String assessmentUnit) {
+    if (!enabled) {
+      return Timer.NOOP;
+    }
+    return new Timer(this, new Key(PHASE_SECONDS, LABEL_PHASE, phase, LABEL_COLLECTION_UNIT, collectionUnit,
+            LABEL_ASSESSMENT_UNIT, assessmentUnit));
+  }
+
+  /**
+   * Start timing the evaluation of an issue rule. The time is recorded when the timer is closed.
+   *
+   * @param ruleId ID of the issue rule
+   * @return Timer to close when the rule is evaluated
+   */
+  public Timer startRule(String ruleId) {
+    if (!enabled) {
+      return Timer.NOOP;
+    }
+    return new Timer(this, new Key(RULE_EVALUATION_SECONDS, LABEL_RULE, ruleId));
+  }
+
+  public void addBytesRead(String phase, String collectionUnit, long bytes) {
+    increment(new Key(BYTES_READ, LABEL_PHASE, phase, LABEL_COLLECTION_UNIT, collectionUnit), bytes);
+  }
+
+  public void addBytesWritten(String phase, String collectionUnit, long bytes) {
+    increment(new Key(BYTES_WRITTEN, LABEL_PHASE, phase, LABEL_COLLECTION_UNIT, collectionUnit), bytes);
+  }
+
+  public void addOccurrences(String collectionUnit, String assessmentUnit, String target, long occurrences) {
+    increment(new Key(OCCURRENCES, LABEL_COLLECTION_UNIT, collectionUnit, LABEL_ASSESSMENT_UNIT, assessmentUnit,
+            LABEL_TARGET, target), occurrences);
+  }
+
+  public void addRuleOccurrences(String ruleId, long occurrences) {
+    increment(new Key(RULE_OCCURRENCES, LABEL_RULE, ruleId), occurrences);
+  }
+
+  private void increment(Key key, long value) {
+    if (enabled) {
+      counters.computeIfAbsent(key, k -> new LongAdder()).add(value);
+    }
+  }
+
+  private void record(Key key, long nanos) {
+    if (enabled) {
+      timers.computeIfAbsent(key, k -> new TimerValue()).record(nanos);
+    }
+  }
+
+  /**
+   * Write the metrics to a file, in the Prometheus text format if the file name ends with
+   * {@value #PROMETHEUS_FILE_EXTENSION}, or as JSON otherwise
+   *
+   * @param file File to write
+   * @param command Command the metrics are recorded for
+   * @throws IOException If the file cannot be written
+   */
+  public void write(Path file, String command) throws IOException {
+    Path parent = file.toAbsolutePath().getParent();
+    if (parent != null) {
+      Files.createDirectories(parent);
+    }
+    try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+      if (file.getFileName().toString().endsWith(PROMETHEUS_FILE_EXTENSION)) {
+        writePrometheus(out);
+      } else {
+        writeJson(out, command);
+      }
+    }
+  }
+
+  /**
+   * Write the metrics as JSON. Each metric has its name, its labels, and either the count, total and maximum seconds
+   * of a timer, or the value of a counter.
+   *
+   * @param out Writer to write to
+   * @param command Command the metrics are recorded for
+   * @throws IOException If the metrics cannot be written
+   */
+  public void writeJson(Writer out, String command) throws IOException {
+    JsonWriter writer = new JsonWriter(out);
+    writer.setIndent("  ");
+    writer.beginObject();
+    writer.name(LABEL_COMMAND).value(command);
+    writer.name("startTime").value(startMillis);
+    writer.name("metrics").beginArray();
+    for (Key key : sorted(timers.keySet())) {
+      TimerValue timer = timers.get(key);
+      writer.beginObject();
+      writeJsonKey(writer, key);
+      writer.name("count").value(timer.count.sum());
+      writer.name("totalSeconds").value(toSeconds(timer.totalNanos.sum()));
+      writer.name("maxSeconds").value(toSeconds(timer.maxNanos.get()));
+      writer.endObject();
+    }
+    for (Key key : sorted(counters.keySet())) {
+      writer.beginObject();
+      writeJsonKey(writer, key);
+      writer.name("value").value(counters.get(key).sum());
+      writer.endObject();
+    }
+    writer.endArray();
+    writer.endObject();
+    writer.flush();
+  }
+
+  private static void writeJsonKey(JsonWriter writer, Key key) throws IOException {
+    writer.name("name").value(key.name);
+    writer.name("labels").beginObject();
+    for (Map.Entry<String, String> label : key.labels.entrySet()) {
+      writer.name(label.getKey()).value(label.getValue());
+    }
+    writer.endObject();
+  }
+
+  /**
+   * Write the metrics in the Prometheus text format. Timers are written as summaries with the count and sum of the
+   * seconds, and a separate gauge with the maximum seconds.
+   *
+   * @param out Writer to write to
+   * @throws IOException If the metrics cannot be written
+   */
+  public void writePrometheus(Writer out) throws IOException {
+    String name = null;
+    for (Key key : sorted(timers.keySet())) {
+      if (!key.name.equals(name)) {
+        name = key.name;
+        writePrometheusHeader(out, name, "summary");
+      }
+      TimerValue timer = timers.get(key);
+      writePrometheusSample(out, name + "_count", key, Long.toString(timer.count.sum()));
+      writePrometheusSample(out, name + "_sum", key, Double.toString(toSeconds(timer.totalNanos.sum())));
+    }
+    name = null;
+    for (Key key : sorted(timers.keySet())) {
+      if (!key.name.equals(name)) {
+        name = key.name;
+        out.write("# TYPE " + name + "_max gauge\n");
+      }
+      writePrometheusSample(out, name + "_max", key, Double.toString(toSeconds(timers.get(key).maxNanos.get())));
+    }
+    name = null;
+    for (Key key : sorted(counters.keySet())) {
+      if (!key.name.equals(name)) {
+        name = key.name;
+        writePrometheusHeader(out, name, "counter");
+      }
+      writePrometheusSample(out, name, key, Long.toString(counters.get(key).sum()));
+    }
+    out.flush();
+  }
+
+  private static void writePrometheusHeader(Writer out, String name, String type) throws IOException {
+    out.write("# HELP " + name + " " + HELP.get(name) + "\n");
+    out.write("# TYPE " + name + " " + type + "\n");
+  }
+
+  private static void writePrometheusSample(Writer out, String name, Key key, String value) throws IOException {
+    out.write(name);
+    if (!key.labels.isEmpty()) {
+      List<String> labels = new ArrayList<>();
+      for (Map.Entry<String, String> label : key.labels.entrySet()) {
+        labels.add(label.getKey() + "=\"" + escapePrometheusLabel(label.getValue()) + "\"");
+      }
+      out.write("{" + String.join(",", labels) + "}");
+    }
+    out.write(" " + value + "\n");
+  }
+
+  private static String escapePrometheusLabel(String value) {
+    return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+  }
+
+  private static List<Key> sorted(Iterable<Key> keys) {
+    List<Key> sortedKeys = new ArrayList<>();
+    for (Key key : keys) {
+      sortedKeys.add(key);
+    }
+    Collections.sort(sortedKeys, (k1, k2) -> k1.id.compareTo(k2.id));
+    return sortedKeys;
+  }
+
+  private static double toSeconds(long nanos) {
+    return nanos / (double) TimeUnit.SECONDS.toNanos(1);
+  }
+
+  /**
+   * Running timer, records the elapsed time when it is closed. Closing a timer more than once records the time once.
+   */
+  public static class Timer implements AutoCloseable {
+    private static final Timer NOOP = new Timer(null, null);
+
+    private final Metrics metrics;
+    private final Key key;
+    private final long startNanos;
+    private boolean closed;
+
+    private Timer(Metrics metrics, Key key) {
+      this.metrics = metrics;
+      this.key = key;
+      this.startNanos = metrics == null ? 0 : System.nanoTime();
+    }
+
+    @Override
+    public void close() {
+      if (metrics != null && !closed) {
+        closed = true;
+        metrics.record(key, System.nanoTime() - startNanos);
+      }
+    }
+  }
+
+  private static class TimerValue {
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Long::max, 0);
+
+    private void record(long nanos) {
+      count.increment();
+      totalNanos.add(nanos);
+      maxNanos.accumulate(nanos);
+    }
+  }
+
+  // Metric name and labels. Labels without a value are left out.
+  private static class Key {
+    private final String name;
+    private final Map<String, String> labels = new LinkedHashMap<>();
+    private final String id;
+
+    private Key(String name, String... labelNamesAndValues) {
+      this.name = name;
+      StringBuilder idBuilder = new StringBuilder(name);
+      for (int i = 0; i < labelNamesAndValues.length; i += 2) {
+        String value = labelNamesAndValues[i + 1];
+        if (value != null) {
+          labels.put(labelNamesAndValues[i], value);
+          idBuilder.append('\u0000').append(labelNamesAndValues[i]).append('=').append(value);
+        }
+      }
+      this.id = idBuilder.toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof Key && id.equals(((Key) o).id);
+    }
+
+    @Override
+    public int hashCode() {
+      return id.hashCode();
+    }
+  }
+}
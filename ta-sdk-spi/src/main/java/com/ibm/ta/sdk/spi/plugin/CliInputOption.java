@@ -14,6 +14,14 @@ public class CliInputOption {
   // Built in options
   public static final String OPT_TARGET      = "target";
   public static final String OPT_TARGET_DESC = "Select by Target ID";
+  public static final String OPT_PARALLELISM      = "parallelism";
+  public static final String OPT_PARALLELISM_DESC = "Number of collection units to process concurrently";
+  public static final String OPT_REPORT_PARALLELISM_DESC = "Number of reports to generate concurrently";
+  public static final String OPT_SKIP_COLLECT      = "skipcollect";
+  public static final String OPT_SKIP_COLLECT_SHORT = "s";
+  public static final String OPT_SKIP_COLLECT_DESC = "Skip collection, perform assessment only";
+  public static final String OPT_METRICS      = "metrics";
+  public static final String OPT_METRICS_DESC = "Write timings and sizes of the command to a file, in Prometheus text format if the file name ends with .prom, JSON otherwise";
 
   private String shortArg;
   private String longArg;
@@ -55,6 +63,24 @@ public class CliInputOption {
             true, false, null, null);
   }
 
+  public static CliInputOption buildParallelismOption() {
+    return buildParallelismOption(OPT_PARALLELISM_DESC);
+  }
+
+  public static CliInputOption buildParallelismOption(String description) {
+    return new CliInputOption(null, OPT_PARALLELISM, description,
+            true, true, "N", null);
+  }
+
+  public static CliInputOption buildSkipCollectOption() {
+    return new CliInputOption(OPT_SKIP_COLLECT_SHORT, OPT_SKIP_COLLECT, OPT_SKIP_COLLECT_DESC);
+  }
+
+  public static CliInputOption buildMetricsOption() {
+    return new CliInputOption(null, OPT_METRICS, OPT_METRICS_DESC,
+            true, true, "FILE", null);
+  }
+
   public String getShortArg() {
     return shortArg;
   }
@@ -137,6 +163,52 @@ public class CliInputOption {
     return values;
   }
 
+  /**
+   * Check if the skip collect option is set
+   * @param options List of CliInputOption to check
+   * @return True if the skip collect option is set
+   */
+  public static boolean isSkipCollect(List<CliInputOption> options) {
+    return !getCliOptionValuesByLongName(options, OPT_SKIP_COLLECT).isEmpty();
+  }
+
+  /**
+   * Get the file to write metrics to
+   * @param options List of CliInputOption to retrieve the value from
+   * @return Value of the metrics option, or null if the option is not set
+   */
+  public static String getMetricsFile(List<CliInputOption> options) {
+    List<String> values = getCliOptionValuesByLongName(options, OPT_METRICS);
+    if (values.isEmpty() || values.get(0) == null || values.get(0).trim().isEmpty()) {
+      return null;
+    }
+    return values.get(0).trim();
+  }
+
+  /**
+   * Get the value of the parallelism option
+   * @param options List of CliInputOption to retrieve the value from
+   * @return Value of the parallelism option, or 1 if the option is not set
+   * @throws IllegalArgumentException If the value is not a number, or is less than 1
+   */
+  public static int getParallelism(List<CliInputOption> options) {
+    List<String> values = getCliOptionValuesByLongName(options, OPT_PARALLELISM);
+    if (values == null || values.isEmpty()) {
+      return 1;
+    }
+
+    String value = values.get(0);
+    try {
+      int parallelism = Integer.parseInt(value.trim());
+      if (parallelism < 1) {
+        throw new IllegalArgumentException("Invalid value '" + value + "' for option '--" + OPT_PARALLELISM + "'. The value must be 1 or more.");
+      }
+      return parallelism;
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Invalid value '" + value + "' for option '--" + OPT_PARALLELISM + "'. The value must be a number.");
+    }
+  }
+
   @Override
   public String toString() {
     return "shortArg=" + shortArg +
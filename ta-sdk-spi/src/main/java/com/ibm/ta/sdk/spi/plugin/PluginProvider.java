@@ -9,6 +9,7 @@ package com.ibm.ta.sdk.spi.plugin;
 import com.ibm.ta.sdk.spi.collect.DataCollection;
 import com.ibm.ta.sdk.spi.recommendation.Recommendation;
 import com.ibm.ta.sdk.spi.report.Report;
+import com.ibm.ta.sdk.spi.report.ReportHandler;
 import com.ibm.ta.sdk.spi.validation.TaJsonFileValidator;
 
 import java.util.List;
@@ -129,6 +130,25 @@ public interface PluginProvider {
    */
   List<Report> getReport(String assessmentName, CliInputCommand reportCommand) throws TAException;
 
+  /**
+   * This method is invoked from the {@link CliInputCommand#CMD_REPORT} command. It generates the same reports as
+   * {@link #getReport(String, CliInputCommand)}, but passes each report to the handler as soon as it is generated, so
+   * reports can be written while the remaining reports are generated. Reports may be generated concurrently, but are
+   * passed to the handler one at a time.
+   * The default implementation passes the reports returned by {@link #getReport(String, CliInputCommand)}. Plug-ins
+   * that override {@link #getReport(String, CliInputCommand)} should override this method too.
+   *
+   * @param assessmentName Name of the assessment the reports will be generated for
+   * @param reportCommand Report command containing user input options and arguments
+   * @param handler Handler for the generated reports
+   * @throws TAException TAException If an error occurs when generating or handling the reports
+   */
+  default void getReport(String assessmentName, CliInputCommand reportCommand, ReportHandler handler) throws TAException {
+    for (Report report : getReport(assessmentName, reportCommand)) {
+      handler.handle(report);
+    }
+  }
+
   /**
    * The Migrate command is a command with the name {@link CliInputCommand#CMD_MIGRATE}. It contains the options and
    * arguments that is required by the plug-in to run the migrate command. The user input values for the options
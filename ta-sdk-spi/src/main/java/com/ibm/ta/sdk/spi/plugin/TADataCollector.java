@@ -8,22 +8,31 @@ package com.ibm.ta.sdk.spi.plugin;
 
 import com.google.gson.*;
 import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonWriter;
 import com.ibm.ta.sdk.spi.collect.*;
+import com.ibm.ta.sdk.spi.metrics.Metrics;
 import com.ibm.ta.sdk.spi.recommendation.Recommendation;
 import com.ibm.ta.sdk.spi.assess.RecommendationJson;
 import com.ibm.ta.sdk.spi.recommendation.Target;
-import com.ibm.ta.sdk.spi.report.Report;
 import com.ibm.ta.sdk.spi.util.Util;
+import com.ibm.ta.sdk.spi.util.ZipArchiveWriter;
 import org.tinylog.Logger;
 
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class TADataCollector {
   private static final String TADATACOLLECTOR_COMMAND_HELP = "Run 'TADataCollector MIDDLEWARE COMMAND --help' for more information on a command.";
@@ -32,7 +41,10 @@ public class TADataCollector {
   public static final String ENVIRONMENT_JSON_FILE = "environment.json";
   public static final String RECOMMENDATIONS_JSON_FILE = "recommendations.json";
   public static final String ASSESSMENTUNIT_META_JSON_FILE = "metadata.assessmentUnit.json";
+  public static final String ASSESSMENTUNIT_DATA_JSON_FILE = "data.json";
   public static final String TARGETS_JSON_FILE = "targets.json";
+  public static final String ASSESSMENT_MANIFEST_JSON_FILE = "assessment.manifest.json";
+  public static final String RULE_PROFILE_JSON_FILE = "rule.profile.json";
   private static final String SCAN_RESULTS_JSON_FILE = "scan_results.json";
   private static final String SCAN_RESULTS_RETURN_CODE = "return_code";
   private static final String SCAN_RESULTS_COLLECTION_FILES = "collection_files";
@@ -59,18 +71,28 @@ public class TADataCollector {
       collectCommand.setName(CliInputCommand.CMD_COLLECT);
       collectCommand.setDescription(CliInputCommand.CMD_COLLECT_DESC);
       providerCommands.add(collectCommand);
+      addOption(collectCommand, CliInputOption.buildMetricsOption());
     }
     CliInputCommand assessCommand = provider.getAssessCommand();
     if (assessCommand != null) {
       assessCommand.setName(CliInputCommand.CMD_ASSESS);
       assessCommand.setDescription(CliInputCommand.CMD_ASSESS_DESC);
       providerCommands.add(assessCommand);
+
+      // Add parallelism and skip collect options to assess command, unless the provider already defines them
+      addOption(assessCommand, CliInputOption.buildParallelismOption(CliInputOption.OPT_PARALLELISM_DESC));
+      addOption(assessCommand, CliInputOption.buildSkipCollectOption());
+      addOption(assessCommand, CliInputOption.buildMetricsOption());
     }
     CliInputCommand reportCommand = provider.getReportCommand();
     if (reportCommand != null) {
       reportCommand.setName(CliInputCommand.CMD_REPORT);
       reportCommand.setDescription(CliInputCommand.CMD_REPORT_DESC);
       providerCommands.add(reportCommand);
+
+      // Add parallelism option to report command, unless the provider already defines it
+      addOption(reportCommand, CliInputOption.buildParallelismOption(CliInputOption.OPT_REPORT_PARALLELISM_DESC));
+      addOption(reportCommand, CliInputOption.buildMetricsOption());
     }
     CliInputCommand migrateCommand = provider.getMigrateCommand();
     if (migrateCommand != null) {
@@ -83,6 +105,7 @@ public class TADataCollector {
       migrateOptions.addAll(migrateCommand.getOptions());
       migrateOptions.add(CliInputOption.buildTargetOption());
       migrateCommand.setOptions(migrateOptions);
+      addOption(migrateCommand, CliInputOption.buildMetricsOption());
     }
 
     // Add 'run' command which performs collect, assess, and report
@@ -124,69 +147,173 @@ public class TADataCollector {
       throw new IllegalArgumentException("Command is not supported for middleware: " + middleware + ".");
     }
 
+    // Metrics are only recorded when a metrics file is set, and the file is written even if the command fails
+    String metricsFile = CliInputOption.getMetricsFile(matchedCommand.getOptions());
+    Metrics metrics = Metrics.get();
+    if (metricsFile != null) {
+      metrics.reset();
+      metrics.setEnabled(true);
+    }
+
     // Invoke supported commands
-    if (CliInputCommand.CMD_COLLECT.equals(matchedCommand.getName())) {
-      runCollect(provider, matchedCommand);
-    } else if (CliInputCommand.CMD_ASSESS.equals(matchedCommand.getName())) {
-      runAssess(provider, matchedCommand);
-    } else if (CliInputCommand.CMD_REPORT.equals(matchedCommand.getName())) {
-      runReport(provider, matchedCommand);
-    } else if (CliInputCommand.CMD_MIGRATE.equals(matchedCommand.getName())) {
-      runMigrate(provider, matchedCommand);
-    } else if (CliInputCommand.CMD_RUN.equals(matchedCommand.getName())) {
-      runRun(provider, matchedCommand);
-    } else {
-      throw new IllegalArgumentException("Command '" + matchedCommand.getName() + "' is not supported.");
+    try (Metrics.Timer timer = metrics.startPhase(Metrics.PHASE_COMMAND, null, null)) {
+      if (CliInputCommand.CMD_COLLECT.equals(matchedCommand.getName())) {
+        runCollect(provider, matchedCommand);
+      } else if (CliInputCommand.CMD_ASSESS.equals(matchedCommand.getName())) {
+        runAssess(provider, matchedCommand);
+      } else if (CliInputCommand.CMD_REPORT.equals(matchedCommand.getName())) {
+        runReport(provider, matchedCommand);
+      } else if (CliInputCommand.CMD_MIGRATE.equals(matchedCommand.getName())) {
+        runMigrate(provider, matchedCommand);
+      } else if (CliInputCommand.CMD_RUN.equals(matchedCommand.getName())) {
+        runRun(provider, matchedCommand);
+      } else {
+        throw new IllegalArgumentException("Command '" + matchedCommand.getName() + "' is not supported.");
+      }
+    } finally {
+      if (metricsFile != null) {
+        metrics.setEnabled(false);
+        writeMetrics(metrics, Paths.get(metricsFile), matchedCommand.getName());
+      }
     }
 
     System.out.println("Command '" + matchedCommand.getName() + "' completed successfully.\n");
   }
 
+  // Adds a built in option to a command. The short name is dropped if the provider already uses it for another option.
+  private static void addOption(CliInputCommand command, CliInputOption option) {
+    boolean hasOption = command.getOptions().stream()
+            .anyMatch(o -> option.getLongArg().equals(o.getLongArg()));
+    if (!hasOption) {
+      boolean hasShortArg = !option.getShortArg().isEmpty() && command.getOptions().stream()
+              .anyMatch(o -> option.getShortArg().equals(o.getShortArg()));
+      if (hasShortArg) {
+        option.setShortArg("");
+      }
+      List<CliInputOption> options = new LinkedList<>();
+      options.addAll(command.getOptions());
+      options.add(option);
+      command.setOptions(options);
+    }
+  }
+
+  // Errors are logged, so they do not hide the error of the command
+  private static void writeMetrics(Metrics metrics, Path metricsFile, String command) {
+    try {
+      metrics.write(metricsFile, command);
+      Logger.info("Metrics written to file:" + metricsFile.toAbsolutePath());
+    } catch (IOException e) {
+      Logger.error("Error writing metrics file:" + metricsFile.toAbsolutePath(), e);
+    }
+  }
+
   public void runCollect(PluginProvider provider, CliInputCommand cliInputCommand) throws TAException, IOException {
-    collectData(provider, cliInputCommand);
+    try (FilePools filePools = new FilePools()) {
+      collectData(provider, cliInputCommand, filePools);
+    }
   }
 
-  private List<DataCollection> collectData(PluginProvider provider, CliInputCommand cliInputCommand) throws TAException, IOException {
-    List<DataCollection> dataCollections = provider.getCollection(cliInputCommand);
+  private List<DataCollection> collectData(PluginProvider provider, CliInputCommand cliInputCommand,
+                                           FilePools filePools) throws TAException, IOException {
+    List<DataCollection> dataCollections;
+    try (Metrics.Timer timer = Metrics.get().startPhase(Metrics.PHASE_COLLECT, null, null)) {
+      dataCollections = provider.getCollection(cliInputCommand);
+    }
     if (dataCollections == null || dataCollections.size() == 0) {
       throw new TAException("Collect failed. No recommendations generated by plugin provider.");
     }
-    for (DataCollection dataCollection : dataCollections) {
-      // Get environment
-      Environment environment = dataCollection.getEnvironment();
 
-      // Create output dir
-      String collectionName = environment.getCollectionUnitName();
-      // collectionName need to be set in the env.json,  otherwise cannot find the output dir,
-      // throw exception here
+    // collectionName need to be set in the env.json,  otherwise cannot find the output dir,
+    // throw exception here before any collection is written
+    List<String> collectionNames = new ArrayList<>();
+    for (DataCollection dataCollection : dataCollections) {
+      String collectionName = dataCollection.getEnvironment().getCollectionUnitName();
       if (collectionName==null || collectionName.length()==0) {
         throw new TAException("Collection unit name isnot set in the environment by the plug-in provider "+provider.getClass());
       }
-      File outputDir = Util.getAssessmentOutputDir(collectionName);
-      if (!outputDir.exists()) {
-        outputDir.mkdirs();
-      }
+      collectionNames.add(collectionName);
+    }
 
-      // Get assessment units
-      List<? extends AssessmentUnit> aus = getAssessmentUnits(dataCollection, outputDir);
-      List<String> auNameList = aus.stream()
-              .map(au -> ((AssessmentUnit) au).getName())
-              .collect(Collectors.toList());
+    List<CollectionUnitTask<DataCollection>> tasks = new ArrayList<>();
+    for (DataCollection dataCollection : dataCollections) {
+      tasks.add(() -> writeDataCollection(provider, dataCollection, filePools.staging));
+    }
 
-      //copy targets.json file to output dir
-      Util.copyResourceToDir(provider.getMiddleware()+"/targets.json", outputDir);
+    Map<String, Exception> failures = new LinkedHashMap<>();
+    runCollectionUnitTasks(collectionNames, tasks, getParallelism(cliInputCommand), failures);
+    if (!failures.isEmpty()) {
+      throw new TAException("Collect failed for collection units " + failures.keySet() + ".",
+              failures.values().iterator().next());
+    }
+    return dataCollections;
+  }
 
-      //copy templates files to output dir
-      Util.copyResourceToDir(provider.getMiddleware()+"/templates/", outputDir);
+  /*
+   * Loads the collection units in the output directory, as they were written by a previous collect
+   */
+  private List<DataCollection> loadDataCollections() throws TAException {
+    File outputDir = Util.getOutputDir();
+    File[] outputDirFiles = outputDir.listFiles();
+    List<DataCollection> dataCollections = new ArrayList<>();
+    if (outputDirFiles != null) {
+      Arrays.sort(outputDirFiles);
+      for (File file : outputDirFiles) {
+        if (new File(file, ENVIRONMENT_JSON_FILE).isFile()) {
+          Logger.info("Loading collection unit from output directory:" + file.getAbsolutePath());
+          dataCollections.add(StagedDataCollection.load(file));
+        }
+      }
+    }
 
-      // Write environment json to output dir
-      writeEnvironmentJson(environment, provider.getVersion(), auNameList, outputDir);
+    if (dataCollections.isEmpty()) {
+      throw new TAException("No collected data found in output directory " + outputDir.getAbsolutePath() +
+              ". Run the assess command without the --" + CliInputOption.OPT_SKIP_COLLECT + " option.");
     }
     return dataCollections;
   }
 
-  private List<? extends AssessmentUnit> getAssessmentUnits(DataCollection dataCollection, File outputDir) throws TAException, IOException {
+  private DataCollection writeDataCollection(PluginProvider provider, DataCollection dataCollection,
+                                             ExecutorService stagingExecutor) throws TAException, IOException {
+    // Get environment
+    Environment environment = dataCollection.getEnvironment();
+
+    // Create output dir
+    String collectionName = environment.getCollectionUnitName();
+    File outputDir = Util.getAssessmentOutputDir(collectionName);
+    if (!outputDir.exists()) {
+      outputDir.mkdirs();
+    }
+
+    // Get assessment units
+    List<? extends AssessmentUnit> aus;
+    try (Metrics.Timer timer = Metrics.get().startPhase(Metrics.PHASE_COLLECT, collectionName, null)) {
+      aus = getAssessmentUnits(dataCollection, outputDir, stagingExecutor);
+    }
+    List<String> auNameList = aus.stream()
+            .map(au -> ((AssessmentUnit) au).getName())
+            .collect(Collectors.toList());
+
+    //copy targets.json file to output dir
+    Util.copyResourceToDir(provider.getMiddleware()+"/targets.json", outputDir);
+
+    //copy templates files to output dir
+    Util.copyResourceToDir(provider.getMiddleware()+"/templates/", outputDir);
+
+    // Write environment json to output dir
+    writeEnvironmentJson(environment, provider.getVersion(), auNameList, outputDir);
+    return dataCollection;
+  }
+
+  /*
+   * Config files are staged and masked on the staging pool of the command, which is shared by the collection units
+   * processed in parallel. Without a pool the files are staged on the calling thread.
+   */
+  private List<? extends AssessmentUnit> getAssessmentUnits(DataCollection dataCollection, File outputDir,
+                                                            ExecutorService stagingExecutor) throws TAException, IOException {
     List<? extends AssessmentUnit> assessUnits = dataCollection.getAssessmentUnits();
+    String collectionName = dataCollection.getEnvironment().getCollectionUnitName();
+    Metrics metrics = Metrics.get();
+    StagingMode stagingMode = StagingMode.fromSystemProperty();
     for (AssessmentUnit au : assessUnits) {
       // Create sub dir for each assessment unit
       File auOutputDir = new File(outputDir, au.getName());
@@ -194,65 +321,86 @@ public class TADataCollector {
         auOutputDir.mkdirs();
       }
 
-      // Write assessment unit data file
-      writeAssessmentDataJson(au, auOutputDir);
-
-      // Write assessment unit metadata file
-      writeAssessmentUnitMetaJson(au, dataCollection.getEnvironment(), auOutputDir);
-
-      // Copy assessment files to make them available during recommendations
-      List<Path> configFiles = au.getConfigFiles();
-      if (configFiles != null) {
-        List<Path> outputConfigFiles = new LinkedList<>();
-        for (Path file : configFiles) {
-          File destFile = new File(auOutputDir, file.getFileName().toString());
-          Path destPath = destFile.toPath();
-          if (!destFile.getParentFile().exists()) {
-            destFile.getParentFile().mkdirs();
-          }
-          Files.copy(file, destPath, StandardCopyOption.REPLACE_EXISTING);
-
-          outputConfigFiles.add(destPath);
+      // Masking is timed on its own, so the staging timer is closed before the masks are applied
+      List<Path> outputConfigFiles = null;
+      Metrics.Timer stageTimer = metrics.startPhase(Metrics.PHASE_STAGE, collectionName, au.getName());
+      try {
+        // Write assessment unit data file
+        writeAssessmentDataJson(au, auOutputDir);
+
+        // Write assessment unit metadata file
+        writeAssessmentUnitMetaJson(au, dataCollection.getEnvironment(), auOutputDir);
+        if (metrics.isEnabled()) {
+          metrics.addBytesWritten(Metrics.PHASE_STAGE, collectionName,
+                  new File(auOutputDir, ASSESSMENTUNIT_DATA_JSON_FILE).length() +
+                  new File(auOutputDir, ASSESSMENTUNIT_META_JSON_FILE).length());
+        }
 
-          // Add files from directory
-          File dirFile = destPath.toFile();
-          if (dirFile.isDirectory()) {
-            outputConfigFiles.addAll(getFilesFromDir(dirFile));
+        // Stage assessment files to make them available during recommendations. Masked files are written to a new
+        // file, so the masks never change the original files when they are staged as links.
+        List<Path> configFiles = au.getConfigFiles();
+        if (configFiles != null) {
+          // Config files with the same name are staged to the same path. They are staged by one task in the order of
+          // the config files, so the last one is kept as when the files are staged one after the other.
+          Map<Path, List<Path>> configFilesByDestPath = new LinkedHashMap<>();
+          for (Path file : configFiles) {
+            configFilesByDestPath.computeIfAbsent(getStagedPath(file, auOutputDir), destPath -> new ArrayList<>()).add(file);
+          }
+          List<Path> destPaths = new ArrayList<>(configFilesByDestPath.keySet());
+          List<FileTask<List<Path>>> stageTasks = new ArrayList<>();
+          for (Path destPath : destPaths) {
+            List<Path> files = configFilesByDestPath.get(destPath);
+            stageTasks.add(() -> {
+              List<Path> stagedFiles = null;
+              for (Path file : files) {
+                stagedFiles = stageConfigFile(stagingMode, file, destPath, collectionName);
+              }
+              return stagedFiles;
+            });
+          }
+          List<List<Path>> stagedFilesList = runFileTasks(stagingExecutor, stageTasks);
+          Map<Path, List<Path>> stagedFilesByDestPath = new HashMap<>();
+          for (int i = 0; i < destPaths.size(); i++) {
+            stagedFilesByDestPath.put(destPaths.get(i), stagedFilesList.get(i));
+          }
+          outputConfigFiles = new LinkedList<>();
+          for (Path file : configFiles) {
+            outputConfigFiles.addAll(stagedFilesByDestPath.get(getStagedPath(file, auOutputDir)));
           }
         }
+      } finally {
+        stageTimer.close();
+      }
 
+      if (outputConfigFiles != null) {
         // Apply mask to content
         Logger.debug("Applying content masks");
-        List<ContentMask> contentMasks = au.getContentMasks();
-        if (contentMasks != null) {
-          for (Path path : outputConfigFiles) {
-            for (ContentMask mask : contentMasks) {
-              for (String contentMaskFile : mask.getFiles()) {
-                // Use the original path of the file, not the new path where the file is copied to
-                String origPath = path.toAbsolutePath().toString().replace(auOutputDir.getAbsolutePath(), "");
-
-                Logger.debug("Comparing file:" + origPath + " to contentMaskFile:" + contentMaskFile);
-
-                if (origPath.matches(contentMaskFile)) {
-                  Logger.info("Applying mask to file:" + path);
-                  // Read lines from file
-                  List<String> lines = Files.readAllLines(path);
-
-                  // Mask file content
-                  List<String> updatedLines = mask.mask(lines);
-
-                  // Write updated context to the file
-                  Files.write(path, updatedLines);
-
-                  // Move on to the next mask
-                  break;
-                }
+        ContentMaskProcessor contentMaskProcessor = new ContentMaskProcessor(au.getContentMasks());
+        List<FileTask<Path>> maskTasks = new ArrayList<>();
+        // A file staged for several config files with the same name is masked once
+        for (Path path : new LinkedHashSet<>(outputConfigFiles)) {
+          // Use the original path of the file, not the new path where the file is copied to
+          List<ContentMask> masks = contentMaskProcessor.getContentMasks(getMaskFilePath(path, auOutputDir));
+          if (!masks.isEmpty()) {
+            maskTasks.add(() -> {
+              Logger.info("Applying mask to file:" + path);
+              if (metrics.isEnabled() && Files.isRegularFile(path)) {
+                metrics.addBytesRead(Metrics.PHASE_MASK, collectionName, Files.size(path));
               }
-            }
+              contentMaskProcessor.mask(path, masks);
+              if (metrics.isEnabled() && Files.isRegularFile(path)) {
+                metrics.addBytesWritten(Metrics.PHASE_MASK, collectionName, Files.size(path));
+              }
+              return path;
+            });
           }
         }
+        try (Metrics.Timer maskTimer = metrics.startPhase(Metrics.PHASE_MASK, collectionName, au.getName())) {
+          runFileTasks(stagingExecutor, maskTasks);
+        }
 
         // Update config files that point to output dir for use in recommendations
+        List<Path> configFiles = au.getConfigFiles();
         configFiles.clear();
         configFiles.addAll(outputConfigFiles);
       }
@@ -261,6 +409,83 @@ public class TADataCollector {
     return assessUnits;
   }
 
+  // Path a config file is staged to in the output directory of the assessment unit
+  private static Path getStagedPath(Path file, File auOutputDir) {
+    return new File(auOutputDir, file.getFileName().toString()).toPath();
+  }
+
+  // Stage a config file, returns the staged file followed by the files in it if it is a directory
+  private List<Path> stageConfigFile(StagingMode stagingMode, Path file, Path destPath, String collectionName) throws IOException {
+    File destFile = destPath.toFile();
+    if (!destFile.getParentFile().exists()) {
+      destFile.getParentFile().mkdirs();
+    }
+    stagingMode.stage(file, destPath);
+    if (Metrics.get().isEnabled() && Files.isRegularFile(file)) {
+      Metrics.get().addBytesRead(Metrics.PHASE_STAGE, collectionName, Files.size(file));
+    }
+
+    List<Path> stagedFiles = new ArrayList<>();
+    stagedFiles.add(destPath);
+
+    // Add files from directory
+    File dirFile = destPath.toFile();
+    if (dirFile.isDirectory()) {
+      stagedFiles.addAll(getFilesFromDir(dirFile));
+    }
+    return stagedFiles;
+  }
+
+  /*
+   * Work done on a single config file. Each task stages or masks a different file, so the tasks can run at the same
+   * time.
+   */
+  private interface FileTask<T> {
+    T run() throws IOException;
+  }
+
+  /*
+   * Runs the tasks on the executor and returns their results in the order of the tasks. Without an executor the
+   * tasks run one after the other on the calling thread. The first error stops the remaining tasks and is thrown.
+   */
+  private <T> List<T> runFileTasks(ExecutorService executor, List<FileTask<T>> tasks) throws TAException, IOException {
+    List<T> results = new ArrayList<>();
+    if (executor == null || tasks.size() <= 1) {
+      for (FileTask<T> task : tasks) {
+        results.add(task.run());
+      }
+      return results;
+    }
+
+    List<Future<T>> futures = new ArrayList<>();
+    for (FileTask<T> task : tasks) {
+      futures.add(executor.submit(task::run));
+    }
+    try {
+      for (Future<T> future : futures) {
+        results.add(future.get());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new TAException("Interrupted while staging config files.", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      throw new TAException("Failed to stage config files.", e.getCause());
+    } finally {
+      for (Future<T> future : futures) {
+        future.cancel(true);
+      }
+    }
+    return results;
+  }
+
+  // Path of a staged file that is matched with the files of the content masks
+  private static String getMaskFilePath(Path path, File auOutputDir) {
+    return path.toAbsolutePath().toString().replace(auOutputDir.getAbsolutePath(), "");
+  }
+
   private List<Path> getFilesFromDir(File dir) {
     List<Path> dirFiles = new LinkedList<>();
     if (!dir.isDirectory()) {
@@ -280,22 +505,38 @@ public class TADataCollector {
   }
 
   public void runAssess(PluginProvider provider, CliInputCommand cliInputCommand) throws TAException, IOException {
+    try (FilePools filePools = new FilePools()) {
+      runAssess(provider, cliInputCommand, filePools);
+    }
+  }
+
+  private void runAssess(PluginProvider provider, CliInputCommand cliInputCommand, FilePools filePools) throws TAException, IOException {
     provider.validateJsonFiles();
-    // Run collections
-    List<DataCollection> dataCollections = collectData(provider, cliInputCommand);
+    // Run collections, or load the collections in the output directory with --skipcollect
+    List<DataCollection> dataCollections;
+    if (CliInputOption.isSkipCollect(cliInputCommand.getOptions())) {
+      dataCollections = loadDataCollections();
+    } else {
+      dataCollections = collectData(provider, cliInputCommand, filePools);
+    }
     if (dataCollections == null || dataCollections.size() == 0) {
       throw new TAException("Collect failed. No recommendations generated by plugin provider.");
     }
 
     // Generate and write recommendations
-    List<Recommendation> recs = provider.getRecommendation(cliInputCommand);
+    List<Recommendation> recs;
+    try (Metrics.Timer timer = Metrics.get().startPhase(Metrics.PHASE_ASSESS, null, null)) {
+      recs = provider.getRecommendation(cliInputCommand);
+    }
     if (recs == null || recs.size() == 0) {
       throw new TAException("Assessment failed. No recommendations generated by plugin provider.");
     }
 
     // Get target commandline option to filter out targets
     List<String> filterTargets = CliInputOption.getCliOptionValuesByLongName(cliInputCommand.getOptions(), CliInputOption.OPT_TARGET);
-    Set<File> zipFiles = new HashSet();
+
+    List<String> assessmentNames = new ArrayList<>();
+    List<CollectionUnitTask<File>> tasks = new ArrayList<>();
     for (Recommendation rec : recs) {
       String assessmentName = rec.getCollectionUnitName();
 
@@ -307,25 +548,132 @@ public class TADataCollector {
       }
 
       DataCollection dc = dcOp.get();
-      Environment environment =  dc.getEnvironment();
-      List<? extends AssessmentUnit> assessUnits = dc.getAssessmentUnits();
-      RecommendationJson recJson = new RecommendationJson(rec, environment, assessUnits, filterTargets);
-      File outputDir = Util.getAssessmentOutputDir(assessmentName);
-      writeRecommendationsJson(recJson, outputDir);
-
-      // Add log message to indicate zip does not contain data because plugin collects sensitive data
-      if (environment.hasSensitiveData()) {
-        Logger.info("The environment.json file indicates that the collection contains sensitive data. The collection zip archive created will not include any of the collected data files.");
+      assessmentNames.add(assessmentName);
+      tasks.add(() -> {
+        try (Metrics.Timer timer = Metrics.get().startPhase(Metrics.PHASE_ASSESS, assessmentName, null)) {
+          return assessDataCollection(rec, dc, filterTargets, filePools.zip);
+        }
+      });
+    }
+
+    // Zip files are sorted so scan_results.json does not depend on the order collection units complete in
+    Map<String, Exception> failures = new LinkedHashMap<>();
+    Set<File> zipFiles = new TreeSet<>(runCollectionUnitTasks(assessmentNames, tasks, getParallelism(cliInputCommand), failures));
+    if (!failures.isEmpty()) {
+      writeScanResultsJson(zipFiles, 1);
+      throw new TAException("Assessment failed for collection units " + failures.keySet() + ".",
+              failures.values().iterator().next());
+    }
+    writeScanResultsJson(zipFiles, 0);
+  }
+
+  private File assessDataCollection(Recommendation rec, DataCollection dc, List<String> filterTargets,
+                                    ExecutorService zipExecutor) throws TAException, IOException {
+    String assessmentName = rec.getCollectionUnitName();
+    Environment environment =  dc.getEnvironment();
+    List<? extends AssessmentUnit> assessUnits = dc.getAssessmentUnits();
+    File outputDir = Util.getAssessmentOutputDir(assessmentName);
+    try (Metrics.Timer timer = Metrics.get().startPhase(Metrics.PHASE_WRITE_RECOMMENDATIONS, assessmentName, null)) {
+      writeRecommendationsJson(rec, environment, assessUnits, filterTargets, outputDir);
+    }
+    Metrics.get().addBytesWritten(Metrics.PHASE_WRITE_RECOMMENDATIONS, assessmentName,
+            new File(outputDir, RECOMMENDATIONS_JSON_FILE).length());
+    rec.assessmentCompleted();
+
+    // Add log message to indicate zip does not contain data because plugin collects sensitive data
+    if (environment.hasSensitiveData()) {
+      Logger.info("The environment.json file indicates that the collection contains sensitive data. The collection zip archive created will not include any of the collected data files.");
+    }
+
+    // zip output dir
+    String zipFileName = environment.getCollectionUnitName() + ".zip";
+    File zipFile = new File(outputDir.getParentFile(), zipFileName);
+    try (Metrics.Timer timer = Metrics.get().startPhase(Metrics.PHASE_ZIP, assessmentName, null)) {
+      Util.zipCollection(zipFile.toPath(), outputDir, environment.hasSensitiveData(), zipExecutor);
+    }
+    return zipFile;
+  }
+
+  /*
+   * Thread pools that stage the config files and compress the zips of a command. They are created once per command and
+   * shared by the collection units, so processing collection units in parallel does not multiply the number of
+   * threads. A pool is null when its number of threads is 1, and the work is done on the calling thread.
+   */
+  private static class FilePools implements AutoCloseable {
+    private final ExecutorService staging;
+    private final ExecutorService zip;
+
+    private FilePools() {
+      int stagingThreads = StagingMode.threadsFromSystemProperty();
+      int zipThreads = new ZipArchiveWriter().getThreads();
+      staging = stagingThreads > 1 ? Executors.newFixedThreadPool(stagingThreads) : null;
+      zip = zipThreads > 1 ? Executors.newFixedThreadPool(zipThreads) : null;
+    }
+
+    @Override
+    public void close() {
+      if (staging != null) {
+        staging.shutdownNow();
+      }
+      if (zip != null) {
+        zip.shutdownNow();
       }
+    }
+  }
 
-      // zip output dir
-      String zipFileName = environment.getCollectionUnitName() + ".zip";
-      File zipFile = new File(outputDir.getParentFile(), zipFileName);
-      Util.zipCollection(zipFile.toPath(), outputDir, environment.hasSensitiveData());
+  /*
+   * Work done for a single collection unit. Collection units do not share output directories, so tasks for different
+   * collection units can run at the same time.
+   */
+  private interface CollectionUnitTask<T> {
+    T run() throws TAException, IOException;
+  }
 
-      zipFiles.add(zipFile);
+  /*
+   * Runs the tasks for each collection unit and returns their results in the order of the tasks. With a parallelism
+   * of 1 the tasks run one after the other on the calling thread and the first error is thrown as is. Otherwise the
+   * tasks run on a pool of at most 'parallelism' threads, a failing collection unit does not stop the others, and
+   * the error for each failed collection unit is logged and added to failures.
+   */
+  private <T> List<T> runCollectionUnitTasks(List<String> collectionNames, List<CollectionUnitTask<T>> tasks,
+                                             int parallelism, Map<String, Exception> failures) throws TAException, IOException {
+    List<T> results = new ArrayList<>();
+    if (parallelism <= 1 || tasks.size() <= 1) {
+      for (CollectionUnitTask<T> task : tasks) {
+        results.add(task.run());
+      }
+      return results;
     }
-    writeScanResultsJson(zipFiles, 0);
+
+    Logger.info("Processing " + tasks.size() + " collection units with parallelism " + parallelism);
+    ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, tasks.size()));
+    try {
+      List<Future<T>> futures = new ArrayList<>();
+      for (CollectionUnitTask<T> task : tasks) {
+        futures.add(executor.submit(task::run));
+      }
+
+      for (int i = 0; i < futures.size(); i++) {
+        String collectionName = collectionNames.get(i);
+        try {
+          results.add(futures.get(i).get());
+        } catch (ExecutionException e) {
+          Exception cause = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+          Logger.error("Failed to process collection unit " + collectionName + ":", cause);
+          failures.put(collectionName, cause);
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new TAException("Interrupted while processing collection units.", e);
+    } finally {
+      executor.shutdownNow();
+    }
+    return results;
+  }
+
+  private int getParallelism(CliInputCommand cliInputCommand) {
+    return CliInputOption.getParallelism(cliInputCommand.getOptions());
   }
 
   public void runReport(PluginProvider provider, CliInputCommand cliInputCommand) throws TAException, IOException {
@@ -351,24 +699,33 @@ public class TADataCollector {
       EnvironmentJson envJson =  new Gson().fromJson(envJsonEle, new TypeToken<EnvironmentJson>(){}.getType());
       Environment env = envJson.getEnvironment();
 
-      List<Report> reports = provider.getReport(assessmentName, cliInputCommand);
-      for (Report report : reports) {
-        Target target = report.getTarget();
-        String reportName = "recommendations_" + target.getTargetId() +
-                "." + report.getReportType().toString().toLowerCase();
-
-        // Report path
-        File auOutputDir = new File(aOutputDir, report.getAssessmentUnitName());
-        File recFile = new File(auOutputDir, reportName);
-
-        // Write report
-        Logger.info("Writing report:" + recFile.getAbsolutePath());
-        writeFile(recFile, report.getReport());
+      // Each report is written as soon as it is generated
+      List<File> reportFiles = new ArrayList<>();
+      try (Metrics.Timer timer = Metrics.get().startPhase(Metrics.PHASE_REPORT, assessmentName, null)) {
+        provider.getReport(assessmentName, cliInputCommand, report -> {
+          Target target = report.getTarget();
+          String reportName = "recommendations_" + target.getTargetId() +
+                  "." + report.getReportType().toString().toLowerCase();
+
+          // Report path
+          File auOutputDir = new File(aOutputDir, report.getAssessmentUnitName());
+          File recFile = new File(auOutputDir, reportName);
+
+          // Write report
+          Logger.info("Writing report:" + recFile.getAbsolutePath());
+          writeFile(recFile, report.getReport());
+          Metrics.get().addBytesWritten(Metrics.PHASE_REPORT, assessmentName, recFile.length());
+          reportFiles.add(recFile);
+        });
+      }
 
-        // Update assessment unit zip
+      // Update assessment zip once all reports for the assessment are written
+      if (!reportFiles.isEmpty()) {
         String zipFileName = assessmentName + ".zip";
         File zipFile = new File(aOutputDir.getParentFile(), zipFileName);
-        Util.zipCollection(zipFile.toPath(), aOutputDir, env.hasSensitiveData());
+        try (Metrics.Timer timer = Metrics.get().startPhase(Metrics.PHASE_ZIP, assessmentName, null)) {
+          updateAssessmentZip(zipFile, aOutputDir, reportFiles, env.hasSensitiveData());
+        }
 
         zipFiles.add(zipFile);
       }
@@ -376,10 +733,37 @@ public class TADataCollector {
     }
   }
 
+  /*
+   * Add the reports to the zip written by the assess command. The zip is only written again from the whole
+   * assessment directory if it does not exist, or if other files changed after the zip was written.
+   */
+  private void updateAssessmentZip(File zipFile, File aOutputDir, List<File> reportFiles, boolean excludeData) throws IOException {
+    if (zipFile.exists() && !hasChangedSince(aOutputDir.toPath(), zipFile.lastModified(), reportFiles)) {
+      try {
+        Logger.debug("Adding " + reportFiles.size() + " reports to zip:" + zipFile.getAbsolutePath());
+        Util.updateZipCollection(zipFile.toPath(), aOutputDir, reportFiles);
+        return;
+      } catch (IOException | RuntimeException e) {
+        Logger.warn("Failed to add reports to zip " + zipFile.getAbsolutePath() + ", creating the zip again.", e);
+      }
+    }
+    Util.zipCollection(zipFile.toPath(), aOutputDir, excludeData);
+  }
+
+  private static boolean hasChangedSince(Path dir, long time, List<File> excludeFiles) throws IOException {
+    Set<Path> excludePaths = excludeFiles.stream().map(File::toPath).collect(Collectors.toSet());
+    try (Stream<Path> paths = Files.walk(dir)) {
+      return paths.filter(path -> Files.isRegularFile(path) && !excludePaths.contains(path))
+              .anyMatch(path -> path.toFile().lastModified() > time);
+    }
+  }
+
   public void runMigrate(PluginProvider provider, CliInputCommand cliInputCommand) throws TAException, IOException {
     // Get target commandline option to filter out targets
     List<String> filterTargets = CliInputOption.getCliOptionValuesByLongName(cliInputCommand.getOptions(), CliInputOption.OPT_TARGET);
-    provider.getMigrationBundle(cliInputCommand, filterTargets);
+    try (Metrics.Timer timer = Metrics.get().startPhase(Metrics.PHASE_MIGRATE, null, null)) {
+      provider.getMigrationBundle(cliInputCommand, filterTargets);
+    }
   }
 
   public void runRun(PluginProvider provider, CliInputCommand cliInputCommand) throws TAException, IOException {
@@ -519,28 +903,46 @@ public class TADataCollector {
   }
 
   private String getJsonStr(Object recJson) {
+    Gson gson = getGson();
+    String issuesJsonString = gson.toJson(recJson);
+    return issuesJsonString;
+  }
+
+  private Gson getGson() {
     GsonBuilder builder = new GsonBuilder();
     builder.excludeFieldsWithoutExposeAnnotation();
     builder.setPrettyPrinting();
-
-    Gson gson = builder.create();
-    String issuesJsonString = gson.toJson(recJson);
-    return issuesJsonString;
+    return builder.create();
   }
 
-  private void writeRecommendationsJson(RecommendationJson recJson, File outputDir) throws TAException {
+  /*
+   * Streams the recommendations.json to the file, the issues are computed while the file is written
+   */
+  private void writeRecommendationsJson(Recommendation rec, Environment environment, List<? extends AssessmentUnit> assessUnits,
+                                        List<String> filterTargets, File outputDir) throws TAException {
     File rjFile = new File(outputDir, RECOMMENDATIONS_JSON_FILE);
     if (rjFile.exists()) {
       rjFile.delete();
     }
 
-    // Convert recommendation to JSON
-    String recJsonStr = getJsonStr(recJson);
-    writeFile(rjFile, recJsonStr);
+    Gson gson = getGson();
+    boolean written = false;
+    try (Writer out = Files.newBufferedWriter(rjFile.toPath(), StandardCharsets.UTF_8);
+         JsonWriter jsonWriter = gson.newJsonWriter(out)) {
+      RecommendationJson.write(jsonWriter, gson, rec, environment, assessUnits, filterTargets);
+      written = true;
+    } catch (IOException e) {
+      throw new TAException("Error writing file:" + rjFile.getAbsolutePath(), e);
+    } finally {
+      // Do not leave a partial recommendations.json behind
+      if (!written) {
+        rjFile.delete();
+      }
+    }
   }
 
   private void writeAssessmentDataJson(AssessmentUnit au, File outputDir) throws TAException {
-    File auFile = new File(outputDir, "data" + ".json");
+    File auFile = new File(outputDir, ASSESSMENTUNIT_DATA_JSON_FILE);
     if (auFile.exists()) {
       auFile.delete();
     }
@@ -22,4 +22,23 @@ public interface Recommendation {
   List<Target> getTargets();
 
   List<Issue> getIssues(Target target, AssessmentUnit assessmentUnit) throws TAException;
+
+  /**
+   * Called after the issues of all the targets of an assessment unit are written to recommendations.json. Override to
+   * release state kept for the assessment unit while getting its issues.
+   *
+   * @param assessmentUnit Assessment unit whose issues are written
+   * @throws TAException If the state cannot be released
+   */
+  default void assessmentUnitCompleted(AssessmentUnit assessmentUnit) throws TAException {
+  }
+
+  /**
+   * Called after the issues of all the targets and assessment units of the collection unit are written to
+   * recommendations.json. Override to save state kept while getting the issues.
+   *
+   * @throws TAException If the state cannot be saved
+   */
+  default void assessmentCompleted() throws TAException {
+  }
 }
@@ -6,4 +6,17 @@ import java.util.List;
 
 public interface ReportGenerator {
     public List<Report> generateHTMLReports() throws TAException;
+
+    /**
+     * Generate the HTML reports and pass each report to the handler as soon as it is generated, instead of returning
+     * all reports at the end. The default implementation passes the reports returned by {@link #generateHTMLReports()}.
+     *
+     * @param handler Handler for the generated reports
+     * @throws TAException If an error occurs generating or handling the reports
+     */
+    default void generateHTMLReports(ReportHandler handler) throws TAException {
+        for (Report report : generateHTMLReports()) {
+            handler.handle(report);
+        }
+    }
 }
@@ -0,0 +1,24 @@
+/*
+ * (C) Copyright IBM Corp. 2019,2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.ta.sdk.spi.report;
+
+import com.ibm.ta.sdk.spi.plugin.TAException;
+
+/**
+ * Receives reports one at a time, as soon as each report is generated.
+ */
+@FunctionalInterface
+public interface ReportHandler {
+  /**
+   * Handle a generated report. Reports of the same assessment are passed to the handler one at a time, from the
+   * thread that requested the reports.
+   *
+   * @param report Generated report
+   * @throws TAException If an error occurs handling the report. No more reports are generated for the assessment.
+   */
+  void handle(Report report) throws TAException;
+}
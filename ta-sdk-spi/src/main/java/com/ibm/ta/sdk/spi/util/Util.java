@@ -8,25 +8,28 @@ package com.ibm.ta.sdk.spi.util;
 
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
+import com.ibm.ta.sdk.spi.metrics.Metrics;
 import com.ibm.ta.sdk.spi.plugin.TADataCollector;
-import org.apache.commons.compress.utils.IOUtils;
 import org.tinylog.Logger;
 import org.apache.commons.io.FileUtils;
 
 import java.io.*;
+import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLDecoder;
 import java.nio.file.*;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ExecutorService;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
 import static java.nio.file.Files.copy;
 
 public class Util {
@@ -46,54 +49,94 @@ public class Util {
   }
 
   public static void zipCollection(Path zipOutFile, File zipInDir, boolean excludeData) throws IOException  {
-    ZipOutputStream zos = new ZipOutputStream(new FileOutputStream(zipOutFile.toFile()));
-    zos.putNextEntry(new ZipEntry(zipInDir.getName() + ZIP_FILE_SEPARATOR));
-    zos.closeEntry();
+    zipCollection(zipOutFile, zipInDir, excludeData, null);
+  }
+
+  /**
+   * Zip an assessment directory, compressing the entries on a pool shared by the zips written by a command
+   *
+   * @param zipOutFile Zip file to create
+   * @param zipInDir Assessment directory
+   * @param excludeData Include only the metadata, targets and reports of the assessment units
+   * @param executor Pool that compresses the entries, or null to use a pool for this zip only
+   * @throws IOException If the directory cannot be read or the zip cannot be written
+   */
+  public static void zipCollection(Path zipOutFile, File zipInDir, boolean excludeData, ExecutorService executor) throws IOException  {
+    List<ZipArchiveWriter.Entry> entries = new ArrayList<>();
+    entries.add(new ZipArchiveWriter.Entry(zipInDir.getName() + ZIP_FILE_SEPARATOR, zipInDir));
 
     // Add subdir files
     String parentDir = zipInDir.getName();
     for (File dirFile : zipInDir.listFiles()) {
+      if (dirFile.getName().equals(TADataCollector.ASSESSMENT_MANIFEST_JSON_FILE) ||
+              dirFile.getName().equals(TADataCollector.RULE_PROFILE_JSON_FILE)) {
+        // Results kept for the next assessment and rule profiles, not part of the collection
+        continue;
+      }
       if (excludeData) {
         // If plugin has sensitive data, include only the metadata.assessmentunit.json and reports HTML files in
         // each assessment unit dir
-        addZipEntry(dirFile, parentDir, zos, Arrays.asList(new String[]{
+        addZipEntry(dirFile, parentDir, entries, Arrays.asList(new String[]{
                 TADataCollector.ASSESSMENTUNIT_META_JSON_FILE,
                 TADataCollector.TARGETS_JSON_FILE,
                 "recommendations_.*.html"}));
       } else {
-        addZipEntry(dirFile, parentDir, zos, null);
+        addZipEntry(dirFile, parentDir, entries, null);
       }
     }
 
-    zos.finish();
-    zos.close();
+    ZipArchiveWriter writer = new ZipArchiveWriter();
+    ZipArchiveWriter.Stats stats = executor != null ? writer.write(zipOutFile, entries, executor) : writer.write(zipOutFile, entries);
+    Metrics.get().addBytesRead(Metrics.PHASE_ZIP, zipInDir.getName(), stats.getBytesIn());
+    Metrics.get().addBytesWritten(Metrics.PHASE_ZIP, zipInDir.getName(), stats.getBytesOut());
+  }
+
+  /**
+   * Adds or replaces files in a zip created by {@link #zipCollection(Path, File, boolean)}. The zip is opened as a zip
+   * file system, so the entries that are not updated are copied as they are, without being compressed again.
+   *
+   * @param zipFile Zip file to update
+   * @param zipInDir Directory the zip was created from
+   * @param files Files in zipInDir to add to the zip, or to replace in the zip
+   * @throws IOException If the zip or the files cannot be read or written
+   */
+  public static void updateZipCollection(Path zipFile, File zipInDir, List<File> files) throws IOException {
+    URI zipUri = URI.create("jar:" + zipFile.toUri());
+    Map<String, String> env = new HashMap<>();
+    env.put("create", "false");
+    try (FileSystem zipfs = FileSystems.newFileSystem(zipUri, env)) {
+      Path baseDir = zipInDir.toPath();
+      for (File file : files) {
+        Path entry = zipfs.getPath(zipInDir.getName());
+        for (Path name : baseDir.relativize(file.toPath())) {
+          entry = entry.resolve(name.toString());
+        }
+        Files.createDirectories(entry.getParent());
+        Files.copy(file.toPath(), entry, StandardCopyOption.REPLACE_EXISTING);
+      }
+    }
   }
 
   public static void zipDir(Path zipOutFile, File zipInDir) throws IOException {
-    ZipOutputStream zos = new ZipOutputStream(new FileOutputStream(zipOutFile.toFile()));
-    addZipEntry(zipInDir, null, zos, null);
-    zos.finish();
-    zos.close();
+    List<ZipArchiveWriter.Entry> entries = new ArrayList<>();
+    addZipEntry(zipInDir, null, entries, null);
+    new ZipArchiveWriter().write(zipOutFile, entries);
   }
 
-  private static void addZipEntry(File file, String parentDir, ZipOutputStream zos, List<String> includeFileList) throws IOException {
+  private static void addZipEntry(File file, String parentDir, List<ZipArchiveWriter.Entry> entries, List<String> includeFileList) {
     // Add current file/dir
-    zos.putNextEntry(new ZipEntry(
+    entries.add(new ZipArchiveWriter.Entry(
             (parentDir != null ? parentDir + ZIP_FILE_SEPARATOR : "")  // Do not start with leading /
                     + file.getName()
-                    + (file.isDirectory() ? ZIP_FILE_SEPARATOR : "")  // Add trailing / to directories
-    ));
-    if (file.isFile()) {
-      IOUtils.copy(new FileInputStream(file), zos);
-    }
-    zos.closeEntry();
+                    + (file.isDirectory() ? ZIP_FILE_SEPARATOR : ""),  // Add trailing / to directories
+            file));
 
     // Add subdir files
     if (file.isDirectory()) {
       parentDir = (parentDir != null ? parentDir + ZIP_FILE_SEPARATOR : "") + file.getName();
       for (File dirFile : file.listFiles()) {
         if (includeFileList == null || hasMatchingFileName(includeFileList, dirFile.getName())) {
-          addZipEntry(dirFile, parentDir, zos, includeFileList);
+          addZipEntry(dirFile, parentDir, entries, includeFileList);
         }
       }
     }
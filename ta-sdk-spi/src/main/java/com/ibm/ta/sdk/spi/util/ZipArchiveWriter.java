@@ -0,0 +1,323 @@
+/*
+ * (C) Copyright IBM Corp. 2019,2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.ta.sdk.spi.util;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.io.IOUtils;
+import org.tinylog.Logger;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.ZipEntry;
+
+/**
+ * Writes zip archives, compressing the entries on a pool of threads.
+ *
+ * Each file is deflated by a worker thread into its own buffer, and the buffers are written to the zip in the order
+ * of the entries, so the archive is the same for any number of threads. Files larger than
+ * {@link #MAX_BUFFERED_ENTRY_SIZE} are compressed while they are written, to keep the buffers small. Files that are
+ * already compressed (jars, zips, images, ...) are stored without being deflated again.
+ *
+ * The compression level is set with the system property ta.sdk.zip.level (0-9, default 6), and the number of threads
+ * with ta.sdk.zip.threads (default is the number of processors).
+ */
+public class ZipArchiveWriter {
+  public static final String COMPRESSION_LEVEL_PROPERTY = "ta.sdk.zip.level";
+  public static final String THREADS_PROPERTY = "ta.sdk.zip.threads";
+  public static final int DEFAULT_COMPRESSION_LEVEL = 6;
+  public static final long MAX_BUFFERED_ENTRY_SIZE = 8L * 1024 * 1024;
+
+  private static final Set<String> COMPRESSED_FILE_EXTENSIONS = new HashSet<>(Arrays.asList(
+          "zip", "jar", "war", "ear", "rar", "gz", "tgz", "bz2", "xz", "7z", "z",
+          "png", "jpg", "jpeg", "gif", "mp3", "mp4"));
+
+  private final int compressionLevel;
+  private final int threads;
+
+  public ZipArchiveWriter() {
+    this(getIntProperty(COMPRESSION_LEVEL_PROPERTY, DEFAULT_COMPRESSION_LEVEL),
+            getIntProperty(THREADS_PROPERTY, Runtime.getRuntime().availableProcessors()));
+  }
+
+  public ZipArchiveWriter(int compressionLevel, int threads) {
+    if (compressionLevel < Deflater.NO_COMPRESSION || compressionLevel > Deflater.BEST_COMPRESSION) {
+      throw new IllegalArgumentException("Invalid zip compression level " + compressionLevel + ". The level must be 0 to 9.");
+    }
+    this.compressionLevel = compressionLevel;
+    this.threads = Math.max(1, threads);
+  }
+
+  /**
+   * File or directory to add to a zip
+   */
+  public static class Entry {
+    private final String name;
+    private final File file;
+
+    /**
+     * @param name Name of the entry in the zip. Names of directories end with /
+     * @param file File or directory the entry is created from
+     */
+    public Entry(String name, File file) {
+      this.name = name;
+      this.file = file;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public File getFile() {
+      return file;
+    }
+  }
+
+  /**
+   * Throughput of writing a zip
+   */
+  public static class Stats {
+    private final int entries;
+    private final long bytesIn;
+    private final long bytesOut;
+    private final long elapsedMillis;
+
+    Stats(int entries, long bytesIn, long bytesOut, long elapsedMillis) {
+      this.entries = entries;
+      this.bytesIn = bytesIn;
+      this.bytesOut = bytesOut;
+      this.elapsedMillis = elapsedMillis;
+    }
+
+    public int getEntries() {
+      return entries;
+    }
+
+    public long getBytesIn() {
+      return bytesIn;
+    }
+
+    public long getBytesOut() {
+      return bytesOut;
+    }
+
+    public long getElapsedMillis() {
+      return elapsedMillis;
+    }
+
+    public double getMegabytesPerSecond() {
+      return elapsedMillis == 0 ? 0 : (bytesIn / (1024.0 * 1024.0)) / (elapsedMillis / 1000.0);
+    }
+
+    @Override
+    public String toString() {
+      return String.format(Locale.ROOT, "%d entries, %d bytes in, %d bytes out, %d ms, %.1f MB/s",
+              entries, bytesIn, bytesOut, elapsedMillis, getMegabytesPerSecond());
+    }
+  }
+
+  public int getThreads() {
+    return threads;
+  }
+
+  /**
+   * Write the entries to a zip, in the order of the list. The entries are compressed on a pool created for this zip.
+   * @param zipOutFile Zip file to create, an existing file is replaced
+   * @param entries Files and directories to add to the zip
+   * @return Throughput of writing the zip
+   * @throws IOException If an entry cannot be read or the zip cannot be written
+   */
+  public Stats write(Path zipOutFile, List<Entry> entries) throws IOException {
+    if (threads <= 1) {
+      return write(zipOutFile, entries, null);
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      return write(zipOutFile, entries, executor);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Write the entries to a zip, in the order of the list. The entries are compressed on the given pool, which can be
+   * shared by zips written at the same time and is not shut down.
+   * @param zipOutFile Zip file to create, an existing file is replaced
+   * @param entries Files and directories to add to the zip
+   * @param executor Pool that compresses the entries, or null to compress them on the calling thread
+   * @return Throughput of writing the zip
+   * @throws IOException If an entry cannot be read or the zip cannot be written
+   */
+  public Stats write(Path zipOutFile, List<Entry> entries, ExecutorService executor) throws IOException {
+    long start = System.nanoTime();
+    long bytesIn = 0;
+
+    try (ZipArchiveOutputStream zos = new ZipArchiveOutputStream(zipOutFile)) {
+      zos.setLevel(compressionLevel);
+
+      // Entries are compressed ahead of the writer, but no more than twice the number of threads at a time
+      Deque<Future<PreparedEntry>> inFlight = new ArrayDeque<>();
+      int maxInFlight = threads * 2;
+      try {
+        for (Entry entry : entries) {
+          if (executor == null) {
+            bytesIn += writeEntry(zos, prepareEntry(entry));
+            continue;
+          }
+
+          inFlight.add(executor.submit(() -> prepareEntry(entry)));
+          while (inFlight.size() >= maxInFlight) {
+            bytesIn += writeEntry(zos, getPreparedEntry(inFlight.poll()));
+          }
+        }
+        while (!inFlight.isEmpty()) {
+          bytesIn += writeEntry(zos, getPreparedEntry(inFlight.poll()));
+        }
+      } finally {
+        // The pool may be shared, only the entries of this zip are cancelled
+        for (Future<PreparedEntry> future : inFlight) {
+          future.cancel(true);
+        }
+      }
+      zos.finish();
+    }
+
+    Stats stats = new Stats(entries.size(), bytesIn, Files.size(zipOutFile), (System.nanoTime() - start) / 1000000);
+    Logger.info("Wrote zip " + zipOutFile + ": " + stats);
+    return stats;
+  }
+
+  private PreparedEntry getPreparedEntry(Future<PreparedEntry> future) throws IOException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while compressing zip entries", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      throw new IOException(e.getCause());
+    }
+  }
+
+  private PreparedEntry prepareEntry(Entry entry) throws IOException {
+    PreparedEntry prepared = new PreparedEntry(entry);
+    File file = entry.getFile();
+    if (file.isDirectory()) {
+      return prepared;
+    }
+
+    prepared.size = file.length();
+    if (isStored(file) || prepared.size > MAX_BUFFERED_ENTRY_SIZE) {
+      // Written on the writer thread
+      return prepared;
+    }
+
+    // Deflate into a buffer
+    byte[] content = Files.readAllBytes(file.toPath());
+    CRC32 crc = new CRC32();
+    crc.update(content);
+    Deflater deflater = new Deflater(compressionLevel, true);
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream(Math.max(32, content.length / 2));
+    try (DeflaterOutputStream dos = new DeflaterOutputStream(buffer, deflater)) {
+      dos.write(content);
+    } finally {
+      deflater.end();
+    }
+    prepared.size = content.length;
+    prepared.crc = crc.getValue();
+    prepared.deflated = buffer.toByteArray();
+    return prepared;
+  }
+
+  // Returns number of bytes of content in the entry
+  private long writeEntry(ZipArchiveOutputStream zos, PreparedEntry prepared) throws IOException {
+    File file = prepared.entry.getFile();
+    ZipArchiveEntry zipEntry = new ZipArchiveEntry(prepared.entry.getName());
+    zipEntry.setTime(file.lastModified());
+
+    if (file.isDirectory()) {
+      zipEntry.setMethod(ZipEntry.STORED);
+      zipEntry.setSize(0);
+      zipEntry.setCrc(0);
+      zos.putArchiveEntry(zipEntry);
+      zos.closeArchiveEntry();
+      return 0;
+    }
+
+    if (prepared.deflated != null) {
+      zipEntry.setMethod(ZipEntry.DEFLATED);
+      zipEntry.setSize(prepared.size);
+      zipEntry.setCompressedSize(prepared.deflated.length);
+      zipEntry.setCrc(prepared.crc);
+      zos.addRawArchiveEntry(zipEntry, new ByteArrayInputStream(prepared.deflated));
+      return prepared.size;
+    }
+
+    zipEntry.setMethod(isStored(file) ? ZipEntry.STORED : ZipEntry.DEFLATED);
+    zos.putArchiveEntry(zipEntry);
+    long size;
+    try (InputStream is = Files.newInputStream(file.toPath())) {
+      size = IOUtils.copyLarge(is, zos);
+    }
+    zos.closeArchiveEntry();
+    return size;
+  }
+
+  private boolean isStored(File file) {
+    if (compressionLevel == Deflater.NO_COMPRESSION) {
+      return true;
+    }
+    String name = file.getName();
+    int extIndex = name.lastIndexOf('.');
+    return extIndex >= 0 && COMPRESSED_FILE_EXTENSIONS.contains(name.substring(extIndex + 1).toLowerCase(Locale.ROOT));
+  }
+
+  private static int getIntProperty(String name, int defaultValue) {
+    String value = System.getProperty(name);
+    if (value == null) {
+      return defaultValue;
+    }
+    try {
+      return Integer.parseInt(value.trim());
+    } catch (NumberFormatException e) {
+      Logger.warn("Invalid value '" + value + "' for system property " + name + ", using " + defaultValue);
+      return defaultValue;
+    }
+  }
+
+  private static class PreparedEntry {
+    private final Entry entry;
+    private long size;
+    private long crc;
+    private byte[] deflated;
+
+    private PreparedEntry(Entry entry) {
+      this.entry = entry;
+    }
+  }
+}
@@ -67,6 +67,27 @@ public class CommandLineWrapper {
                 .desc("Validate environment JSON file")
                 .build();
 
+        Option batchOption = Option
+                .builder("b")
+                .longOpt("batch")
+                .hasArgs()
+                .desc("Validate collection zip files in the same run. Each argument is a directory of zip files, a zip file, or a file listing zip files one per line")
+                .build();
+
+        Option parallelismOption = Option
+                .builder("p")
+                .longOpt("parallelism")
+                .hasArg()
+                .desc("Number of collection zip files validated concurrently by --batch, default is the number of processors")
+                .build();
+
+        Option outputOption = Option
+                .builder("o")
+                .longOpt("output")
+                .hasArg()
+                .desc("File for the JSON summary of --batch, default is the standard output")
+                .build();
+
         options
                 .addOption(issueOption)
                 .addOption(versionOption)
@@ -75,7 +96,10 @@ public class CommandLineWrapper {
                 .addOption(targetOption)
                 .addOption(zipOption)
                 .addOption(envOption)
-                .addOption(recommOption);
+                .addOption(recommOption)
+                .addOption(batchOption)
+                .addOption(parallelismOption)
+                .addOption(outputOption);
     }
 
     private CommandLineWrapper() {
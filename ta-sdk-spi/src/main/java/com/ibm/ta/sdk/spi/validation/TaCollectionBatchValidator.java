@@ -0,0 +1,222 @@
+/*
+ * (C) Copyright IBM Corp. 2019,2020
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.ibm.ta.sdk.spi.validation;
+
+import com.google.gson.GsonBuilder;
+import com.ibm.ta.sdk.spi.plugin.TAException;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Validates many collection archives in the same JVM. The archives are validated on a pool of threads that share the
+ * compiled JSON schemas, and the verdict and the time taken for each archive are returned in a single summary.
+ * Nothing is logged for an archive, the problems found in an archive are returned in its result, so that the summary
+ * can be written to the standard output.
+ */
+public class TaCollectionBatchValidator {
+    private static final String FILE_ZIP = ".zip";
+
+    private int parallelism = 1;
+
+    /**
+     * Set the number of archives validated concurrently
+     *
+     * @param parallelism Number of archives validated concurrently, 1 validates the archives one at a time
+     */
+    public void setParallelism(int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * Get the collection archives to validate. A directory is searched for zip files, including its sub-directories.
+     * A zip file is validated as is. Any other file lists the archives to validate, one path per line.
+     *
+     * @param paths Directories, collection archives and files listing collection archives
+     * @return Collection archives, in the order of the paths
+     * @throws TAException If a directory or a file listing collection archives cannot be read
+     */
+    public static List<File> findArchives(List<String> paths) throws TAException {
+        List<File> archives = new ArrayList<>();
+        for (String path : paths) {
+            File file = new File(path);
+            try {
+                if (file.isDirectory()) {
+                    try (Stream<Path> dirPaths = Files.walk(file.toPath())) {
+                        archives.addAll(dirPaths.filter(p -> p.toString().endsWith(FILE_ZIP) && Files.isRegularFile(p))
+                                .sorted()
+                                .map(Path::toFile)
+                                .collect(Collectors.toList()));
+                    }
+                } else if (path.endsWith(FILE_ZIP) || !file.exists()) {
+                    // A missing archive is reported in the results
+                    archives.add(file);
+                } else {
+                    for (String line : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)) {
+                        if (!line.trim().isEmpty()) {
+                            archives.add(new File(line.trim()));
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                throw new TAException("Cannot read the collection archives in " + path, e);
+            }
+        }
+        return archives;
+    }
+
+    /**
+     * Validate the collection archives. A collection archive that is not valid does not stop the validation of the
+     * other archives.
+     *
+     * @param archives Collection archives to validate
+     * @return Summary of the validation, with the results in the order of the archives
+     * @throws TAException If the validation is interrupted
+     */
+    public BatchResult validate(List<File> archives) throws TAException {
+        long start = System.nanoTime();
+        List<ArchiveResult> results = new ArrayList<>();
+        if (parallelism <= 1 || archives.size() <= 1) {
+            for (File archive : archives) {
+                results.add(validateArchive(archive));
+            }
+        } else {
+            ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, archives.size()));
+            try {
+                List<Future<ArchiveResult>> futures = new ArrayList<>();
+                for (File archive : archives) {
+                    futures.add(executor.submit(() -> validateArchive(archive)));
+                }
+                for (Future<ArchiveResult> future : futures) {
+                    results.add(future.get());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new TAException("Interrupted while validating collection archives.", e);
+            } catch (ExecutionException e) {
+                // validateArchive returns the errors in its result
+                throw new TAException(e.getCause());
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+        return new BatchResult(results, parallelism, System.nanoTime() - start);
+    }
+
+    private static ArchiveResult validateArchive(File archive) {
+        long start = System.nanoTime();
+        String error = null;
+        try {
+            TaCollectionZipValidator.validateCollectionArchive(archive.getPath());
+        } catch (TAException e) {
+            error = e.getMessage();
+        } catch (RuntimeException e) {
+            // Content that cannot be parsed, for example an environment JSON with unexpected types
+            error = e.toString();
+        }
+        return new ArchiveResult(archive.getPath(), error, System.nanoTime() - start);
+    }
+
+    private static double toSeconds(long nanos) {
+        return nanos / (double) TimeUnit.SECONDS.toNanos(1);
+    }
+
+    /**
+     * Summary of the validation of collection archives
+     */
+    public static class BatchResult {
+        private final int archives;
+        private final int valid;
+        private final int invalid;
+        private final int parallelism;
+        private final double totalSeconds;
+        private final List<ArchiveResult> results;
+
+        private BatchResult(List<ArchiveResult> results, int parallelism, long nanos) {
+            this.archives = results.size();
+            this.valid = (int) results.stream().filter(ArchiveResult::isValid).count();
+            this.invalid = archives - valid;
+            this.parallelism = parallelism;
+            this.totalSeconds = toSeconds(nanos);
+            this.results = results;
+        }
+
+        public int getValidCount() {
+            return valid;
+        }
+
+        public int getInvalidCount() {
+            return invalid;
+        }
+
+        public double getTotalSeconds() {
+            return totalSeconds;
+        }
+
+        public List<ArchiveResult> getResults() {
+            return results;
+        }
+
+        /**
+         * Write the summary as JSON
+         *
+         * @param writer Writer for the summary
+         */
+        public void write(Writer writer) {
+            new GsonBuilder().setPrettyPrinting().create().toJson(this, writer);
+        }
+    }
+
+    /**
+     * Verdict for a collection archive
+     */
+    public static class ArchiveResult {
+        private final String archive;
+        private final boolean valid;
+        private final double seconds;
+        private final String error;
+
+        private ArchiveResult(String archive, String error, long nanos) {
+            this.archive = archive;
+            this.valid = error == null;
+            this.seconds = toSeconds(nanos);
+            this.error = error;
+        }
+
+        public String getArchive() {
+            return archive;
+        }
+
+        public boolean isValid() {
+            return valid;
+        }
+
+        public double getSeconds() {
+            return seconds;
+        }
+
+        /**
+         * @return Reason the archive is not valid, or null if the archive is valid
+         */
+        public String getError() {
+            return error;
+        }
+    }
+}
@@ -11,13 +11,17 @@ import com.ibm.ta.sdk.spi.collect.EnvironmentJson;
 import com.ibm.ta.sdk.spi.plugin.TADataCollector;
 import com.ibm.ta.sdk.spi.plugin.TAException;
 
+import org.apache.commons.io.IOUtils;
+
 import java.io.ByteArrayInputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.stream.Collectors;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 import java.util.zip.ZipInputStream;
 
 public class TaCollectionZipValidator {
@@ -44,14 +48,33 @@ public class TaCollectionZipValidator {
         if (!collectionFile.exists()) {
             throw new TAException("Input collection archive file does not exist");
         }
-        try {
-            ZipInputStream zipInputStream = new ZipInputStream(new FileInputStream(collectionFile));
-            validateArchive(zipInputStream);
+        try (ZipFile zipFile = new ZipFile(collectionFile)) {
+            validateArchive(zipFile);
         } catch (IOException e) {
             throw new TAException(e);
         }
     }
 
+    /**
+     * Validates a zip collection archive created by the SDK.
+     *
+     * The entries are found from the central directory of the archive. Only the JSON files that are validated are
+     * read, and they are validated as they are decompressed. The data files of the assessment units are not read.
+     * The validation does not change the zip file, so different archives can be validated concurrently.
+     *
+     * @param zipFile Collection archive to validate
+     * @throws TAException TAException is thrown when the validation fails
+     * @throws IOException IOException is thrown if there is an error reading the zipFile
+     */
+    public static void validateArchive(ZipFile zipFile) throws IOException, TAException {
+        ArchiveEntries archiveEntries = new ArchiveEntries();
+        for (Enumeration<? extends ZipEntry> entries = zipFile.entries(); entries.hasMoreElements(); ) {
+            archiveEntries.add(entries.nextElement().getName());
+        }
+
+        archiveEntries.validate(entryName -> zipFile.getInputStream(zipFile.getEntry(entryName)));
+    }
+
     /**
      * Validates a zip collection archive created by the SDK.
      *
@@ -61,31 +84,60 @@ public class TaCollectionZipValidator {
      * 3. Checks that recommendations.json exists and validate that the schema is correct
      * 4. Checks the folder structure for assessment units and it matches the assessment units in the environment.json
      *
+     * A stream has no central directory, so every entry is decompressed and the JSON files that are validated are kept
+     * in memory. Use {@link #validateArchive(ZipFile)} to validate an archive file.
+     *
      * @param zipInputStream InputStream of the collection archive to validate
      * @throws TAException TAException is thrown when the validation fails
      * @throws IOException IOException is thrown if there is an error with the zipInputStream
      */
     public static void validateArchive(ZipInputStream zipInputStream) throws IOException, TAException {
-        String recJsonStr = null;
-        String envJsonStr = null;
-        String targetsJsonStr = null;
-        Map<String, String> auMetadataMap = new HashMap<>();
-        Set<String> assessmentUnits = new LinkedHashSet<>(); // list of assessment unit names based on the root dir names
-        List<String> templateFiles = new ArrayList();
-
+        ArchiveEntries archiveEntries = new ArchiveEntries();
+        Map<String, byte[]> jsonEntries = new HashMap<>();
         for (ZipEntry nextEntry; Objects.nonNull(nextEntry = zipInputStream.getNextEntry()); ) {
-            String entryName = nextEntry.getName();
+            if (archiveEntries.add(nextEntry.getName())) {
+                jsonEntries.put(nextEntry.getName(), IOUtils.toByteArray(zipInputStream));
+            }
+        }
 
+        archiveEntries.validate(entryName -> new ByteArrayInputStream(jsonEntries.get(entryName)));
+    }
+
+    @FunctionalInterface
+    private interface EntryOpener {
+        InputStream open(String entryName) throws IOException;
+    }
+
+    /**
+     * Names of the entries of a collection archive that are validated
+     */
+    private static class ArchiveEntries {
+        private String envEntry;
+        private String recEntry;
+        private String targetsEntry;
+        private final Set<String> auMetadataDirs = new HashSet<>();
+        private final Set<String> assessmentUnits = new LinkedHashSet<>(); // list of assessment unit names based on the root dir names
+        private final List<String> templateFiles = new ArrayList<>();
+
+        /**
+         * Add an entry of the archive
+         *
+         * @param entryName Name of the entry
+         * @return True if the content of the entry is validated
+         */
+        private boolean add(String entryName) {
+            boolean isValidated = false;
             if (entryName.endsWith(TADataCollector.ENVIRONMENT_JSON_FILE) && isValidLocation(entryName, new int[] {1})) {
-                envJsonStr = getStringFromZipInputStream(zipInputStream);
+                envEntry = entryName;
+                isValidated = true;
             } else if (entryName.endsWith(TADataCollector.RECOMMENDATIONS_JSON_FILE) && isValidLocation(entryName, new int[] {1})) {
-                recJsonStr = getStringFromZipInputStream(zipInputStream);
+                recEntry = entryName;
+                isValidated = true;
             } else if (entryName.endsWith(TADataCollector.ASSESSMENTUNIT_META_JSON_FILE) && isValidLocation(entryName, new int[] {2})) {
-                String auMetadataStr = getStringFromZipInputStream(zipInputStream);
-                String auDirName = getAssessmentUnitDir(entryName);
-                auMetadataMap.put(auDirName, auMetadataStr);
+                auMetadataDirs.add(getAssessmentUnitDir(entryName));
             } else if (entryName.endsWith(TADataCollector.TARGETS_JSON_FILE) && isValidLocation(entryName, new int[] {2})) {
-                targetsJsonStr = getStringFromZipInputStream(zipInputStream);
+                targetsEntry = entryName;
+                isValidated = true;
             } else if (entryName.contains(TEMPLATES_DIR)) {
                 templateFiles.add(entryName);
             }
@@ -98,80 +150,79 @@ public class TaCollectionZipValidator {
                     assessmentUnits.add(auDirName);
                 }
             }
+            return isValidated;
         }
 
-        try {
-            // Validate environment json file
-            if (envJsonStr != null) {
-                TaJsonFileValidator.validateEnvironment(new ByteArrayInputStream(envJsonStr.getBytes()));
-            } else {
-                throw new TAException("Anomaly found. Environment JSON not found.");
-            }
-
-            // Validate recommendation json file
-            if (recJsonStr != null) {
-                TaJsonFileValidator.validateRecommendation(new ByteArrayInputStream(recJsonStr.getBytes()));
-            } else {
-                throw new TAException("Anomaly found. Recommendation JSON not found.");
-            }
-
-            // Validate assessment units
-            EnvironmentJson envJson = new Gson().fromJson(envJsonStr, EnvironmentJson.class);
-
-            List<String> envAuNamesList = envJson.getAssessmentUnits();
-
-            // remove the middleware name dir which contains the templates files for 0.6.3
-            // only need to validate the directories which is an assessment unit
-            Set<String> filteredAssessmentUnits = assessmentUnits.stream().filter(au -> envAuNamesList.contains(au)).collect(Collectors.toSet());
+        private void validate(EntryOpener entryOpener) throws IOException, TAException {
+            try {
+                // Validate environment json file
+                EnvironmentJson envJson;
+                if (envEntry != null) {
+                    // The environment is small, it is read once for the validation and for the assessment units
+                    byte[] envJsonBytes;
+                    try (InputStream envIs = entryOpener.open(envEntry)) {
+                        envJsonBytes = IOUtils.toByteArray(envIs);
+                    }
+                    TaJsonFileValidator.validateEnvironment(new ByteArrayInputStream(envJsonBytes));
+                    envJson = new Gson().fromJson(new String(envJsonBytes, StandardCharsets.UTF_8), EnvironmentJson.class);
+                } else {
+                    throw new TAException("Anomaly found. Environment JSON not found.");
+                }
 
-            if (filteredAssessmentUnits.size() != envAuNamesList.size()) {
-                throw new TAException("Anomaly found. Number of assessment unit directories in archive does not match data in environment JSON.");
-            } else {
-                if (!filteredAssessmentUnits.containsAll(envAuNamesList)) {
-                    throw new TAException("Anomaly found. Assessment unit directories in archive does not match environment JSON.");
+                // Validate recommendation json file
+                if (recEntry != null) {
+                    try (InputStream recIs = entryOpener.open(recEntry)) {
+                        TaJsonFileValidator.validateRecommendation(recIs);
+                    }
+                } else {
+                    throw new TAException("Anomaly found. Recommendation JSON not found.");
                 }
-            }
 
-            // Check assessment unit metadata json exists in each assessment unit directory
-            // In the future, may want to validation the schema of the file as well
-            Set<String> auMetaKeys = auMetadataMap.keySet();
-            boolean isValid = filteredAssessmentUnits.size() == auMetaKeys.size() && filteredAssessmentUnits.containsAll(auMetaKeys);
-            if (!isValid) {
-                throw new TAException("Anomaly found. Missing assessment unit metadata JSON file in assessment unit directory.");
-            }
+                // Validate assessment units
+                List<String> envAuNamesList = envJson.getAssessmentUnits();
+
+                // remove the middleware name dir which contains the templates files for 0.6.3
+                // only need to validate the directories which is an assessment unit
+                Set<String> filteredAssessmentUnits = assessmentUnits.stream().filter(au -> envAuNamesList.contains(au)).collect(Collectors.toSet());
 
-            // validate the targets.json file
-            // validate all template files start with middleware name
-            if(envJson.containsTemplateFiles()) {
-                if (targetsJsonStr != null) {
-                    TaJsonFileValidator.validateTarget(new ByteArrayInputStream(targetsJsonStr.getBytes()));
+                if (filteredAssessmentUnits.size() != envAuNamesList.size()) {
+                    throw new TAException("Anomaly found. Number of assessment unit directories in archive does not match data in environment JSON.");
                 } else {
-                    throw new TAException("Anomaly found. targets.json file not found.");
+                    if (!filteredAssessmentUnits.containsAll(envAuNamesList)) {
+                        throw new TAException("Anomaly found. Assessment unit directories in archive does not match environment JSON.");
+                    }
                 }
-                if (templateFiles.size()==0) {
-                    throw new TAException("Anomaly found. No plugin template files find.");
+
+                // Check assessment unit metadata json exists in each assessment unit directory
+                // In the future, may want to validation the schema of the file as well
+                boolean isValid = filteredAssessmentUnits.size() == auMetadataDirs.size() && filteredAssessmentUnits.containsAll(auMetadataDirs);
+                if (!isValid) {
+                    throw new TAException("Anomaly found. Missing assessment unit metadata JSON file in assessment unit directory.");
                 }
-                for (String templateFilePath: templateFiles) {
-                    if (!templateFilePath.startsWith(envJson.getCollectionUnitName()+"/"+envJson.getMiddlewareName())){
-                        throw new TAException("Anomaly found. Plugin template file is not under the middleware name directory.");
+
+                // validate the targets.json file
+                // validate all template files start with middleware name
+                if(envJson.containsTemplateFiles()) {
+                    if (targetsEntry != null) {
+                        try (InputStream targetsIs = entryOpener.open(targetsEntry)) {
+                            TaJsonFileValidator.validateTarget(targetsIs);
+                        }
+                    } else {
+                        throw new TAException("Anomaly found. targets.json file not found.");
+                    }
+                    if (templateFiles.size()==0) {
+                        throw new TAException("Anomaly found. No plugin template files find.");
+                    }
+                    for (String templateFilePath: templateFiles) {
+                        if (!templateFilePath.startsWith(envJson.getCollectionUnitName()+"/"+envJson.getMiddlewareName())){
+                            throw new TAException("Anomaly found. Plugin template file is not under the middleware name directory.");
+                        }
                     }
                 }
+            } catch (TAException ex) {
+                throw new TAException("Invalid collection archive.\n" + ex.getMessage(), ex);
             }
-        } catch (TAException ex) {
-            throw new TAException("Invalid collection archive.\n" + ex.getMessage(), ex);
-        }
-    }
-
-    private static String getStringFromZipInputStream(ZipInputStream zipInputStream) throws IOException {
-        int byteRead;
-        int maxNumberByteRead = 2048;
-        StringBuilder jsonSb = new StringBuilder();
-        byte[] buffer = new byte[maxNumberByteRead];
-
-        while ((byteRead = zipInputStream.read(buffer, 0, maxNumberByteRead)) >= 0) {
-            jsonSb.append(new String(buffer, 0, byteRead));
         }
-        return jsonSb.toString();
     }
 
     private static boolean isValidLocation(String entryName, int[] positions) {
@@ -11,13 +11,23 @@ import org.tinylog.Logger;
 import org.leadpony.justify.api.*;
 
 import jakarta.json.JsonReader;
+import org.apache.commons.io.IOUtils;
+
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
 
 public class TaJsonFileValidator {
@@ -30,10 +40,18 @@ public class TaJsonFileValidator {
 
 
     // The only instance of JSON validation service.
-    private static JsonValidationService service = JsonValidationService.newInstance();
+    private static final JsonValidationService service = JsonValidationService.newInstance();
+
+    // The configured factory which will produce schema readers. Referenced schemas are read from the class loader.
+    private static final JsonSchemaReaderFactory readerFactory = service.createSchemaReaderFactoryBuilder()
+            .withSchemaResolver(TaJsonFileValidator::resolveSchema)
+            .build();
+
+    // Compiled schemas by schema path. A JsonSchema is immutable, so it can be used by concurrent validations.
+    private static final Map<String, JsonSchema> schemas = new ConcurrentHashMap<>();
 
-    // The configured factory which will produce schema readers.
-    private static JsonSchemaReaderFactory readerFactory;
+    // Schema path and SHA-256 of the content of the JSON files and resources that are valid
+    private static final Set<String> validContents = ConcurrentHashMap.newKeySet();
 
     /**
      * Reads the JSON schema from the specified path.
@@ -48,6 +66,27 @@ public class TaJsonFileValidator {
         }
     }
 
+    /**
+     * Get the compiled JSON schema at the specified path. The schema is read and compiled the first time it is used.
+     *
+     * @param schemaPath The path to the JSON schema file in resource.
+     * @return the compiled schema.
+     * @throws IOException If the schema cannot be read
+     */
+    private static JsonSchema getSchema(String schemaPath) throws IOException {
+        JsonSchema schema = schemas.get(schemaPath);
+        if (schema == null) {
+            try (InputStream schemaResources = getResource(schemaPath)) {
+                schema = readSchema(schemaResources);
+            }
+            JsonSchema cachedSchema = schemas.putIfAbsent(schemaPath, schema);
+            if (cachedSchema != null) {
+                schema = cachedSchema;
+            }
+        }
+        return schema;
+    }
+
     /**
      * Resolves the referenced JSON schema.
      *
@@ -73,21 +112,34 @@ public class TaJsonFileValidator {
      *
      * @param schemaPath The path to the JSON schema file in resource.
      * @param jsonResourcePath The path to the JSON file to be validated in resource.
-     * @return True if the schema is valid
+     * @return Problems found in the JSON file, empty if the JSON file is valid
      */
-    private static boolean validateJsonBySchema(String schemaPath, String jsonResourcePath) {
-        boolean isValid = true;
+    private static List<String> validateJsonBySchema(String schemaPath, String jsonResourcePath) {
+        List<String> problemList;
 
         try {
-            InputStream jrIs = getResource(jsonResourcePath);
-            isValid = validateJsonBySchema(schemaPath, jrIs);
-        } catch (FileNotFoundException e) {
+            byte[] content;
+            try (InputStream jrIs = getResource(jsonResourcePath)) {
+                content = IOUtils.toByteArray(jrIs);
+            }
+
+            // The files of a plugin are validated by each command, skip the validation if the content has not changed
+            String contentKey = schemaPath + ":" + sha256(content);
+            if (validContents.contains(contentKey)) {
+                return new ArrayList<>();
+            }
+            problemList = validateJsonBySchema(schemaPath, new ByteArrayInputStream(content));
+            if (problemList.isEmpty()) {
+                validContents.add(contentKey);
+            }
+        } catch (IOException e) {
             Logger.error("We have problem to process the json files: " + jsonResourcePath);
             Logger.error(e);
-            isValid = false;
+            problemList = new ArrayList<>();
+            problemList.add(e.toString());
         }
 
-        return isValid;
+        return problemList;
     }
 
     /**
@@ -95,88 +147,89 @@ public class TaJsonFileValidator {
      *
      * @param schemaPath The path to the JSON schema file in resource.
      * @param jrIs InputStream for JSON file to be validated in resource.
+     * @return Problems found in the JSON file, empty if the JSON file is valid
      */
-    private static boolean validateJsonBySchema(String schemaPath, InputStream jrIs) {
-        boolean isValid = true;
-
+    private static List<String> validateJsonBySchema(String schemaPath, InputStream jrIs) {
+        // The problems are returned to the caller instead of being printed, so that concurrent validations
+        // report each problem with the file it belongs to
         List<String> problemList = new ArrayList<>();
-        // Builds a factory of schema readers.
-        readerFactory = service.createSchemaReaderFactoryBuilder()
-                .withSchemaResolver(TaJsonFileValidator::resolveSchema)
-                .build();
 
         try {
-            InputStream schemaResources = getResource(schemaPath);
-            assert schemaResources != null;
-            JsonSchema schema = readSchema(schemaResources);
+            JsonSchema schema = getSchema(schemaPath);
             // Problem handler
             ProblemHandler handler = getProblemHandler(problemList::add);
             if (jrIs != null) {
                 JsonReader reader = service.createReader(jrIs, schema, handler);
                 reader.readValue();
-
-                if (problemList.size() > 0) {
-                    isValid = false;
-                    Logger.info("For resource " + jrIs + ", ");
-                    Logger.info("We have found problems below:");
-                    problemList.forEach(System.out::println);
-                    problemList.forEach(Logger::error);
-                }
             }
         } catch (Exception e) {
             Logger.error("We have problem to process the json files.");
             Logger.error(e);
-            isValid = false;
+            problemList.add(e.toString());
         }
 
-        return isValid;
+        return problemList;
     }
 
-    public static void validateIssue(String issueJsonFile) throws TAException {
-        if (!validateJsonBySchema(ISSUE_SCHEMA, issueJsonFile)) {
-            throw new TAException("Anomalies found. The resource " + issueJsonFile + " is not a valid issue rule json file.");
+    /**
+     * Throw an exception with the problems found in a JSON file, if any
+     *
+     * @param problemList Problems found in the JSON file
+     * @param message Message of the exception
+     * @throws TAException If problems were found in the JSON file
+     */
+    private static void checkProblems(List<String> problemList, String message) throws TAException {
+        if (!problemList.isEmpty()) {
+            throw new TAException(message + "\n" + String.join("\n", problemList));
         }
     }
 
+    public static void validateIssue(String issueJsonFile) throws TAException {
+        checkProblems(validateJsonBySchema(ISSUE_SCHEMA, issueJsonFile),
+                "Anomalies found. The resource " + issueJsonFile + " is not a valid issue rule json file.");
+    }
+
     public static void validateTarget(String targetJsonFile) throws TAException {
-        if (!validateJsonBySchema(TARGET_SCHEMA, targetJsonFile)) {
-            throw new TAException("Anomalies found. The resource " + targetJsonFile + " is not a valid targets json file.");
-        }
+        checkProblems(validateJsonBySchema(TARGET_SCHEMA, targetJsonFile),
+                "Anomalies found. The resource " + targetJsonFile + " is not a valid targets json file.");
     }
 
     public static void validateTarget(InputStream targetJsonIs) throws TAException {
-        if (!validateJsonBySchema(TARGET_SCHEMA, targetJsonIs)) {
-            throw new TAException("Anomalies found. The resource is not a valid targets json file.");
-        }
+        checkProblems(validateJsonBySchema(TARGET_SCHEMA, targetJsonIs),
+                "Anomalies found. The resource is not a valid targets json file.");
     }
 
     public static void validateComplexity(String complexityJsonFile) throws TAException {
-        if (!validateJsonBySchema(COMPLEXITY_SCHEMA, complexityJsonFile)) {
-            throw new TAException("Anomalies found. The resource " + complexityJsonFile + " is not a valid complexity json file.");
-        }
+        checkProblems(validateJsonBySchema(COMPLEXITY_SCHEMA, complexityJsonFile),
+                "Anomalies found. The resource " + complexityJsonFile + " is not a valid complexity json file.");
     }
 
     public static void validateEnvironment(String environmentJsonFile) throws TAException {
-        if (!validateJsonBySchema(ENVIRONMENT_SCHEMA, environmentJsonFile)) {
-            throw new TAException("Anomalies found. The resource " + environmentJsonFile + " is not a valid environment json file.");
-        }
+        checkProblems(validateJsonBySchema(ENVIRONMENT_SCHEMA, environmentJsonFile),
+                "Anomalies found. The resource " + environmentJsonFile + " is not a valid environment json file.");
     }
 
     public static void validateEnvironment(InputStream envFileIs) throws TAException {
-        if (!validateJsonBySchema(ENVIRONMENT_SCHEMA, envFileIs)) {
-            throw new TAException("Anomalies found. The resource is not a valid environment json file.");
-        }
+        checkProblems(validateJsonBySchema(ENVIRONMENT_SCHEMA, envFileIs),
+                "Anomalies found. The resource is not a valid environment json file.");
     }
 
     public static void validateRecommendation(String recommendationJsonFile) throws TAException {
-        if (!validateJsonBySchema(RECOMMENDATION_SCHEMA, recommendationJsonFile)) {
-            throw new TAException("Anomalies found. The resource " + recommendationJsonFile + " is not a valid recommendation json file.");
-        }
+        checkProblems(validateJsonBySchema(RECOMMENDATION_SCHEMA, recommendationJsonFile),
+                "Anomalies found. The resource " + recommendationJsonFile + " is not a valid recommendation json file.");
     }
 
     public static void validateRecommendation(InputStream recFileIs) throws TAException {
-        if (!validateJsonBySchema(RECOMMENDATION_SCHEMA, recFileIs)) {
-            throw new TAException("Anomalies found. The resource is not a valid recommendation json file.");
+        checkProblems(validateJsonBySchema(RECOMMENDATION_SCHEMA, recFileIs),
+                "Anomalies found. The resource is not a valid recommendation json file.");
+    }
+
+    private static String sha256(byte[] content) {
+        try {
+            return Base64.getEncoder().encodeToString(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform supports SHA-256
+            throw new IllegalStateException(e);
         }
     }
 
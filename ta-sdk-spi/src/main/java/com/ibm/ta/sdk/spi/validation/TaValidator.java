@@ -11,6 +11,14 @@ import com.ibm.ta.sdk.spi.util.Util;
 import org.apache.commons.cli.*;
 import org.tinylog.Logger;
 
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
 public class TaValidator {
 
     private static final String sdk_version = Util.getSDKVersion();
@@ -54,6 +62,8 @@ public class TaValidator {
                 String zipFile = commandLine.getOptionValue("z");
                 TaCollectionZipValidator.validateCollectionArchive(zipFile);
                 System.out.println("The resource " + zipFile + " is a valid collection archive file. No anomaly were found.");
+            } else if (commandLine.hasOption("b")) {
+                validateBatch(commandLine);
             } else {
                 getHelpPrintOut(options);
             }
@@ -66,4 +76,46 @@ public class TaValidator {
 
     }
 
+    private static void validateBatch(CommandLine commandLine) throws TAException, ParseException {
+        TaCollectionBatchValidator batchValidator = new TaCollectionBatchValidator();
+        batchValidator.setParallelism(getParallelism(commandLine));
+        TaCollectionBatchValidator.BatchResult result = batchValidator.validate(
+                TaCollectionBatchValidator.findArchives(Arrays.asList(commandLine.getOptionValues("b"))));
+
+        if (commandLine.hasOption("o")) {
+            String summaryFile = commandLine.getOptionValue("o");
+            try (Writer writer = Files.newBufferedWriter(Paths.get(summaryFile), StandardCharsets.UTF_8)) {
+                result.write(writer);
+            } catch (IOException e) {
+                throw new TAException("Cannot write the validation summary to " + summaryFile, e);
+            }
+            System.out.println(result.getValidCount() + " valid and " + result.getInvalidCount() +
+                    " invalid collection archive files. The summary is in " + summaryFile + ".");
+        } else {
+            Writer writer = new OutputStreamWriter(System.out, StandardCharsets.UTF_8);
+            result.write(writer);
+            try {
+                writer.flush();
+            } catch (IOException e) {
+                throw new TAException(e);
+            }
+        }
+    }
+
+    private static int getParallelism(CommandLine commandLine) throws ParseException {
+        if (!commandLine.hasOption("p")) {
+            return Runtime.getRuntime().availableProcessors();
+        }
+        String value = commandLine.getOptionValue("p");
+        try {
+            int parallelism = Integer.parseInt(value.trim());
+            if (parallelism >= 1) {
+                return parallelism;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new ParseException("Invalid value '" + value + "' for option '--parallelism'. The value must be 1 or more.");
+    }
+
 }
@@ -5,16 +5,30 @@
  */
 package com.ibm.ta.sdk.spi.plugin;
 
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonWriter;
+import com.ibm.ta.sdk.spi.assess.RecommendationJson;
 import com.ibm.ta.sdk.spi.assess.UTRecommendation;
+import com.ibm.ta.sdk.spi.collect.AssessmentUnit;
+import com.ibm.ta.sdk.spi.collect.ContentMask;
+import com.ibm.ta.sdk.spi.collect.ContentMaskProcessor;
+import com.ibm.ta.sdk.spi.collect.DataCollection;
 import com.ibm.ta.sdk.spi.collect.EnvironmentJson;
+import com.ibm.ta.sdk.spi.collect.StagedDataCollection;
+import com.ibm.ta.sdk.spi.collect.StagingMode;
 import com.ibm.ta.sdk.spi.collect.UTAssessmentUnit;
 import com.ibm.ta.sdk.spi.collect.UTDataCollection;
+import com.ibm.ta.sdk.spi.metrics.Metrics;
 import com.ibm.ta.sdk.spi.test.TestUtils;
+import com.ibm.ta.sdk.spi.util.Util;
+import com.ibm.ta.sdk.spi.util.ZipArchiveWriter;
 import com.ibm.ta.sdk.spi.validation.TaCollectionZipValidator;
 import com.ibm.ta.sdk.spi.validation.TaJsonFileValidator;
+import org.apache.commons.io.IOUtils;
 import org.tinylog.Logger;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -23,8 +37,19 @@ import org.opentest4j.AssertionFailedError;
 
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 import java.util.zip.ZipInputStream;
 
 import static com.ibm.ta.sdk.spi.test.TestUtils.*;
@@ -158,6 +183,309 @@ public class PluginProviderTest {
         }
     }
 
+    /*
+     * Verify config files are hard linked when the staging mode is hardlink, and masked files are copied
+     */
+    @Test
+    public void collectHardLinkStagingTest() {
+        final String collectionUnitName = "TestCollectionUnit";
+
+        System.setProperty(StagingMode.STAGING_MODE_PROPERTY, "hardlink");
+        try {
+            UTPluginProvider provider = new UTPluginProvider();
+            // Collect command
+            CliInputOption collectCmdAllOpt = new CliInputOption("a", "all", "Collect everything");
+            List<CliInputOption> collectionCmdOpts = new LinkedList<>(Arrays.asList(collectCmdAllOpt));
+            CliInputCommand collectCmd = CliInputCommand.buildCollectCommand(
+                    collectionCmdOpts, null, Arrays.asList("dataPath"));
+            provider.setCollectCommand(collectCmd);
+
+            UTDataCollection dc = new UTDataCollection(collectionUnitName, "environment.json", Arrays.asList("assessmentUnits/NewYork/NewYork.json"));
+            dc.getEnvironmentJson().setCollectionUnitName(collectionUnitName);
+            provider.setDataCollection(Arrays.asList(dc));
+
+            // Add config files to assessment unit, and mask configFile2
+            String configFile1 = "configFiles" + File.separator + "configFile1";
+            String configFile2 = "configFiles" + File.separator + "data" + File.separator + "configFile2";
+            UTAssessmentUnit newYorkAu = (UTAssessmentUnit) dc.getAssessmentUnits().get(0);
+            newYorkAu.setConfigFiles(Arrays.asList(configFile1, configFile2));
+            newYorkAu.setContentMasks(Arrays.asList(new ContentMask() {
+                @Override
+                public List<String> getFiles() {
+                    return Arrays.asList(".*configFile2");
+                }
+
+                @Override
+                public List<String> mask(List<String> content) {
+                    return Arrays.asList(MASK);
+                }
+            }));
+
+            List<String> cliCommands = new LinkedList<>(Arrays.asList(CliInputCommand.CMD_COLLECT, "-a", "hello"));
+            TestUtils.runPluginCommand(provider, cliCommands);
+
+            File auOutputDir = new File(Util.getAssessmentOutputDir(collectionUnitName), "NewYork");
+            Path stagedFile1 = new File(auOutputDir, "configFile1").toPath();
+            Path stagedFile2 = new File(auOutputDir, "configFile2").toPath();
+            assertTrue(Files.isSameFile(new File(TEST_RESOURCES_DIR, configFile1).toPath(), stagedFile1));
+            assertFalse(Files.isSameFile(new File(TEST_RESOURCES_DIR, configFile2).toPath(), stagedFile2));
+            assertEquals(ContentMask.MASK, new String(Files.readAllBytes(stagedFile2)).trim());
+            assertEquals("configFile2", new String(Files.readAllBytes(new File(TEST_RESOURCES_DIR, configFile2).toPath())).trim());
+        } catch (Exception e) {
+            throw new AssertionFailedError("Error with collect command with hard link staging", e);
+        } finally {
+            System.clearProperty(StagingMode.STAGING_MODE_PROPERTY);
+        }
+    }
+
+    /*
+     * Verify files masked one line at a time have the same content as files masked as a whole, and masking a hard
+     * link to a config file does not change the config file
+     */
+    @Test
+    public void contentMaskProcessorTest() {
+        Path maskDir = null;
+        try {
+            maskDir = Files.createTempDirectory("contentMask");
+            List<String> lines = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                lines.add(i % 3 == 0 ? "password=secret" + i : "name=server" + i);
+            }
+            lines.add("");
+            lines.add("last=password=secret");
+
+            ContentMask lineMask = new PasswordMask(true);
+            ContentMask fileMask = new PasswordMask(false);
+            ContentMaskProcessor processor = new ContentMaskProcessor(Arrays.asList(lineMask, fileMask));
+            assertEquals(Arrays.asList(lineMask, fileMask), processor.getContentMasks("/NewYork/server.properties"));
+            assertEquals(Arrays.asList(fileMask), processor.getContentMasks("/NewYork/server.xml"));
+
+            Path lineMasked = maskDir.resolve("lineMasked.properties");
+            Path fileMasked = maskDir.resolve("fileMasked.properties");
+            Files.write(lineMasked, lines);
+            Files.write(fileMasked, lines);
+            processor.mask(lineMasked, Arrays.asList(lineMask));
+            processor.mask(fileMasked, Arrays.asList(fileMask));
+            List<String> maskedLines = Files.readAllLines(lineMasked);
+            assertEquals(Files.readAllLines(fileMasked), maskedLines);
+            assertEquals(lines.size(), maskedLines.size());
+            assertEquals("password=" + ContentMask.MASK, maskedLines.get(0));
+            assertEquals("name=server1", maskedLines.get(1));
+            assertFalse(maskedLines.stream().anyMatch(line -> line.contains("secret")));
+
+            // Staged hard link is replaced by the masked file
+            Path configFile = maskDir.resolve("config.properties");
+            Path stagedFile = maskDir.resolve("staged.properties");
+            Files.write(configFile, lines);
+            Files.createLink(stagedFile, configFile);
+            processor.mask(stagedFile, Arrays.asList(lineMask));
+            assertFalse(Files.isSameFile(configFile, stagedFile));
+            assertEquals(lines, Files.readAllLines(configFile));
+            assertEquals(maskedLines, Files.readAllLines(stagedFile));
+        } catch (Exception e) {
+            throw new AssertionFailedError("Error masking config files", e);
+        } finally {
+            if (maskDir != null) {
+                TestUtils.deleteDir(maskDir.toFile());
+            }
+        }
+    }
+
+    // Masks the values of passwords, one line at a time or the whole file
+    private static class PasswordMask implements ContentMask {
+        private final boolean lineMask;
+
+        private PasswordMask(boolean lineMask) {
+            this.lineMask = lineMask;
+        }
+
+        @Override
+        public List<String> getFiles() {
+            return lineMask ? Arrays.asList(".*\\.properties") : Arrays.asList("*");
+        }
+
+        @Override
+        public List<String> mask(List<String> content) {
+            List<String> masked = new ArrayList<>();
+            for (String line : content) {
+                masked.add(line.replaceAll("password=.*", "password=" + MASK));
+            }
+            return masked;
+        }
+
+        @Override
+        public boolean isLineMask() {
+            return lineMask;
+        }
+    }
+
+    /*
+     * Verify config files staged on several threads keep the order of the config files of the assessment unit
+     */
+    @Test
+    public void collectParallelStagingOrderTest() {
+        final String collectionUnitName = "TestCollectionUnit";
+
+        System.setProperty(StagingMode.STAGING_THREADS_PROPERTY, "4");
+        Path configDir = null;
+        try {
+            configDir = Files.createTempDirectory("configFiles");
+            List<String> configFiles = new ArrayList<>();
+            List<String> expectedNames = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                String name = "configFile" + (50 - i);
+                Path configFile = configDir.resolve(name);
+                Files.write(configFile, name.getBytes());
+                configFiles.add(configFile.toAbsolutePath().toString());
+                expectedNames.add(name);
+            }
+
+            UTPluginProvider provider = new UTPluginProvider();
+            CliInputOption collectCmdAllOpt = new CliInputOption("a", "all", "Collect everything");
+            CliInputCommand collectCmd = CliInputCommand.buildCollectCommand(
+                    new LinkedList<>(Arrays.asList(collectCmdAllOpt)), null, Arrays.asList("dataPath"));
+            provider.setCollectCommand(collectCmd);
+
+            UTDataCollection dc = new UTDataCollection(collectionUnitName, "environment.json", Arrays.asList("assessmentUnits/NewYork/NewYork.json"));
+            dc.getEnvironmentJson().setCollectionUnitName(collectionUnitName);
+            provider.setDataCollection(Arrays.asList(dc));
+            UTAssessmentUnit newYorkAu = (UTAssessmentUnit) dc.getAssessmentUnits().get(0);
+            newYorkAu.setConfigFiles(configFiles);
+
+            List<String> cliCommands = new LinkedList<>(Arrays.asList(CliInputCommand.CMD_COLLECT, "-a", "hello"));
+            TestUtils.runPluginCommand(provider, cliCommands);
+
+            // Config files of the assessment unit point to the staged files, in the same order
+            File auOutputDir = new File(Util.getAssessmentOutputDir(collectionUnitName), "NewYork");
+            List<String> stagedNames = new ArrayList<>();
+            for (Path stagedFile : newYorkAu.getConfigFiles()) {
+                assertEquals(auOutputDir.getAbsoluteFile().toPath(), stagedFile.toAbsolutePath().getParent());
+                assertEquals(stagedFile.getFileName().toString(), new String(Files.readAllBytes(stagedFile)));
+                stagedNames.add(stagedFile.getFileName().toString());
+            }
+            assertEquals(expectedNames, stagedNames);
+        } catch (Exception e) {
+            throw new AssertionFailedError("Error with collect command with parallel staging", e);
+        } finally {
+            System.clearProperty(StagingMode.STAGING_THREADS_PROPERTY);
+            if (configDir != null) {
+                TestUtils.deleteDir(configDir.toFile());
+            }
+        }
+    }
+
+    /*
+     * Verify config files with the same name staged on several threads keep the last config file, and are masked once
+     */
+    @Test
+    public void collectParallelStagingSameNameTest() {
+        final String collectionUnitName = "TestCollectionUnit";
+
+        System.setProperty(StagingMode.STAGING_THREADS_PROPERTY, "4");
+        Path configDir = null;
+        try {
+            configDir = Files.createTempDirectory("configFiles");
+            List<String> configFiles = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                Path configFile = configDir.resolve("node" + i).resolve("resources.xml");
+                Files.createDirectories(configFile.getParent());
+                Files.write(configFile, ("node" + i).getBytes());
+                configFiles.add(configFile.toAbsolutePath().toString());
+            }
+
+            UTPluginProvider provider = new UTPluginProvider();
+            CliInputOption collectCmdAllOpt = new CliInputOption("a", "all", "Collect everything");
+            CliInputCommand collectCmd = CliInputCommand.buildCollectCommand(
+                    new LinkedList<>(Arrays.asList(collectCmdAllOpt)), null, Arrays.asList("dataPath"));
+            provider.setCollectCommand(collectCmd);
+
+            UTDataCollection dc = new UTDataCollection(collectionUnitName, "environment.json", Arrays.asList("assessmentUnits/NewYork/NewYork.json"));
+            dc.getEnvironmentJson().setCollectionUnitName(collectionUnitName);
+            provider.setDataCollection(Arrays.asList(dc));
+            UTAssessmentUnit newYorkAu = (UTAssessmentUnit) dc.getAssessmentUnits().get(0);
+            newYorkAu.setConfigFiles(configFiles);
+            AtomicInteger maskedFiles = new AtomicInteger();
+            newYorkAu.setContentMasks(Arrays.asList(new ContentMask() {
+                @Override
+                public List<String> getFiles() {
+                    return Arrays.asList(".*resources.xml");
+                }
+
+                @Override
+                public List<String> mask(List<String> content) {
+                    maskedFiles.incrementAndGet();
+                    List<String> maskedContent = new ArrayList<>(content);
+                    maskedContent.add(MASK);
+                    return maskedContent;
+                }
+            }));
+
+            List<String> cliCommands = new LinkedList<>(Arrays.asList(CliInputCommand.CMD_COLLECT, "-a", "hello"));
+            TestUtils.runPluginCommand(provider, cliCommands);
+
+            // The config file last in the list is kept, as when the files are staged one after the other
+            Path stagedFile = new File(new File(Util.getAssessmentOutputDir(collectionUnitName), "NewYork"), "resources.xml").toPath();
+            assertEquals(Arrays.asList("node19", ContentMask.MASK), Files.readAllLines(stagedFile));
+            assertEquals(1, maskedFiles.get());
+            assertEquals(20, newYorkAu.getConfigFiles().size());
+            for (Path configFile : newYorkAu.getConfigFiles()) {
+                assertEquals(stagedFile.toAbsolutePath(), configFile.toAbsolutePath());
+            }
+        } catch (Exception e) {
+            throw new AssertionFailedError("Error with collect command with parallel staging of files with the same name", e);
+        } finally {
+            System.clearProperty(StagingMode.STAGING_THREADS_PROPERTY);
+            if (configDir != null) {
+                TestUtils.deleteDir(configDir.toFile());
+            }
+        }
+    }
+
+    /*
+     * Verify the error of the first config file that fails to stage is reported when files are staged on several threads
+     */
+    @Test
+    public void collectParallelStagingErrorTest() {
+        final String collectionUnitName = "TestCollectionUnit";
+
+        System.setProperty(StagingMode.STAGING_THREADS_PROPERTY, "4");
+        Path configDir = null;
+        try {
+            // Two missing config files between existing ones
+            configDir = Files.createTempDirectory("configFiles");
+            List<String> configFiles = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                Path configFile = configDir.resolve("configFile" + i);
+                Files.write(configFile, configFile.getFileName().toString().getBytes());
+                configFiles.add(configFile.toAbsolutePath().toString());
+            }
+            configFiles.add(8, configDir.resolve("missingConfigFile1").toAbsolutePath().toString());
+            configFiles.add(16, configDir.resolve("missingConfigFile2").toAbsolutePath().toString());
+
+            UTPluginProvider provider = new UTPluginProvider();
+            CliInputOption collectCmdAllOpt = new CliInputOption("a", "all", "Collect everything");
+            CliInputCommand collectCmd = CliInputCommand.buildCollectCommand(
+                    new LinkedList<>(Arrays.asList(collectCmdAllOpt)), null, Arrays.asList("dataPath"));
+            provider.setCollectCommand(collectCmd);
+
+            UTDataCollection dc = new UTDataCollection(collectionUnitName, "environment.json", Arrays.asList("assessmentUnits/NewYork/NewYork.json"));
+            dc.getEnvironmentJson().setCollectionUnitName(collectionUnitName);
+            provider.setDataCollection(Arrays.asList(dc));
+            ((UTAssessmentUnit) dc.getAssessmentUnits().get(0)).setConfigFiles(configFiles);
+
+            List<String> cliCommands = new LinkedList<>(Arrays.asList(CliInputCommand.CMD_COLLECT, "-a", "hello"));
+            Exception thrown = assertThrows(Exception.class, () -> TestUtils.runPluginCommand(provider, cliCommands));
+            assertTrue(thrown.getMessage().contains("missingConfigFile1"), thrown.getMessage());
+        } catch (Exception e) {
+            throw new AssertionFailedError("Error with collect command with parallel staging", e);
+        } finally {
+            System.clearProperty(StagingMode.STAGING_THREADS_PROPERTY);
+            if (configDir != null) {
+                TestUtils.deleteDir(configDir.toFile());
+            }
+        }
+    }
+
     /*
      * Test a single collection that contains multiple asssessment units
      */
@@ -354,6 +682,211 @@ public class PluginProviderTest {
     }
 
 
+    /*
+     * Test assessment with the skip collect option, which loads the collection from the output directory
+     */
+    @Test
+    public void assessSkipCollectTest() {
+        final String collectionUnitName = "TestCollectionUnit";
+        try {
+            UTPluginProvider provider = new UTPluginProvider();
+            CliInputOption assessCmdAllOpt = new CliInputOption("a", "all", "Collect everything");
+            List<CliInputOption> assessCmdOpts = new LinkedList<>(Arrays.asList(assessCmdAllOpt));
+            CliInputCommand assessCmd = CliInputCommand.buildAssessCommand(assessCmdOpts, null,
+                    Arrays.asList("dataPath"));
+            provider.setAssessCommand(assessCmd);
+
+            UTDataCollection dc = new UTDataCollection(collectionUnitName, "environment.json", Arrays.asList("assessmentUnits/NewYork/NewYork.json"));
+            dc.getEnvironmentJson().setCollectionUnitName(collectionUnitName);
+            String configFile1 = "configFiles" + File.separator + "configFile1";
+            ((UTAssessmentUnit) dc.getAssessmentUnits().get(0)).setConfigFiles(Arrays.asList(configFile1));
+            provider.setDataCollection(Arrays.asList(dc));
+
+            Path recommendationsJsonFile = new File(TestUtils.TEST_RESOURCES_DIR,
+                    "assessmentUnits/NewYork/recommendations.json").toPath();
+            UTRecommendation recommendation = TestUtils.buildRecommendationsJsonObj(recommendationsJsonFile);
+            provider.setRecommendations(Arrays.asList(recommendation));
+
+            List<String> cliCommands = new LinkedList<>(Arrays.asList(CliInputCommand.CMD_ASSESS, "-a", "hello"));
+            TestUtils.runPluginCommand(provider, cliCommands);
+
+            // Assess again without a data collection from the provider
+            File recommendationsJson = new File(Util.getAssessmentOutputDir(collectionUnitName), "recommendations.json");
+            recommendationsJson.delete();
+            provider.setDataCollection(null);
+            cliCommands = new LinkedList<>(Arrays.asList(CliInputCommand.CMD_ASSESS, "--skipcollect", "-a", "hello"));
+            TestUtils.runPluginCommand(provider, cliCommands);
+
+            Map<String, List<String>> auConfigFiles = new HashMap<>();
+            auConfigFiles.put("NewYork", Arrays.asList("configFile1"));
+            assertCollection(collectionUnitName, Arrays.asList("NewYork"), auConfigFiles);
+            assertRecommendationsJson(collectionUnitName, recommendationsJsonFile);
+
+            // Staged config files are the config files of the loaded assessment unit
+            DataCollection stagedDc = StagedDataCollection.load(Util.getAssessmentOutputDir(collectionUnitName));
+            assertEquals(collectionUnitName, stagedDc.getEnvironment().getCollectionUnitName());
+            AssessmentUnit stagedAu = stagedDc.getAssessmentUnits().get(0);
+            assertEquals("NewYork", stagedAu.getName());
+            assertEquals(Arrays.asList(new File(Util.getAssessmentOutputDir(collectionUnitName), "NewYork" + File.separator + "configFile1").toPath()),
+                    stagedAu.getConfigFiles());
+        } catch (Exception e) {
+            throw new AssertionFailedError("Error with assess command with skip collect option", e);
+        }
+    }
+
+    /*
+     * Verify recommendations.json streamed to a writer is the same JSON as serializing a RecommendationJson, including
+     * additional info attributes that replace the name and the targets of an assessment unit
+     */
+    @Test
+    public void recommendationJsonWriteTest() {
+        try {
+            Map<String, Object> renamedInfo = new HashMap<>();
+            renamedInfo.put("name", "NewYorkRenamed");
+            renamedInfo.put("servers", 3);
+            Map<String, Object> targetsInfo = new HashMap<>();
+            targetsInfo.put("targets", "none");
+            targetsInfo.put("databaseSize", "20G");
+
+            Path recommendationsJsonFile = new File(TestUtils.TEST_RESOURCES_DIR,
+                    "assessmentUnits/NewYork/recommendations.json").toPath();
+            Gson gson = new GsonBuilder().excludeFieldsWithoutExposeAnnotation().create();
+            for (Map<String, Object> additionalInfo : Arrays.asList(renamedInfo, targetsInfo)) {
+                for (List<String> filterTargets : Arrays.asList(null, Arrays.asList("NO_TARGET"))) {
+                    UTDataCollection dc = new UTDataCollection("TestCollectionUnit", "environment.json", Arrays.asList("assessmentUnits/NewYork/NewYork.json"));
+                    dc.getAssessmentUnits().get(0).getAdditionalInfo().putAll(additionalInfo);
+
+                    String expectedJson = gson.toJson(new RecommendationJson(TestUtils.buildRecommendationsJsonObj(recommendationsJsonFile),
+                            dc.getEnvironment(), dc.getAssessmentUnits(), filterTargets));
+                    StringWriter out = new StringWriter();
+                    try (JsonWriter jsonWriter = gson.newJsonWriter(out)) {
+                        RecommendationJson.write(jsonWriter, gson, TestUtils.buildRecommendationsJsonObj(recommendationsJsonFile),
+                                dc.getEnvironment(), dc.getAssessmentUnits(), filterTargets);
+                    }
+                    assertEquals(expectedJson, out.toString());
+                }
+            }
+        } catch (Exception e) {
+            throw new AssertionFailedError("Error writing recommendations json", e);
+        }
+    }
+
+    /*
+     * Test that assessment with the skip collect option writes the same recommendations.json as a full assessment,
+     * including the additional info of the assessment units
+     */
+    @Test
+    public void assessSkipCollectAdditionalInfoTest() {
+        final String collectionUnitName = "TestCollectionUnit";
+        try {
+            UTPluginProvider provider = new UTPluginProvider();
+            CliInputOption assessCmdAllOpt = new CliInputOption("a", "all", "Collect everything");
+            List<CliInputOption> assessCmdOpts = new LinkedList<>(Arrays.asList(assessCmdAllOpt));
+            CliInputCommand assessCmd = CliInputCommand.buildAssessCommand(assessCmdOpts, null,
+                    Arrays.asList("dataPath"));
+            provider.setAssessCommand(assessCmd);
+
+            UTDataCollection dc = new UTDataCollection(collectionUnitName, "environment.json", Arrays.asList("assessmentUnits/NewYork/NewYork.json"));
+            dc.getEnvironmentJson().setCollectionUnitName(collectionUnitName);
+            Map<String, Object> additionalInfo = dc.getAssessmentUnits().get(0).getAdditionalInfo();
+            additionalInfo.put("databaseSize", "20G");
+            additionalInfo.put("servers", 3);
+            additionalInfo.put("heapRatio", 0.75);
+            additionalInfo.put("ports", Arrays.asList(9080, 9443));
+            provider.setDataCollection(Arrays.asList(dc));
+
+            Path recommendationsJsonFile = new File(TestUtils.TEST_RESOURCES_DIR,
+                    "assessmentUnits/NewYork/recommendations.json").toPath();
+            provider.setRecommendations(Arrays.asList(TestUtils.buildRecommendationsJsonObj(recommendationsJsonFile)));
+
+            List<String> cliCommands = new LinkedList<>(Arrays.asList(CliInputCommand.CMD_ASSESS, "-a", "hello"));
+            TestUtils.runPluginCommand(provider, cliCommands);
+            File recommendationsJson = new File(Util.getAssessmentOutputDir(collectionUnitName), "recommendations.json");
+            String collectedRecommendations = new String(Files.readAllBytes(recommendationsJson.toPath()), StandardCharsets.UTF_8);
+            assertTrue(collectedRecommendations.contains("\"databaseSize\": \"20G\""));
+
+            // Assess again without a data collection from the provider
+            recommendationsJson.delete();
+            provider.setDataCollection(null);
+            provider.setRecommendations(Arrays.asList(TestUtils.buildRecommendationsJsonObj(recommendationsJsonFile)));
+            cliCommands = new LinkedList<>(Arrays.asList(CliInputCommand.CMD_ASSESS, "--skipcollect", "-a", "hello"));
+            TestUtils.runPluginCommand(provider, cliCommands);
+
+            assertEquals(collectedRecommendations,
+                    new String(Files.readAllBytes(recommendationsJson.toPath()), StandardCharsets.UTF_8));
+        } catch (Exception e) {
+            throw new AssertionFailedError("Error with assess command with skip collect option", e);
+        }
+    }
+
+    /*
+     * Test assessment with the metrics option, written as JSON and in the Prometheus text format
+     */
+    @Test
+    public void assessMetricsOptionTest() {
+        final String collectionUnitName = "TestCollectionUnit";
+        try {
+            UTPluginProvider provider = new UTPluginProvider();
+            CliInputOption assessCmdAllOpt = new CliInputOption("a", "all", "Collect everything");
+            List<CliInputOption> assessCmdOpts = new LinkedList<>(Arrays.asList(assessCmdAllOpt));
+            CliInputCommand assessCmd = CliInputCommand.buildAssessCommand(assessCmdOpts, null,
+                    Arrays.asList("dataPath"));
+            provider.setAssessCommand(assessCmd);
+
+            UTDataCollection dc = new UTDataCollection(collectionUnitName, "environment.json", Arrays.asList("assessmentUnits/NewYork/NewYork.json"));
+            dc.getEnvironmentJson().setCollectionUnitName(collectionUnitName);
+            String configFile1 = "configFiles" + File.separator + "configFile1";
+            ((UTAssessmentUnit) dc.getAssessmentUnits().get(0)).setConfigFiles(Arrays.asList(configFile1));
+            provider.setDataCollection(Arrays.asList(dc));
+
+            Path recommendationsJsonFile = new File(TestUtils.TEST_RESOURCES_DIR,
+                    "assessmentUnits/NewYork/recommendations.json").toPath();
+            UTRecommendation recommendation = TestUtils.buildRecommendationsJsonObj(recommendationsJsonFile);
+            provider.setRecommendations(Arrays.asList(recommendation));
+
+            File metricsJsonFile = new File(TestUtils.TEST_OUTPUT_DIR, "metrics.json");
+            List<String> cliCommands = new LinkedList<>(Arrays.asList(CliInputCommand.CMD_ASSESS, "--metrics",
+                    metricsJsonFile.getPath(), "-a", "hello"));
+            TestUtils.runPluginCommand(provider, cliCommands);
+            assertRecommendationsJson(collectionUnitName, recommendationsJsonFile);
+            assertFalse(Metrics.get().isEnabled());
+
+            JsonObject metricsJson = getJson(metricsJsonFile.toPath()).getAsJsonObject();
+            assertEquals(CliInputCommand.CMD_ASSESS, metricsJson.get("command").getAsString());
+            Set<String> phases = new HashSet<>();
+            long zipBytesWritten = 0;
+            for (JsonElement metricElement : metricsJson.get("metrics").getAsJsonArray()) {
+                JsonObject metric = metricElement.getAsJsonObject();
+                JsonObject labels = metric.get("labels").getAsJsonObject();
+                if (Metrics.PHASE_SECONDS.equals(metric.get("name").getAsString())) {
+                    phases.add(labels.get(Metrics.LABEL_PHASE).getAsString());
+                    assertEquals(1, metric.get("count").getAsLong());
+                } else if (Metrics.BYTES_WRITTEN.equals(metric.get("name").getAsString()) &&
+                        Metrics.PHASE_ZIP.equals(labels.get(Metrics.LABEL_PHASE).getAsString())) {
+                    assertEquals(collectionUnitName, labels.get(Metrics.LABEL_COLLECTION_UNIT).getAsString());
+                    zipBytesWritten = metric.get("value").getAsLong();
+                }
+            }
+            assertEquals(new HashSet<>(Arrays.asList(Metrics.PHASE_COMMAND, Metrics.PHASE_COLLECT, Metrics.PHASE_STAGE,
+                    Metrics.PHASE_MASK, Metrics.PHASE_ASSESS, Metrics.PHASE_WRITE_RECOMMENDATIONS, Metrics.PHASE_ZIP)), phases);
+            assertEquals(new File(TestUtils.TEST_OUTPUT_DIR, collectionUnitName + ".zip").length(), zipBytesWritten);
+
+            // Prometheus text format
+            File metricsPromFile = new File(TestUtils.TEST_OUTPUT_DIR, "metrics.prom");
+            cliCommands = new LinkedList<>(Arrays.asList(CliInputCommand.CMD_ASSESS, "--metrics",
+                    metricsPromFile.getPath(), "-a", "hello"));
+            TestUtils.runPluginCommand(provider, cliCommands);
+            List<String> lines = Files.readAllLines(metricsPromFile.toPath());
+            assertTrue(lines.contains("# TYPE " + Metrics.PHASE_SECONDS + " summary"));
+            assertTrue(lines.contains("# TYPE " + Metrics.BYTES_WRITTEN + " counter"));
+            assertTrue(lines.stream().anyMatch(line -> line.startsWith(Metrics.PHASE_SECONDS + "_count{" +
+                    Metrics.LABEL_PHASE + "=\"" + Metrics.PHASE_ZIP + "\"," +
+                    Metrics.LABEL_COLLECTION_UNIT + "=\"" + collectionUnitName + "\"} 1")));
+        } catch (Exception e) {
+            throw new AssertionFailedError("Error with assess command with metrics option", e);
+        }
+    }
+
     /*
      * Test assessment that returns multiple collections and recommendations.json files
      */
@@ -406,15 +939,77 @@ public class PluginProviderTest {
             File collectectionZip1 = new File(TEST_OUTPUT_DIR, collectionUnitName1 + ".zip");
             assertTrue(collectectionZip1.exists());
             TaCollectionZipValidator.validateArchive(new ZipInputStream(new FileInputStream(collectectionZip1)));
+            try (ZipFile zipFile = new ZipFile(collectectionZip1)) {
+                TaCollectionZipValidator.validateArchive(zipFile);
+            }
 
             File collectectionZip2 = new File(TEST_OUTPUT_DIR, collectionUnitName2 + ".zip");
             assertTrue(collectectionZip2.exists());
             TaCollectionZipValidator.validateArchive(new ZipInputStream(new FileInputStream(collectectionZip2)));
+            try (ZipFile zipFile = new ZipFile(collectectionZip2)) {
+                TaCollectionZipValidator.validateArchive(zipFile);
+            }
         } catch (Exception e) {
             throw new AssertionFailedError("Error with assess command for multiple DataCollections:", e);
         }
     }
 
+    /*
+     * Test assessment of multiple collections with the parallelism option
+     */
+    @Test
+    public void assessParallelismOptionTest() {
+        final String collectionUnitName1 = "TestCollectionUnit";
+        final String collectionUnitName2 = "TestCollectionUnit2";
+
+        try {
+            UTPluginProvider provider = new UTPluginProvider();
+            CliInputOption assessCmdAllOpt = new CliInputOption("a", "all", "Collect everything");
+            List<CliInputOption> collectionCmdOpts = new LinkedList<>(Arrays.asList(assessCmdAllOpt));
+            CliInputCommand assessCmd = CliInputCommand.buildAssessCommand(
+                    collectionCmdOpts, null, Arrays.asList("dataPath"));
+            provider.setAssessCommand(assessCmd);
+
+            // 2 data collections, listed in reverse order
+            UTDataCollection dc = new UTDataCollection(collectionUnitName1, "environment.json", Arrays.asList("assessmentUnits/NewYork/NewYork.json"));
+            dc.getEnvironmentJson().setCollectionUnitName(collectionUnitName1);
+            UTDataCollection dc2 = new UTDataCollection(collectionUnitName2, "environment.json", Arrays.asList("assessmentUnits/London/London.json"));
+            dc2.getEnvironmentJson().setCollectionUnitName(collectionUnitName2);
+            provider.setDataCollection(Arrays.asList(dc2, dc));
+
+            Path recommendationsJsonFile = new File(TestUtils.TEST_RESOURCES_DIR,
+                    "assessmentUnits/NewYork/recommendations.json").toPath();
+            UTRecommendation recommendation = TestUtils.buildRecommendationsJsonObj(recommendationsJsonFile);
+            Path recommendationsJsonFile2 = new File(TestUtils.TEST_RESOURCES_DIR,
+                    "assessmentUnits/London/recommendations.json").toPath();
+            UTRecommendation recommendation2 = TestUtils.buildRecommendationsJsonObj(recommendationsJsonFile2);
+            provider.setRecommendations(Arrays.asList(recommendation2, recommendation));
+
+            List<String> cliCommands = new LinkedList<>(Arrays.asList(CliInputCommand.CMD_ASSESS, "--parallelism", "2", "-a", "hello"));
+            TestUtils.runPluginCommand(provider, cliCommands);
+
+            assertCollection(collectionUnitName1, Arrays.asList("NewYork"), new HashMap<>());
+            assertCollection(collectionUnitName2, Arrays.asList("London"), new HashMap<>());
+            assertRecommendationsJson(collectionUnitName1, recommendationsJsonFile);
+            assertRecommendationsJson(collectionUnitName2, recommendationsJsonFile2);
+
+            // scan_results.json lists the zip files in a stable order
+            JsonObject scanResults = getJson(new File("scan_results.json").toPath()).getAsJsonObject();
+            assertEquals(0, scanResults.get("return_code").getAsInt());
+            JsonArray collectionFiles = scanResults.get("collection_files").getAsJsonArray();
+            assertEquals(2, collectionFiles.size());
+            assertTrue(collectionFiles.get(0).getAsString().endsWith(collectionUnitName1 + ".zip"));
+            assertTrue(collectionFiles.get(1).getAsString().endsWith(collectionUnitName2 + ".zip"));
+
+            // Invalid parallelism value
+            cliCommands = new LinkedList<>(Arrays.asList(CliInputCommand.CMD_ASSESS, "--parallelism", "0", "-a", "hello"));
+            List<String> invalidCliCommands = cliCommands;
+            assertThrows(IllegalArgumentException.class, () -> TestUtils.runPluginCommand(provider, invalidCliCommands));
+        } catch (Exception e) {
+            throw new AssertionFailedError("Error with assess command with parallelism option:", e);
+        }
+    }
+
     /*
      * Test assessment with the target option to select targets in the recommendations.json
      */
@@ -540,6 +1135,173 @@ public class PluginProviderTest {
     }
 
 
+    /*
+     * Verify the collection zip excludes the manifest and rule profile, and only includes the metadata, targets and
+     * reports of the assessment units when the collection has sensitive data
+     */
+    @Test
+    public void zipCollectionSensitiveDataTest() {
+        try {
+            File collectionDir = createZipCollectionDir("TestCollectionUnit");
+            String auDir = "TestCollectionUnit/NewYork/";
+            List<String> commonEntries = Arrays.asList("TestCollectionUnit/", "TestCollectionUnit/environment.json",
+                    "TestCollectionUnit/recommendations.json", auDir,
+                    auDir + TADataCollector.ASSESSMENTUNIT_META_JSON_FILE, auDir + TADataCollector.TARGETS_JSON_FILE,
+                    auDir + "recommendations_OPEN_LIBERTY.html");
+
+            Path zipFile = new File(TEST_OUTPUT_DIR, "TestCollectionUnit.zip").toPath();
+            Util.zipCollection(zipFile, collectionDir, false);
+            Set<String> expectedEntries = new TreeSet<>(commonEntries);
+            expectedEntries.add(auDir + TADataCollector.ASSESSMENTUNIT_DATA_JSON_FILE);
+            expectedEntries.add(auDir + "configFile1");
+            assertEquals(expectedEntries, getZipEntryNames(zipFile));
+
+            Util.zipCollection(zipFile, collectionDir, true);
+            assertEquals(new TreeSet<>(commonEntries), getZipEntryNames(zipFile));
+        } catch (Exception e) {
+            throw new AssertionFailedError("Error zipping collection", e);
+        }
+    }
+
+    /*
+     * Verify reports added to an existing collection zip replace the entries with the same name, and the other
+     * entries are unchanged
+     */
+    @Test
+    public void updateZipCollectionTest() {
+        try {
+            File collectionDir = createZipCollectionDir("TestCollectionUnit");
+            Path zipFile = new File(TEST_OUTPUT_DIR, "TestCollectionUnit.zip").toPath();
+            Util.zipCollection(zipFile, collectionDir, false);
+
+            File auDir = new File(collectionDir, "NewYork");
+            File replacedReport = new File(auDir, "recommendations_OPEN_LIBERTY.html");
+            File newReport = new File(auDir, "recommendations_OPEN_LIBERTY.pdf");
+            Files.write(replacedReport.toPath(), "<html>new report</html>".getBytes());
+            Files.write(newReport.toPath(), "new pdf report".getBytes());
+            Util.updateZipCollection(zipFile, collectionDir, Arrays.asList(replacedReport, newReport));
+
+            try (ZipFile zip = new ZipFile(zipFile.toFile())) {
+                assertEquals("<html>new report</html>", getZipEntryContent(zip, "TestCollectionUnit/NewYork/recommendations_OPEN_LIBERTY.html"));
+                assertEquals("new pdf report", getZipEntryContent(zip, "TestCollectionUnit/NewYork/recommendations_OPEN_LIBERTY.pdf"));
+                assertEquals("configFile1", getZipEntryContent(zip, "TestCollectionUnit/NewYork/configFile1"));
+                assertEquals("{}", getZipEntryContent(zip, "TestCollectionUnit/environment.json"));
+                long reports = Collections.list(zip.entries()).stream()
+                        .filter(entry -> entry.getName().startsWith("TestCollectionUnit/NewYork/recommendations_"))
+                        .count();
+                assertEquals(2, reports);
+            }
+        } catch (Exception e) {
+            throw new AssertionFailedError("Error updating collection zip", e);
+        }
+    }
+
+    /*
+     * Verify compressed files are stored and other files are deflated, and the zip is the same for any number of
+     * threads
+     */
+    @Test
+    public void zipArchiveWriterTest() {
+        try {
+            File dir = new File(TEST_OUTPUT_DIR, "zipArchive");
+            dir.mkdirs();
+            File textFile = new File(dir, "config.xml");
+            File jarFile = new File(dir, "app.jar");
+            File largeFile = new File(dir, "large.log");
+            StringBuilder text = new StringBuilder();
+            for (int i = 0; i < 1000; i++) {
+                text.append("<server name=\"server").append(i).append("\"/>\n");
+            }
+            Files.write(textFile.toPath(), text.toString().getBytes());
+            byte[] jarContent = new byte[64 * 1024];
+            new Random(1).nextBytes(jarContent);
+            Files.write(jarFile.toPath(), jarContent);
+            byte[] largeContent = new byte[(int) ZipArchiveWriter.MAX_BUFFERED_ENTRY_SIZE + 1024];
+            Arrays.fill(largeContent, (byte) 'a');
+            Files.write(largeFile.toPath(), largeContent);
+
+            List<ZipArchiveWriter.Entry> entries = new ArrayList<>();
+            entries.add(new ZipArchiveWriter.Entry("zipArchive/", dir));
+            for (int i = 0; i < 20; i++) {
+                File file = new File(dir, "file" + i + ".txt");
+                Files.write(file.toPath(), ("file" + i).getBytes());
+                entries.add(new ZipArchiveWriter.Entry("zipArchive/" + file.getName(), file));
+            }
+            entries.add(new ZipArchiveWriter.Entry("zipArchive/config.xml", textFile));
+            entries.add(new ZipArchiveWriter.Entry("zipArchive/app.jar", jarFile));
+            entries.add(new ZipArchiveWriter.Entry("zipArchive/large.log", largeFile));
+            List<String> entryNames = new ArrayList<>();
+            for (ZipArchiveWriter.Entry entry : entries) {
+                entryNames.add(entry.getName());
+            }
+
+            Path zip1 = new File(TEST_OUTPUT_DIR, "zip1.zip").toPath();
+            Path zip4 = new File(TEST_OUTPUT_DIR, "zip4.zip").toPath();
+            new ZipArchiveWriter(6, 1).write(zip1, entries);
+            new ZipArchiveWriter(6, 4).write(zip4, entries);
+            assertArrayEquals(Files.readAllBytes(zip1), Files.readAllBytes(zip4));
+
+            try (ZipFile zip = new ZipFile(zip4.toFile())) {
+                assertEquals(entryNames, Collections.list(zip.entries()).stream().map(ZipEntry::getName).collect(Collectors.toList()));
+                assertEquals(ZipEntry.DEFLATED, zip.getEntry("zipArchive/config.xml").getMethod());
+                assertEquals(ZipEntry.DEFLATED, zip.getEntry("zipArchive/large.log").getMethod());
+                assertEquals(ZipEntry.STORED, zip.getEntry("zipArchive/app.jar").getMethod());
+                assertEquals(text.toString(), getZipEntryContent(zip, "zipArchive/config.xml"));
+                assertEquals(largeContent.length, zip.getEntry("zipArchive/large.log").getSize());
+                assertEquals("file7", getZipEntryContent(zip, "zipArchive/file7.txt"));
+                try (InputStream is = zip.getInputStream(zip.getEntry("zipArchive/app.jar"))) {
+                    assertArrayEquals(jarContent, IOUtils.toByteArray(is));
+                }
+            }
+
+            // Level 0 stores all the files
+            Path zip0 = new File(TEST_OUTPUT_DIR, "zip0.zip").toPath();
+            ExecutorService executor = Executors.newFixedThreadPool(2);
+            try {
+                new ZipArchiveWriter(0, 2).write(zip0, entries, executor);
+            } finally {
+                executor.shutdown();
+            }
+            try (ZipFile zip = new ZipFile(zip0.toFile())) {
+                assertEquals(ZipEntry.STORED, zip.getEntry("zipArchive/config.xml").getMethod());
+                assertEquals(text.toString(), getZipEntryContent(zip, "zipArchive/config.xml"));
+            }
+        } catch (Exception e) {
+            throw new AssertionFailedError("Error writing zip archive", e);
+        }
+    }
+
+    // Collection directory with one assessment unit, and the manifest and rule profile of the assessment
+    private File createZipCollectionDir(String collectionUnitName) throws IOException {
+        File collectionDir = new File(TEST_OUTPUT_DIR, collectionUnitName);
+        File auDir = new File(collectionDir, "NewYork");
+        auDir.mkdirs();
+        Files.write(new File(collectionDir, TADataCollector.ENVIRONMENT_JSON_FILE).toPath(), "{}".getBytes());
+        Files.write(new File(collectionDir, TADataCollector.RECOMMENDATIONS_JSON_FILE).toPath(), "{}".getBytes());
+        Files.write(new File(collectionDir, TADataCollector.ASSESSMENT_MANIFEST_JSON_FILE).toPath(), "{}".getBytes());
+        Files.write(new File(collectionDir, TADataCollector.RULE_PROFILE_JSON_FILE).toPath(), "{}".getBytes());
+        Files.write(new File(auDir, TADataCollector.ASSESSMENTUNIT_META_JSON_FILE).toPath(), "{}".getBytes());
+        Files.write(new File(auDir, TADataCollector.ASSESSMENTUNIT_DATA_JSON_FILE).toPath(), "{}".getBytes());
+        Files.write(new File(auDir, TADataCollector.TARGETS_JSON_FILE).toPath(), "{}".getBytes());
+        Files.write(new File(auDir, "recommendations_OPEN_LIBERTY.html").toPath(), "<html>report</html>".getBytes());
+        Files.write(new File(auDir, "configFile1").toPath(), "configFile1".getBytes());
+        return collectionDir;
+    }
+
+    private Set<String> getZipEntryNames(Path zipFile) throws IOException {
+        try (ZipFile zip = new ZipFile(zipFile.toFile())) {
+            return Collections.list(zip.entries()).stream().map(ZipEntry::getName).collect(Collectors.toCollection(TreeSet::new));
+        }
+    }
+
+    private String getZipEntryContent(ZipFile zip, String name) throws IOException {
+        ZipEntry entry = zip.getEntry(name);
+        assertNotNull(entry, name);
+        try (InputStream is = zip.getInputStream(entry)) {
+            return new String(IOUtils.toByteArray(is));
+        }
+    }
+
     @BeforeEach
     @AfterEach
     public void cleanUp() {
@@ -8,6 +8,7 @@ package com.ibm.ta.sdk.spi.validation;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
 import com.ibm.ta.sdk.spi.assess.UTRecommendation;
 import com.ibm.ta.sdk.spi.collect.EnvironmentJson;
 import com.ibm.ta.sdk.spi.collect.UTAssessmentUnit;
@@ -24,11 +25,21 @@ import org.junit.jupiter.api.Test;
 import org.opentest4j.AssertionFailedError;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.io.StringWriter;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
 
 import static com.ibm.ta.sdk.spi.test.TestUtils.TEST_OUTPUT_DIR;
 import static com.ibm.ta.sdk.spi.test.TestUtils.getJson;
@@ -69,4 +80,138 @@ public class ValidationTest {
         assertTrue(e.getMessage().contains("Anomalies found."));
 
     }
+
+    @Test
+    public void concurrentValidationTest() throws Exception {
+        String recFile = new File(TestUtils.TEST_RESOURCES_DIR, "assessmentUnits/London/recommendations.json").getAbsolutePath();
+        JsonElement recJson = getJson(new File(recFile).toPath());
+        recJson.getAsJsonObject().remove("collectionUnitType");
+        byte[] invalidRec = recJson.toString().getBytes();
+
+        // The compiled schemas are shared by the validations, each must still report its own problems
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                boolean valid = i % 2 == 0;
+                results.add(executor.submit(() -> {
+                    try {
+                        if (valid) {
+                            TaJsonFileValidator.validateRecommendation(recFile);
+                        } else {
+                            TaJsonFileValidator.validateRecommendation(new ByteArrayInputStream(invalidRec));
+                        }
+                        return true;
+                    } catch (TAException e) {
+                        return false;
+                    }
+                }));
+            }
+            for (int i = 0; i < results.size(); i++) {
+                assertEquals(i % 2 == 0, results.get(i).get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void collectionArchiveTest() throws Exception {
+        File zipFile = new File(TEST_OUTPUT_DIR, "noEnvironment.zip");
+        zipFile.getParentFile().mkdirs();
+        try (ZipOutputStream zos = new ZipOutputStream(new FileOutputStream(zipFile))) {
+            zos.putNextEntry(new ZipEntry("collection1/recommendations.json"));
+            zos.write(Files.readAllBytes(new File(TestUtils.TEST_RESOURCES_DIR, "assessmentUnits/London/recommendations.json").toPath()));
+            zos.closeEntry();
+        }
+
+        try {
+            Exception e = assertThrows(TAException.class, () ->
+                    TaCollectionZipValidator.validateCollectionArchive(zipFile.getPath()));
+            assertTrue(e.getMessage().contains("Environment JSON not found."));
+        } finally {
+            zipFile.delete();
+        }
+    }
+
+    @Test
+    public void batchValidationTest() throws Exception {
+        File batchDir = new File(TEST_OUTPUT_DIR, "batch");
+        batchDir.mkdirs();
+        File zipFile1 = new File(batchDir, "collection1.zip");
+        File zipFile2 = new File(batchDir, "collection2.zip");
+        for (File zipFile : Arrays.asList(zipFile1, zipFile2)) {
+            try (ZipOutputStream zos = new ZipOutputStream(new FileOutputStream(zipFile))) {
+                zos.putNextEntry(new ZipEntry("collection/recommendations.json"));
+                zos.closeEntry();
+            }
+        }
+        File missingZip = new File(TEST_OUTPUT_DIR, "missing.zip");
+        File listFile = new File(TEST_OUTPUT_DIR, "archives.txt");
+        Files.write(listFile.toPath(), Arrays.asList(zipFile2.getPath(), "", missingZip.getPath()));
+
+        try {
+            List<File> archives = TaCollectionBatchValidator.findArchives(Arrays.asList(batchDir.getPath(), listFile.getPath()));
+            assertEquals(Arrays.asList(zipFile1, zipFile2, zipFile2, missingZip), archives);
+
+            TaCollectionBatchValidator batchValidator = new TaCollectionBatchValidator();
+            batchValidator.setParallelism(3);
+            TaCollectionBatchValidator.BatchResult result = batchValidator.validate(archives);
+            assertEquals(0, result.getValidCount());
+            assertEquals(4, result.getInvalidCount());
+            List<TaCollectionBatchValidator.ArchiveResult> results = result.getResults();
+            assertEquals(zipFile1.getPath(), results.get(0).getArchive());
+            assertTrue(results.get(0).getError().contains("Environment JSON not found."));
+            assertEquals(missingZip.getPath(), results.get(3).getArchive());
+            assertTrue(results.get(3).getError().contains("does not exist"));
+
+            StringWriter summary = new StringWriter();
+            result.write(summary);
+            JsonObject summaryJson = new JsonParser().parse(summary.toString()).getAsJsonObject();
+            assertEquals(4, summaryJson.get("archives").getAsInt());
+            assertEquals(3, summaryJson.get("parallelism").getAsInt());
+            assertEquals(4, summaryJson.getAsJsonArray("results").size());
+            assertFalse(summaryJson.getAsJsonArray("results").get(1).getAsJsonObject().get("valid").getAsBoolean());
+        } finally {
+            zipFile1.delete();
+            zipFile2.delete();
+            batchDir.delete();
+            listFile.delete();
+        }
+    }
+
+    @Test
+    public void batchValidationStdoutTest() throws Exception {
+        // The environment JSON of the test resources does not match the schema
+        File invalidZip = new File(TEST_OUTPUT_DIR, "invalidEnvironment.zip");
+        invalidZip.getParentFile().mkdirs();
+        try (ZipOutputStream zos = new ZipOutputStream(new FileOutputStream(invalidZip))) {
+            zos.putNextEntry(new ZipEntry("collection1/environment.json"));
+            zos.write(Files.readAllBytes(new File(TestUtils.TEST_RESOURCES_DIR, "environment.json").toPath()));
+            zos.closeEntry();
+            zos.putNextEntry(new ZipEntry("collection1/recommendations.json"));
+            zos.write(Files.readAllBytes(new File(TestUtils.TEST_RESOURCES_DIR, "assessmentUnits/London/recommendations.json").toPath()));
+            zos.closeEntry();
+        }
+        File missingZip = new File(TEST_OUTPUT_DIR, "missing.zip");
+
+        PrintStream stdout = System.out;
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try {
+            System.setOut(new PrintStream(output, true, "UTF-8"));
+            TaValidator.main(new String[] {"-b", invalidZip.getPath(), missingZip.getPath(), "-p", "2"});
+        } finally {
+            System.setOut(stdout);
+            invalidZip.delete();
+        }
+
+        // The standard output holds the summary alone, and the schema problems are in the error of the archive
+        JsonObject summaryJson = new JsonParser().parse(output.toString("UTF-8")).getAsJsonObject();
+        assertEquals(2, summaryJson.get("invalid").getAsInt());
+        JsonObject invalidResult = summaryJson.getAsJsonArray("results").get(0).getAsJsonObject();
+        assertEquals(invalidZip.getPath(), invalidResult.get("archive").getAsString());
+        String error = invalidResult.get("error").getAsString();
+        assertTrue(error.contains("not a valid environment json file"));
+        assertTrue(error.contains("pluginVersion"), error);
+    }
 }